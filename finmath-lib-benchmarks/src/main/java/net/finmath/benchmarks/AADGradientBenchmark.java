@@ -0,0 +1,111 @@
+package net.finmath.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.BrownianMotion;
+import net.finmath.montecarlo.BrownianMotionFromMersenneRandomNumbers;
+import net.finmath.montecarlo.assetderivativevaluation.MonteCarloAssetModel;
+import net.finmath.montecarlo.assetderivativevaluation.models.BlackScholesModel;
+import net.finmath.montecarlo.assetderivativevaluation.products.AbstractAssetMonteCarloProduct;
+import net.finmath.montecarlo.assetderivativevaluation.products.AsianOption;
+import net.finmath.montecarlo.assetderivativevaluation.products.BermudanOption;
+import net.finmath.montecarlo.assetderivativevaluation.products.EuropeanOption;
+import net.finmath.montecarlo.automaticdifferentiation.RandomVariableDifferentiable;
+import net.finmath.montecarlo.automaticdifferentiation.backward.RandomVariableDifferentiableAADFactory;
+import net.finmath.montecarlo.process.EulerSchemeFromProcessModel;
+import net.finmath.stochastic.RandomVariable;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * Benchmark of the valuation of an equity product under a Black-Scholes model and of its gradient
+ * with respect to the model parameters via {@link RandomVariableDifferentiable#getGradient()} (backward automatic differentiation).
+ *
+ * The operator tree is built in each invocation (the model parameters are new differentiable random variables),
+ * such that the benchmark measures the recording of the tree and the backward sweep.
+ *
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AADGradientBenchmark {
+
+	/**
+	 * The product valued in the benchmark.
+	 */
+	public enum Product {
+		EUROPEAN,
+		ASIAN,
+		BERMUDAN
+	}
+
+	private static final double maturity = 5.0;
+
+	@Param({ "1000", "10000", "100000" })
+	private int numberOfPaths;
+
+	@Param({ "20", "100" })
+	private int numberOfTimeSteps;
+
+	@Param({ "EUROPEAN", "ASIAN", "BERMUDAN" })
+	private Product product;
+
+	private final RandomVariableDifferentiableAADFactory randomVariableFactory = new RandomVariableDifferentiableAADFactory();
+
+	private BrownianMotion brownianMotion;
+	private AbstractAssetMonteCarloProduct monteCarloProduct;
+
+	@Setup
+	public void setup() {
+		final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, numberOfTimeSteps, maturity / numberOfTimeSteps);
+		brownianMotion = new BrownianMotionFromMersenneRandomNumbers(timeDiscretization, 1, numberOfPaths, 3141);
+		// Trigger the generation of the random numbers
+		brownianMotion.getBrownianIncrement(0, 0);
+
+		final double[] exerciseDates = new double[] { 1.0, 2.0, 3.0, 4.0, 5.0 };
+		switch(product) {
+		case EUROPEAN:
+			monteCarloProduct = new EuropeanOption(maturity, 1.1);
+			break;
+		case ASIAN:
+			monteCarloProduct = new AsianOption(maturity, 1.1, new TimeDiscretizationFromArray(exerciseDates));
+			break;
+		case BERMUDAN:
+			monteCarloProduct = new BermudanOption(exerciseDates, new double[] { 1.0, 1.0, 1.0, 1.0, 1.0 }, new double[] { 1.05, 1.10, 1.15, 1.20, 1.25 });
+			break;
+		default:
+			throw new IllegalArgumentException("Product " + product + " not supported.");
+		}
+	}
+
+	@Benchmark
+	public Map<Long, RandomVariable> gradient() throws CalculationException {
+		final RandomVariable initialValue	= randomVariableFactory.createRandomVariable(1.0);
+		final RandomVariable riskFreeRate	= randomVariableFactory.createRandomVariable(0.05);
+		final RandomVariable volatility		= randomVariableFactory.createRandomVariable(0.30);
+
+		final BlackScholesModel model = new BlackScholesModel(initialValue, riskFreeRate, volatility, randomVariableFactory);
+		final MonteCarloAssetModel monteCarloModel = new MonteCarloAssetModel(new EulerSchemeFromProcessModel(model, brownianMotion));
+
+		final RandomVariable value = monteCarloProduct.getValue(0.0, monteCarloModel);
+		return ((RandomVariableDifferentiable)value).getGradient();
+	}
+}
@@ -0,0 +1,40 @@
+package net.finmath.benchmarks;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the finmath lib benchmarks.
+ *
+ * Without arguments, all benchmarks of this package are run, reporting the throughput and
+ * the allocation rate (via the JMH GC profiler). If arguments are given, they are passed to the JMH command line
+ * (see <code>java -jar benchmarks.jar -h</code>).
+ *
+ * @version 1.0
+ */
+public class BenchmarkRunner {
+
+	private BenchmarkRunner() {
+	}
+
+	public static void main(final String[] args) throws RunnerException, IOException {
+		if(args.length > 0) {
+			org.openjdk.jmh.Main.main(args);
+			return;
+		}
+
+		final Options options = new OptionsBuilder()
+				.include(BenchmarkRunner.class.getPackage().getName() + ".*")
+				.mode(Mode.Throughput)
+				.addProfiler(GCProfiler.class)
+				.build();
+
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,83 @@
+package net.finmath.benchmarks;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.finmath.marketdata.calibration.CalibratedCurves;
+import net.finmath.marketdata.calibration.CalibratedCurves.CalibrationSpec;
+import net.finmath.marketdata.model.AnalyticModel;
+import net.finmath.marketdata.model.AnalyticModelFromCurvesAndVols;
+import net.finmath.marketdata.model.curves.Curve;
+import net.finmath.marketdata.model.curves.CurveInterpolation.ExtrapolationMethod;
+import net.finmath.marketdata.model.curves.CurveInterpolation.InterpolationEntity;
+import net.finmath.marketdata.model.curves.CurveInterpolation.InterpolationMethod;
+import net.finmath.marketdata.model.curves.DiscountCurveInterpolation;
+import net.finmath.marketdata.model.curves.ForwardCurveFromDiscountCurve;
+import net.finmath.optimizer.SolverException;
+import net.finmath.time.Schedule;
+import net.finmath.time.ScheduleGenerator;
+import net.finmath.time.businessdaycalendar.BusinessdayCalendarExcludingTARGETHolidays;
+
+/**
+ * Benchmark of the calibration of a (self-discounted) OIS curve to a strip of annual swaps by {@link CalibratedCurves}.
+ *
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CalibratedCurvesBenchmark {
+
+	private static final LocalDate referenceDate = LocalDate.of(2012, 1, 10);
+
+	@Param({ "10", "30" })
+	private int numberOfInstruments;
+
+	private CalibrationSpec[] calibrationSpecs;
+	private AnalyticModelFromCurvesAndVols curveTemplates;
+
+	@Setup
+	public void setup() {
+		calibrationSpecs = new CalibrationSpec[numberOfInstruments];
+		for(int instrumentIndex = 0; instrumentIndex < numberOfInstruments; instrumentIndex++) {
+			final String maturity = (instrumentIndex + 1) + "Y";
+			final double rate = 0.01 + 0.001 * Math.sqrt(instrumentIndex + 1.0);
+
+			final Schedule scheduleReceiver = ScheduleGenerator.createScheduleFromConventions(referenceDate, 2, "0D", maturity, "annual", "act/360", "first", "modified_following", new BusinessdayCalendarExcludingTARGETHolidays(), 0, 1);
+			final Schedule schedulePayer = ScheduleGenerator.createScheduleFromConventions(referenceDate, 2, "0D", maturity, "annual", "act/360", "first", "modified_following", new BusinessdayCalendarExcludingTARGETHolidays(), 0, 1);
+			final double calibrationTime = scheduleReceiver.getPayment(scheduleReceiver.getNumberOfPeriods() - 1);
+
+			calibrationSpecs[instrumentIndex] = new CalibrationSpec("EUR-OIS-" + maturity, "Swap",
+					scheduleReceiver, "forward-EUR-OIS", 0.0, "discount-EUR-OIS",
+					schedulePayer, "", rate, "discount-EUR-OIS",
+					"discount-EUR-OIS", calibrationTime);
+		}
+
+		// Empty curve templates (cloned during calibration)
+		final DiscountCurveInterpolation discountCurve = DiscountCurveInterpolation.createDiscountCurveFromDiscountFactors("discount-EUR-OIS", referenceDate,
+				new double[] { 0.0 }, new double[] { 1.0 }, new boolean[] { false }, InterpolationMethod.LINEAR, ExtrapolationMethod.CONSTANT, InterpolationEntity.LOG_OF_VALUE);
+		final ForwardCurveFromDiscountCurve forwardCurve = new ForwardCurveFromDiscountCurve("forward-EUR-OIS", "discount-EUR-OIS", referenceDate, "3M");
+
+		curveTemplates = new AnalyticModelFromCurvesAndVols(new Curve[] { discountCurve, forwardCurve });
+	}
+
+	@Benchmark
+	public AnalyticModel calibration() throws SolverException, CloneNotSupportedException {
+		return new CalibratedCurves(calibrationSpecs, curveTemplates, 1E-15).getModel();
+	}
+}
@@ -0,0 +1,105 @@
+package net.finmath.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.marketdata.model.curves.ForwardCurveInterpolation;
+import net.finmath.montecarlo.BrownianMotion;
+import net.finmath.montecarlo.BrownianMotionFromMersenneRandomNumbers;
+import net.finmath.montecarlo.interestrate.LIBORMarketModel;
+import net.finmath.montecarlo.interestrate.models.LIBORMarketModelFromCovarianceModel;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORCorrelationModelExponentialDecay;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORCovarianceModelFromVolatilityAndCorrelation;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORVolatilityModelFromGivenMatrix;
+import net.finmath.montecarlo.process.EulerSchemeFromProcessModel;
+import net.finmath.montecarlo.process.EulerSchemeFromProcessModel.ParallelizationStrategy;
+import net.finmath.montecarlo.process.EulerSchemeFromProcessModel.Scheme;
+import net.finmath.stochastic.RandomVariable;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * Benchmark of the simulation of a (log-normal, spot measure) LIBOR market model by {@link EulerSchemeFromProcessModel}.
+ *
+ * The Brownian motion is generated once per trial, such that the benchmark measures the time stepping of the Euler scheme.
+ *
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EulerSchemeBenchmark {
+
+	private static final double liborPeriodLength = 0.5;
+	private static final double liborRateTimeHorizon = 10.0;
+
+	@Param({ "1000", "10000" })
+	private int numberOfPaths;
+
+	@Param({ "20", "80" })
+	private int numberOfTimeSteps;
+
+	@Param({ "1", "5" })
+	private int numberOfFactors;
+
+	@Param({ "COMPONENTS", "PATHS" })
+	private ParallelizationStrategy parallelizationStrategy;
+
+	private LIBORMarketModel model;
+	private BrownianMotion brownianMotion;
+
+	@Setup
+	public void setup() throws CalculationException {
+		final TimeDiscretization liborPeriodDiscretization = new TimeDiscretizationFromArray(0.0, (int)(liborRateTimeHorizon / liborPeriodLength), liborPeriodLength);
+		final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, numberOfTimeSteps, liborRateTimeHorizon / numberOfTimeSteps);
+
+		final ForwardCurveInterpolation forwardCurve = ForwardCurveInterpolation.createForwardCurveFromForwards(
+				"forwardCurve",
+				new double[] { 0.5, 1.0, 2.0, 5.0, 40.0 }	/* fixings of the forward */,
+				new double[] { 0.05, 0.05, 0.05, 0.05, 0.05 }	/* forwards */,
+				liborPeriodLength);
+
+		// A simple volatility model v[i][j] = sigma_j(t_i)
+		final double[][] volatility = new double[timeDiscretization.getNumberOfTimeSteps()][liborPeriodDiscretization.getNumberOfTimeSteps()];
+		for(int timeIndex = 0; timeIndex < volatility.length; timeIndex++) {
+			for(int liborIndex = 0; liborIndex < volatility[timeIndex].length; liborIndex++) {
+				final double timeToMaturity = liborPeriodDiscretization.getTime(liborIndex) - timeDiscretization.getTime(timeIndex);
+				volatility[timeIndex][liborIndex] = timeToMaturity <= 0 ? 0.0 : 0.3 + 0.2 * Math.exp(-0.25 * timeToMaturity);
+			}
+		}
+
+		final LIBORCovarianceModelFromVolatilityAndCorrelation covarianceModel = new LIBORCovarianceModelFromVolatilityAndCorrelation(
+				timeDiscretization, liborPeriodDiscretization,
+				new LIBORVolatilityModelFromGivenMatrix(timeDiscretization, liborPeriodDiscretization, volatility),
+				new LIBORCorrelationModelExponentialDecay(timeDiscretization, liborPeriodDiscretization, numberOfFactors, 0.2));
+
+		model = new LIBORMarketModelFromCovarianceModel(liborPeriodDiscretization, forwardCurve, covarianceModel);
+
+		brownianMotion = new BrownianMotionFromMersenneRandomNumbers(timeDiscretization, numberOfFactors, numberOfPaths, 3141);
+		// Trigger the generation of the random numbers
+		brownianMotion.getBrownianIncrement(0, 0);
+	}
+
+	@Benchmark
+	public RandomVariable simulation() {
+		final EulerSchemeFromProcessModel process = new EulerSchemeFromProcessModel(model, brownianMotion, Scheme.EULER_FUNCTIONAL, parallelizationStrategy);
+
+		// The simulation of all components is triggered by the first request
+		return process.getProcessValue(numberOfTimeSteps, model.getNumberOfComponents() - 1);
+	}
+}
@@ -0,0 +1,89 @@
+package net.finmath.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.finmath.optimizer.LevenbergMarquardt;
+import net.finmath.optimizer.SolverException;
+
+/**
+ * Benchmark of {@link LevenbergMarquardt} fitting the non-linear function
+ * \( x \mapsto \exp(\sum_{j} p_{j} x^{j}) \) to values generated from given parameters.
+ *
+ * The derivatives are calculated by the default finite differences of the optimizer, such that the benchmark
+ * covers the (parallel) evaluation of the Jacobian and the solution of the normal equations.
+ *
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LevenbergMarquardtBenchmark {
+
+	@Param({ "5", "20", "50" })
+	private int numberOfParameters;
+
+	@Param({ "1", "4" })
+	private int numberOfThreads;
+
+	private double[] arguments;
+	private double[] targetValues;
+
+	@Setup
+	public void setup() {
+		final int numberOfValues = 4 * numberOfParameters;
+
+		final double[] parameters = new double[numberOfParameters];
+		for(int j = 0; j < numberOfParameters; j++) {
+			parameters[j] = 0.1 / (j + 1);
+		}
+
+		arguments = new double[numberOfValues];
+		targetValues = new double[numberOfValues];
+		for(int i = 0; i < numberOfValues; i++) {
+			arguments[i] = (double)i / (numberOfValues - 1);
+		}
+		setValues(arguments, parameters, targetValues);
+	}
+
+	@Benchmark
+	public double[] calibration() throws SolverException {
+		final LevenbergMarquardt optimizer = new LevenbergMarquardt(new double[numberOfParameters], targetValues, 100, numberOfThreads) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void setValues(final double[] parameters, final double[] values) {
+				LevenbergMarquardtBenchmark.setValues(arguments, parameters, values);
+			}
+		};
+		optimizer.run();
+
+		return optimizer.getBestFitParameters();
+	}
+
+	private static void setValues(final double[] arguments, final double[] parameters, final double[] values) {
+		for(int i = 0; i < arguments.length; i++) {
+			double exponent = 0.0;
+			double power = 1.0;
+			for(final double parameter : parameters) {
+				exponent += parameter * power;
+				power *= arguments[i];
+			}
+			values[i] = Math.exp(exponent);
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package net.finmath.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.finmath.montecarlo.RandomVariableFromDoubleArray;
+import net.finmath.randomnumbers.MersenneTwister;
+import net.finmath.stochastic.RandomVariable;
+
+/**
+ * Benchmarks of the arithmetic and the reductions of {@link RandomVariableFromDoubleArray}.
+ *
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RandomVariableBenchmark {
+
+	@Param({ "10000", "100000", "1000000" })
+	private int numberOfPaths;
+
+	private RandomVariable x;
+	private RandomVariable y;
+	private RandomVariable z;
+
+	@Setup
+	public void setup() {
+		final MersenneTwister mersenneTwister = new MersenneTwister(3141);
+
+		final double[] realizationsX = new double[numberOfPaths];
+		final double[] realizationsY = new double[numberOfPaths];
+		final double[] realizationsZ = new double[numberOfPaths];
+		for(int path = 0; path < numberOfPaths; path++) {
+			realizationsX[path] = mersenneTwister.nextDouble();
+			realizationsY[path] = mersenneTwister.nextDouble();
+			realizationsZ[path] = mersenneTwister.nextDouble();
+		}
+
+		x = new RandomVariableFromDoubleArray(0.0, realizationsX);
+		y = new RandomVariableFromDoubleArray(0.0, realizationsY);
+		z = new RandomVariableFromDoubleArray(0.0, realizationsZ);
+	}
+
+	@Benchmark
+	public RandomVariable add() {
+		return x.add(y);
+	}
+
+	@Benchmark
+	public RandomVariable mult() {
+		return x.mult(y);
+	}
+
+	@Benchmark
+	public RandomVariable exp() {
+		return x.exp();
+	}
+
+	@Benchmark
+	public RandomVariable addProduct() {
+		return x.addProduct(y, z);
+	}
+
+	/**
+	 * A chain of operations as it appears in the valuation of an option (payoff, discounting).
+	 *
+	 * @return The discounted payoff.
+	 */
+	@Benchmark
+	public RandomVariable optionPayoff() {
+		return x.sub(0.5).floor(0.0).mult(y).div(z.add(1.0));
+	}
+
+	@Benchmark
+	public double getAverage() {
+		return x.getAverage();
+	}
+
+	@Benchmark
+	public double getVariance() {
+		return x.getVariance();
+	}
+}
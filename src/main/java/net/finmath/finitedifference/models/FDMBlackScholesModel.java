@@ -25,6 +25,7 @@ public class FDMBlackScholesModel implements FiniteDifference1DModel {
 	private final int numStandardDeviations;
 	private final double center;
 	private final double theta;
+	private final FDMThetaMethod.LinearSystemSolver linearSystemSolver;
 
 	public FDMBlackScholesModel(
 			final int numTimesteps,
@@ -34,7 +35,8 @@ public class FDMBlackScholesModel implements FiniteDifference1DModel {
 			final double theta,
 			final double initialValue,
 			final double riskFreeRate,
-			final double volatility) {
+			final double volatility,
+			final FDMThetaMethod.LinearSystemSolver linearSystemSolver) {
 		this.initialValue = initialValue;
 		this.riskFreeRate = riskFreeRate;
 		this.volatility = volatility;
@@ -44,6 +46,19 @@ public class FDMBlackScholesModel implements FiniteDifference1DModel {
 		this.numStandardDeviations = numStandardDeviations;
 		this.center = center;
 		this.theta = theta;
+		this.linearSystemSolver = linearSystemSolver;
+	}
+
+	public FDMBlackScholesModel(
+			final int numTimesteps,
+			final int numSpacesteps,
+			final int numStandardDeviations,
+			final double center,
+			final double theta,
+			final double initialValue,
+			final double riskFreeRate,
+			final double volatility) {
+		this(numTimesteps, numSpacesteps, numStandardDeviations, center, theta, initialValue, riskFreeRate, volatility, FDMThetaMethod.LinearSystemSolver.LU_DECOMPOSITION);
 	}
 
 	@Override
@@ -93,7 +108,7 @@ public class FDMBlackScholesModel implements FiniteDifference1DModel {
 
 	@Override
 	public double[][] getValue(final double evaluationnTime, final double time, final DoubleUnaryOperator values, final FiniteDifference1DBoundary boundary) {
-		final FDMThetaMethod solver = new FDMThetaMethod(this, boundary, time, center, theta);
+		final FDMThetaMethod solver = new FDMThetaMethod(this, boundary, time, center, theta, linearSystemSolver);
 		return solver.getValue(evaluationnTime, time, values);
 	}
 
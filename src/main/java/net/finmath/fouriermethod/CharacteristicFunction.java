@@ -22,4 +22,23 @@ import org.apache.commons.math3.complex.Complex;
 @FunctionalInterface
 public interface CharacteristicFunction extends Function<Complex, Complex> {
 
+	/**
+	 * Evaluates the characteristic function for a vector of arguments.
+	 *
+	 * The complex numbers are stored interleaved, i.e., the real part of the k-th argument is <code>arguments[2*k]</code>
+	 * and its imaginary part is <code>arguments[2*k+1]</code>. The same layout is used for the values.
+	 *
+	 * The default implementation calls {@link #apply(Object)} for each argument. Implementations may override this method
+	 * to avoid the allocation of {@link Complex} objects.
+	 *
+	 * @param arguments The interleaved real and imaginary parts of the arguments.
+	 * @param values Array receiving the interleaved real and imaginary parts of the values (needs to be at least as long as <code>arguments</code>).
+	 */
+	default void apply(final double[] arguments, final double[] values) {
+		for(int k = 0; k < arguments.length/2; k++) {
+			final Complex value = apply(new Complex(arguments[2*k], arguments[2*k+1]));
+			values[2*k]		= value.getReal();
+			values[2*k+1]	= value.getImaginary();
+		}
+	}
 }
@@ -0,0 +1,126 @@
+
+package net.finmath.fouriermethod;
+
+/**
+ * Radix-2 fast Fourier transform operating in place on primitive arrays.
+ *
+ * The complex numbers are stored interleaved, i.e., the real part of the k-th element is <code>data[2*k]</code>
+ * and its imaginary part is <code>data[2*k+1]</code>. The transform does not allocate any objects,
+ * the tables of the roots of unity and of the bit reversal permutation are calculated in the constructor.
+ *
+ * The forward transform is
+ * \[
+ * 	X_{k} = \sum_{j=0}^{n-1} x_{j} \exp(-2 \pi i j k / n)
+ * \]
+ * which corresponds to the standard normalization of the forward transform of commons-math.
+ *
+ * Instances of this class are immutable and may be shared among threads.
+ *
+ * @version 1.0
+ */
+public class FastFourierTransform {
+
+	private final int numberOfPoints;
+
+	private final int[] bitReversal;
+	private final double[] cosine;
+	private final double[] sine;
+
+	/**
+	 * Create a fast Fourier transform for a given number of points.
+	 *
+	 * @param numberOfPoints The number of points, has to be a power of two.
+	 */
+	public FastFourierTransform(final int numberOfPoints) {
+		if(numberOfPoints < 1 || (numberOfPoints & (numberOfPoints-1)) != 0) {
+			throw new IllegalArgumentException("The number of points has to be a power of two. Given: " + numberOfPoints + ".");
+		}
+		this.numberOfPoints = numberOfPoints;
+
+		bitReversal = new int[numberOfPoints];
+		final int numberOfBits = Integer.numberOfTrailingZeros(numberOfPoints);
+		for(int i = 0; i < numberOfPoints; i++) {
+			bitReversal[i] = numberOfBits == 0 ? 0 : Integer.reverse(i) >>> (Integer.SIZE - numberOfBits);
+		}
+
+		cosine = new double[numberOfPoints/2];
+		sine = new double[numberOfPoints/2];
+		for(int k = 0; k < numberOfPoints/2; k++) {
+			final double angle = 2.0 * Math.PI * k / numberOfPoints;
+			cosine[k] = Math.cos(angle);
+			sine[k] = Math.sin(angle);
+		}
+	}
+
+	/**
+	 * Performs the forward transform \( X_{k} = \sum_{j} x_{j} \exp(-2 \pi i j k / n) \) in place.
+	 *
+	 * @param data The interleaved real and imaginary parts of the data (of length 2 n).
+	 */
+	public void transform(final double[] data) {
+		transform(data, -1.0);
+	}
+
+	/**
+	 * Performs the inverse transform \( x_{j} = \frac{1}{n} \sum_{k} X_{k} \exp(2 \pi i j k / n) \) in place.
+	 *
+	 * @param data The interleaved real and imaginary parts of the data (of length 2 n).
+	 */
+	public void inverseTransform(final double[] data) {
+		transform(data, 1.0);
+
+		final double scaling = 1.0 / numberOfPoints;
+		for(int i = 0; i < 2*numberOfPoints; i++) {
+			data[i] *= scaling;
+		}
+	}
+
+	/**
+	 * @return The number of points of this transform.
+	 */
+	public int getNumberOfPoints() {
+		return numberOfPoints;
+	}
+
+	private void transform(final double[] data, final double sign) {
+		if(data.length < 2*numberOfPoints) {
+			throw new IllegalArgumentException("The data array needs to have length " + 2*numberOfPoints + ". Given: " + data.length + ".");
+		}
+
+		// Bit reversal permutation
+		for(int i = 0; i < numberOfPoints; i++) {
+			final int j = bitReversal[i];
+			if(j > i) {
+				final double real = data[2*i];
+				final double imag = data[2*i+1];
+				data[2*i]	= data[2*j];
+				data[2*i+1]	= data[2*j+1];
+				data[2*j]	= real;
+				data[2*j+1]	= imag;
+			}
+		}
+
+		// Butterflies
+		for(int length = 2; length <= numberOfPoints; length <<= 1) {
+			final int half = length / 2;
+			final int step = numberOfPoints / length;
+			for(int start = 0; start < numberOfPoints; start += length) {
+				for(int k = 0; k < half; k++) {
+					final double rootReal = cosine[k*step];
+					final double rootImag = sign * sine[k*step];
+
+					final int a = 2*(start+k);
+					final int b = 2*(start+k+half);
+
+					final double productReal = rootReal * data[b] - rootImag * data[b+1];
+					final double productImag = rootReal * data[b+1] + rootImag * data[b];
+
+					data[b]		= data[a] - productReal;
+					data[b+1]	= data[a+1] - productImag;
+					data[a]		+= productReal;
+					data[a+1]	+= productImag;
+				}
+			}
+		}
+	}
+}
@@ -103,6 +103,26 @@ public class BlackScholesModel implements CharacteristicFunctionModel {
 						.add(logDiscountFactorForDiscounting)
 						.exp();
 			}
+
+			@Override
+			public void apply(final double[] arguments, final double[] values) {
+				final double drift = Math.log(initialValue)-0.5*volatility*volatility*time-logDiscountFactorForForward;
+				for(int k = 0; k < arguments.length/2; k++) {
+					// iargument = i * argument
+					final double iargumentReal = -arguments[2*k+1];
+					final double iargumentImag = arguments[2*k];
+
+					final double factorReal = iargumentReal * 0.5*volatility*volatility*time + drift;
+					final double factorImag = iargumentImag * 0.5*volatility*volatility*time;
+
+					final double exponentReal = iargumentReal * factorReal - iargumentImag * factorImag + logDiscountFactorForDiscounting;
+					final double exponentImag = iargumentReal * factorImag + iargumentImag * factorReal;
+
+					final double modulus = Math.exp(exponentReal);
+					values[2*k]		= modulus * Math.cos(exponentImag);
+					values[2*k+1]	= modulus * Math.sin(exponentImag);
+				}
+			}
 		};
 	}
 
@@ -183,6 +183,85 @@ public class HestonModel implements CharacteristicFunctionModel {
 
 				return a.add(b.multiply(volatility*volatility)).add(iargument.multiply(Math.log(initialValue) - logDiscountFactorForForward)).add(logDiscountFactorForDiscounting).exp();
 			}
+
+			@Override
+			public void apply(final double[] arguments, final double[] values) {
+				final double drift = Math.log(initialValue) - logDiscountFactorForForward;
+				for(int k = 0; k < arguments.length/2; k++) {
+					// iargument = i * argument
+					final double iargumentReal = -arguments[2*k+1];
+					final double iargumentImag = arguments[2*k];
+
+					// iargument^2 - iargument
+					final double quadraticReal = iargumentReal*iargumentReal - iargumentImag*iargumentImag - iargumentReal;
+					final double quadraticImag = 2.0*iargumentReal*iargumentImag - iargumentImag;
+
+					// beta = iargument rho xi - kappa
+					final double betaReal = iargumentReal * rho * xi - kappa;
+					final double betaImag = iargumentImag * rho * xi;
+
+					// gamma = sqrt(beta^2 - xi^2 (iargument^2 - iargument)), principal branch
+					final double gammaSquaredReal = betaReal*betaReal - betaImag*betaImag - xi*xi*quadraticReal;
+					final double gammaSquaredImag = 2.0*betaReal*betaImag - xi*xi*quadraticImag;
+					final double gammaReal;
+					final double gammaImag;
+					if(gammaSquaredReal == 0.0 && gammaSquaredImag == 0.0) {
+						gammaReal = 0.0;
+						gammaImag = 0.0;
+					}
+					else {
+						final double t = Math.sqrt((Math.abs(gammaSquaredReal) + Math.sqrt(gammaSquaredReal*gammaSquaredReal + gammaSquaredImag*gammaSquaredImag)) / 2.0);
+						if(gammaSquaredReal >= 0.0) {
+							gammaReal = t;
+							gammaImag = gammaSquaredImag / (2.0 * t);
+						}
+						else {
+							gammaReal = Math.abs(gammaSquaredImag) / (2.0 * t);
+							gammaImag = Math.copySign(1.0, gammaSquaredImag) * t;
+						}
+					}
+
+					// e = exp(-gamma time)
+					final double eModulus = Math.exp(-gammaReal * time);
+					final double eReal = eModulus * Math.cos(-gammaImag * time);
+					final double eImag = eModulus * Math.sin(-gammaImag * time);
+
+					// beta - gamma
+					final double betaMinusGammaReal = betaReal - gammaReal;
+					final double betaMinusGammaImag = betaImag - gammaImag;
+
+					// (e - 1) / gamma
+					final double gammaAbsSquared = gammaReal*gammaReal + gammaImag*gammaImag;
+					final double ratioReal = ((eReal - 1.0) * gammaReal + eImag * gammaImag) / gammaAbsSquared;
+					final double ratioImag = (eImag * gammaReal - (eReal - 1.0) * gammaImag) / gammaAbsSquared;
+
+					// log((beta - gamma) (e - 1) / gamma / 2 + e) + gamma time
+					final double logArgumentReal = 0.5 * (betaMinusGammaReal * ratioReal - betaMinusGammaImag * ratioImag) + eReal;
+					final double logArgumentImag = 0.5 * (betaMinusGammaReal * ratioImag + betaMinusGammaImag * ratioReal) + eImag;
+					final double logReal = 0.5 * Math.log(logArgumentReal*logArgumentReal + logArgumentImag*logArgumentImag) + gammaReal * time;
+					final double logImag = Math.atan2(logArgumentImag, logArgumentReal) + gammaImag * time;
+
+					final double aReal = betaMinusGammaReal * (-theta*kappa * time) / (xi * xi) - logReal * (2 * theta*kappa) / (xi * xi);
+					final double aImag = betaMinusGammaImag * (-theta*kappa * time) / (xi * xi) - logImag * (2 * theta*kappa) / (xi * xi);
+
+					// b = -(iargument^2 - iargument) / (beta + gamma (e + 1) / (e - 1))
+					final double eMinusOneAbsSquared = (eReal - 1.0)*(eReal - 1.0) + eImag*eImag;
+					final double fractionReal = ((eReal + 1.0) * (eReal - 1.0) + eImag * eImag) / eMinusOneAbsSquared;
+					final double fractionImag = (eImag * (eReal - 1.0) - (eReal + 1.0) * eImag) / eMinusOneAbsSquared;
+					final double denominatorReal = betaReal + gammaReal * fractionReal - gammaImag * fractionImag;
+					final double denominatorImag = betaImag + gammaReal * fractionImag + gammaImag * fractionReal;
+					final double denominatorAbsSquared = denominatorReal*denominatorReal + denominatorImag*denominatorImag;
+					final double bReal = -(quadraticReal * denominatorReal + quadraticImag * denominatorImag) / denominatorAbsSquared;
+					final double bImag = -(quadraticImag * denominatorReal - quadraticReal * denominatorImag) / denominatorAbsSquared;
+
+					final double exponentReal = aReal + bReal * volatility*volatility + iargumentReal * drift + logDiscountFactorForDiscounting;
+					final double exponentImag = aImag + bImag * volatility*volatility + iargumentImag * drift;
+
+					final double modulus = Math.exp(exponentReal);
+					values[2*k]		= modulus * Math.cos(exponentImag);
+					values[2*k+1]	= modulus * Math.sin(exponentImag);
+				}
+			}
 		};
 	}
 
@@ -141,6 +141,37 @@ public class MertonModel implements CharacteristicFunctionModel{
 						.add(logDiscountFactorForDiscounting).add(jumpTransform.subtract(jumpTransformCompensator))
 						.exp();
 			}
+
+			@Override
+			public void apply(final double[] arguments, final double[] values) {
+				final double drift = Math.log(initialValue)-0.5*volatility*volatility*time-logDiscountFactorForForward;
+				final double jumpTransformCompensator = jumpIntensity*time*(Math.exp(transformedMean+jumpSizeStdDev*jumpSizeStdDev/2.0)-1.0);
+				for(int k = 0; k < arguments.length/2; k++) {
+					// iargument = i * argument
+					final double iargumentReal = -arguments[2*k+1];
+					final double iargumentImag = arguments[2*k];
+
+					final double iargumentSquaredReal = iargumentReal * iargumentReal - iargumentImag * iargumentImag;
+					final double iargumentSquaredImag = 2.0 * iargumentReal * iargumentImag;
+
+					// jumpTransform = (exp(iargument * m + iargument^2 s^2/2) - 1) * lambda t
+					final double jumpExponentReal = iargumentReal * transformedMean + iargumentSquaredReal * jumpSizeStdDev*jumpSizeStdDev/2.0;
+					final double jumpExponentImag = iargumentImag * transformedMean + iargumentSquaredImag * jumpSizeStdDev*jumpSizeStdDev/2.0;
+					final double jumpModulus = Math.exp(jumpExponentReal);
+					final double jumpTransformReal = (jumpModulus * Math.cos(jumpExponentImag) - 1.0) * jumpIntensity*time;
+					final double jumpTransformImag = jumpModulus * Math.sin(jumpExponentImag) * jumpIntensity*time;
+
+					final double factorReal = iargumentReal * 0.5*volatility*volatility*time + drift;
+					final double factorImag = iargumentImag * 0.5*volatility*volatility*time;
+
+					final double exponentReal = iargumentReal * factorReal - iargumentImag * factorImag + logDiscountFactorForDiscounting + jumpTransformReal - jumpTransformCompensator;
+					final double exponentImag = iargumentReal * factorImag + iargumentImag * factorReal + jumpTransformImag;
+
+					final double modulus = Math.exp(exponentReal);
+					values[2*k]		= modulus * Math.cos(exponentImag);
+					values[2*k+1]	= modulus * Math.sin(exponentImag);
+				}
+			}
 		};
 
 	}
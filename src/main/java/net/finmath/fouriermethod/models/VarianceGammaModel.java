@@ -100,6 +100,36 @@ public class VarianceGammaModel implements CharacteristicFunctionModel {
 						.add(logDiscountFactorForDiscounting))
 						.exp();
 			}
+
+			@Override
+			public void apply(final double[] arguments, final double[] values) {
+				final double compensator = time/nu * Math.log(1/(1.0-theta*nu-0.5*sigma*sigma*nu));
+				final double drift = Math.log(initialValue)-logDiscountFactorForForward - compensator;
+				for(int k = 0; k < arguments.length/2; k++) {
+					final double argumentReal = arguments[2*k];
+					final double argumentImag = arguments[2*k+1];
+
+					// iargument = i * argument
+					final double iargumentReal = -argumentImag;
+					final double iargumentImag = argumentReal;
+
+					// denominator = 1 - iargument theta nu + argument^2 sigma^2 nu / 2
+					final double denominatorReal = 1.0 - iargumentReal*theta*nu + (argumentReal*argumentReal - argumentImag*argumentImag)*0.5*sigma*sigma*nu;
+					final double denominatorImag = -iargumentImag*theta*nu + 2.0*argumentReal*argumentImag*0.5*sigma*sigma*nu;
+
+					// log(1/denominator) time/nu
+					final double denominatorSquared = denominatorReal*denominatorReal + denominatorImag*denominatorImag;
+					final double firstLevyExponentReal = -0.5 * Math.log(denominatorSquared) * time/nu;
+					final double firstLevyExponentImag = Math.atan2(-denominatorImag / denominatorSquared, denominatorReal / denominatorSquared) * time/nu;
+
+					final double exponentReal = firstLevyExponentReal + iargumentReal * drift + logDiscountFactorForDiscounting;
+					final double exponentImag = firstLevyExponentImag + iargumentImag * drift;
+
+					final double modulus = Math.exp(exponentReal);
+					values[2*k]		= modulus * Math.cos(exponentImag);
+					values[2*k+1]	= modulus * Math.sin(exponentImag);
+				}
+			}
 		};
 	}
 
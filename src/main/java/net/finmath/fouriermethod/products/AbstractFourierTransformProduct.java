@@ -20,12 +20,37 @@ import net.finmath.integration.SimpsonRealIntegrator;
 import net.finmath.modelling.Model;
 
 /**
+ * Base class for the valuation of a product by integrating the product of the characteristic function of the model
+ * and the Fourier transform of the payoff along a line parallel to the real axis.
+ *
+ * The integration rule may be specified in the constructor. The default is a Simpson rule with 20000 points on [-100, 100].
+ * An {@link net.finmath.integration.AdaptiveGaussKronrodRealIntegrator} usually requires much fewer evaluations of the characteristic function.
+ *
  * @author Christian Fries
  *
  * @version 1.0
  */
 public abstract class AbstractFourierTransformProduct implements CharacteristicFunction, FourierTransformProduct {
 
+	private final RealIntegral integrator;
+
+	/**
+	 * Create the product using a given integration rule.
+	 *
+	 * @param integrator The integration rule used to integrate over the real line (the domain of integration is given by the integrator).
+	 */
+	public AbstractFourierTransformProduct(final RealIntegral integrator) {
+		super();
+		this.integrator = integrator;
+	}
+
+	/**
+	 * Create the product using the default integration rule (Simpson rule with 20000 points on [-100, 100]).
+	 */
+	public AbstractFourierTransformProduct() {
+		this(new SimpsonRealIntegrator(-100.0, 100.0, 20000, true));
+	}
+
 	/* (non-Javadoc)
 	 * @see net.finmath.fouriermethod.products.FourierTransformProduct#getValue(double, net.finmath.modelling.Model)
 	 */
@@ -74,11 +99,18 @@ public abstract class AbstractFourierTransformProduct implements CharacteristicF
 			}
 		};
 
-		final RealIntegral integrator = new SimpsonRealIntegrator(-100.0, 100.0, 20000, true);
-
 		return integrator.integrate(integrand) / 2.0 / Math.PI;
 	}
 
+	/**
+	 * Return the integration rule used to integrate over the real line.
+	 *
+	 * @return The integration rule.
+	 */
+	public RealIntegral getIntegrator() {
+		return integrator;
+	}
+
 	/* (non-Javadoc)
 	 * @see net.finmath.fouriermethod.products.FourierTransformProduct#getMaturity()
 	 */
@@ -7,6 +7,8 @@ package net.finmath.fouriermethod.products;
 
 import org.apache.commons.math3.complex.Complex;
 
+import net.finmath.integration.RealIntegral;
+
 /**
  * Implements valuation of a European option on a single asset.
  *
@@ -29,6 +31,21 @@ public class EuropeanOption extends AbstractFourierTransformProduct {
 	private final double maturity;
 	private final double strike;
 
+	/**
+	 * Construct a product representing an European option on an asset S, valued using a given integration rule.
+	 *
+	 * @param underlyingName Name of the underlying
+	 * @param maturity The maturity T in the option payoff max(S(T)-K,0)
+	 * @param strike The strike K in the option payoff max(S(T)-K,0).
+	 * @param integrator The integration rule used to integrate over the real line.
+	 */
+	public EuropeanOption(final String underlyingName, final double maturity, final double strike, final RealIntegral integrator) {
+		super(integrator);
+		this.underlyingName = underlyingName;
+		this.maturity = maturity;
+		this.strike = strike;
+	}
+
 	public EuropeanOption(final String underlyingName, final double maturity, final double strike) {
 		super();
 		this.underlyingName = underlyingName;
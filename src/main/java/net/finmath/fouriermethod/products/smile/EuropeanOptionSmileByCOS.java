@@ -0,0 +1,180 @@
+
+package net.finmath.fouriermethod.products.smile;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.apache.commons.math3.complex.Complex;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.fouriermethod.CharacteristicFunction;
+import net.finmath.fouriermethod.models.CharacteristicFunctionModel;
+
+/**
+ * This class computes the prices of a collection of call options for a fixed maturity and a family of strikes
+ * using the COS method of Fang and Oosterlee (2008).
+ *
+ * The density of the logarithm of the underlying at maturity is expanded into a Fourier cosine series on
+ * a truncated domain [a, b]. The coefficients of the series are given by the characteristic function evaluated
+ * at the points \( u_{k} = k \pi / (b-a) \), \( k = 0, \ldots, N-1 \). These evaluations do not depend on the strike,
+ * such that all strikes are valued from the same set of evaluations: the value for a given strike is a sum of N terms.
+ * The put values are calculated from the series and the call values are obtained by put-call parity.
+ *
+ * The truncation domain is \( [c_{1} - L \sqrt{c_{2} + \sqrt{c_{4}}}, c_{1} + L \sqrt{c_{2} + \sqrt{c_{4}}}] \), where the
+ * cumulants \( c_{1}, c_{2}, c_{4} \) of the logarithm of the underlying are obtained by finite differences of the
+ * logarithm of the characteristic function at zero.
+ *
+ * References:
+ * <ul>
+ *  <li> Fang, F. and Oosterlee, C. W. (2008) A novel pricing method for European options based on Fourier-cosine series expansions. SIAM Journal on Scientific Computing.</li>
+ * </ul>
+ *
+ * @version 1.0
+ */
+public class EuropeanOptionSmileByCOS extends EuropeanOptionSmile {
+
+	// Step size used to calculate the cumulants from the characteristic function
+	private static final double cumulantStep = 0.05;
+
+	private final int numberOfTerms;
+	private final double truncationWidth;
+
+	/**
+	 * Create the valuation of a smile using the COS method.
+	 *
+	 * @param underlyingName Name of the underlying.
+	 * @param maturity The maturity.
+	 * @param strikes The strikes.
+	 * @param numberOfTerms The number of terms N of the cosine series.
+	 * @param truncationWidth The width L of the truncation domain in terms of the cumulants.
+	 */
+	public EuropeanOptionSmileByCOS(final String underlyingName, final double maturity, final double[] strikes, final int numberOfTerms, final double truncationWidth) {
+		super(underlyingName, maturity, strikes);
+		if(numberOfTerms < 1) {
+			throw new IllegalArgumentException("The number of terms has to be positive.");
+		}
+		this.numberOfTerms = numberOfTerms;
+		this.truncationWidth = truncationWidth;
+	}
+
+	/**
+	 * Create the valuation of a smile using the COS method with 256 terms and a truncation width of 10.
+	 *
+	 * @param underlyingName Name of the underlying.
+	 * @param maturity The maturity.
+	 * @param strikes The strikes.
+	 */
+	public EuropeanOptionSmileByCOS(final String underlyingName, final double maturity, final double[] strikes) {
+		this(underlyingName, maturity, strikes, 256, 10.0);
+	}
+
+	/**
+	 * Create the valuation of a smile using the COS method with 256 terms and a truncation width of 10.
+	 *
+	 * @param maturity The maturity.
+	 * @param strikes The strikes.
+	 */
+	public EuropeanOptionSmileByCOS(final double maturity, final double[] strikes) {
+		this(null, maturity, strikes);
+	}
+
+	@Override
+	public Map<String, Function<Double, Double>> getValue(final double evaluationTime, final CharacteristicFunctionModel model) throws CalculationException {
+
+		final CharacteristicFunction modelCF = model.apply(getMaturity());
+
+		/*
+		 * Cumulants of the log of the underlying from the (discounted) characteristic function at 0, h, 2h,
+		 * using Richardson extrapolation to eliminate the leading error terms.
+		 */
+		final Complex logValueAtZero = modelCF.apply(Complex.ZERO).log();
+		final Complex logValueAtStep = modelCF.apply(new Complex(cumulantStep)).log().subtract(logValueAtZero);
+		final Complex logValueAtDoubleStep = modelCF.apply(new Complex(2*cumulantStep)).log().subtract(logValueAtZero);
+
+		final double firstCumulant = (8.0 * logValueAtStep.getImaginary() - logValueAtDoubleStep.getImaginary()) / (6.0 * cumulantStep);
+		final double secondCumulant = -(16.0 * logValueAtStep.getReal() - logValueAtDoubleStep.getReal()) / (6.0 * cumulantStep * cumulantStep);
+		final double fourthCumulant = 2.0 * (logValueAtDoubleStep.getReal() - 4.0 * logValueAtStep.getReal()) / Math.pow(cumulantStep, 4);
+
+		final double halfWidth = truncationWidth * Math.sqrt(Math.max(secondCumulant, 0.0) + Math.sqrt(Math.abs(fourthCumulant)));
+		final double lowerBound = firstCumulant - halfWidth;
+		final double upperBound = firstCumulant + halfWidth;
+		final double width = upperBound - lowerBound;
+
+		// The strike independent coefficients Re(phi(u_k) exp(-i u_k a)), evaluated in bulk
+		final double[] arguments = new double[2*numberOfTerms];
+		final double[] values = new double[2*numberOfTerms];
+		for(int k = 0; k < numberOfTerms; k++) {
+			arguments[2*k] = k * Math.PI / width;
+		}
+		modelCF.apply(arguments, values);
+
+		final double[] coefficients = new double[numberOfTerms];
+		for(int k = 0; k < numberOfTerms; k++) {
+			final double u = arguments[2*k];
+			coefficients[k] = values[2*k] * Math.cos(u * lowerBound) + values[2*k+1] * Math.sin(u * lowerBound);
+		}
+		coefficients[0] *= 0.5;
+
+		// Discounted forward and discount factor for the put-call parity
+		final double discountedForward = modelCF.apply(new Complex(0, -1)).getReal();
+		final double discountFactor = modelCF.apply(Complex.ZERO).getReal();
+
+		final Function<Double, Double> strikeToPrice = new Function<Double, Double>() {
+
+			@Override
+			public Double apply(final Double strike) {
+				final double logStrike = Math.min(Math.max(Math.log(strike), lowerBound), upperBound);
+				final double expLogStrike = Math.exp(logStrike);
+				final double expLowerBound = Math.exp(lowerBound);
+
+				// Cosine series coefficients of the put payoff max(K - exp(y), 0) on [a, log(K)]
+				double put = coefficients[0] * (strike * (logStrike - lowerBound) - (expLogStrike - expLowerBound));
+
+				// cos(u_k (log(K) - a)) and sin(u_k (log(K) - a)) by recursion
+				final double angle = Math.PI * (logStrike - lowerBound) / width;
+				final double cosAngle = Math.cos(angle);
+				final double sinAngle = Math.sin(angle);
+				double cos = 1.0;
+				double sin = 0.0;
+				for(int k = 1; k < numberOfTerms; k++) {
+					final double cosNext = cos * cosAngle - sin * sinAngle;
+					sin = sin * cosAngle + cos * sinAngle;
+					cos = cosNext;
+
+					final double u = k * Math.PI / width;
+					final double chi = (cos * expLogStrike - expLowerBound + u * sin * expLogStrike) / (1.0 + u * u);
+					final double psi = sin / u;
+
+					put += coefficients[k] * (strike * psi - chi);
+				}
+				put *= 2.0 / width;
+
+				return put + discountedForward - strike * discountFactor;
+			}
+		};
+
+		final HashMap<String, Function<Double, Double>> results = new HashMap<>();
+		results.put("valuePerStrike", strikeToPrice);
+		return results;
+	}
+
+	@Override
+	public EuropeanOptionSmile getCloneWithModifiedParameters(final double maturity, final double[] strikes) {
+		return new EuropeanOptionSmileByCOS(getUnderlyingName(), maturity, strikes, numberOfTerms, truncationWidth);
+	}
+
+	/**
+	 * @return The number of terms N of the cosine series.
+	 */
+	public int getNumberOfTerms() {
+		return numberOfTerms;
+	}
+
+	/**
+	 * @return The width L of the truncation domain in terms of the cumulants.
+	 */
+	public double getTruncationWidth() {
+		return truncationWidth;
+	}
+}
@@ -715,6 +715,207 @@ public class AnalyticFormulas {
 		}
 	}
 
+	/**
+	 * Calculates the Black-Scholes option implied volatilities of a batch of calls, i.e., the payoff
+	 * <p><i>max(S(T)-K,0)</i></p>, where <i>S</i> follows a log-normal process with constant log-volatility.
+	 *
+	 * The method is intended for the conversion of large sets of quotes (e.g. a volatility cube). Each quote is inverted
+	 * from an initial guess by a few third order Householder steps on the normalized Black function
+	 * (on the log of the normalized Black function for prices below the inflection point), see
+	 * P. J&auml;ckel: Let's be rational, Wilmott 2015. The iteration is safeguarded by bisection.
+	 *
+	 * For a strike &le; 0.0 or an option value &le; the inner value the volatility is 0.0. For an option value &ge;
+	 * <code>forward * payoffUnit</code> (where no implied volatility exists) or an option value NaN the volatility is <code>Double.NaN</code>.
+	 *
+	 * @param forward The forwards of the underlying.
+	 * @param optionMaturity The option maturities T.
+	 * @param optionStrike The option strikes.
+	 * @param payoffUnit The payoff units (e.g., the discount factors).
+	 * @param optionValue The option values.
+	 * @return Returns the implied volatilities of the European call options under the Black-Scholes model.
+	 * @throws IllegalArgumentException Thrown if the arrays have different lengths or if a maturity or a payoff unit is not positive.
+	 */
+	public static double[] blackScholesOptionImpliedVolatility(
+			final double[] forward,
+			final double[] optionMaturity,
+			final double[] optionStrike,
+			final double[] payoffUnit,
+			final double[] optionValue)
+	{
+		return blackScholesDisplacedOptionImpliedVolatility(forward, 0.0, optionMaturity, optionStrike, payoffUnit, optionValue);
+	}
+
+	/**
+	 * Calculates the implied volatilities of a batch of calls under a displaced (shifted) log-normal model, i.e., the payoff
+	 * <p><i>max(S(T)-K,0)</i></p>, where <i>S+d</i> follows a log-normal process with constant log-volatility.
+	 *
+	 * The displaced model is a shift on the underlying and the strike. See {@link #blackScholesOptionImpliedVolatility(double[], double[], double[], double[], double[])}
+	 * for the method used.
+	 *
+	 * @param forward The forwards of the underlying.
+	 * @param displacement The displacement d.
+	 * @param optionMaturity The option maturities T.
+	 * @param optionStrike The option strikes.
+	 * @param payoffUnit The payoff units (e.g., the discount factors).
+	 * @param optionValue The option values.
+	 * @return Returns the implied (displaced log-normal) volatilities of the European call options.
+	 * @throws IllegalArgumentException Thrown if the arrays have different lengths or if a maturity or a payoff unit is not positive.
+	 */
+	public static double[] blackScholesDisplacedOptionImpliedVolatility(
+			final double[] forward,
+			final double displacement,
+			final double[] optionMaturity,
+			final double[] optionStrike,
+			final double[] payoffUnit,
+			final double[] optionValue)
+	{
+		final int numberOfQuotes = optionValue.length;
+		if(forward.length != numberOfQuotes || optionMaturity.length != numberOfQuotes || optionStrike.length != numberOfQuotes || payoffUnit.length != numberOfQuotes) {
+			throw new IllegalArgumentException("Arrays of forwards, maturities, strikes, payoff units and values must have the same length.");
+		}
+
+		final double[] impliedVolatility = new double[numberOfQuotes];
+		for(int i = 0; i < numberOfQuotes; i++) {
+			if(!(optionMaturity[i] > 0.0)) {
+				throw new IllegalArgumentException("Option maturity must be positive (quote " + i + ": " + optionMaturity[i] + ").");
+			}
+			if(!(payoffUnit[i] > 0.0)) {
+				throw new IllegalArgumentException("Payoff unit must be positive (quote " + i + ": " + payoffUnit[i] + ").");
+			}
+			impliedVolatility[i] = blackScholesOptionImpliedVolatilityHouseholder(forward[i] + displacement, optionMaturity[i], optionStrike[i] + displacement, payoffUnit[i], optionValue[i]);
+		}
+		return impliedVolatility;
+	}
+
+	/*
+	 * Implied volatility of a single quote via the normalized Black function
+	 * b(x,s) = exp(x/2) N(x/s + s/2) - exp(-x/2) N(x/s - s/2), with x = log(F/K) &le; 0 (out-of-the-money) and s = sigma sqrt(T).
+	 */
+	private static double blackScholesOptionImpliedVolatilityHouseholder(
+			final double forward,
+			final double optionMaturity,
+			final double optionStrike,
+			final double payoffUnit,
+			final double optionValue)
+	{
+		final int		maxIterations	= 50;
+		final double	maxAccuracy		= 1E-15;
+
+		if(optionStrike <= 0.0) {
+			return 0.0;
+		}
+
+		final double sqrtOfForwardTimesStrike = Math.sqrt(forward * optionStrike);
+		final double moneyness = Math.log(forward / optionStrike);
+
+		// Use put-call-parity to invert the out-of-the-money option
+		double value = optionValue / payoffUnit / sqrtOfForwardTimesStrike;
+		if(moneyness > 0) {
+			value -= Math.exp(0.5 * moneyness) - Math.exp(-0.5 * moneyness);
+		}
+		final double x = -Math.abs(moneyness);
+		final double valueMaximum = Math.exp(0.5 * x);
+
+		if(Double.isNaN(value)) {
+			return Double.NaN;
+		}
+		if(!(value > 0)) {
+			return 0.0;
+		}
+		if(!(value < valueMaximum)) {
+			return Double.NaN;
+		}
+
+		if(x == 0) {
+			// At-the-money the inversion is explicit
+			return 2.0 * NormalDistribution.inverseCumulativeDistribution(0.5 * (value + 1.0)) / Math.sqrt(optionMaturity);
+		}
+
+		// The normalized Black function is convex below and concave above its inflection point
+		final double sInflection = Math.sqrt(2.0 * Math.abs(x));
+		final boolean isLowerBranch = value < normalizedBlackValue(x, sInflection);
+		double sLowerBound = isLowerBranch ? 0.0 : sInflection;
+		double sUpperBound = isLowerBranch ? sInflection : Double.POSITIVE_INFINITY;
+
+		// Initial guess from the lower and upper bound of the volatility
+		final double p = NormalDistribution.inverseCumulativeDistribution((value + Math.exp(-0.5 * x)) / (Math.exp(0.5 * x) + Math.exp(-0.5 * x)));
+		final double q = 2.0 * Math.abs(x);
+		double s = 0.5 * (p + Math.sqrt(Math.max(p * p - q, 0.0)) + p + Math.sqrt(p * p + q));
+		if(!(s > sLowerBound && s < sUpperBound)) {
+			s = isLowerBranch ? 0.5 * sInflection : 2.0 * sInflection;
+		}
+
+		for(int iteration = 0; iteration < maxIterations; iteration++) {
+			final double b = normalizedBlackValue(x, s);
+
+			if(!(b > 0)) {
+				// The value underflows, the volatility is larger
+				sLowerBound = s;
+				s = 0.5 * (sLowerBound + sUpperBound);
+				continue;
+			}
+
+			// Derivatives of b with respect to s, relative to the first derivative
+			final double dPlus = x / s + 0.5 * s;
+			final double vega = Math.exp(0.5 * x) * NormalDistribution.density(dPlus);
+			final double secondOverFirst = x * x / (s * s * s) - 0.25 * s;
+			final double thirdOverFirst = secondOverFirst * secondOverFirst - 3.0 * x * x / (s * s * s * s) - 0.25;
+
+			// Objective log(b) - log(value) on the lower branch, b - value on the upper branch
+			final double objective, nu, h2, h3;
+			if(isLowerBranch) {
+				final double vegaOverValue = vega / b;
+				objective = Math.log(b / value);
+				nu = -objective / vegaOverValue;
+				h2 = secondOverFirst - vegaOverValue;
+				h3 = thirdOverFirst - 3.0 * secondOverFirst * vegaOverValue + 2.0 * vegaOverValue * vegaOverValue;
+			}
+			else {
+				objective = b - value;
+				nu = -objective / vega;
+				h2 = secondOverFirst;
+				h3 = thirdOverFirst;
+			}
+
+			// Update the bracket
+			if(objective > 0) {
+				sUpperBound = Math.min(sUpperBound, s);
+			}
+			else {
+				sLowerBound = Math.max(sLowerBound, s);
+			}
+
+			// Householder step of third order
+			final double step = nu * (1.0 + 0.5 * h2 * nu) / (1.0 + nu * (h2 + h3 * nu / 6.0));
+
+			double sNext = s + step;
+			final boolean isHouseholderStep = sNext > sLowerBound && sNext < sUpperBound;
+			if(!isHouseholderStep) {
+				// Safeguard by bisection
+				sNext = sUpperBound < Double.POSITIVE_INFINITY ? 0.5 * (sLowerBound + sUpperBound) : 2.0 * s;
+			}
+
+			/*
+			 * The local order of convergence is four, hence a small step implies that the error of the next point is
+			 * below the accuracy (saving the last evaluation).
+			 */
+			final boolean isConverged = Math.abs(sNext - s) <= maxAccuracy * s || (isHouseholderStep && Math.abs(step) < 1E-7 * s);
+			s = sNext;
+			if(isConverged || sUpperBound - sLowerBound <= maxAccuracy * s) {
+				break;
+			}
+		}
+
+		return s / Math.sqrt(optionMaturity);
+	}
+
+	/*
+	 * The normalized Black function b(x,s) = exp(x/2) N(x/s + s/2) - exp(-x/2) N(x/s - s/2).
+	 */
+	private static double normalizedBlackValue(final double x, final double s) {
+		return Math.exp(0.5 * x) * NormalDistribution.cumulativeDistributionCody(x / s + 0.5 * s) - Math.exp(-0.5 * x) * NormalDistribution.cumulativeDistributionCody(x / s - 0.5 * s);
+	}
+
 	/**
 	 * Calculates the Black-Scholes option value of a digital call option.
 	 *
@@ -1109,6 +1310,29 @@ public class AnalyticFormulas {
 		return BachelierModel.bachelierOptionImpliedVolatility(forward, optionMaturity, optionStrike, payoffUnit, optionValue);
 	}
 
+	/**
+	 * Calculates the Bachelier option implied volatilities of a batch of calls, i.e., the payoff
+	 * <p><i>max(S(T)-K,0)</i></p>, where <i>S</i> follows a normal process with constant volatility.
+	 *
+	 * See {@link BachelierModel#bachelierOptionImpliedVolatility(double[], double[], double[], double[], double[])}.
+	 *
+	 * @param forward The forwards of the underlying.
+	 * @param optionMaturity The option maturities T.
+	 * @param optionStrike The option strikes.
+	 * @param payoffUnit The payoff units (e.g., the discount factors).
+	 * @param optionValue The option values.
+	 * @return Returns the implied volatilities of the European call options under the Bachelier model.
+	 */
+	public static double[] bachelierOptionImpliedVolatility(
+			final double[] forward,
+			final double[] optionMaturity,
+			final double[] optionStrike,
+			final double[] payoffUnit,
+			final double[] optionValue)
+	{
+		return BachelierModel.bachelierOptionImpliedVolatility(forward, optionMaturity, optionStrike, payoffUnit, optionValue);
+	}
+
 	/**
 	 * Calculates the option delta dV(0)/dS(0) of a call option, i.e., the payoff V(T)=max(S(T)-K,0), where S follows a
 	 * normal process with numeraire scaled volatility, i.e., a homogeneous Bachelier model
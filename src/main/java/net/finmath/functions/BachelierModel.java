@@ -178,6 +178,156 @@ public class BachelierModel {
 		return solver.getBestPoint();
 	}
 
+	/**
+	 * Calculates the Bachelier option implied volatilities of a batch of calls, i.e., the payoff
+	 * <p><i>max(S(T)-K,0)</i></p>, where <i>S</i> follows a normal process with constant volatility, i.e., a Bachelier model
+	 * \[
+	 * 	\mathrm{d} S(t) = \sigma \mathrm{d}W(t) \text{.}
+	 * \]
+	 *
+	 * The method is intended for the conversion of large sets of quotes (e.g. a volatility cube). Each quote is inverted
+	 * by a few third order Householder steps on the log of the value of the out-of-the-money option,
+	 * starting from a lower bound of the volatility. The iteration is safeguarded by bisection.
+	 *
+	 * For an option value &le; the inner value the volatility is 0.0. For an option value NaN the volatility is <code>Double.NaN</code>.
+	 *
+	 * @param forward The forwards of the underlying.
+	 * @param optionMaturity The option maturities T.
+	 * @param optionStrike The option strikes.
+	 * @param payoffUnit The payoff units (e.g., the discount factors).
+	 * @param optionValue The option values.
+	 * @return Returns the implied volatilities of the European call options under the Bachelier model.
+	 * @throws IllegalArgumentException Thrown if the arrays have different lengths or if a maturity or a payoff unit is not positive.
+	 */
+	public static double[] bachelierOptionImpliedVolatility(
+			final double[] forward,
+			final double[] optionMaturity,
+			final double[] optionStrike,
+			final double[] payoffUnit,
+			final double[] optionValue)
+	{
+		final int numberOfQuotes = optionValue.length;
+		if(forward.length != numberOfQuotes || optionMaturity.length != numberOfQuotes || optionStrike.length != numberOfQuotes || payoffUnit.length != numberOfQuotes) {
+			throw new IllegalArgumentException("Arrays of forwards, maturities, strikes, payoff units and values must have the same length.");
+		}
+
+		final double[] impliedVolatility = new double[numberOfQuotes];
+		for(int i = 0; i < numberOfQuotes; i++) {
+			if(!(optionMaturity[i] > 0.0)) {
+				throw new IllegalArgumentException("Option maturity must be positive (quote " + i + ": " + optionMaturity[i] + ").");
+			}
+			if(!(payoffUnit[i] > 0.0)) {
+				throw new IllegalArgumentException("Payoff unit must be positive (quote " + i + ": " + payoffUnit[i] + ").");
+			}
+			impliedVolatility[i] = bachelierOptionImpliedVolatilityHouseholder(forward[i], optionMaturity[i], optionStrike[i], payoffUnit[i], optionValue[i]);
+		}
+		return impliedVolatility;
+	}
+
+	/*
+	 * Implied volatility of a single quote via the value v(s) = m N(m/s) + s phi(m/s) of the out-of-the-money option,
+	 * with m = -|F-K| and s = sigma sqrt(T).
+	 */
+	private static double bachelierOptionImpliedVolatilityHouseholder(
+			final double forward,
+			final double optionMaturity,
+			final double optionStrike,
+			final double payoffUnit,
+			final double optionValue)
+	{
+		final int		maxIterations	= 50;
+		final double	maxAccuracy		= 1E-15;
+
+		// Use put-call-parity to invert the out-of-the-money option
+		final double value = optionValue / payoffUnit - Math.max(forward - optionStrike, 0.0);
+		final double m = -Math.abs(forward - optionStrike);
+
+		if(Double.isNaN(value)) {
+			return Double.NaN;
+		}
+		if(!(value > 0)) {
+			return 0.0;
+		}
+
+		final double densityAtZero = NormalDistribution.density(0.0);
+		if(m == 0) {
+			// At-the-money the inversion is explicit
+			return value / densityAtZero / Math.sqrt(optionMaturity);
+		}
+
+		// Since v(s) <= s phi(0), the following is a lower bound
+		double sLowerBound = value / densityAtZero;
+		double sUpperBound = Double.POSITIVE_INFINITY;
+
+		double s = sLowerBound;
+		if(value < -m * densityAtZero) {
+			/*
+			 * Far out-of-the-money the asymptotic v(s) ~ |m| phi(u) / u^3 with u = |m|/s gives a better initial guess.
+			 * We solve u^2 = -2 (log(v/|m|) + log(sqrt(2 pi)) + 3 log(u)) by a few fixed point iterations.
+			 */
+			final double logValueOverMoneyness = Math.log(value / -m) + Math.log(Math.sqrt(2.0 * Math.PI));
+			double u = Math.sqrt(Math.max(-2.0 * logValueOverMoneyness, 1.0));
+			for(int fixedPointIteration = 0; fixedPointIteration < 4; fixedPointIteration++) {
+				u = Math.sqrt(Math.max(-2.0 * (logValueOverMoneyness + 3.0 * Math.log(u)), 1.0));
+			}
+			s = Math.max(-m / u, sLowerBound);
+		}
+
+		for(int iteration = 0; iteration < maxIterations; iteration++) {
+			final double d = m / s;
+			final double v = m * NormalDistribution.cumulativeDistributionCody(d) + s * NormalDistribution.density(d);
+
+			if(!(v > 0)) {
+				// The value underflows, the volatility is larger
+				sLowerBound = s;
+				s = sUpperBound < Double.POSITIVE_INFINITY ? 0.5 * (sLowerBound + sUpperBound) : 2.0 * s;
+				continue;
+			}
+
+			// Derivatives of v with respect to s, relative to the first derivative
+			final double vega = NormalDistribution.density(d);
+			final double secondOverFirst = d * d / s;
+			final double thirdOverFirst = secondOverFirst * secondOverFirst - 3.0 * d * d / (s * s);
+
+			// Objective log(v) - log(value)
+			final double vegaOverValue = vega / v;
+			final double objective = Math.log(v / value);
+			final double nu = -objective / vegaOverValue;
+			final double h2 = secondOverFirst - vegaOverValue;
+			final double h3 = thirdOverFirst - 3.0 * secondOverFirst * vegaOverValue + 2.0 * vegaOverValue * vegaOverValue;
+
+			// Update the bracket
+			if(objective > 0) {
+				sUpperBound = Math.min(sUpperBound, s);
+			}
+			else {
+				sLowerBound = Math.max(sLowerBound, s);
+			}
+
+			// Householder step of third order
+			final double step = nu * (1.0 + 0.5 * h2 * nu) / (1.0 + nu * (h2 + h3 * nu / 6.0));
+
+			double sNext = s + step;
+			final boolean isHouseholderStep = sNext >= sLowerBound && sNext <= sUpperBound;
+			if(!isHouseholderStep) {
+				// Safeguard by bisection
+				sNext = sUpperBound < Double.POSITIVE_INFINITY ? 0.5 * (sLowerBound + sUpperBound) : 2.0 * s;
+			}
+
+			/*
+			 * The local order of convergence is four, hence a small step implies that the error of the next point is
+			 * below the accuracy (saving the last evaluation).
+			 */
+			final boolean isConverged = Math.abs(sNext - s) <= maxAccuracy * s || (isHouseholderStep && Math.abs(step) < 1E-7 * s);
+			s = sNext;
+			if(isConverged || sUpperBound - sLowerBound <= maxAccuracy * s) {
+				break;
+			}
+		}
+
+		return s / Math.sqrt(optionMaturity);
+	}
+
 	/**
 	 * Calculates the option delta dV(0)/dS(0) of a call option, i.e., the payoff V(T)=max(S(T)-K,0), where S follows a
 	 * normal process with numeraire scaled volatility, i.e., a homogeneous Bachelier model
@@ -5,7 +5,6 @@
  */
 package net.finmath.interpolation;
 
-import java.io.IOException;
 import java.io.Serializable;
 import java.util.Arrays;
 import java.util.function.DoubleUnaryOperator;
@@ -29,12 +28,17 @@ import net.finmath.functions.LinearAlgebra;
  * This setup comprises linear interpolation (for which the function is C<sup>0</sup>) and
  * cubic spline interpolation (for which the function is C<sup>1</sup>).
  *
+ * The interpolating functions are calculated in the constructor and their coefficients are stored in a flat array
+ * (for an empty set of points the evaluation throws an exception).
+ * Instances of this class are immutable and may be used by multiple threads without synchronization.
+ * If the points form a uniform grid, the interval of an argument is found from the grid step instead of a binary search.
+ *
  * @author Christian Fries
- * @version 1.3
+ * @version 1.4
  */
 public class RationalFunctionInterpolation implements DoubleUnaryOperator, Serializable {
 
-	private static final long serialVersionUID = -3214160594013393575L;
+	private static final long serialVersionUID = -6666652372499431528L;
 
 	public enum InterpolationMethod {
 		/** Constant interpolation. Synonym of PIECEWISE_CONSTANT_LEFTPOINT. **/
@@ -71,71 +75,19 @@ public class RationalFunctionInterpolation implements DoubleUnaryOperator, Seria
 	private final double[]	points;
 	private final double[]	values;
 
-	private InterpolationMethod	interpolationMethod = InterpolationMethod.LINEAR;
-	private ExtrapolationMethod	extrapolationMethod = ExtrapolationMethod.DEFAULT;
-
-	private static class RationalFunction implements Serializable {
-
-		private static final long serialVersionUID = -1596026703859403853L;
-
-		private final double[] coefficientsNumerator;
-		private final double[] coefficientsDenominator;
-
-		/**
-		 * Create a rational interpolation function.
-		 *
-		 * @param coefficientsNumerator The coefficients of the polynomial of the numerator, in increasing order.
-		 * @param coefficientsDenominator The coefficients of the polynomial of the denominator, in increasing order.
-		 */
-		RationalFunction(final double[] coefficientsNumerator, final double[] coefficientsDenominator) {
-			super();
-			this.coefficientsNumerator = coefficientsNumerator;
-			this.coefficientsDenominator = coefficientsDenominator;
-		}
-
-		/**
-		 * Create a polynomial interpolation function.
-		 *
-		 * @param coefficients The coefficients of the polynomial, in increasing order.
-		 */
-		RationalFunction(final double[] coefficients) {
-			this(coefficients, null);
-		}
-
-		/**
-		 * Returns the value for a given arguments.
-		 *
-		 * @param x Given argument.
-		 * @return Returns the value for the given argument.
-		 */
-		public double getValue(final double x)
-		{
-			double valueNumerator	= 0.0;
-			double valueDenominator	= 0.0;
-			double powerOfX	= 1.0;
+	private final InterpolationMethod	interpolationMethod;
+	private final ExtrapolationMethod	extrapolationMethod;
 
-			for (final double polynomialCoefficient : coefficientsNumerator) {
-				valueNumerator += polynomialCoefficient * powerOfX;
-				powerOfX *= x;
-			}
-
-			if(coefficientsDenominator == null) {
-				return valueNumerator;
-			}
-
-			powerOfX	= 1.0;
-			for (final double polynomialCoefficient : coefficientsDenominator) {
-				valueDenominator += polynomialCoefficient * powerOfX;
-				powerOfX *= x;
-			}
-
-			return valueNumerator/valueDenominator;
-		}
-	}
+	/*
+	 * The interpolated curve - a polynomial for each interval (one less than number of points).
+	 * The coefficients (in increasing order) of the polynomial of interval i are stored at
+	 * polynomialCoefficients[i*numberOfCoefficients], ..., polynomialCoefficients[(i+1)*numberOfCoefficients-1].
+	 */
+	private final int		numberOfCoefficients;
+	private final double[]	polynomialCoefficients;
 
-	// The interpolated curve - a rational function for each interval (one less than number of points)
-	private RationalFunction[]	interpolatingRationalFunctions;
-	private transient Object		interpolatingRationalFunctionsLazyInitLock = new Object();
+	// If the points form a uniform grid, the interval is found from the grid step (otherwise NaN)
+	private final double	uniformGridStep;
 
 	/**
 	 * Generate a rational function interpolation from a given set of points.
@@ -144,9 +96,7 @@ public class RationalFunctionInterpolation implements DoubleUnaryOperator, Seria
 	 * @param values The corresponding array of the y<sub>i</sub> sample values to the sample points x<sub>i</sub>.
 	 */
 	public RationalFunctionInterpolation(final double[] points, final double[] values) {
-		super();
-		this.points = points;
-		this.values = values;
+		this(points, values, InterpolationMethod.LINEAR, ExtrapolationMethod.DEFAULT);
 	}
 
 	/**
@@ -164,6 +114,16 @@ public class RationalFunctionInterpolation implements DoubleUnaryOperator, Seria
 		this.values = values;
 		this.interpolationMethod = interpolationMethod;
 		this.extrapolationMethod = extrapolationMethod;
+
+		// Create the interpolating polynomials and store their coefficients in a flat array (an interpolation without points fails on evaluation)
+		final double[][] interpolatingPolynomials = points.length > 0 ? createInterpolatingPolynomials() : new double[0][];
+		numberOfCoefficients = interpolatingPolynomials.length > 0 ? interpolatingPolynomials[0].length : 1;
+		polynomialCoefficients = new double[interpolatingPolynomials.length * numberOfCoefficients];
+		for(int intervalIndex = 0; intervalIndex < interpolatingPolynomials.length; intervalIndex++) {
+			System.arraycopy(interpolatingPolynomials[intervalIndex], 0, polynomialCoefficients, intervalIndex * numberOfCoefficients, numberOfCoefficients);
+		}
+
+		uniformGridStep = getUniformGridStep(points);
 	}
 
 	/**
@@ -183,14 +143,67 @@ public class RationalFunctionInterpolation implements DoubleUnaryOperator, Seria
 	 */
 	public double getValue(final double x)
 	{
-		synchronized(interpolatingRationalFunctionsLazyInitLock) {
-			if(interpolatingRationalFunctions == null) {
-				doCreateRationalFunctions();
+		return getValue(x, getPointIndex(x, -1));
+	}
+
+	/**
+	 * Get interpolated values for a given array of arguments.
+	 *
+	 * The lookup of the interval of an argument starts from the interval of the previous argument,
+	 * such that the evaluation is fast if the arguments are sorted.
+	 *
+	 * @param x The abscissas at which the interpolation should be performed.
+	 * @return The interpolated values (ordinates).
+	 */
+	public double[] getValues(final double[] x)
+	{
+		final double[] interpolatedValues = new double[x.length];
+		int intervalIndex = -1;
+		for(int i = 0; i < x.length; i++) {
+			final int pointIndex = getPointIndex(x[i], intervalIndex);
+			interpolatedValues[i] = getValue(x[i], pointIndex);
+			intervalIndex = pointIndex >= 0 ? pointIndex : -pointIndex-2;
+		}
+		return interpolatedValues;
+	}
+
+	/**
+	 * Returns the index of the point x, if x is a point of the interpolation, otherwise (-(insertion point) - 1),
+	 * i.e., the same as {@link Arrays#binarySearch(double[], double)}.
+	 *
+	 * @param x The abscissa.
+	 * @param intervalIndexHint An interval which is checked first (e.g. the interval of the previous argument), ignored if negative.
+	 * @return The index of the point or (-(insertion point) - 1).
+	 */
+	private int getPointIndex(final double x, final int intervalIndexHint)
+	{
+		if(points.length == 0) {
+			throw new IllegalArgumentException("Interpolation requested on curve with no points.");
+		}
+
+		final int lastPointIndex = points.length-1;
+
+		if(intervalIndexHint >= 0 && intervalIndexHint < lastPointIndex && points[intervalIndexHint] < x && x < points[intervalIndexHint+1]) {
+			return -intervalIndexHint-2;
+		}
+
+		if(!Double.isNaN(uniformGridStep) && x >= points[0] && x <= points[lastPointIndex]) {
+			// Index from the grid step, corrected for rounding
+			int pointIndex = Math.min((int)((x - points[0]) / uniformGridStep), lastPointIndex);
+			while(pointIndex < lastPointIndex && points[pointIndex+1] <= x) {
+				pointIndex++;
 			}
+			while(pointIndex > 0 && points[pointIndex] > x) {
+				pointIndex--;
+			}
+			return points[pointIndex] == x ? pointIndex : -pointIndex-2;
 		}
 
-		// Get interpolating rational function for the given point x
-		final int pointIndex = java.util.Arrays.binarySearch(points, x);
+		return Arrays.binarySearch(points, x);
+	}
+
+	private double getValue(final double x, final int pointIndex)
+	{
 		if(pointIndex >= 0) {
 			return values[pointIndex];
 		}
@@ -219,49 +232,74 @@ public class RationalFunctionInterpolation implements DoubleUnaryOperator, Seria
 			}
 		}
 
-		final RationalFunction rationalFunction = interpolatingRationalFunctions[intervallIndex];
+		// Calculate interpolating value from the polynomial of the interval
+		final double distance = x-points[intervallIndex];
+		final int offset = intervallIndex * numberOfCoefficients;
 
-		// Calculate interpolating value
-		return rationalFunction.getValue(x-points[intervallIndex]);
+		double value = 0.0;
+		double powerOfX = 1.0;
+		for(int i = 0; i < numberOfCoefficients; i++) {
+			value += polynomialCoefficients[offset+i] * powerOfX;
+			powerOfX *= distance;
+		}
+
+		return value;
 	}
 
-	private void doCreateRationalFunctions()
+	/**
+	 * Returns the step of the grid if the points form a uniform grid (up to rounding), otherwise NaN.
+	 *
+	 * @param points The points.
+	 * @return The step of the grid or NaN.
+	 */
+	private static double getUniformGridStep(final double[] points)
+	{
+		if(points.length < 3) {
+			return Double.NaN;
+		}
+
+		final double step = (points[points.length-1] - points[0]) / (points.length-1);
+		if(!(step > 0)) {
+			return Double.NaN;
+		}
+
+		for(int i = 1; i < points.length-1; i++) {
+			if(Math.abs(points[i] - (points[0] + i * step)) > 1E-10 * step) {
+				return Double.NaN;
+			}
+		}
+		return step;
+	}
+
+	private double[][] createInterpolatingPolynomials()
 	{
 		switch(interpolationMethod)
 		{
 		case PIECEWISE_CONSTANT:
 		case PIECEWISE_CONSTANT_LEFTPOINT:
 		case PIECEWISE_CONSTANT_RIGHTPOINT:
-			doCreateRationalFunctionsForPiecewiseConstantInterpolation();
-			break;
+			return createInterpolatingPolynomialsForPiecewiseConstantInterpolation();
 		case LINEAR:
 		default:
-			doCreateRationalFunctionsForLinearInterpolation();
-			break;
+			return createInterpolatingPolynomialsForLinearInterpolation();
 		case CUBIC_SPLINE:
-			doCreateRationalFunctionsForCubicSplineInterpolation();
-			break;
+			return createInterpolatingPolynomialsForCubicSplineInterpolation();
 		case AKIMA:
-			doCreateRationalFunctionsForAkimaInterpolation();
-			break;
+			return createInterpolatingPolynomialsForAkimaInterpolation();
 		case AKIMA_CONTINUOUS:
-			doCreateRationalFunctionsForAkimaInterpolation(1E-02);
-			break;
+			return createInterpolatingPolynomialsForAkimaInterpolation(1E-02);
 		case HARMONIC_SPLINE:
-			doCreateRationalFunctionsForHarmonicSplineInterpolation();
-			break;
 		case HARMONIC_SPLINE_WITH_MONOTONIC_FILTERING:
-			doCreateRationalFunctionsForHarmonicSplineInterpolation();
-			break;
+			return createInterpolatingPolynomialsForHarmonicSplineInterpolation();
 		}
 	}
 
-	private void doCreateRationalFunctionsForPiecewiseConstantInterpolation()
+	private double[][] createInterpolatingPolynomialsForPiecewiseConstantInterpolation()
 	{
 		/*
-		 * Generate a rational function for each given interval
+		 * Generate a polynomial for each given interval
 		 */
-		interpolatingRationalFunctions = new RationalFunction[points.length-1];
+		final double[][] interpolatingPolynomials = new double[points.length-1][];
 
 		// create numerator polynomials (constant)
 		for(int pointIndex = 0; pointIndex < points.length-1; pointIndex++ ) {
@@ -271,20 +309,21 @@ public class RationalFunctionInterpolation implements DoubleUnaryOperator, Seria
 			} else {
 				numeratorPolynomCoeff = new double[] {values[pointIndex]};
 			}
-			interpolatingRationalFunctions[pointIndex] = new RationalFunction(numeratorPolynomCoeff);
+			interpolatingPolynomials[pointIndex] = numeratorPolynomCoeff;
 		}
+		return interpolatingPolynomials;
 	}
 
-	private void doCreateRationalFunctionsForLinearInterpolation()
+	private double[][] createInterpolatingPolynomialsForLinearInterpolation()
 	{
 		if(points.length == 0) {
 			throw new IllegalArgumentException("Interpolation requested on curve with no points.");
 		}
 
 		/*
-		 * Generate a rational function for each given interval
+		 * Generate a polynomial for each given interval
 		 */
-		interpolatingRationalFunctions = new RationalFunction[points.length-1];
+		final double[][] interpolatingPolynomials = new double[points.length-1][];
 
 		// create numerator polynomials (linear)
 		for(int pointIndex = 0; pointIndex < points.length-1; pointIndex++ ) {
@@ -299,11 +338,12 @@ public class RationalFunctionInterpolation implements DoubleUnaryOperator, Seria
 			numeratorPolynomCoeff[1] = (fr-fl) / (xr-xl);
 			numeratorPolynomCoeff[0] = fl;
 
-			interpolatingRationalFunctions[pointIndex] = new RationalFunction(numeratorPolynomCoeff);
+			interpolatingPolynomials[pointIndex] = numeratorPolynomCoeff;
 		}
+		return interpolatingPolynomials;
 	}
 
-	private void doCreateRationalFunctionsForCubicSplineInterpolation()
+	private double[][] createInterpolatingPolynomialsForCubicSplineInterpolation()
 	{
 		final int numberOfPoints = points.length;
 
@@ -346,9 +386,9 @@ public class RationalFunctionInterpolation implements DoubleUnaryOperator, Seria
 		secondDerivativeVector = LinearAlgebra.solveLinearEquationSymmetric(secondDerivativeMarix, v);
 
 		/*
-		 * Generate a rational function for each given interval
+		 * Generate a polynomial for each given interval
 		 */
-		interpolatingRationalFunctions = new RationalFunction[numberOfPoints-1];
+		final double[][] interpolatingPolynomials = new double[numberOfPoints-1][];
 
 		// create numerator polynomials (third order polynomial)
 		for(int i = 0; i < numberOfPoints-1; i++ ) {
@@ -359,22 +399,23 @@ public class RationalFunctionInterpolation implements DoubleUnaryOperator, Seria
 			numeratortorPolynomCoeff[2] = secondDerivativeVector[i] / 2;
 			numeratortorPolynomCoeff[3] = (secondDerivativeVector[i+1] - secondDerivativeVector[i]) / (6*step[i]);
 
-			interpolatingRationalFunctions[i] = new RationalFunction(numeratortorPolynomCoeff);
+			interpolatingPolynomials[i] = numeratortorPolynomCoeff;
 		}
+		return interpolatingPolynomials;
 	}
 
-	private void doCreateRationalFunctionsForAkimaInterpolation()
+	private double[][] createInterpolatingPolynomialsForAkimaInterpolation()
 	{
-		doCreateRationalFunctionsForAkimaInterpolation(0.0);
+		return createInterpolatingPolynomialsForAkimaInterpolation(0.0);
 	}
 
-	private void doCreateRationalFunctionsForAkimaInterpolation(final double minSlopeDifferenceWeight)
+	private double[][] createInterpolatingPolynomialsForAkimaInterpolation(final double minSlopeDifferenceWeight)
 	{
 		final int numberOfPoints = points.length;
 
 		if(numberOfPoints < 4) {
 			// Akima interpolation not possible
-			doCreateRationalFunctionsForCubicSplineInterpolation();
+			return createInterpolatingPolynomialsForCubicSplineInterpolation();
 		}
 		else {
 			// Calculate slopes
@@ -433,9 +474,9 @@ public class RationalFunctionInterpolation implements DoubleUnaryOperator, Seria
 			}
 
 			/*
-			 * Generate a rational function for each given interval
+			 * Generate a polynomial for each given interval
 			 */
-			interpolatingRationalFunctions = new RationalFunction[numberOfPoints-1];
+			final double[][] interpolatingPolynomials = new double[numberOfPoints-1][];
 
 			// create numerator polynomials (third order polynomial)
 			for(int i = 0; i < numberOfPoints-1; i++ ) {
@@ -446,12 +487,13 @@ public class RationalFunctionInterpolation implements DoubleUnaryOperator, Seria
 				numeratorPolynomCoeff[2] = (3*slope[i] - 2*derivative[i] - derivative[i+1]) / step[i];
 				numeratorPolynomCoeff[3] = (derivative[i] + derivative[i+1] - 2*slope[i]) / (step[i] * step[i]);
 
-				interpolatingRationalFunctions[i] = new RationalFunction(numeratorPolynomCoeff);
+				interpolatingPolynomials[i] = numeratorPolynomCoeff;
 			}
+			return interpolatingPolynomials;
 		}
 	}
 
-	private void doCreateRationalFunctionsForHarmonicSplineInterpolation(){
+	private double[][] createInterpolatingPolynomialsForHarmonicSplineInterpolation(){
 		final int numberOfPoints = points.length;
 
 		// Calculate parameters
@@ -510,9 +552,9 @@ public class RationalFunctionInterpolation implements DoubleUnaryOperator, Seria
 		}
 
 		/*
-		 * Generate a rational function for each given interval
+		 * Generate a polynomial for each given interval
 		 */
-		interpolatingRationalFunctions = new RationalFunction[numberOfPoints-1];
+		final double[][] interpolatingPolynomials = new double[numberOfPoints-1][];
 
 		// create numerator polynomials (third order polynomial)
 		for(int i = 0; i < numberOfPoints-1; i++ ) {
@@ -523,9 +565,9 @@ public class RationalFunctionInterpolation implements DoubleUnaryOperator, Seria
 			numeratortorPolynomCoeff[2] = (3*slope[i] - 2*derivative[i] - derivative[i+1]) / step[i];
 			numeratortorPolynomCoeff[3] = (derivative[i] + derivative[i+1] - 2*slope[i]) / (step[i] * step[i]);
 
-			interpolatingRationalFunctions[i] = new RationalFunction(numeratortorPolynomCoeff);
+			interpolatingPolynomials[i] = numeratortorPolynomCoeff;
 		}
-
+		return interpolatingPolynomials;
 	}
 
 
@@ -604,10 +646,4 @@ public class RationalFunctionInterpolation implements DoubleUnaryOperator, Seria
 	public double applyAsDouble(final double operand) {
 		return getValue(operand);
 	}
-
-	private void readObject(final java.io.ObjectInputStream in) throws ClassNotFoundException, IOException {
-		in.defaultReadObject();
-		// initialization of transients
-		interpolatingRationalFunctionsLazyInitLock = new Object();
-	}
 }
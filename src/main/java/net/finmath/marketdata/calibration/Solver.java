@@ -5,10 +5,16 @@
  */
 package net.finmath.marketdata.calibration;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import net.finmath.marketdata.model.AnalyticModel;
 import net.finmath.marketdata.products.AnalyticProduct;
@@ -28,6 +34,14 @@ import net.finmath.optimizer.SolverException;
  * The calibration is performed as a multi-threaded global optimization.
  * I will greatly profit from a multi-core architecture.
  *
+ * The derivatives of the calibration products with respect to the parameters are calculated by finite differences, valued in parallel.
+ * The sparsity pattern of this Jacobian (each product depends only on some of the curve points) is observed numerically, starting with
+ * the first calculation of the derivatives. Subsequent calculations shift groups of parameters not sharing a dependent product simultaneously
+ * (a column colouring of the Jacobian, see Curtis, Powell and Reid (1974)), requiring one valuation per group instead of one valuation per parameter.
+ * Since a derivative may vanish at a point for non-structural reasons, the pattern is only used as a hint: all parameters are shifted
+ * separately (and the pattern is extended) if a valuation changes a product not explained by the pattern, or if the optimizer does not
+ * make progress. If the optimizer stalls and the pattern turns out to be incomplete, the optimization is continued with one finite difference per parameter.
+ *
  * @author Christian Fries
  * @version 1.0
  */
@@ -44,6 +58,9 @@ public class Solver {
 	private	final	double	evaluationTime;
 	private final	int		maxIterations	= 1000;
 
+	// Number of rejected points of the optimizer after which the derivatives are calculated by one finite difference per parameter
+	private static final int MAX_REJECTED_VALUATIONS_FOR_COLOURED_DERIVATIVES = 2;
+
 	private 		int		iterations		= 0;
 	private 		double	accuracy		= Double.POSITIVE_INFINITY;
 
@@ -161,9 +178,43 @@ public class Solver {
 		java.util.Arrays.fill(ones, 1.0);
 		java.util.Arrays.fill(lowerBound, Double.NEGATIVE_INFINITY);
 		java.util.Arrays.fill(upperBound, Double.POSITIVE_INFINITY);
-		final Optimizer.ObjectiveFunction objectiveFunction = new Optimizer.ObjectiveFunction() {
+		/*
+		 * The objective function, providing the derivatives by (coloured) finite differences.
+		 */
+		class CalibrationObjectiveFunction implements Optimizer.ObjectiveFunctionWithDerivatives {
+
+			// isDependent[i][j] is true if the value of product j has been observed to depend on parameter i (the union over all full calculations of the derivatives)
+			private boolean[][]	isDependent;
+
+			// Groups of parameters which do not share a product depending on them, the parameters of a group are shifted simultaneously
+			private int[][]		parameterGroups;
+
+			// If true, the derivatives are calculated by one finite difference per parameter only
+			private boolean		isDenseDerivatives = false;
+
+			// The result of the last call to setValues, re-used as the base value of the finite differences
+			private double[]	lastParameters;
+			private double[]	lastValues;
+
+			// Progress of the optimizer since the last calculation of the derivatives
+			private double		errorAtDerivatives = Double.POSITIVE_INFINITY;
+			private int			numberOfRejectedValuations = 0;
+			private boolean		isLastDerivativesColoured = false;
+
 			@Override
 			public void setValues(final double[] parameters, final double[] values) throws SolverException {
+				calculateValues(parameters, values);
+				synchronized(this) {
+					lastParameters	= parameters.clone();
+					lastValues		= values.clone();
+					// Note: the test is false if the error is NaN, i.e., NaN is considered as a rejected point.
+					if(!(getMeanSquaredError(values) < errorAtDerivatives)) {
+						numberOfRejectedValuations++;
+					}
+				}
+			}
+
+			private void calculateValues(final double[] parameters, final double[] values) throws SolverException {
 				double[] modelParameters = parameters;
 				try {
 					if(parameterTransformation != null) {
@@ -186,18 +237,239 @@ public class Solver {
 					throw new SolverException(e);
 				}
 			}
-		};
+
+			/*
+			 * The mean squared error as calculated by the optimizer (target values zero, unit weights).
+			 */
+			private double getMeanSquaredError(final double[] values) {
+				double error = 0.0;
+				for(final double value : values) {
+					error += value * value;
+				}
+				return error / values.length;
+			}
+
+			@Override
+			public void setDerivatives(final double[] parameters, final double[][] derivatives) throws SolverException {
+				final double[] values = getValues(parameters);
+
+				/*
+				 * The sparsity pattern is only a hint: a derivative may vanish at a given point for non-structural reasons (e.g. a flat curve).
+				 * The coloured finite differences are used only if the valuations are consistent with the pattern
+				 * and if the optimizer made progress with the previous derivatives. Otherwise all parameters are shifted separately.
+				 */
+				boolean isFullCalculation;
+				synchronized(this) {
+					isFullCalculation = isDenseDerivatives || parameterGroups == null || numberOfRejectedValuations >= MAX_REJECTED_VALUATIONS_FOR_COLOURED_DERIVATIVES;
+				}
+
+				if(!isFullCalculation) {
+					final double[][] valuesShifted = getValuesShifted(parameters, parameterGroups);
+					if(isConsistentWithSparsityPattern(parameterGroups, values, valuesShifted)) {
+						setDerivatives(parameters, parameterGroups, values, valuesShifted, derivatives, true);
+					}
+					else {
+						isFullCalculation = true;
+					}
+				}
+
+				if(isFullCalculation) {
+					updateSparsityPattern(parameters, values, derivatives);
+				}
+
+				synchronized(this) {
+					errorAtDerivatives = getMeanSquaredError(values);
+					numberOfRejectedValuations = 0;
+					isLastDerivativesColoured = !isFullCalculation;
+				}
+			}
+
+			/**
+			 * Calculates the derivatives by one finite difference per parameter and adds the observed dependencies to the sparsity pattern.
+			 *
+			 * @param parameters The parameters.
+			 * @param values The values at the given parameters.
+			 * @param derivatives Output: the derivatives.
+			 * @return True if new dependencies have been observed.
+			 */
+			private boolean updateSparsityPattern(final double[] parameters, final double[] values, final double[][] derivatives) throws SolverException {
+				final int numberOfParameters = parameters.length;
+				final int numberOfValues = values.length;
+
+				final int[][] groups = new int[numberOfParameters][];
+				for(int parameterIndex=0; parameterIndex<numberOfParameters; parameterIndex++) {
+					groups[parameterIndex] = new int[] { parameterIndex };
+				}
+				final double[][] valuesShifted = getValuesShifted(parameters, groups);
+				setDerivatives(parameters, groups, values, valuesShifted, derivatives, false);
+
+				synchronized(this) {
+					boolean isPatternChanged = isDependent == null;
+					if(isDependent == null) {
+						isDependent = new boolean[numberOfParameters][numberOfValues];
+					}
+					for(int parameterIndex=0; parameterIndex<numberOfParameters; parameterIndex++) {
+						for(int valueIndex=0; valueIndex<numberOfValues; valueIndex++) {
+							// A failed valuation is considered as a dependency
+							final boolean isDependentAtPoint = derivatives[parameterIndex][valueIndex] != 0.0 || Double.isNaN(valuesShifted[parameterIndex][valueIndex]);
+							if(isDependentAtPoint && !isDependent[parameterIndex][valueIndex]) {
+								isDependent[parameterIndex][valueIndex] = true;
+								isPatternChanged = true;
+							}
+						}
+					}
+					if(isPatternChanged) {
+						parameterGroups = getParameterGroups(isDependent);
+					}
+					return isPatternChanged;
+				}
+			}
+
+			/**
+			 * Checks if the changes of the values under the shift of a group are explained by the sparsity pattern,
+			 * i.e., if all values which changed depend on a parameter of the group.
+			 */
+			private boolean isConsistentWithSparsityPattern(final int[][] groups, final double[] values, final double[][] valuesShifted) {
+				for(int groupIndex=0; groupIndex<groups.length; groupIndex++) {
+					for(int valueIndex=0; valueIndex<values.length; valueIndex++) {
+						if(valuesShifted[groupIndex][valueIndex] == values[valueIndex]) {
+							continue;
+						}
+						boolean isExplained = false;
+						for(final int parameterIndex : groups[groupIndex]) {
+							isExplained |= isDependent[parameterIndex][valueIndex];
+						}
+						if(!isExplained) {
+							return false;
+						}
+					}
+				}
+				return true;
+			}
+
+			private void setDerivatives(final double[] parameters, final int[][] groups, final double[] values, final double[][] valuesShifted, final double[][] derivatives, final boolean isColoured) {
+				for(int groupIndex=0; groupIndex<groups.length; groupIndex++) {
+					for(final int parameterIndex : groups[groupIndex]) {
+						final double parameterFiniteDifference = getParameterFiniteDifference(parameters[parameterIndex]);
+						for(int valueIndex=0; valueIndex<values.length; valueIndex++) {
+							double derivative = 0.0;
+							if(!isColoured || isDependent[parameterIndex][valueIndex]) {
+								derivative = (valuesShifted[groupIndex][valueIndex] - values[valueIndex]) / parameterFiniteDifference;
+								if(Double.isNaN(derivative)) {
+									// As in LevenbergMarquardt: a failed valuation results in a zero derivative
+									derivative = 0.0;
+								}
+							}
+							derivatives[parameterIndex][valueIndex] = derivative;
+						}
+					}
+				}
+			}
+
+			/*
+			 * The values at the given parameters, taken from the last call to setValues if possible.
+			 */
+			private double[] getValues(final double[] parameters) throws SolverException {
+				synchronized(this) {
+					if(lastParameters != null && Arrays.equals(parameters, lastParameters)) {
+						return lastValues;
+					}
+				}
+				final double[] values = new double[calibrationProducts.size()];
+				calculateValues(parameters.clone(), values);
+				return values;
+			}
+
+			/*
+			 * Value the calibration products for each group of shifted parameters in parallel.
+			 */
+			private double[][] getValuesShifted(final double[] parameters, final int[][] groups) throws SolverException {
+				final int numberOfValues = calibrationProducts.size();
+
+				final List<Callable<double[]>> valuations = new ArrayList<>();
+				for(final int[] group : groups) {
+					valuations.add(new Callable<double[]>() {
+						@Override
+						public double[] call() {
+							final double[] parametersShifted = parameters.clone();
+							for(final int parameterIndex : group) {
+								parametersShifted[parameterIndex] += getParameterFiniteDifference(parameters[parameterIndex]);
+							}
+							final double[] valuesShifted = new double[numberOfValues];
+							try {
+								calculateValues(parametersShifted, valuesShifted);
+							}
+							catch(final Exception e) {
+								Arrays.fill(valuesShifted, Double.NaN);
+							}
+							return valuesShifted;
+						}
+					});
+				}
+
+				final double[][] valuesShifted = new double[groups.length][];
+				try {
+					final List<Future<double[]>> results = ForkJoinPool.commonPool().invokeAll(valuations);
+					for(int groupIndex=0; groupIndex<groups.length; groupIndex++) {
+						valuesShifted[groupIndex] = results.get(groupIndex).get();
+					}
+				}
+				catch(final InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new SolverException(e);
+				}
+				catch(final ExecutionException e) {
+					throw new SolverException(e.getCause());
+				}
+				return valuesShifted;
+			}
+
+			/**
+			 * Checks if the optimizer stalled with coloured derivatives, i.e., if no point was accepted after the last calculation of the derivatives.
+			 * In that case the sparsity pattern is verified by a full calculation of the derivatives at the given parameters.
+			 *
+			 * @param parameters The best fit parameters.
+			 * @return True if the optimizer stalled and the sparsity pattern turned out to be incomplete.
+			 */
+			private boolean isStalledWithIncompleteSparsityPattern(final double[] parameters) throws SolverException {
+				synchronized(this) {
+					if(!isLastDerivativesColoured || numberOfRejectedValuations == 0) {
+						return false;
+					}
+				}
+				final double[] values = getValues(parameters);
+				return updateSparsityPattern(parameters, values, new double[parameters.length][values.length]);
+			}
+
+			private synchronized void setDenseDerivatives() {
+				isDenseDerivatives = true;
+			}
+		}
+
+		final CalibrationObjectiveFunction objectiveFunction = new CalibrationObjectiveFunction();
 
 		if(optimizerFactory == null) {
 			final int maxThreads		= Math.min(2 * Math.max(Runtime.getRuntime().availableProcessors(), 1), initialParameters.length);
 			optimizerFactory = new OptimizerFactoryLevenbergMarquardt(maxIterations, calibrationAccuracy, maxThreads);
 		}
 
-		final Optimizer optimizer = optimizerFactory.getOptimizer(objectiveFunction, initialParameters, lowerBound, upperBound, zeros);
+		Optimizer optimizer = optimizerFactory.getOptimizer(objectiveFunction, initialParameters, lowerBound, upperBound, zeros);
 		optimizer.run();
 
 		iterations = optimizer.getIterations();
 
+		/*
+		 * If the optimizer stalled using derivatives based on an incomplete sparsity pattern,
+		 * continue from the best fit parameters with one finite difference per parameter.
+		 */
+		if(objectiveFunction.isStalledWithIncompleteSparsityPattern(optimizer.getBestFitParameters())) {
+			objectiveFunction.setDenseDerivatives();
+			optimizer = optimizerFactory.getOptimizer(objectiveFunction, optimizer.getBestFitParameters(), lowerBound, upperBound, zeros);
+			optimizer.run();
+
+			iterations += optimizer.getIterations();
+		}
+
 		double[] bestParameters = optimizer.getBestFitParameters();
 		if(parameterTransformation != null) {
 			bestParameters = parameterTransformation.getParameter(bestParameters);
@@ -225,6 +497,57 @@ public class Solver {
 		return calibratedModel;
 	}
 
+	/*
+	 * The shift of the finite differences, as in LevenbergMarquardt.
+	 */
+	private static double getParameterFiniteDifference(final double parameter) {
+		return (Math.abs(parameter) + 1) * 1E-8;
+	}
+
+	/**
+	 * Groups the parameters such that no two parameters of a group have a common dependent value (a greedy column colouring of the Jacobian, Curtis, Powell and Reid (1974)).
+	 * The derivatives with respect to all parameters of a group can then be calculated from a single valuation with all parameters of the group shifted.
+	 *
+	 * @param isDependent The sparsity pattern of the Jacobian: isDependent[i][j] is true if the value j depends on the parameter i.
+	 * @return The groups of parameter indices.
+	 */
+	private static int[][] getParameterGroups(final boolean[][] isDependent) {
+		final List<List<Integer>> groups = new ArrayList<>();
+		final List<boolean[]> isValueUsedByGroup = new ArrayList<>();
+		for(int parameterIndex=0; parameterIndex<isDependent.length; parameterIndex++) {
+			final boolean[] isDependentOnParameter = isDependent[parameterIndex];
+
+			// Find the first group not sharing a dependent value
+			int groupIndex = 0;
+			for(; groupIndex<groups.size(); groupIndex++) {
+				final boolean[] isValueUsed = isValueUsedByGroup.get(groupIndex);
+				boolean isDisjoint = true;
+				for(int valueIndex=0; valueIndex<isDependentOnParameter.length && isDisjoint; valueIndex++) {
+					isDisjoint = !(isDependentOnParameter[valueIndex] && isValueUsed[valueIndex]);
+				}
+				if(isDisjoint) {
+					break;
+				}
+			}
+			if(groupIndex == groups.size()) {
+				groups.add(new ArrayList<Integer>());
+				isValueUsedByGroup.add(new boolean[isDependentOnParameter.length]);
+			}
+
+			groups.get(groupIndex).add(parameterIndex);
+			final boolean[] isValueUsed = isValueUsedByGroup.get(groupIndex);
+			for(int valueIndex=0; valueIndex<isDependentOnParameter.length; valueIndex++) {
+				isValueUsed[valueIndex] |= isDependentOnParameter[valueIndex];
+			}
+		}
+
+		final int[][] parameterGroups = new int[groups.size()][];
+		for(int groupIndex=0; groupIndex<groups.size(); groupIndex++) {
+			parameterGroups[groupIndex] = groups.get(groupIndex).stream().mapToInt(Integer::intValue).toArray();
+		}
+		return parameterGroups;
+	}
+
 	/**
 	 * Returns the number of iterations required in the last solver step.
 	 *
@@ -7,7 +7,6 @@ package net.finmath.marketdata.model.curves;
 
 import java.io.IOException;
 import java.io.Serializable;
-import java.lang.ref.SoftReference;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.time.LocalDate;
@@ -16,8 +15,6 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 import net.finmath.interpolation.RationalFunctionInterpolation;
 import net.finmath.marketdata.model.AnalyticModel;
@@ -262,9 +259,9 @@ public class CurveInterpolation extends AbstractCurve implements Serializable, C
 	private ExtrapolationMethod	extrapolationMethod = ExtrapolationMethod.CONSTANT;
 	private InterpolationEntity interpolationEntity = InterpolationEntity.LOG_OF_VALUE;
 
-	private RationalFunctionInterpolation	rationalFunctionInterpolation =  null;
+	// The interpolation is immutable and published via a volatile field, such that getValue does not need to synchronize
+	private volatile RationalFunctionInterpolation	rationalFunctionInterpolation =  null;
 	private transient Object					rationalFunctionInterpolationLazyInitLock = new Object();
-	private transient SoftReference<Map<Double, Double>> curveCacheReference = null;
 
 	private static final long serialVersionUID = -4126228588123963885L;
 	private static NumberFormat	formatterReal = NumberFormat.getInstance(Locale.US);
@@ -332,41 +329,39 @@ public class CurveInterpolation extends AbstractCurve implements Serializable, C
 	@Override
 	public double getValue(final AnalyticModel model, final double time)
 	{
-		Map<Double, Double> curveCache = curveCacheReference != null ? curveCacheReference.get() : null;
-		if(curveCache == null) {
-			curveCache = new ConcurrentHashMap<>();
-			curveCacheReference = new SoftReference<>(curveCache);
-		}
-		final Double valueFromCache = curveCache.get(time);
-		if(valueFromCache != null) {
-			return valueFromCache.doubleValue();
-		}
-
-		final double value = valueFromInterpolationEntity(getInterpolationEntityValue(time), time);
-		curveCache.put(time, value);
-		return value;
+		return valueFromInterpolationEntity(getInterpolationEntityValue(time), time);
 	}
 
 	private double getInterpolationEntityValue(final double time)
 	{
-		synchronized(rationalFunctionInterpolationLazyInitLock) {
-			// Lazy initialization of interpolation function
-			if(rationalFunctionInterpolation == null) {
-				final double[] pointsArray = new double[points.size()];
-				final double[] valuesArray = new double[points.size()];
-				for(int i=0; i<points.size(); i++) {
-					pointsArray[i] = points.get(i).time;
-					valuesArray[i] = points.get(i).value;
+		return getRationalFunctionInterpolation().getValue(time);
+	}
+
+	private RationalFunctionInterpolation getRationalFunctionInterpolation()
+	{
+		RationalFunctionInterpolation interpolation = rationalFunctionInterpolation;
+		if(interpolation == null) {
+			synchronized(rationalFunctionInterpolationLazyInitLock) {
+				// Lazy initialization of interpolation function
+				interpolation = rationalFunctionInterpolation;
+				if(interpolation == null) {
+					final double[] pointsArray = new double[points.size()];
+					final double[] valuesArray = new double[points.size()];
+					for(int i=0; i<points.size(); i++) {
+						pointsArray[i] = points.get(i).time;
+						valuesArray[i] = points.get(i).value;
+					}
+					interpolation = new RationalFunctionInterpolation(
+							pointsArray,
+							valuesArray,
+							RationalFunctionInterpolation.InterpolationMethod.valueOf(interpolationMethod.toString()),
+							RationalFunctionInterpolation.ExtrapolationMethod.valueOf(extrapolationMethod.toString())
+							);
+					rationalFunctionInterpolation = interpolation;
 				}
-				rationalFunctionInterpolation = new RationalFunctionInterpolation(
-						pointsArray,
-						valuesArray,
-						RationalFunctionInterpolation.InterpolationMethod.valueOf(interpolationMethod.toString()),
-						RationalFunctionInterpolation.ExtrapolationMethod.valueOf(extrapolationMethod.toString())
-						);
 			}
 		}
-		return rationalFunctionInterpolation.getValue(time);
+		return interpolation;
 	}
 
 	/**
@@ -414,7 +409,6 @@ public class CurveInterpolation extends AbstractCurve implements Serializable, C
 				}
 			}
 			rationalFunctionInterpolation = null;
-			curveCacheReference = null;
 		}
 	}
 
@@ -498,7 +492,6 @@ public class CurveInterpolation extends AbstractCurve implements Serializable, C
 			pointsBeingParameters.get(i).value = interpolationEntityFromValue(parameter[i], pointsBeingParameters.get(i).time);
 		}
 		rationalFunctionInterpolation = null;
-		curveCacheReference = null;
 	}
 
 	private double interpolationEntityFromValue(final double value, final double time) {
@@ -536,7 +529,6 @@ public class CurveInterpolation extends AbstractCurve implements Serializable, C
 		newCurve.points					= new ArrayList<>();
 		newCurve.pointsBeingParameters	= new ArrayList<>();
 		newCurve.rationalFunctionInterpolation = null;
-		newCurve.curveCacheReference = null;
 		for(final Point point : points) {
 			final Point newPoint = (Point) point.clone();
 			newCurve.points.add(newPoint);
@@ -0,0 +1,306 @@
+package net.finmath.montecarlo;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+import org.apache.commons.lang3.Validate;
+
+import net.finmath.randomnumbers.Philox4x32;
+import net.finmath.stochastic.RandomVariable;
+import net.finmath.time.TimeDiscretization;
+
+/**
+ * Implementation of a time-discrete n-dimensional Brownian motion
+ * <i>W = (W<sub>1</sub>,...,W<sub>n</sub>)</i> where <i>W<sub>i</sub></i> is
+ * a Brownian motion and <i>W<sub>i</sub></i>, <i>W<sub>j</sub></i> are
+ * independent for <i>i</i> not equal <i>j</i>, using the counter-based random number generator {@link Philox4x32}.
+ *
+ * The uniform random number used for the increment of a given path, time index and factor is
+ * a function of (seed, time index, factor, path) only. Hence
+ * <ul>
+ * 	<li>the increments of a time index are generated in parallel (blocks of paths),</li>
+ * 	<li>any block of paths can be generated independently, see {@link #getBrownianIncrementRealizations(int, int, int, int)},</li>
+ * 	<li>the increments may be re-generated on request instead of being stored,</li>
+ * </ul>
+ * and the result is reproducible and independent of the number of threads.
+ *
+ * If <code>isStoreIncrements</code> is true (default), the increments of a time index are stored once they have been generated
+ * (the time indices are initialized lazily and independently). If false, the increments are not stored and generated on each request.
+ *
+ * The class is immutable and thread safe.
+ *
+ * @version 1.0
+ */
+public class BrownianMotionFromPhiloxRandomNumbers implements BrownianMotion, Serializable {
+
+	private static final long serialVersionUID = -2461548616186722563L;
+
+	private static final int BLOCK_SIZE = 1 << 14;
+
+	private final TimeDiscretization	timeDiscretization;
+
+	private final int			numberOfFactors;
+	private final int			numberOfPaths;
+	private final int			seed;
+	private final boolean		isStoreIncrements;
+
+	private final RandomVariableFactory randomVariableFactory;
+
+	private final Philox4x32	randomNumberGenerator;
+
+	private transient	AtomicReferenceArray<RandomVariable[]>	brownianIncrements;
+
+	/**
+	 * Construct a Brownian motion.
+	 *
+	 * @param timeDiscretization The time discretization used for the Brownian increments.
+	 * @param numberOfFactors Number of factors.
+	 * @param numberOfPaths Number of paths to simulate.
+	 * @param seed The seed of the random number generator.
+	 * @param randomVariableFactory Factory to be used to create random variable.
+	 * @param isStoreIncrements If true, the increments of a time index are stored once generated, otherwise they are re-generated on each request.
+	 */
+	public BrownianMotionFromPhiloxRandomNumbers(
+			final TimeDiscretization timeDiscretization,
+			final int numberOfFactors,
+			final int numberOfPaths,
+			final int seed,
+			final RandomVariableFactory randomVariableFactory,
+			final boolean isStoreIncrements) {
+		super();
+		Validate.isTrue(numberOfFactors > 0, "Number of factors must be greater or equal 1 (given %d).", numberOfFactors);
+		Validate.isTrue(numberOfPaths > 0, "Number of paths must be greater or equal 1 (given %d).", numberOfPaths);
+
+		this.timeDiscretization = timeDiscretization;
+		this.numberOfFactors	= numberOfFactors;
+		this.numberOfPaths		= numberOfPaths;
+		this.seed				= seed;
+		this.randomVariableFactory = randomVariableFactory;
+		this.isStoreIncrements	= isStoreIncrements;
+
+		randomNumberGenerator	= new Philox4x32(seed);
+		brownianIncrements		= new AtomicReferenceArray<>(timeDiscretization.getNumberOfTimeSteps());
+	}
+
+	/**
+	 * Construct a Brownian motion. The increments are stored once generated.
+	 *
+	 * @param timeDiscretization The time discretization used for the Brownian increments.
+	 * @param numberOfFactors Number of factors.
+	 * @param numberOfPaths Number of paths to simulate.
+	 * @param seed The seed of the random number generator.
+	 * @param randomVariableFactory Factory to be used to create random variable.
+	 */
+	public BrownianMotionFromPhiloxRandomNumbers(
+			final TimeDiscretization timeDiscretization,
+			final int numberOfFactors,
+			final int numberOfPaths,
+			final int seed,
+			final RandomVariableFactory randomVariableFactory) {
+		this(timeDiscretization, numberOfFactors, numberOfPaths, seed, randomVariableFactory, true);
+	}
+
+	/**
+	 * Construct a Brownian motion. The increments are stored once generated.
+	 *
+	 * @param timeDiscretization The time discretization used for the Brownian increments.
+	 * @param numberOfFactors Number of factors.
+	 * @param numberOfPaths Number of paths to simulate.
+	 * @param seed The seed of the random number generator.
+	 */
+	public BrownianMotionFromPhiloxRandomNumbers(
+			final TimeDiscretization timeDiscretization,
+			final int numberOfFactors,
+			final int numberOfPaths,
+			final int seed) {
+		this(timeDiscretization, numberOfFactors, numberOfPaths, seed, new RandomVariableFromArrayFactory());
+	}
+
+	@Override
+	public BrownianMotion getCloneWithModifiedSeed(final int seed) {
+		return new BrownianMotionFromPhiloxRandomNumbers(getTimeDiscretization(), getNumberOfFactors(), getNumberOfPaths(), seed, randomVariableFactory, isStoreIncrements);
+	}
+
+	@Override
+	public BrownianMotion getCloneWithModifiedTimeDiscretization(final TimeDiscretization newTimeDiscretization) {
+		return new BrownianMotionFromPhiloxRandomNumbers(newTimeDiscretization, getNumberOfFactors(), getNumberOfPaths(), getSeed(), randomVariableFactory, isStoreIncrements);
+	}
+
+	@Override
+	public RandomVariable getIncrement(final int timeIndex, final int factor) {
+		return getBrownianIncrement(timeIndex, factor);
+	}
+
+	@Override
+	public RandomVariable getBrownianIncrement(final int timeIndex, final int factor) {
+		if(!isStoreIncrements) {
+			final double time = timeDiscretization.getTime(timeIndex+1);
+			return randomVariableFactory.createRandomVariable(time, getBrownianIncrementRealizations(timeIndex, factor, 0, numberOfPaths));
+		}
+
+		RandomVariable[] brownianIncrementsOfTimeIndex = brownianIncrements.get(timeIndex);
+		if(brownianIncrementsOfTimeIndex == null) {
+			/*
+			 * Lazy initialization. Concurrent initializations of the same time index generate identical values,
+			 * the first one is published.
+			 */
+			brownianIncrements.compareAndSet(timeIndex, null, getBrownianIncrements(timeIndex));
+			brownianIncrementsOfTimeIndex = brownianIncrements.get(timeIndex);
+		}
+
+		return brownianIncrementsOfTimeIndex[factor];
+	}
+
+	/**
+	 * Generate the realizations of the Brownian increment of the paths <code>fromPath</code> (inclusive)
+	 * to <code>toPath</code> (exclusive) for a given time index and factor.
+	 *
+	 * The result is identical to the corresponding realizations of {@link #getBrownianIncrement(int, int)},
+	 * but the method does not generate (or store) the other paths.
+	 *
+	 * @param timeIndex The time index.
+	 * @param factor The factor.
+	 * @param fromPath The first path.
+	 * @param toPath The end of the block of paths (exclusive).
+	 * @return The realizations of the paths <code>fromPath</code>, ..., <code>toPath-1</code>.
+	 */
+	public double[] getBrownianIncrementRealizations(final int timeIndex, final int factor, final int fromPath, final int toPath) {
+		final double[] realizations = new double[toPath-fromPath];
+		generateBrownianIncrementRealizations(timeIndex, factor, fromPath, realizations, 0, toPath-fromPath);
+		return realizations;
+	}
+
+	/**
+	 * Generate the Brownian increment of the paths <code>fromPath</code> (inclusive)
+	 * to <code>toPath</code> (exclusive) for a given time index and factor, using the random variable factory of this object.
+	 *
+	 * @param timeIndex The time index.
+	 * @param factor The factor.
+	 * @param fromPath The first path.
+	 * @param toPath The end of the block of paths (exclusive).
+	 * @return The random variable representing the paths <code>fromPath</code>, ..., <code>toPath-1</code> of the increment.
+	 */
+	public RandomVariable getBrownianIncrement(final int timeIndex, final int factor, final int fromPath, final int toPath) {
+		final double time = timeDiscretization.getTime(timeIndex+1);
+		return randomVariableFactory.createRandomVariable(time, getBrownianIncrementRealizations(timeIndex, factor, fromPath, toPath));
+	}
+
+	/**
+	 * Generate the increments of all factors for a given time index, running blocks of paths in parallel.
+	 *
+	 * @param timeIndex The time index.
+	 * @return The increments, one random variable for each factor.
+	 */
+	private RandomVariable[] getBrownianIncrements(final int timeIndex) {
+		final double[][] realizations = new double[numberOfFactors][numberOfPaths];
+
+		final int numberOfBlocks = (numberOfPaths + BLOCK_SIZE - 1) / BLOCK_SIZE;
+		IntStream.range(0, numberOfFactors * numberOfBlocks).parallel().forEach(new IntConsumer() {
+			@Override
+			public void accept(final int task) {
+				final int factor = task / numberOfBlocks;
+				final int fromPath = (task % numberOfBlocks) * BLOCK_SIZE;
+				final int toPath = Math.min(fromPath + BLOCK_SIZE, numberOfPaths);
+				generateBrownianIncrementRealizations(timeIndex, factor, fromPath, realizations[factor], fromPath, toPath-fromPath);
+			}
+		});
+
+		final double time = timeDiscretization.getTime(timeIndex+1);
+		final RandomVariable[] increments = new RandomVariable[numberOfFactors];
+		for(int factor=0; factor<numberOfFactors; factor++) {
+			increments[factor] = randomVariableFactory.createRandomVariable(time, realizations[factor]);
+		}
+		return increments;
+	}
+
+	private void generateBrownianIncrementRealizations(final int timeIndex, final int factor, final int fromPath, final double[] values, final int offset, final int length) {
+		final double sqrtDeltaT = Math.sqrt(timeDiscretization.getTimeStep(timeIndex));
+
+		randomNumberGenerator.getUniforms(fromPath, timeIndex, factor, values, offset, length);
+		for(int i=offset; i<offset+length; i++) {
+			values[i] = net.finmath.functions.NormalDistribution.inverseCumulativeDistribution(values[i]) * sqrtDeltaT;
+		}
+	}
+
+	@Override
+	public TimeDiscretization getTimeDiscretization() {
+		return timeDiscretization;
+	}
+
+	@Override
+	public int getNumberOfFactors() {
+		return numberOfFactors;
+	}
+
+	@Override
+	public int getNumberOfPaths() {
+		return numberOfPaths;
+	}
+
+	@Override
+	public RandomVariable getRandomVariableForConstant(final double value) {
+		return randomVariableFactory.createRandomVariable(value);
+	}
+
+	/**
+	 * @return Returns the seed.
+	 */
+	public int getSeed() {
+		return seed;
+	}
+
+	/**
+	 * @return Returns true if the increments are stored once generated.
+	 */
+	public boolean isStoreIncrements() {
+		return isStoreIncrements;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + " [timeDiscretization=" + timeDiscretization + ", numberOfFactors="
+				+ numberOfFactors + ", numberOfPaths=" + numberOfPaths + ", seed=" + seed
+				+ ", isStoreIncrements=" + isStoreIncrements + ", randomVariableFactory=" + randomVariableFactory + "]";
+	}
+
+	@Override
+	public boolean equals(final Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+
+		final BrownianMotionFromPhiloxRandomNumbers that = (BrownianMotionFromPhiloxRandomNumbers) o;
+
+		if (numberOfFactors != that.numberOfFactors) {
+			return false;
+		}
+		if (numberOfPaths != that.numberOfPaths) {
+			return false;
+		}
+		if (seed != that.seed) {
+			return false;
+		}
+		return timeDiscretization.equals(that.timeDiscretization);
+	}
+
+	@Override
+	public int hashCode() {
+		int result = timeDiscretization.hashCode();
+		result = 31 * result + numberOfFactors;
+		result = 31 * result + numberOfPaths;
+		result = 31 * result + seed;
+		return result;
+	}
+
+	private void readObject(final java.io.ObjectInputStream in) throws ClassNotFoundException, IOException {
+		in.defaultReadObject();
+		// initialization of transients
+		brownianIncrements = new AtomicReferenceArray<>(timeDiscretization.getNumberOfTimeSteps());
+	}
+}
@@ -0,0 +1,280 @@
+package net.finmath.montecarlo;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.commons.lang3.Validate;
+
+import net.finmath.randomnumbers.MersenneTwister;
+import net.finmath.stochastic.RandomVariable;
+import net.finmath.time.TimeDiscretization;
+
+/**
+ * Implementation of a time-discrete n-dimensional Brownian motion
+ * <i>W = (W<sub>1</sub>,...,W<sub>n</sub>)</i> where <i>W<sub>i</sub></i> is
+ * a Brownian motion and <i>W<sub>i</sub></i>, <i>W<sub>j</sub></i> are
+ * independent for <i>i</i> not equal <i>j</i>, which does not store its increments.
+ *
+ * The increments of a time index are generated on request from a Mersenne Twister seeded
+ * with the pair (seed, time index). The increments are kept for a window of recently requested time indices
+ * (the time index <i>i</i> occupies the slot <i>i</i> modulo the window size), such that the memory requirement is that of
+ * a few time steps. Requesting an evicted time index re-generates its increments (with identical values).
+ * Different time indices are generated concurrently, each time index is generated only once while it is in the window.
+ * Hence, the class is well suited for a simulation which traverses the time steps sequentially, e.g., an
+ * {@link net.finmath.montecarlo.process.EulerSchemeFromProcessModel} retaining only a few states,
+ * see {@link net.finmath.montecarlo.process.EulerSchemeFromProcessModel#getTimesOfRetainedStates()}.
+ * For a simulation evolving chunks of paths in parallel, the window should cover the time steps by which the chunks run apart.
+ *
+ * The random numbers differ from those of {@link BrownianMotionFromMersenneRandomNumbers}, since the latter
+ * generates the whole path from a single stream.
+ *
+ * The quadruple (time discretization, number of factors, number of paths, seed)
+ * defines the state of an object of this class.
+ *
+ * The class is immutable and thread safe.
+ *
+ * @version 1.1
+ */
+public class BrownianMotionStreamingFromMersenneRandomNumbers implements BrownianMotion, Serializable {
+
+	private static final long serialVersionUID = 2849519393315591522L;
+
+	private static final int DEFAULT_NUMBER_OF_CACHED_TIME_INDICES = 8;
+
+	/**
+	 * The increments of a time index, generated by the first thread requesting them.
+	 */
+	private static class IncrementsOfTimeIndex {
+		private final int timeIndex;
+		private final FutureTask<RandomVariable[]> increments;
+
+		IncrementsOfTimeIndex(final int timeIndex, final FutureTask<RandomVariable[]> increments) {
+			this.timeIndex = timeIndex;
+			this.increments = increments;
+		}
+	}
+
+	private final TimeDiscretization	timeDiscretization;
+
+	private final int			numberOfFactors;
+	private final int			numberOfPaths;
+	private final int			seed;
+
+	private final RandomVariableFactory randomVariableFactory;
+
+	private final int			numberOfCachedTimeIndices;
+
+	private transient AtomicReferenceArray<IncrementsOfTimeIndex> brownianIncrements;
+
+	/**
+	 * Construct a Brownian motion.
+	 *
+	 * @param timeDiscretization The time discretization used for the Brownian increments.
+	 * @param numberOfFactors Number of factors.
+	 * @param numberOfPaths Number of paths to simulate.
+	 * @param seed The seed of the random number generator.
+	 * @param randomVariableFactory Factory to be used to create random variable.
+	 * @param numberOfCachedTimeIndices The number of time indices for which the increments are kept.
+	 */
+	public BrownianMotionStreamingFromMersenneRandomNumbers(
+			final TimeDiscretization timeDiscretization,
+			final int numberOfFactors,
+			final int numberOfPaths,
+			final int seed,
+			final RandomVariableFactory randomVariableFactory,
+			final int numberOfCachedTimeIndices) {
+		super();
+		Validate.isTrue(numberOfFactors > 0, "Number of factors must be greater or equal 1 (given %d).", numberOfFactors);
+		Validate.isTrue(numberOfPaths > 0, "Number of paths must be greater or equal 1 (given %d).", numberOfPaths);
+		Validate.isTrue(numberOfCachedTimeIndices > 0, "Number of cached time indices must be greater or equal 1 (given %d).", numberOfCachedTimeIndices);
+
+		this.timeDiscretization = timeDiscretization;
+		this.numberOfFactors	= numberOfFactors;
+		this.numberOfPaths		= numberOfPaths;
+		this.seed				= seed;
+
+		this.randomVariableFactory = randomVariableFactory;
+		this.numberOfCachedTimeIndices = numberOfCachedTimeIndices;
+
+		brownianIncrements = new AtomicReferenceArray<>(numberOfCachedTimeIndices);
+	}
+
+	/**
+	 * Construct a Brownian motion.
+	 *
+	 * @param timeDiscretization The time discretization used for the Brownian increments.
+	 * @param numberOfFactors Number of factors.
+	 * @param numberOfPaths Number of paths to simulate.
+	 * @param seed The seed of the random number generator.
+	 * @param randomVariableFactory Factory to be used to create random variable.
+	 */
+	public BrownianMotionStreamingFromMersenneRandomNumbers(
+			final TimeDiscretization timeDiscretization,
+			final int numberOfFactors,
+			final int numberOfPaths,
+			final int seed,
+			final RandomVariableFactory randomVariableFactory) {
+		this(timeDiscretization, numberOfFactors, numberOfPaths, seed, randomVariableFactory, DEFAULT_NUMBER_OF_CACHED_TIME_INDICES);
+	}
+
+	/**
+	 * Construct a Brownian motion.
+	 *
+	 * @param timeDiscretization The time discretization used for the Brownian increments.
+	 * @param numberOfFactors Number of factors.
+	 * @param numberOfPaths Number of paths to simulate.
+	 * @param seed The seed of the random number generator.
+	 */
+	public BrownianMotionStreamingFromMersenneRandomNumbers(
+			final TimeDiscretization timeDiscretization,
+			final int numberOfFactors,
+			final int numberOfPaths,
+			final int seed) {
+		this(timeDiscretization, numberOfFactors, numberOfPaths, seed, new RandomVariableFromArrayFactory());
+	}
+
+	@Override
+	public BrownianMotion getCloneWithModifiedSeed(final int seed) {
+		return new BrownianMotionStreamingFromMersenneRandomNumbers(getTimeDiscretization(), getNumberOfFactors(), getNumberOfPaths(), seed, randomVariableFactory, numberOfCachedTimeIndices);
+	}
+
+	@Override
+	public BrownianMotion getCloneWithModifiedTimeDiscretization(final TimeDiscretization newTimeDiscretization) {
+		return new BrownianMotionStreamingFromMersenneRandomNumbers(newTimeDiscretization, getNumberOfFactors(), getNumberOfPaths(), getSeed(), randomVariableFactory, numberOfCachedTimeIndices);
+	}
+
+	@Override
+	public RandomVariable getIncrement(final int timeIndex, final int factor) {
+		return getBrownianIncrement(timeIndex, factor);
+	}
+
+	@Override
+	public RandomVariable getBrownianIncrement(final int timeIndex, final int factor) {
+		final int slot = timeIndex % numberOfCachedTimeIndices;
+
+		IncrementsOfTimeIndex incrementsOfTimeIndex = brownianIncrements.get(slot);
+		while(incrementsOfTimeIndex == null || incrementsOfTimeIndex.timeIndex != timeIndex) {
+			final IncrementsOfTimeIndex newIncrementsOfTimeIndex = new IncrementsOfTimeIndex(timeIndex, new FutureTask<>(() -> getBrownianIncrements(timeIndex)));
+			if(brownianIncrements.compareAndSet(slot, incrementsOfTimeIndex, newIncrementsOfTimeIndex)) {
+				// This thread generates the increments, other threads requesting the time index wait for them
+				newIncrementsOfTimeIndex.increments.run();
+				incrementsOfTimeIndex = newIncrementsOfTimeIndex;
+			}
+			else {
+				incrementsOfTimeIndex = brownianIncrements.get(slot);
+			}
+		}
+
+		try {
+			return incrementsOfTimeIndex.increments.get()[factor];
+		}
+		catch(final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Generation of Brownian increments for time index " + timeIndex + " interrupted.", e);
+		}
+		catch(final ExecutionException e) {
+			throw new RuntimeException("Generation of Brownian increments for time index " + timeIndex + " failed. See cause of this exception for details.", e.getCause());
+		}
+	}
+
+	/**
+	 * Generate the increments of all factors for a given time index.
+	 *
+	 * @param timeIndex The time index.
+	 * @return The increments, one random variable for each factor.
+	 */
+	private RandomVariable[] getBrownianIncrements(final int timeIndex) {
+		// Each time index has its own stream, seeded by (seed, timeIndex).
+		final MersenneTwister mersenneTwister = new MersenneTwister(((long)seed << 32) | (timeIndex & 0xffffffffL));
+
+		final double sqrtDeltaT = Math.sqrt(timeDiscretization.getTimeStep(timeIndex));
+		final double time = timeDiscretization.getTime(timeIndex+1);
+
+		final RandomVariable[] increments = new RandomVariable[numberOfFactors];
+		for(int factor=0; factor<numberOfFactors; factor++) {
+			final double[] incrementsOfFactor = new double[numberOfPaths];
+			for(int path=0; path<numberOfPaths; path++) {
+				final double uniformIncrement = mersenneTwister.nextDoubleFast();
+				incrementsOfFactor[path] = net.finmath.functions.NormalDistribution.inverseCumulativeDistribution(uniformIncrement) * sqrtDeltaT;
+			}
+			increments[factor] = randomVariableFactory.createRandomVariable(time, incrementsOfFactor);
+		}
+
+		return increments;
+	}
+
+	@Override
+	public TimeDiscretization getTimeDiscretization() {
+		return timeDiscretization;
+	}
+
+	@Override
+	public int getNumberOfFactors() {
+		return numberOfFactors;
+	}
+
+	@Override
+	public int getNumberOfPaths() {
+		return numberOfPaths;
+	}
+
+	@Override
+	public RandomVariable getRandomVariableForConstant(final double value) {
+		return randomVariableFactory.createRandomVariable(value);
+	}
+
+	/**
+	 * @return Returns the seed.
+	 */
+	public int getSeed() {
+		return seed;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + " [timeDiscretization=" + timeDiscretization + ", numberOfFactors="
+				+ numberOfFactors + ", numberOfPaths=" + numberOfPaths + ", seed=" + seed
+				+ ", randomVariableFactory=" + randomVariableFactory + ", numberOfCachedTimeIndices=" + numberOfCachedTimeIndices + "]";
+	}
+
+	@Override
+	public boolean equals(final Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+
+		final BrownianMotionStreamingFromMersenneRandomNumbers that = (BrownianMotionStreamingFromMersenneRandomNumbers) o;
+
+		if (numberOfFactors != that.numberOfFactors) {
+			return false;
+		}
+		if (numberOfPaths != that.numberOfPaths) {
+			return false;
+		}
+		if (seed != that.seed) {
+			return false;
+		}
+		return timeDiscretization.equals(that.timeDiscretization);
+	}
+
+	@Override
+	public int hashCode() {
+		int result = timeDiscretization.hashCode();
+		result = 31 * result + numberOfFactors;
+		result = 31 * result + numberOfPaths;
+		result = 31 * result + seed;
+		return result;
+	}
+
+	private void readObject(final java.io.ObjectInputStream in) throws ClassNotFoundException, IOException {
+		in.defaultReadObject();
+		// initialization of transients
+		brownianIncrements = new AtomicReferenceArray<>(numberOfCachedTimeIndices);
+	}
+}
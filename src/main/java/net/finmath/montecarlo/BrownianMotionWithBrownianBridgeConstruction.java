@@ -0,0 +1,464 @@
+package net.finmath.montecarlo;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+import org.apache.commons.lang3.Validate;
+
+import net.finmath.functions.LinearAlgebra;
+import net.finmath.functions.NormalDistribution;
+import net.finmath.randomnumbers.IndexedRandomNumberGenerator;
+import net.finmath.randomnumbers.RandomNumberGenerator;
+import net.finmath.stochastic.RandomVariable;
+import net.finmath.time.TimeDiscretization;
+
+/**
+ * Implementation of a time-discrete n-dimensional Brownian motion
+ * <i>W = (W<sub>1</sub>,...,W<sub>n</sub>)</i> where <i>W<sub>i</sub></i> is
+ * a Brownian motion and <i>W<sub>i</sub></i>, <i>W<sub>j</sub></i> are
+ * independent for <i>i</i> not equal <i>j</i>, where the paths are constructed from
+ * the sample vectors of a (quasi) random number generator via a Brownian bridge or a principal component construction.
+ *
+ * In contrast to {@link BrownianMotionFromRandomNumberGenerator}, where the dimension <i>k</i> of the sample vector generates the <i>k</i>-th increment,
+ * here the first dimensions of the sample vector determine the large scale structure of the path:
+ * <ul>
+ * 	<li>{@link Construction#BROWNIAN_BRIDGE}: the first dimension generates <i>W(T)</i>, the following dimensions generate the values at the
+ * 	mid points of the intervals, bisecting the time discretization level by level (via the conditional distribution of the Brownian bridge).</li>
+ * 	<li>{@link Construction#PRINCIPAL_COMPONENTS}: the dimension <i>k</i> generates the <i>k</i>-th principal component of the covariance
+ * 	matrix <i>min(t<sub>i</sub>,t<sub>j</sub>)</i> of the path (the eigenvector corresponding to the <i>k</i>-th largest eigenvalue).</li>
+ * </ul>
+ * Since the first dimensions of a low discrepancy sequence (e.g. a {@link net.finmath.randomnumbers.SobolSequence}) have the best uniformity properties,
+ * this reduces the effective dimension of the integration and improves the convergence of quasi Monte-Carlo simulations on long time discretizations.
+ *
+ * The {@link DimensionOrdering} determines how the dimensions of the sample vector are assigned to the factors.
+ *
+ * If the random number generator is an {@link IndexedRandomNumberGenerator}, the path with index i uses the sample vector with index i
+ * of the sequence and blocks of paths are generated in parallel. Otherwise the paths use consecutive calls to <code>getNext()</code>.
+ * For an unscrambled {@link net.finmath.randomnumbers.SobolSequence} the path with index i uses the sample vector with index i+1,
+ * skipping the origin (the vector 0), whose inverse normal distribution is not finite.
+ *
+ * The class is immutable and thread safe. It uses lazy initialization.
+ *
+ * @version 1.1
+ */
+public class BrownianMotionWithBrownianBridgeConstruction implements BrownianMotion, Serializable {
+
+	private static final long serialVersionUID = 4626195322359727212L;
+
+	/**
+	 * The construction of the path from the (normal distributed) components of the sample vector.
+	 */
+	public enum Construction {
+		/** The path is constructed by bisection of the time discretization using the Brownian bridge. */
+		BROWNIAN_BRIDGE,
+		/** The path is constructed from the principal components of its covariance matrix. */
+		PRINCIPAL_COMPONENTS
+	}
+
+	/**
+	 * The assignment of the dimensions of the sample vector to the factors.
+	 */
+	public enum DimensionOrdering {
+		/** The dimension <i>k * numberOfFactors + factor</i> generates the <i>k</i>-th component of the given factor, i.e., the first dimensions generate the large scale structure of all factors. */
+		INTERLEAVED,
+		/** The dimension <i>factor * numberOfTimeSteps + k</i> generates the <i>k</i>-th component of the given factor, i.e., the first dimensions generate the first factor. */
+		BY_FACTOR
+	}
+
+	private static final int BLOCK_SIZE = 1 << 10;
+
+	private final TimeDiscretization	timeDiscretization;
+
+	private final int			numberOfFactors;
+	private final int			numberOfPaths;
+	private final RandomNumberGenerator randomNumberGenerator;
+
+	private final Construction		construction;
+	private final DimensionOrdering	dimensionOrdering;
+
+	private final RandomVariableFactory randomVariableFactory;
+
+	private transient	RandomVariable[][]	brownianIncrements;
+	private transient 	Object				brownianIncrementsLazyInitLock = new Object();
+
+	/**
+	 * Construct a Brownian motion.
+	 *
+	 * @param timeDiscretization The time discretization used for the Brownian increments.
+	 * @param numberOfFactors Number of factors.
+	 * @param numberOfPaths Number of paths to simulate.
+	 * @param randomNumberGenerator A random number generator for n-dimensional uniform random numbers (n = numberOfTimeSteps*numberOfFactors).
+	 * @param construction The construction of the path.
+	 * @param dimensionOrdering The assignment of the dimensions of the sample vector to the factors.
+	 * @param randomVariableFactory Factory to be used to create random variable.
+	 */
+	public BrownianMotionWithBrownianBridgeConstruction(
+			final TimeDiscretization timeDiscretization,
+			final int numberOfFactors,
+			final int numberOfPaths,
+			final RandomNumberGenerator randomNumberGenerator,
+			final Construction construction,
+			final DimensionOrdering dimensionOrdering,
+			final RandomVariableFactory randomVariableFactory) {
+		super();
+		this.timeDiscretization = timeDiscretization;
+		this.numberOfFactors	= numberOfFactors;
+		this.numberOfPaths		= numberOfPaths;
+		this.randomNumberGenerator = randomNumberGenerator;
+		this.construction		= construction;
+		this.dimensionOrdering	= dimensionOrdering;
+
+		this.randomVariableFactory = randomVariableFactory;
+
+		brownianIncrements	= null; 	// Lazy initialization
+
+		Validate.notNull(timeDiscretization);
+		Validate.notNull(randomNumberGenerator);
+		Validate.notNull(construction);
+		Validate.notNull(dimensionOrdering);
+		final int requiredDimension = numberOfFactors*timeDiscretization.getNumberOfTimeSteps();
+		Validate.isTrue(randomNumberGenerator.getDimension() >= requiredDimension, "Dimension of RandomNumberGenerator required to be at least %d.", requiredDimension);
+	}
+
+	/**
+	 * Construct a Brownian motion using the Brownian bridge construction, where the first dimensions of the sample vector generate the large scale structure of all factors.
+	 *
+	 * @param timeDiscretization The time discretization used for the Brownian increments.
+	 * @param numberOfFactors Number of factors.
+	 * @param numberOfPaths Number of paths to simulate.
+	 * @param randomNumberGenerator A random number generator for n-dimensional uniform random numbers (n = numberOfTimeSteps*numberOfFactors).
+	 * @param randomVariableFactory Factory to be used to create random variable.
+	 */
+	public BrownianMotionWithBrownianBridgeConstruction(
+			final TimeDiscretization timeDiscretization,
+			final int numberOfFactors,
+			final int numberOfPaths,
+			final RandomNumberGenerator randomNumberGenerator,
+			final RandomVariableFactory randomVariableFactory) {
+		this(timeDiscretization, numberOfFactors, numberOfPaths, randomNumberGenerator, Construction.BROWNIAN_BRIDGE, DimensionOrdering.INTERLEAVED, randomVariableFactory);
+	}
+
+	/**
+	 * Construct a Brownian motion using the Brownian bridge construction, where the first dimensions of the sample vector generate the large scale structure of all factors.
+	 *
+	 * @param timeDiscretization The time discretization used for the Brownian increments.
+	 * @param numberOfFactors Number of factors.
+	 * @param numberOfPaths Number of paths to simulate.
+	 * @param randomNumberGenerator A random number generator for n-dimensional uniform random numbers (n = numberOfTimeSteps*numberOfFactors).
+	 */
+	public BrownianMotionWithBrownianBridgeConstruction(
+			final TimeDiscretization timeDiscretization,
+			final int numberOfFactors,
+			final int numberOfPaths,
+			final RandomNumberGenerator randomNumberGenerator) {
+		this(timeDiscretization, numberOfFactors, numberOfPaths, randomNumberGenerator, new RandomVariableFromArrayFactory());
+	}
+
+	@Override
+	public BrownianMotion getCloneWithModifiedSeed(final int seed) {
+		return new BrownianMotionWithBrownianBridgeConstruction(getTimeDiscretization(), getNumberOfFactors(), getNumberOfPaths(), randomNumberGenerator, construction, dimensionOrdering, randomVariableFactory);
+	}
+
+	@Override
+	public BrownianMotion getCloneWithModifiedTimeDiscretization(final TimeDiscretization newTimeDiscretization) {
+		return new BrownianMotionWithBrownianBridgeConstruction(newTimeDiscretization, getNumberOfFactors(), getNumberOfPaths(), randomNumberGenerator, construction, dimensionOrdering, randomVariableFactory);
+	}
+
+	@Override
+	public RandomVariable getBrownianIncrement(final int timeIndex, final int factor) {
+
+		// Thread safe lazy initialization
+		synchronized(brownianIncrementsLazyInitLock) {
+			if(brownianIncrements == null) {
+				doGenerateBrownianMotion();
+			}
+		}
+
+		/*
+		 *  We return an immutable object which ensures that the receiver does not alter the data.
+		 */
+		return brownianIncrements[timeIndex][factor];
+	}
+
+	/**
+	 * Lazy initialization of brownianIncrement. Synchronized to ensure thread safety of lazy init.
+	 */
+	private void doGenerateBrownianMotion() {
+		if(brownianIncrements != null) {
+			return;	// Nothing to do
+		}
+
+		final int numberOfTimeSteps = timeDiscretization.getNumberOfTimeSteps();
+
+		// Allocate memory
+		final double[][][] brownianIncrementsArray = new double[numberOfTimeSteps][numberOfFactors][numberOfPaths];
+
+		final PathConstruction pathConstruction = construction == Construction.BROWNIAN_BRIDGE ? new BrownianBridgeConstruction() : new PrincipalComponentsConstruction();
+
+		if(randomNumberGenerator instanceof IndexedRandomNumberGenerator) {
+			// The path with index i uses the sample vector with index firstIndex + i, blocks of paths are generated in parallel
+			final IndexedRandomNumberGenerator indexedRandomNumberGenerator = (IndexedRandomNumberGenerator)randomNumberGenerator;
+			final long firstIndex = BrownianMotionFromRandomNumberGenerator.getIndexOfFirstSample(indexedRandomNumberGenerator);
+			final int dimension = indexedRandomNumberGenerator.getDimension();
+			final int numberOfBlocks = (numberOfPaths + BLOCK_SIZE - 1) / BLOCK_SIZE;
+			IntStream.range(0, numberOfBlocks).parallel().forEach(new IntConsumer() {
+				@Override
+				public void accept(final int block) {
+					final int fromPath = block * BLOCK_SIZE;
+					final int toPath = Math.min(fromPath + BLOCK_SIZE, numberOfPaths);
+					final double[] randomNumbers = new double[(toPath-fromPath) * dimension];
+					indexedRandomNumberGenerator.getSamples(firstIndex + fromPath, toPath-fromPath, randomNumbers, 0);
+
+					final double[] normals = new double[numberOfTimeSteps];
+					final double[] path = new double[numberOfTimeSteps+1];
+					for(int pathIndex=fromPath; pathIndex<toPath; pathIndex++) {
+						setBrownianIncrements(brownianIncrementsArray, pathIndex, randomNumbers, (pathIndex-fromPath) * dimension, pathConstruction, normals, path);
+					}
+				}
+			});
+		}
+		else {
+			final double[] normals = new double[numberOfTimeSteps];
+			final double[] path = new double[numberOfTimeSteps+1];
+			for(int pathIndex=0; pathIndex<numberOfPaths; pathIndex++) {
+				final double[] randomNumbers = randomNumberGenerator.getNext();
+				setBrownianIncrements(brownianIncrementsArray, pathIndex, randomNumbers, 0, pathConstruction, normals, path);
+			}
+		}
+
+		// Allocate memory for RandomVariableFromDoubleArray wrapper objects.
+		brownianIncrements = new RandomVariable[numberOfTimeSteps][numberOfFactors];
+
+		// Wrap the values in RandomVariableFromDoubleArray objects
+		for(int timeIndex=0; timeIndex<numberOfTimeSteps; timeIndex++) {
+			final double time = timeDiscretization.getTime(timeIndex+1);
+			for(int factor=0; factor<numberOfFactors; factor++) {
+				brownianIncrements[timeIndex][factor] =
+						randomVariableFactory.createRandomVariable(time, brownianIncrementsArray[timeIndex][factor]);
+			}
+		}
+	}
+
+	private void setBrownianIncrements(final double[][][] brownianIncrementsArray, final int pathIndex, final double[] randomNumbers, final int offset,
+			final PathConstruction pathConstruction, final double[] normals, final double[] path) {
+		final int numberOfTimeSteps = timeDiscretization.getNumberOfTimeSteps();
+		for(int factor=0; factor<numberOfFactors; factor++) {
+			for(int k=0; k<numberOfTimeSteps; k++) {
+				final int dimensionIndex = dimensionOrdering == DimensionOrdering.INTERLEAVED ? k * numberOfFactors + factor : factor * numberOfTimeSteps + k;
+				normals[k] = NormalDistribution.inverseCumulativeDistribution(randomNumbers[offset + dimensionIndex]);
+			}
+
+			// The values W(t_0),...,W(t_n) of the path with W(t_0) = 0
+			pathConstruction.constructPath(normals, path);
+
+			for(int timeIndex=0; timeIndex<numberOfTimeSteps; timeIndex++) {
+				brownianIncrementsArray[timeIndex][factor][pathIndex] = path[timeIndex+1] - path[timeIndex];
+			}
+		}
+	}
+
+	/**
+	 * Construction of the values W(t_0),...,W(t_n) (with W(t_0) = 0) of a path from independent standard normal random numbers.
+	 */
+	private interface PathConstruction {
+		void constructPath(double[] normals, double[] path);
+	}
+
+	/**
+	 * Brownian bridge construction: W(t_n) is generated from the first normal, then the time discretization is bisected level by level,
+	 * the value at the mid point being generated from the values at the interval boundaries.
+	 */
+	private class BrownianBridgeConstruction implements PathConstruction {
+
+		// Step j generates W(t_pointIndex[j]) = leftWeight[j] W(t_leftIndex[j]) + rightWeight[j] W(t_rightIndex[j]) + standardDeviation[j] Z_j
+		private final int[]		pointIndex;
+		private final int[]		leftIndex;
+		private final int[]		rightIndex;
+		private final double[]	leftWeight;
+		private final double[]	rightWeight;
+		private final double[]	standardDeviation;
+
+		BrownianBridgeConstruction() {
+			final int numberOfTimeSteps = timeDiscretization.getNumberOfTimeSteps();
+
+			pointIndex			= new int[numberOfTimeSteps];
+			leftIndex			= new int[numberOfTimeSteps];
+			rightIndex			= new int[numberOfTimeSteps];
+			leftWeight			= new double[numberOfTimeSteps];
+			rightWeight			= new double[numberOfTimeSteps];
+			standardDeviation	= new double[numberOfTimeSteps];
+
+			// The terminal value
+			pointIndex[0]			= numberOfTimeSteps;
+			standardDeviation[0]	= Math.sqrt(timeDiscretization.getTime(numberOfTimeSteps) - timeDiscretization.getTime(0));
+
+			// Bisection, breadth first (i.e. level by level)
+			final Deque<int[]> intervals = new ArrayDeque<>();
+			intervals.add(new int[] { 0, numberOfTimeSteps });
+			int step = 1;
+			while(!intervals.isEmpty()) {
+				final int[] interval = intervals.poll();
+				final int left = interval[0];
+				final int right = interval[1];
+				if(right - left < 2) {
+					continue;
+				}
+				final int mid = (left + right) / 2;
+
+				final double timeLeft	= timeDiscretization.getTime(left);
+				final double timeMid	= timeDiscretization.getTime(mid);
+				final double timeRight	= timeDiscretization.getTime(right);
+
+				pointIndex[step]		= mid;
+				leftIndex[step]			= left;
+				rightIndex[step]		= right;
+				leftWeight[step]		= (timeRight - timeMid) / (timeRight - timeLeft);
+				rightWeight[step]		= (timeMid - timeLeft) / (timeRight - timeLeft);
+				standardDeviation[step]	= Math.sqrt((timeMid - timeLeft) * (timeRight - timeMid) / (timeRight - timeLeft));
+				step++;
+
+				intervals.add(new int[] { left, mid });
+				intervals.add(new int[] { mid, right });
+			}
+		}
+
+		@Override
+		public void constructPath(final double[] normals, final double[] path) {
+			path[0] = 0.0;
+			path[pointIndex[0]] = standardDeviation[0] * normals[0];
+			for(int step=1; step<pointIndex.length; step++) {
+				path[pointIndex[step]] = leftWeight[step] * path[leftIndex[step]] + rightWeight[step] * path[rightIndex[step]] + standardDeviation[step] * normals[step];
+			}
+		}
+	}
+
+	/**
+	 * Principal component construction: W(t_i) = sum_k f_{i,k} Z_k, where f_{.,k} are the eigenvectors (scaled by the square root of the eigenvalues)
+	 * of the covariance matrix min(t_i-t_0, t_j-t_0), ordered by decreasing eigenvalues.
+	 */
+	private class PrincipalComponentsConstruction implements PathConstruction {
+
+		private final double[][] factorMatrix;
+
+		PrincipalComponentsConstruction() {
+			final int numberOfTimeSteps = timeDiscretization.getNumberOfTimeSteps();
+			final double[][] covariance = new double[numberOfTimeSteps][numberOfTimeSteps];
+			for(int i=0; i<numberOfTimeSteps; i++) {
+				for(int j=0; j<numberOfTimeSteps; j++) {
+					covariance[i][j] = timeDiscretization.getTime(Math.min(i, j)+1) - timeDiscretization.getTime(0);
+				}
+			}
+			factorMatrix = LinearAlgebra.getFactorMatrix(covariance, numberOfTimeSteps);
+		}
+
+		@Override
+		public void constructPath(final double[] normals, final double[] path) {
+			path[0] = 0.0;
+			for(int i=0; i<factorMatrix.length; i++) {
+				final double[] factorLoadings = factorMatrix[i];
+				double value = 0.0;
+				for(int k=0; k<factorLoadings.length; k++) {
+					value += factorLoadings[k] * normals[k];
+				}
+				path[i+1] = value;
+			}
+		}
+	}
+
+	@Override
+	public TimeDiscretization getTimeDiscretization() {
+		return timeDiscretization;
+	}
+
+	@Override
+	public int getNumberOfFactors() {
+		return numberOfFactors;
+	}
+
+	@Override
+	public int getNumberOfPaths() {
+		return numberOfPaths;
+	}
+
+	/**
+	 * @return The construction of the path.
+	 */
+	public Construction getConstruction() {
+		return construction;
+	}
+
+	/**
+	 * @return The assignment of the dimensions of the sample vector to the factors.
+	 */
+	public DimensionOrdering getDimensionOrdering() {
+		return dimensionOrdering;
+	}
+
+	@Override
+	public RandomVariable getRandomVariableForConstant(final double value) {
+		return randomVariableFactory.createRandomVariable(value);
+	}
+
+	@Override
+	public RandomVariable getIncrement(final int timeIndex, final int factor) {
+		return getBrownianIncrement(timeIndex, factor);
+	}
+
+	@Override
+	public String toString() {
+		return super.toString()
+				+ "\n" + "timeDiscretization: " + timeDiscretization.toString()
+				+ "\n" + "numberOfPaths: " + numberOfPaths
+				+ "\n" + "numberOfFactors: " + numberOfFactors
+				+ "\n" + "randomNumberGenerator: " + randomNumberGenerator
+				+ "\n" + "construction: " + construction
+				+ "\n" + "dimensionOrdering: " + dimensionOrdering;
+	}
+
+	@Override
+	public boolean equals(final Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+
+		final BrownianMotionWithBrownianBridgeConstruction that = (BrownianMotionWithBrownianBridgeConstruction) o;
+
+		if (numberOfFactors != that.numberOfFactors) {
+			return false;
+		}
+		if (numberOfPaths != that.numberOfPaths) {
+			return false;
+		}
+		if (randomNumberGenerator != that.randomNumberGenerator) {
+			return false;
+		}
+		if (construction != that.construction || dimensionOrdering != that.dimensionOrdering) {
+			return false;
+		}
+		return timeDiscretization.equals(that.timeDiscretization);
+	}
+
+	@Override
+	public int hashCode() {
+		int result = timeDiscretization.hashCode();
+		result = 31 * result + numberOfFactors;
+		result = 31 * result + numberOfPaths;
+		result = 31 * result + randomNumberGenerator.hashCode();
+		result = 31 * result + construction.ordinal();
+		result = 31 * result + dimensionOrdering.ordinal();
+		return result;
+	}
+
+	private void readObject(final java.io.ObjectInputStream in) throws ClassNotFoundException, IOException {
+		in.defaultReadObject();
+		// initialization of transients
+		brownianIncrementsLazyInitLock = new Object();
+	}
+}
@@ -492,7 +492,8 @@ public class RandomVariableFromFloatArray implements RandomVariable {
 			return Double.NaN;
 		}
 
-		throw new RuntimeException("Method not implemented.");
+		// Weighted quantile as defined by RandomVariableFromDoubleArray
+		return new RandomVariableFromDoubleArray(getFiltrationTime(), getRealizations()).getQuantile(quantile, probabilities);
 	}
 
 	@Override
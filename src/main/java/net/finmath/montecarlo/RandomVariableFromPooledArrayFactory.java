@@ -0,0 +1,315 @@
+package net.finmath.montecarlo;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.finmath.stochastic.RandomVariable;
+
+/**
+ * A factory creating random variables of type {@link RandomVariableFromPooledArray}, i.e., random variables
+ * whose realizations are stored in arrays which are re-used after their scope has been closed.
+ *
+ * The arrays of the results of operations on random variables created by this factory are taken from a pool
+ * and are owned by the current {@link Scope} of the calling thread (if any). When the scope is closed,
+ * its arrays are returned to the pool. A typical usage is
+ * <pre>
+ * try(RandomVariableFromPooledArrayFactory.Scope scope = factory.openScope()) {
+ * 	RandomVariable value = product.getValue(evaluationTime, model);
+ * 	result = scope.keep(value);		// or a reduction like value.getAverage()
+ * }
+ * </pre>
+ *
+ * The ownership is explicit: the arrays are returned to the pool when (and only when) their scope is closed,
+ * independent of the garbage collector. Hence a random variable created within a scope must not be used after
+ * the scope has been closed, unless it has been detached from the scope via {@link Scope#keep(RandomVariable)}.
+ * The operations of {@link RandomVariableFromPooledArray} check this and throw an {@link IllegalStateException}
+ * for random variables of a closed scope. Note that this includes values cached by a model (e.g., the discretized
+ * process of a Monte-Carlo simulation) if they are calculated within the scope: these have to be calculated
+ * before the scope is opened or have to be kept.
+ *
+ * Scopes are confined to the thread which opened them: operations performed on a thread without an open scope
+ * (e.g., the worker threads of a parallel valuation) allocate arrays which are managed by the garbage collector
+ * as usual. Scopes may be nested: the arrays are owned by the most recently opened scope of the thread
+ * which is not closed. All operations on random variables of a scope have to be completed before the scope is closed.
+ *
+ * The pool is bounded by a maximum number of pooled realizations (doubles). Arrays exceeding the bound are dropped.
+ *
+ * The arrays are held on the Java heap. Off-heap memory (<code>MemorySegment</code>) is not used, since it is
+ * not available on the Java versions supported by this library.
+ *
+ * @version 1.2
+ */
+public class RandomVariableFromPooledArrayFactory extends AbstractRandomVariableFactory {
+
+	private static final long serialVersionUID = -1685271618357094322L;
+
+	private static final long MAX_POOLED_REALIZATIONS_DEFAULT = 1L << 27;	// 1 GB
+
+	private final long maxPooledRealizations;
+
+	private transient Map<Integer, ConcurrentLinkedQueue<double[]>> pool;
+	private transient ThreadLocal<Deque<Scope>> openScopes;
+
+	private transient AtomicLong numberOfPooledRealizations;
+	private transient AtomicLong numberOfArraysAllocated;
+	private transient AtomicLong numberOfArraysReused;
+
+	/**
+	 * An array taken from the pool, together with the scope owning it.
+	 */
+	static final class PooledArray {
+
+		private final double[] array;
+		private final Scope scope;
+
+		private volatile boolean isReleased = false;
+
+		private PooledArray(final double[] array, final Scope scope) {
+			this.array = array;
+			this.scope = scope;
+		}
+
+		Scope getScope() {
+			return scope;
+		}
+
+		/**
+		 * @return true if the array has been returned to the pool, i.e., it must no longer be used by its random variables.
+		 */
+		boolean isReleased() {
+			return isReleased;
+		}
+	}
+
+	/**
+	 * A scope of random variables. Closing the scope returns the arrays of all random variables created within
+	 * the scope to the pool (except for those kept via {@link #keep(RandomVariable)}). These random variables
+	 * must not be used after the scope has been closed.
+	 *
+	 * A scope is confined to the thread which opened it and has to be closed by that thread.
+	 */
+	public class Scope implements AutoCloseable {
+
+		private final Map<double[], PooledArray> arrays = new IdentityHashMap<>();
+		private final Thread thread = Thread.currentThread();
+		private volatile boolean isClosed = false;
+
+		private Scope() {
+		}
+
+		private PooledArray register(final double[] array) {
+			if(isClosed) {
+				throw new IllegalStateException("Scope is closed.");
+			}
+			final PooledArray pooledArray = new PooledArray(array, this);
+			arrays.put(array, pooledArray);
+			return pooledArray;
+		}
+
+		private PooledArray getPooledArray(final double[] array) {
+			return arrays.get(array);
+		}
+
+		/**
+		 * Detach a random variable from this scope, such that its array is not returned to the pool when this scope is closed.
+		 *
+		 * @param randomVariable A random variable.
+		 * @return A random variable with the same values, which is not managed by this scope.
+		 */
+		public RandomVariable keep(final RandomVariable randomVariable) {
+			if(randomVariable instanceof RandomVariableFromPooledArray && ((RandomVariableFromPooledArray)randomVariable).getScope() == this) {
+				if(isClosed) {
+					throw new IllegalStateException("Scope is closed.");
+				}
+				final RandomVariableFromPooledArray pooledRandomVariable = (RandomVariableFromPooledArray)randomVariable;
+				if(pooledRandomVariable.isDeterministic()) {
+					return new RandomVariableFromPooledArray(RandomVariableFromPooledArrayFactory.this, null, pooledRandomVariable.getFiltrationTime(), pooledRandomVariable.doubleValue());
+				}
+				final double[] realizations = pooledRandomVariable.getRealizationsReference();
+				arrays.remove(realizations);
+				return new RandomVariableFromPooledArray(RandomVariableFromPooledArrayFactory.this, null, pooledRandomVariable.getFiltrationTime(), realizations);
+			}
+			return randomVariable;
+		}
+
+		/**
+		 * @return true if this scope has been closed.
+		 */
+		public boolean isClosed() {
+			return isClosed;
+		}
+
+		/**
+		 * Close the scope. The arrays of the scope are returned to the pool.
+		 */
+		@Override
+		public void close() {
+			if(isClosed) {
+				return;
+			}
+			if(Thread.currentThread() != thread) {
+				throw new IllegalStateException("Scope has to be closed by the thread which opened it.");
+			}
+			isClosed = true;
+			openScopes.get().remove(this);
+
+			for(final PooledArray pooledArray : arrays.values()) {
+				pooledArray.isReleased = true;
+				release(pooledArray.array);
+			}
+			arrays.clear();
+		}
+	}
+
+	/**
+	 * Create the factory.
+	 *
+	 * @param maxPooledRealizations The maximum number of realizations (doubles) held by the pool.
+	 */
+	public RandomVariableFromPooledArrayFactory(final long maxPooledRealizations) {
+		super();
+		this.maxPooledRealizations = maxPooledRealizations;
+		init();
+	}
+
+	/**
+	 * Create the factory with a pool holding at most 2<sup>27</sup> realizations (1 GB).
+	 */
+	public RandomVariableFromPooledArrayFactory() {
+		this(MAX_POOLED_REALIZATIONS_DEFAULT);
+	}
+
+	/**
+	 * Open a new scope for the calling thread. Arrays of results of operations performed by this thread are
+	 * registered with this scope until it is closed (or another scope is opened).
+	 *
+	 * @return The new scope.
+	 */
+	public Scope openScope() {
+		final Scope scope = new Scope();
+		openScopes.get().addLast(scope);
+		return scope;
+	}
+
+	/**
+	 * @return The most recently opened scope of the calling thread which is not closed, or null.
+	 */
+	Scope getCurrentScope() {
+		return openScopes.get().peekLast();
+	}
+
+	/**
+	 * Get an array from the pool (or allocate a new one) and register it with the current scope of the calling thread.
+	 *
+	 * @param size The length of the array.
+	 * @return An array of the given length with undefined content.
+	 */
+	double[] acquire(final int size) {
+		final Scope scope = getCurrentScope();
+		if(scope == null) {
+			numberOfArraysAllocated.incrementAndGet();
+			return new double[size];
+		}
+
+		final ConcurrentLinkedQueue<double[]> arraysOfSize = pool.get(size);
+		double[] array = arraysOfSize != null ? arraysOfSize.poll() : null;
+		if(array != null) {
+			numberOfPooledRealizations.addAndGet(-size);
+			numberOfArraysReused.incrementAndGet();
+		}
+		else {
+			array = new double[size];
+			numberOfArraysAllocated.incrementAndGet();
+		}
+		scope.register(array);
+		return array;
+	}
+
+	/**
+	 * Returns the pooled array for the given array, if it has been acquired within the current scope of the calling thread.
+	 *
+	 * @param array An array.
+	 * @return The pooled array or null.
+	 */
+	PooledArray getPooledArray(final double[] array) {
+		final Scope scope = getCurrentScope();
+		return scope != null ? scope.getPooledArray(array) : null;
+	}
+
+	private void release(final double[] array) {
+		if(numberOfPooledRealizations.addAndGet(array.length) > maxPooledRealizations) {
+			// Drop the array
+			numberOfPooledRealizations.addAndGet(-array.length);
+			return;
+		}
+		pool.computeIfAbsent(array.length, size -> new ConcurrentLinkedQueue<>()).add(array);
+	}
+
+	/**
+	 * Remove all arrays from the pool.
+	 */
+	public void clearPool() {
+		for(final ConcurrentLinkedQueue<double[]> arraysOfSize : pool.values()) {
+			double[] array;
+			while((array = arraysOfSize.poll()) != null) {
+				numberOfPooledRealizations.addAndGet(-array.length);
+			}
+		}
+	}
+
+	/**
+	 * @return The number of arrays allocated for results of operations.
+	 */
+	public long getNumberOfArraysAllocated() {
+		return numberOfArraysAllocated.get();
+	}
+
+	/**
+	 * @return The number of arrays taken from the pool for results of operations.
+	 */
+	public long getNumberOfArraysReused() {
+		return numberOfArraysReused.get();
+	}
+
+	/**
+	 * @return The number of realizations (doubles) currently held by the pool.
+	 */
+	public long getNumberOfPooledRealizations() {
+		return numberOfPooledRealizations.get();
+	}
+
+	@Override
+	public RandomVariable createRandomVariable(final double time, final double value) {
+		return new RandomVariableFromPooledArray(this, null, time, value);
+	}
+
+	@Override
+	public RandomVariable createRandomVariable(final double time, final double[] values) {
+		return new RandomVariableFromPooledArray(this, null, time, values);
+	}
+
+	private void init() {
+		pool = new ConcurrentHashMap<>();
+		openScopes = ThreadLocal.withInitial(ArrayDeque::new);
+		numberOfPooledRealizations = new AtomicLong();
+		numberOfArraysAllocated = new AtomicLong();
+		numberOfArraysReused = new AtomicLong();
+	}
+
+	private void readObject(final java.io.ObjectInputStream in) throws ClassNotFoundException, IOException {
+		in.defaultReadObject();
+		// initialization of transients
+		init();
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + " [maxPooledRealizations=" + maxPooledRealizations + "]";
+	}
+}
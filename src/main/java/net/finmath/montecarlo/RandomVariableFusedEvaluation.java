@@ -0,0 +1,1077 @@
+package net.finmath.montecarlo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.IntConsumer;
+import java.util.function.IntToDoubleFunction;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+
+import net.finmath.functions.DoubleTernaryOperator;
+import net.finmath.stochastic.RandomVariable;
+
+/**
+ * Implements a Monte-Carlo random variable as a node of an expression graph, where the
+ * element-wise operations are not performed immediately, but fused into a single pass over the paths
+ * when the value is requested.
+ *
+ * An operation like <code>libor.sub(strike).mult(periodLength).mult(notional).div(numeraire)</code> does not allocate
+ * an array of realizations for each intermediate result. Instead the graph is evaluated block-wise:
+ * for each block of paths all operations are applied one after another on small (cache resident) buffers.
+ * Intermediate results which are used multiple times within the graph are evaluated only once per block.
+ *
+ * The graph is evaluated
+ * <ul>
+ * 	<li>without allocating an array of realizations for the reductions {@link #getAverage()} and {@link #getVariance()},</li>
+ * 	<li>into an array of realizations (which is then kept, releasing the graph) on {@link #cache()}, {@link #get(int)},
+ * 	{@link #getRealizations()} and all other methods requiring random access to the realizations.</li>
+ * </ul>
+ * To bound the cost of an evaluation, a node is evaluated on construction if the depth of its graph exceeds {@link #MAX_DEPTH}.
+ * Evaluated nodes are leaves of the graphs built on them, such that long chains of operations are evaluated every {@link #MAX_DEPTH}+1 operations.
+ *
+ * In contrast to {@link RandomVariableLazyEvaluation} the fused graph does not consist of nested functional objects,
+ * the operations are applied by loops over primitive arrays. Arguments of a different (non-differentiable) type are converted
+ * using <code>getRealizations()</code>.
+ *
+ * Accesses performed exclusively through the interface
+ * <code>RandomVariable</code> is thread safe (and does not mutate the value of the class).
+ *
+ * @version 1.0
+ */
+public class RandomVariableFusedEvaluation implements RandomVariable {
+
+	private static final long serialVersionUID = -5364787622469913574L;
+
+	/**
+	 * The maximum depth of the graph of a node. If the depth is exceeded, the node is evaluated.
+	 */
+	public static final int MAX_DEPTH = 64;
+
+	private static final int typePriorityDefault = 2;
+
+	private static final int BLOCK_SIZE = 512;
+	private static final int TASK_SIZE = 1 << 15;
+
+	private enum Operator {
+		// Unary operators
+		SQUARED, SQRT, EXP, LOG, SIN, COS, ABS, INVERT, ISNAN, POW, UNARY_FUNCTION,
+		// Binary operators
+		ADD, SUB, MULT, DIV, CAP, FLOOR, ACCRUE, DISCOUNT, BINARY_FUNCTION,
+		// Ternary operators
+		ADD_PRODUCT, ADD_RATIO, SUB_RATIO, CHOOSE, TERNARY_FUNCTION
+	}
+
+	private final double	time;
+	private final int		size;
+	private final int		depth;
+
+	// Data model for the non-stochastic case
+	private final boolean	isDeterministic;
+	private final double	valueIfNonStochastic;
+
+	// Data model for the stochastic case: either the realizations or the operation (released after evaluation)
+	private volatile double[]	realizations;
+	private volatile Operator	operator;
+	private volatile RandomVariableFusedEvaluation[] arguments;
+	private final double		parameter;
+	private volatile Object		function;
+
+	/**
+	 * Create a non stochastic random variable, i.e. a constant.
+	 *
+	 * @param time the filtration time, set to 0.0 if not used.
+	 * @param value the value, a constant.
+	 */
+	public RandomVariableFusedEvaluation(final double time, final double value) {
+		super();
+		this.time = time;
+		size = 1;
+		depth = 0;
+		isDeterministic = true;
+		valueIfNonStochastic = value;
+		parameter = Double.NaN;
+	}
+
+	/**
+	 * Create a non stochastic random variable, i.e. a constant.
+	 *
+	 * @param value the value, a constant.
+	 */
+	public RandomVariableFusedEvaluation(final double value) {
+		this(Double.NEGATIVE_INFINITY, value);
+	}
+
+	/**
+	 * Create a stochastic random variable. The array is not copied.
+	 *
+	 * @param time the filtration time, set to 0.0 if not used.
+	 * @param realisations the vector of realizations.
+	 */
+	public RandomVariableFusedEvaluation(final double time, final double[] realisations) {
+		super();
+		this.time = time;
+		size = realisations.length;
+		depth = 0;
+		isDeterministic = false;
+		valueIfNonStochastic = Double.NaN;
+		realizations = realisations;
+		parameter = Double.NaN;
+	}
+
+	/**
+	 * Create a random variable from a given other implementation of <code>RandomVariable</code>.
+	 *
+	 * @param value Object implementing <code>RandomVariable</code>.
+	 */
+	public RandomVariableFusedEvaluation(final RandomVariable value) {
+		super();
+		time = value.getFiltrationTime();
+		depth = 0;
+		isDeterministic = value.isDeterministic();
+		parameter = Double.NaN;
+		if(isDeterministic) {
+			size = 1;
+			valueIfNonStochastic = value.doubleValue();
+		}
+		else {
+			realizations = value.getRealizations();
+			size = realizations.length;
+			valueIfNonStochastic = Double.NaN;
+		}
+	}
+
+	/*
+	 * Node of the expression graph (all arguments are stochastic or of different sizes).
+	 */
+	private RandomVariableFusedEvaluation(final double time, final Operator operator, final double parameter, final Object function, final RandomVariableFusedEvaluation... arguments) {
+		super();
+		this.time = time;
+		this.operator = operator;
+		this.parameter = parameter;
+		this.function = function;
+		this.arguments = arguments;
+		isDeterministic = false;
+		valueIfNonStochastic = Double.NaN;
+
+		int maxSize = 0;
+		int maxDepth = 0;
+		for(final RandomVariableFusedEvaluation argument : arguments) {
+			maxSize = Math.max(maxSize, argument.size());
+			maxDepth = Math.max(maxDepth, argument.getDepth());
+		}
+		size = maxSize;
+		depth = maxDepth+1;
+
+		if(depth > MAX_DEPTH) {
+			cache();
+		}
+	}
+
+	/*
+	 * Creates a node for an operation, folding the operation if all arguments are deterministic.
+	 */
+	private static RandomVariableFusedEvaluation of(final double time, final Operator operator, final double parameter, final Object function, final RandomVariableFusedEvaluation... arguments) {
+		boolean isAllArgumentsDeterministic = true;
+		for(final RandomVariableFusedEvaluation argument : arguments) {
+			isAllArgumentsDeterministic &= argument.isDeterministic();
+		}
+
+		if(isAllArgumentsDeterministic) {
+			final double[][] values = new double[3][];
+			for(int i=0; i<arguments.length; i++) {
+				values[i] = new double[] { arguments[i].valueIfNonStochastic };
+			}
+			final double[] result = new double[1];
+			evaluate(operator, parameter, function, values[0], 0, values[1], 0, values[2], 0, result, 1);
+			return new RandomVariableFusedEvaluation(time, result[0]);
+		}
+
+		return new RandomVariableFusedEvaluation(time, operator, parameter, function, arguments);
+	}
+
+	private RandomVariableFusedEvaluation of(final Operator operator) {
+		return of(time, operator, Double.NaN, null, this);
+	}
+
+	private RandomVariableFusedEvaluation of(final Operator operator, final double parameter, final Object function, final RandomVariable... otherArguments) {
+		final RandomVariableFusedEvaluation[] nodeArguments = new RandomVariableFusedEvaluation[otherArguments.length+1];
+		double newTime = time;
+		nodeArguments[0] = this;
+		for(int i=0; i<otherArguments.length; i++) {
+			nodeArguments[i+1] = asFusedEvaluation(otherArguments[i]);
+			newTime = Math.max(newTime, otherArguments[i].getFiltrationTime());
+		}
+		return of(newTime, operator, parameter, function, nodeArguments);
+	}
+
+	private static RandomVariableFusedEvaluation asFusedEvaluation(final RandomVariable randomVariable) {
+		if(randomVariable instanceof RandomVariableFusedEvaluation) {
+			return (RandomVariableFusedEvaluation)randomVariable;
+		}
+		return new RandomVariableFusedEvaluation(randomVariable);
+	}
+
+	private RandomVariableFusedEvaluation constant(final double value) {
+		return new RandomVariableFusedEvaluation(Double.NEGATIVE_INFINITY, value);
+	}
+
+	/*
+	 * Evaluation
+	 */
+
+	@Override
+	public RandomVariable cache() {
+		if(isDeterministic || realizations != null) {
+			return this;
+		}
+		synchronized(this) {
+			if(realizations == null) {
+				final double[] values = new double[size];
+				final EvaluationPlan plan = new EvaluationPlan(this);
+				forEachTask(new IntConsumer() {
+					@Override
+					public void accept(final int task) {
+						final int taskStart = task * TASK_SIZE;
+						final int taskEnd = Math.min(taskStart + TASK_SIZE, size);
+						final double[][] buffers = plan.getBuffers();
+						for(int blockStart=taskStart; blockStart<taskEnd; blockStart+=BLOCK_SIZE) {
+							final int length = Math.min(BLOCK_SIZE, taskEnd-blockStart);
+							final double[] result = plan.evaluateBlock(buffers, blockStart, length);
+							System.arraycopy(result, plan.getResultOffset(blockStart), values, blockStart, length);
+						}
+					}
+				});
+
+				// Publish the realizations before releasing the graph
+				realizations = values;
+				arguments = null;
+				function = null;
+				operator = null;
+			}
+		}
+		return this;
+	}
+
+	private void forEachTask(final IntConsumer task) {
+		final int numberOfTasks = (size + TASK_SIZE - 1) / TASK_SIZE;
+		if(numberOfTasks > 1) {
+			IntStream.range(0, numberOfTasks).parallel().forEach(task);
+		}
+		else if(numberOfTasks == 1) {
+			task.accept(0);
+		}
+	}
+
+	/**
+	 * Returns the sum of (x<sub>i</sub>-center)<sup>p</sup> over all realizations x<sub>i</sub>
+	 * for p=1 or p=2, evaluating the graph without storing the realizations.
+	 */
+	private double getSumOfPowers(final double center, final boolean isSquared) {
+		final double[] values = realizations;
+		if(values != null) {
+			return isSquared ? RandomVariableVectorized.sumOfSquaredDeviations(values, center) : RandomVariableVectorized.sum(values) - center * values.length;
+		}
+
+		final EvaluationPlan plan = new EvaluationPlan(this);
+		if(plan.isLeaf()) {
+			// The node has been evaluated concurrently
+			return getSumOfPowers(center, isSquared);
+		}
+
+		final int numberOfTasks = (size + TASK_SIZE - 1) / TASK_SIZE;
+		final double[] sumOfTask = new double[numberOfTasks];
+		forEachTask(new IntConsumer() {
+			@Override
+			public void accept(final int task) {
+				final int taskStart = task * TASK_SIZE;
+				final int taskEnd = Math.min(taskStart + TASK_SIZE, size);
+				final double[][] buffers = plan.getBuffers();
+				double sum = 0.0;
+				double error = 0.0;
+				for(int blockStart=taskStart; blockStart<taskEnd; blockStart+=BLOCK_SIZE) {
+					final int length = Math.min(BLOCK_SIZE, taskEnd-blockStart);
+					final double[] result = plan.evaluateBlock(buffers, blockStart, length);
+					final int offset = plan.getResultOffset(blockStart);
+					final double sumOfBlock = isSquared ? RandomVariableVectorized.sumOfSquaredDeviations(result, offset, length, center) : RandomVariableVectorized.sum(result, offset, length) - center * length;
+
+					// Kahan summation of the block sums
+					final double value = sumOfBlock - error;
+					final double newSum = sum + value;
+					error = (newSum - sum) - value;
+					sum = newSum;
+				}
+				sumOfTask[task] = sum;
+			}
+		});
+
+		return RandomVariableVectorized.sum(sumOfTask);
+	}
+
+	/**
+	 * A topologically ordered representation of the (not yet evaluated) nodes of a graph.
+	 */
+	private static class EvaluationPlan {
+
+		private final Operator[]	operators;
+		private final double[]		parameters;
+		private final Object[]		functions;
+
+		/*
+		 * Index of the arguments of each node: a non-negative value refers to the result of the node with that index,
+		 * a negative value -k-1 refers to the leaf with index k.
+		 */
+		private final int[][]		argumentIndices;
+		private final double[][]	leafValues;
+		private final boolean[]		isLeafConstant;
+
+		private final int			rootLeafIndex;
+
+		EvaluationPlan(final RandomVariableFusedEvaluation root) {
+			final Map<RandomVariableFusedEvaluation, Integer> indexOfNode = new IdentityHashMap<>();
+			final Map<RandomVariableFusedEvaluation, Integer> indexOfLeaf = new IdentityHashMap<>();
+			final List<RandomVariableFusedEvaluation> nodes = new ArrayList<>();
+			final List<RandomVariableFusedEvaluation[]> nodeArguments = new ArrayList<>();
+			final List<Operator> nodeOperators = new ArrayList<>();
+			final List<Object> nodeFunctions = new ArrayList<>();
+			final List<double[]> leaves = new ArrayList<>();
+			final List<Boolean> leafIsConstant = new ArrayList<>();
+
+			final int rootIndex = visit(root, indexOfNode, indexOfLeaf, nodes, nodeArguments, nodeOperators, nodeFunctions, leaves, leafIsConstant);
+			rootLeafIndex = rootIndex < 0 ? -rootIndex-1 : -1;
+
+			operators = nodeOperators.toArray(new Operator[0]);
+			functions = nodeFunctions.toArray();
+			parameters = new double[nodes.size()];
+			argumentIndices = new int[nodes.size()][];
+			for(int k=0; k<nodes.size(); k++) {
+				parameters[k] = nodes.get(k).parameter;
+				final RandomVariableFusedEvaluation[] argumentsOfNode = nodeArguments.get(k);
+				argumentIndices[k] = new int[argumentsOfNode.length];
+				for(int j=0; j<argumentsOfNode.length; j++) {
+					final Integer nodeIndex = indexOfNode.get(argumentsOfNode[j]);
+					argumentIndices[k][j] = nodeIndex != null ? nodeIndex : -indexOfLeaf.get(argumentsOfNode[j])-1;
+				}
+			}
+			leafValues = leaves.toArray(new double[0][]);
+			isLeafConstant = new boolean[leaves.size()];
+			for(int k=0; k<isLeafConstant.length; k++) {
+				isLeafConstant[k] = leafIsConstant.get(k);
+			}
+		}
+
+		/*
+		 * Depth first traversal (the depth is bounded by MAX_DEPTH), returns the index of the node or -(index of leaf)-1.
+		 */
+		private static int visit(final RandomVariableFusedEvaluation node,
+				final Map<RandomVariableFusedEvaluation, Integer> indexOfNode, final Map<RandomVariableFusedEvaluation, Integer> indexOfLeaf,
+				final List<RandomVariableFusedEvaluation> nodes, final List<RandomVariableFusedEvaluation[]> nodeArguments,
+				final List<Operator> nodeOperators, final List<Object> nodeFunctions,
+				final List<double[]> leaves, final List<Boolean> leafIsConstant) {
+
+			final Integer nodeIndex = indexOfNode.get(node);
+			if(nodeIndex != null) {
+				return nodeIndex;
+			}
+			final Integer leafIndex = indexOfLeaf.get(node);
+			if(leafIndex != null) {
+				return -leafIndex-1;
+			}
+
+			/*
+			 * Read the operation before the realizations: the realizations are published before the operation is released.
+			 */
+			final RandomVariableFusedEvaluation[] argumentsOfNode = node.arguments;
+			final Operator operatorOfNode = node.operator;
+			final Object functionOfNode = node.function;
+			final double[] realizationsOfNode = node.realizations;
+
+			if(node.isDeterministic() || realizationsOfNode != null || argumentsOfNode == null || operatorOfNode == null) {
+				final double[] values;
+				if(node.isDeterministic()) {
+					values = new double[BLOCK_SIZE];
+					Arrays.fill(values, node.valueIfNonStochastic);
+				}
+				else {
+					values = node.realizations;
+				}
+				indexOfLeaf.put(node, leaves.size());
+				leaves.add(values);
+				leafIsConstant.add(node.isDeterministic());
+				return -(leaves.size()-1)-1;
+			}
+
+			for(final RandomVariableFusedEvaluation argument : argumentsOfNode) {
+				visit(argument, indexOfNode, indexOfLeaf, nodes, nodeArguments, nodeOperators, nodeFunctions, leaves, leafIsConstant);
+			}
+
+			indexOfNode.put(node, nodes.size());
+			nodes.add(node);
+			nodeArguments.add(argumentsOfNode);
+			nodeOperators.add(operatorOfNode);
+			nodeFunctions.add(functionOfNode);
+			return nodes.size()-1;
+		}
+
+		boolean isLeaf() {
+			return rootLeafIndex >= 0;
+		}
+
+		double[][] getBuffers() {
+			return new double[operators.length][BLOCK_SIZE];
+		}
+
+		int getResultOffset(final int blockStart) {
+			if(rootLeafIndex >= 0) {
+				return isLeafConstant[rootLeafIndex] ? 0 : blockStart;
+			}
+			return 0;
+		}
+
+		/**
+		 * Evaluate all nodes for the block of paths starting at blockStart.
+		 *
+		 * @return The array holding the result of the root node (starting at getResultOffset(blockStart)).
+		 */
+		double[] evaluateBlock(final double[][] buffers, final int blockStart, final int length) {
+			if(rootLeafIndex >= 0) {
+				return leafValues[rootLeafIndex];
+			}
+
+			final double[][] values = new double[3][];
+			final int[] offsets = new int[3];
+			for(int k=0; k<operators.length; k++) {
+				final int[] argumentIndicesOfNode = argumentIndices[k];
+				for(int j=0; j<argumentIndicesOfNode.length; j++) {
+					final int index = argumentIndicesOfNode[j];
+					if(index >= 0) {
+						values[j] = buffers[index];
+						offsets[j] = 0;
+					}
+					else {
+						values[j] = leafValues[-index-1];
+						offsets[j] = isLeafConstant[-index-1] ? 0 : blockStart;
+					}
+				}
+				evaluate(operators[k], parameters[k], functions[k], values[0], offsets[0], values[1], offsets[1], values[2], offsets[2], buffers[k], length);
+			}
+			return buffers[operators.length-1];
+		}
+	}
+
+	/*
+	 * The kernels: apply the operator to the arguments x, y, z (starting at the given offsets) and store the result in result[0], ..., result[length-1].
+	 */
+	private static void evaluate(final Operator operator, final double parameter, final Object function,
+			final double[] x, final int xOffset, final double[] y, final int yOffset, final double[] z, final int zOffset,
+			final double[] result, final int length) {
+		switch(operator) {
+		case SQUARED:
+			for(int i=0; i<length; i++) {
+				result[i] = x[xOffset+i] * x[xOffset+i];
+			}
+			break;
+		case SQRT:
+			for(int i=0; i<length; i++) {
+				result[i] = Math.sqrt(x[xOffset+i]);
+			}
+			break;
+		case EXP:
+			for(int i=0; i<length; i++) {
+				result[i] = Math.exp(x[xOffset+i]);
+			}
+			break;
+		case LOG:
+			for(int i=0; i<length; i++) {
+				result[i] = Math.log(x[xOffset+i]);
+			}
+			break;
+		case SIN:
+			for(int i=0; i<length; i++) {
+				result[i] = Math.sin(x[xOffset+i]);
+			}
+			break;
+		case COS:
+			for(int i=0; i<length; i++) {
+				result[i] = Math.cos(x[xOffset+i]);
+			}
+			break;
+		case ABS:
+			for(int i=0; i<length; i++) {
+				result[i] = Math.abs(x[xOffset+i]);
+			}
+			break;
+		case INVERT:
+			for(int i=0; i<length; i++) {
+				result[i] = 1.0 / x[xOffset+i];
+			}
+			break;
+		case ISNAN:
+			for(int i=0; i<length; i++) {
+				result[i] = Double.isNaN(x[xOffset+i]) ? 1.0 : 0.0;
+			}
+			break;
+		case POW:
+			for(int i=0; i<length; i++) {
+				result[i] = Math.pow(x[xOffset+i], parameter);
+			}
+			break;
+		case UNARY_FUNCTION:
+		{
+			final DoubleUnaryOperator unaryOperator = (DoubleUnaryOperator)function;
+			for(int i=0; i<length; i++) {
+				result[i] = unaryOperator.applyAsDouble(x[xOffset+i]);
+			}
+			break;
+		}
+		case ADD:
+			for(int i=0; i<length; i++) {
+				result[i] = x[xOffset+i] + y[yOffset+i];
+			}
+			break;
+		case SUB:
+			for(int i=0; i<length; i++) {
+				result[i] = x[xOffset+i] - y[yOffset+i];
+			}
+			break;
+		case MULT:
+			for(int i=0; i<length; i++) {
+				result[i] = x[xOffset+i] * y[yOffset+i];
+			}
+			break;
+		case DIV:
+			for(int i=0; i<length; i++) {
+				result[i] = x[xOffset+i] / y[yOffset+i];
+			}
+			break;
+		case CAP:
+			for(int i=0; i<length; i++) {
+				result[i] = Math.min(x[xOffset+i], y[yOffset+i]);
+			}
+			break;
+		case FLOOR:
+			for(int i=0; i<length; i++) {
+				result[i] = Math.max(x[xOffset+i], y[yOffset+i]);
+			}
+			break;
+		case ACCRUE:
+			for(int i=0; i<length; i++) {
+				result[i] = x[xOffset+i] * (1.0 + y[yOffset+i] * parameter);
+			}
+			break;
+		case DISCOUNT:
+			for(int i=0; i<length; i++) {
+				result[i] = x[xOffset+i] / (1.0 + y[yOffset+i] * parameter);
+			}
+			break;
+		case BINARY_FUNCTION:
+		{
+			final DoubleBinaryOperator binaryOperator = (DoubleBinaryOperator)function;
+			for(int i=0; i<length; i++) {
+				result[i] = binaryOperator.applyAsDouble(x[xOffset+i], y[yOffset+i]);
+			}
+			break;
+		}
+		case ADD_PRODUCT:
+			for(int i=0; i<length; i++) {
+				result[i] = x[xOffset+i] + y[yOffset+i] * z[zOffset+i];
+			}
+			break;
+		case ADD_RATIO:
+			for(int i=0; i<length; i++) {
+				result[i] = x[xOffset+i] + y[yOffset+i] / z[zOffset+i];
+			}
+			break;
+		case SUB_RATIO:
+			for(int i=0; i<length; i++) {
+				result[i] = x[xOffset+i] - y[yOffset+i] / z[zOffset+i];
+			}
+			break;
+		case CHOOSE:
+			for(int i=0; i<length; i++) {
+				result[i] = x[xOffset+i] >= 0.0 ? y[yOffset+i] : z[zOffset+i];
+			}
+			break;
+		case TERNARY_FUNCTION:
+		{
+			final DoubleTernaryOperator ternaryOperator = (DoubleTernaryOperator)function;
+			for(int i=0; i<length; i++) {
+				result[i] = ternaryOperator.applyAsDouble(x[xOffset+i], y[yOffset+i], z[zOffset+i]);
+			}
+			break;
+		}
+		default:
+			throw new UnsupportedOperationException("Operator " + operator + " not supported.");
+		}
+	}
+
+	/**
+	 * Returns a <code>RandomVariableFromDoubleArray</code> sharing the (evaluated) realizations of this random variable.
+	 *
+	 * @return A <code>RandomVariableFromDoubleArray</code> with the same values.
+	 */
+	public RandomVariableFromDoubleArray getRandomVariable() {
+		if(isDeterministic()) {
+			return new RandomVariableFromDoubleArray(time, valueIfNonStochastic);
+		}
+		cache();
+		return new RandomVariableFromDoubleArray(time, realizations);
+	}
+
+	/*
+	 * Methods of RandomVariable
+	 */
+
+	@Override
+	public boolean equals(final RandomVariable randomVariable) {
+		return getRandomVariable().equals(randomVariable);
+	}
+
+	@Override
+	public double getFiltrationTime() {
+		return time;
+	}
+
+	@Override
+	public int getTypePriority() {
+		return typePriorityDefault;
+	}
+
+	@Override
+	public double get(final int pathOrState) {
+		if(isDeterministic()) {
+			return valueIfNonStochastic;
+		}
+		cache();
+		return realizations[pathOrState];
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isDeterministic() {
+		return isDeterministic;
+	}
+
+	/**
+	 * @return true if the realizations of this random variable have been evaluated (or it is deterministic).
+	 */
+	boolean isEvaluated() {
+		return isDeterministic || realizations != null;
+	}
+
+	/*
+	 * The depth of the graph of this node. An evaluated node is a leaf of the graph of nodes built on it.
+	 */
+	private int getDepth() {
+		return isEvaluated() ? 0 : depth;
+	}
+
+	@Override
+	public double[] getRealizations() {
+		if(isDeterministic()) {
+			return new double[] { valueIfNonStochastic };
+		}
+		cache();
+		return realizations.clone();
+	}
+
+	@Override
+	public Double doubleValue() {
+		if(isDeterministic()) {
+			return valueIfNonStochastic;
+		}
+		else if(size() == 1) {
+			return get(0);
+		}
+		else {
+			throw new UnsupportedOperationException("The random variable is non-deterministic");
+		}
+	}
+
+	@Override
+	public IntToDoubleFunction getOperator() {
+		return getRandomVariable().getOperator();
+	}
+
+	@Override
+	public DoubleStream getRealizationsStream() {
+		return getRandomVariable().getRealizationsStream();
+	}
+
+	@Override
+	public double getMin() {
+		return getRandomVariable().getMin();
+	}
+
+	@Override
+	public double getMax() {
+		return getRandomVariable().getMax();
+	}
+
+	@Override
+	public double getAverage() {
+		if(isDeterministic()) {
+			return valueIfNonStochastic;
+		}
+		if(size() == 0) {
+			return Double.NaN;
+		}
+		return getSumOfPowers(0.0, false) / size();
+	}
+
+	@Override
+	public double getAverage(final RandomVariable probabilities) {
+		return getRandomVariable().getAverage(probabilities);
+	}
+
+	@Override
+	public double getVariance() {
+		if(isDeterministic() || size() == 1) {
+			return 0.0;
+		}
+		if(size() == 0) {
+			return Double.NaN;
+		}
+		return getSumOfPowers(getAverage(), true) / size();
+	}
+
+	@Override
+	public double getVariance(final RandomVariable probabilities) {
+		return getRandomVariable().getVariance(probabilities);
+	}
+
+	@Override
+	public double getSampleVariance() {
+		if(isDeterministic() || size() == 1) {
+			return 0.0;
+		}
+		if(size() == 0) {
+			return Double.NaN;
+		}
+		return getVariance() * size()/(size()-1);
+	}
+
+	@Override
+	public double getStandardDeviation() {
+		if(isDeterministic()) {
+			return 0.0;
+		}
+		if(size() == 0) {
+			return Double.NaN;
+		}
+		return Math.sqrt(getVariance());
+	}
+
+	@Override
+	public double getStandardDeviation(final RandomVariable probabilities) {
+		return getRandomVariable().getStandardDeviation(probabilities);
+	}
+
+	@Override
+	public double getStandardError() {
+		if(isDeterministic()) {
+			return 0.0;
+		}
+		if(size() == 0) {
+			return Double.NaN;
+		}
+		return getStandardDeviation()/Math.sqrt(size());
+	}
+
+	@Override
+	public double getStandardError(final RandomVariable probabilities) {
+		return getRandomVariable().getStandardError(probabilities);
+	}
+
+	@Override
+	public double getQuantile(final double quantile) {
+		return getRandomVariable().getQuantile(quantile);
+	}
+
+	@Override
+	public double[] getQuantiles(final double[] quantiles) {
+		return getRandomVariable().getQuantiles(quantiles);
+	}
+
+	@Override
+	public double getQuantile(final double quantile, final RandomVariable probabilities) {
+		return getRandomVariable().getQuantile(quantile, probabilities);
+	}
+
+	@Override
+	public double getQuantileExpectation(final double quantileStart, final double quantileEnd) {
+		return getRandomVariable().getQuantileExpectation(quantileStart, quantileEnd);
+	}
+
+	@Override
+	public double[] getHistogram(final double[] intervalPoints) {
+		return getRandomVariable().getHistogram(intervalPoints);
+	}
+
+	@Override
+	public double[][] getHistogram(final int numberOfPoints, final double standardDeviations) {
+		return getRandomVariable().getHistogram(numberOfPoints, standardDeviations);
+	}
+
+	/*
+	 * Unary operators
+	 */
+
+	@Override
+	public RandomVariable apply(final DoubleUnaryOperator operator) {
+		return of(time, Operator.UNARY_FUNCTION, Double.NaN, operator, this);
+	}
+
+	@Override
+	public RandomVariable apply(final DoubleBinaryOperator operator, final RandomVariable argument) {
+		return of(Operator.BINARY_FUNCTION, Double.NaN, operator, argument);
+	}
+
+	@Override
+	public RandomVariable apply(final DoubleTernaryOperator operator, final RandomVariable argument1, final RandomVariable argument2) {
+		return of(Operator.TERNARY_FUNCTION, Double.NaN, operator, argument1, argument2);
+	}
+
+	@Override
+	public RandomVariable cap(final double cap) {
+		return of(Operator.CAP, Double.NaN, null, constant(cap));
+	}
+
+	@Override
+	public RandomVariable floor(final double floor) {
+		return of(Operator.FLOOR, Double.NaN, null, constant(floor));
+	}
+
+	@Override
+	public RandomVariable add(final double value) {
+		return of(Operator.ADD, Double.NaN, null, constant(value));
+	}
+
+	@Override
+	public RandomVariable sub(final double value) {
+		return of(Operator.SUB, Double.NaN, null, constant(value));
+	}
+
+	@Override
+	public RandomVariable bus(final double value) {
+		return of(time, Operator.SUB, Double.NaN, null, constant(value), this);
+	}
+
+	@Override
+	public RandomVariable mult(final double value) {
+		return of(Operator.MULT, Double.NaN, null, constant(value));
+	}
+
+	@Override
+	public RandomVariable div(final double value) {
+		return of(Operator.DIV, Double.NaN, null, constant(value));
+	}
+
+	@Override
+	public RandomVariable vid(final double value) {
+		return of(time, Operator.DIV, Double.NaN, null, constant(value), this);
+	}
+
+	@Override
+	public RandomVariable pow(final double exponent) {
+		return of(time, Operator.POW, exponent, null, this);
+	}
+
+	@Override
+	public RandomVariable average() {
+		return new RandomVariableFusedEvaluation(getAverage());
+	}
+
+	@Override
+	public RandomVariable squared() {
+		return of(Operator.SQUARED);
+	}
+
+	@Override
+	public RandomVariable sqrt() {
+		return of(Operator.SQRT);
+	}
+
+	@Override
+	public RandomVariable exp() {
+		return of(Operator.EXP);
+	}
+
+	@Override
+	public RandomVariable log() {
+		return of(Operator.LOG);
+	}
+
+	@Override
+	public RandomVariable sin() {
+		return of(Operator.SIN);
+	}
+
+	@Override
+	public RandomVariable cos() {
+		return of(Operator.COS);
+	}
+
+	@Override
+	public RandomVariable invert() {
+		return of(Operator.INVERT);
+	}
+
+	@Override
+	public RandomVariable abs() {
+		return of(Operator.ABS);
+	}
+
+	@Override
+	public RandomVariable isNaN() {
+		return of(Operator.ISNAN);
+	}
+
+	/*
+	 * Binary operators: checking for return type priority.
+	 */
+
+	@Override
+	public RandomVariable add(final RandomVariable randomVariable) {
+		if(randomVariable.getTypePriority() > this.getTypePriority()) {
+			return randomVariable.add(this);
+		}
+		return of(Operator.ADD, Double.NaN, null, randomVariable);
+	}
+
+	@Override
+	public RandomVariable sub(final RandomVariable randomVariable) {
+		if(randomVariable.getTypePriority() > this.getTypePriority()) {
+			return randomVariable.bus(this);
+		}
+		return of(Operator.SUB, Double.NaN, null, randomVariable);
+	}
+
+	@Override
+	public RandomVariable bus(final RandomVariable randomVariable) {
+		if(randomVariable.getTypePriority() > this.getTypePriority()) {
+			return randomVariable.sub(this);
+		}
+		return asFusedEvaluation(randomVariable).of(Operator.SUB, Double.NaN, null, this);
+	}
+
+	@Override
+	public RandomVariable mult(final RandomVariable randomVariable) {
+		if(randomVariable.getTypePriority() > this.getTypePriority()) {
+			return randomVariable.mult(this);
+		}
+		return of(Operator.MULT, Double.NaN, null, randomVariable);
+	}
+
+	@Override
+	public RandomVariable div(final RandomVariable randomVariable) {
+		if(randomVariable.getTypePriority() > this.getTypePriority()) {
+			return randomVariable.vid(this);
+		}
+		return of(Operator.DIV, Double.NaN, null, randomVariable);
+	}
+
+	@Override
+	public RandomVariable vid(final RandomVariable randomVariable) {
+		if(randomVariable.getTypePriority() > this.getTypePriority()) {
+			return randomVariable.div(this);
+		}
+		return asFusedEvaluation(randomVariable).of(Operator.DIV, Double.NaN, null, this);
+	}
+
+	@Override
+	public RandomVariable cap(final RandomVariable cap) {
+		if(cap.getTypePriority() > this.getTypePriority()) {
+			return cap.cap(this);
+		}
+		return of(Operator.CAP, Double.NaN, null, cap);
+	}
+
+	@Override
+	public RandomVariable floor(final RandomVariable floor) {
+		if(floor.getTypePriority() > this.getTypePriority()) {
+			return floor.floor(this);
+		}
+		return of(Operator.FLOOR, Double.NaN, null, floor);
+	}
+
+	@Override
+	public RandomVariable accrue(final RandomVariable rate, final double periodLength) {
+		if(rate.getTypePriority() > this.getTypePriority()) {
+			return rate.mult(periodLength).add(1.0).mult(this);
+		}
+		return of(Operator.ACCRUE, periodLength, null, rate);
+	}
+
+	@Override
+	public RandomVariable discount(final RandomVariable rate, final double periodLength) {
+		if(rate.getTypePriority() > this.getTypePriority()) {
+			return rate.mult(periodLength).add(1.0).invert().mult(this);
+		}
+		return of(Operator.DISCOUNT, periodLength, null, rate);
+	}
+
+	/*
+	 * Ternary operators: checking for return type priority.
+	 */
+
+	@Override
+	public RandomVariable choose(final RandomVariable valueIfTriggerNonNegative, final RandomVariable valueIfTriggerNegative) {
+		if(isDeterministic()) {
+			return valueIfNonStochastic >= 0 ? valueIfTriggerNonNegative : valueIfTriggerNegative;
+		}
+		if(valueIfTriggerNonNegative.getTypePriority() > this.getTypePriority() || valueIfTriggerNegative.getTypePriority() > this.getTypePriority()) {
+			// Use the (differentiable) argument for the result
+			final RandomVariable trigger = new RandomVariableFromDoubleArray(time, getRealizations());
+			return trigger.choose(valueIfTriggerNonNegative, valueIfTriggerNegative);
+		}
+		return of(Operator.CHOOSE, Double.NaN, null, valueIfTriggerNonNegative, valueIfTriggerNegative);
+	}
+
+	@Override
+	public RandomVariable addProduct(final RandomVariable factor1, final double factor2) {
+		if(factor1.getTypePriority() > this.getTypePriority()) {
+			return factor1.mult(factor2).add(this);
+		}
+		return of(Operator.ADD_PRODUCT, Double.NaN, null, factor1, constant(factor2));
+	}
+
+	@Override
+	public RandomVariable addProduct(final RandomVariable factor1, final RandomVariable factor2) {
+		if(factor1.getTypePriority() > this.getTypePriority() || factor2.getTypePriority() > this.getTypePriority()) {
+			return factor1.mult(factor2).add(this);
+		}
+		return of(Operator.ADD_PRODUCT, Double.NaN, null, factor1, factor2);
+	}
+
+	@Override
+	public RandomVariable addRatio(final RandomVariable numerator, final RandomVariable denominator) {
+		if(numerator.getTypePriority() > this.getTypePriority() || denominator.getTypePriority() > this.getTypePriority()) {
+			return numerator.div(denominator).add(this);
+		}
+		return of(Operator.ADD_RATIO, Double.NaN, null, numerator, denominator);
+	}
+
+	@Override
+	public RandomVariable subRatio(final RandomVariable numerator, final RandomVariable denominator) {
+		if(numerator.getTypePriority() > this.getTypePriority() || denominator.getTypePriority() > this.getTypePriority()) {
+			return numerator.div(denominator).mult(-1).add(this);
+		}
+		return of(Operator.SUB_RATIO, Double.NaN, null, numerator, denominator);
+	}
+
+	@Override
+	public String toString() {
+		final double[] values = realizations;
+		return getClass().getSimpleName() + " [time=" + time + ", size=" + size + ", isDeterministic()=" + isDeterministic()
+		+ (isDeterministic() ? ", value=" + valueIfNonStochastic : (values != null ? ", realizations=" + Arrays.toString(values) : ", operator=" + operator + ", depth=" + depth)) + "]";
+	}
+}
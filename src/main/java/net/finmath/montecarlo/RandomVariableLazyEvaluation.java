@@ -406,7 +406,8 @@ public class RandomVariableLazyEvaluation implements RandomVariable {
 			return Double.NaN;
 		}
 
-		throw new RuntimeException("Method not implemented.");
+		// Weighted quantile as defined by RandomVariableFromDoubleArray
+		return new RandomVariableFromDoubleArray(getFiltrationTime(), getRealizations()).getQuantile(quantile, probabilities);
 	}
 
 	/* (non-Javadoc)
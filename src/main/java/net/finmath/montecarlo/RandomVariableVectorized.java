@@ -0,0 +1,615 @@
+package net.finmath.montecarlo;
+
+import net.finmath.stochastic.RandomVariable;
+
+/**
+ * A variant of {@link RandomVariableFromDoubleArray} where the frequently used arithmetic operations
+ * (add, sub, mult, div, addProduct, accrue, discount, floor, cap, squared, exp, log) and the reductions
+ * (getAverage, getVariance) are implemented as tight loops over primitive arrays.
+ *
+ * The loops do not contain virtual calls (like <code>RandomVariable.get(int)</code>) or functional interfaces,
+ * such that they are eligible for the auto-vectorization (SIMD) of the JIT compiler. The reductions use
+ * four independent (Kahan compensated) accumulators to break the loop carried dependency of the summation.
+ *
+ * The results of operations with arguments of this class (or deterministic arguments) are again of this class.
+ * For other (stochastic) arguments the realizations are obtained via <code>getRealizations()</code> and the
+ * same kernels are used (scalar fallback). Arguments of higher type priority (e.g., for automatic differentiation)
+ * are handled as in {@link RandomVariableFromDoubleArray}.
+ *
+ * Due to the different order of summation, the results of the reductions may differ from those of
+ * {@link RandomVariableFromDoubleArray} in the last digits.
+ *
+ * @version 1.0
+ */
+public class RandomVariableVectorized extends RandomVariableFromDoubleArray {
+
+	private static final long serialVersionUID = 3588716405913564219L;
+
+	// Reference to the realizations (identical to the one held by the super class), null if deterministic
+	private final double[] values;
+
+	/**
+	 * Create a non stochastic random variable, i.e. a constant.
+	 *
+	 * @param time the filtration time, set to 0.0 if not used.
+	 * @param value the value, a constant.
+	 */
+	public RandomVariableVectorized(final double time, final double value) {
+		super(time, value);
+		values = null;
+	}
+
+	/**
+	 * Create a stochastic random variable. The array is not copied.
+	 *
+	 * @param time the filtration time, set to 0.0 if not used.
+	 * @param realisations the vector of realizations.
+	 */
+	public RandomVariableVectorized(final double time, final double[] realisations) {
+		super(time, realisations);
+		values = realisations;
+	}
+
+	/*
+	 * Unary operators
+	 */
+
+	@Override
+	public double getAverage() {
+		if(isDeterministic()) {
+			return super.getAverage();
+		}
+		if(values.length == 0) {
+			return Double.NaN;
+		}
+		return sum(values) / values.length;
+	}
+
+	@Override
+	public double getVariance() {
+		if(isDeterministic() || size() == 1) {
+			return 0.0;
+		}
+		if(values.length == 0) {
+			return Double.NaN;
+		}
+		return sumOfSquaredDeviations(values, getAverage()) / values.length;
+	}
+
+	@Override
+	public RandomVariableVectorized cap(final double cap) {
+		if(isDeterministic()) {
+			return createRandomVariable(getFiltrationTime(), Math.min(doubleValue(), cap));
+		}
+		final double[] result = createRealizations(values.length);
+		for(int i=0; i<result.length; i++) {
+			result[i] = Math.min(values[i], cap);
+		}
+		return createRandomVariable(getFiltrationTime(), result);
+	}
+
+	@Override
+	public RandomVariableVectorized floor(final double floor) {
+		if(isDeterministic()) {
+			return createRandomVariable(getFiltrationTime(), Math.max(doubleValue(), floor));
+		}
+		final double[] result = createRealizations(values.length);
+		for(int i=0; i<result.length; i++) {
+			result[i] = Math.max(values[i], floor);
+		}
+		return createRandomVariable(getFiltrationTime(), result);
+	}
+
+	@Override
+	public RandomVariableVectorized add(final double value) {
+		if(isDeterministic()) {
+			return createRandomVariable(getFiltrationTime(), doubleValue() + value);
+		}
+		final double[] result = createRealizations(values.length);
+		for(int i=0; i<result.length; i++) {
+			result[i] = values[i] + value;
+		}
+		return createRandomVariable(getFiltrationTime(), result);
+	}
+
+	@Override
+	public RandomVariableVectorized sub(final double value) {
+		return add(-value);
+	}
+
+	@Override
+	public RandomVariableVectorized mult(final double value) {
+		if(isDeterministic()) {
+			return createRandomVariable(getFiltrationTime(), doubleValue() * value);
+		}
+		final double[] result = createRealizations(values.length);
+		for(int i=0; i<result.length; i++) {
+			result[i] = values[i] * value;
+		}
+		return createRandomVariable(getFiltrationTime(), result);
+	}
+
+	@Override
+	public RandomVariableVectorized div(final double value) {
+		if(isDeterministic()) {
+			return createRandomVariable(getFiltrationTime(), doubleValue() / value);
+		}
+		final double[] result = createRealizations(values.length);
+		for(int i=0; i<result.length; i++) {
+			result[i] = values[i] / value;
+		}
+		return createRandomVariable(getFiltrationTime(), result);
+	}
+
+	@Override
+	public RandomVariableVectorized squared() {
+		if(isDeterministic()) {
+			return createRandomVariable(getFiltrationTime(), doubleValue() * doubleValue());
+		}
+		final double[] result = createRealizations(values.length);
+		for(int i=0; i<result.length; i++) {
+			result[i] = values[i] * values[i];
+		}
+		return createRandomVariable(getFiltrationTime(), result);
+	}
+
+	@Override
+	public RandomVariableVectorized exp() {
+		if(isDeterministic()) {
+			return createRandomVariable(getFiltrationTime(), Math.exp(doubleValue()));
+		}
+		final double[] result = createRealizations(values.length);
+		for(int i=0; i<result.length; i++) {
+			result[i] = Math.exp(values[i]);
+		}
+		return createRandomVariable(getFiltrationTime(), result);
+	}
+
+	@Override
+	public RandomVariableVectorized log() {
+		if(isDeterministic()) {
+			return createRandomVariable(getFiltrationTime(), Math.log(doubleValue()));
+		}
+		final double[] result = createRealizations(values.length);
+		for(int i=0; i<result.length; i++) {
+			result[i] = Math.log(values[i]);
+		}
+		return createRandomVariable(getFiltrationTime(), result);
+	}
+
+	/*
+	 * Binary operators
+	 */
+
+	@Override
+	public RandomVariable add(final RandomVariable randomVariable) {
+		if(randomVariable.getTypePriority() > this.getTypePriority()) {
+			return randomVariable.add(this);
+		}
+		if(randomVariable.isDeterministic()) {
+			return this.add(randomVariable.doubleValue()).withTime(getNewTime(randomVariable));
+		}
+		if(isDeterministic()) {
+			return asVectorized(randomVariable).add(doubleValue()).withTime(getNewTime(randomVariable));
+		}
+
+		final double[] argument = getValues(randomVariable);
+		final double[] result = createRealizations(values.length);
+		for(int i=0; i<result.length; i++) {
+			result[i] = values[i] + argument[i];
+		}
+		return createRandomVariable(getNewTime(randomVariable), result);
+	}
+
+	@Override
+	public RandomVariable sub(final RandomVariable randomVariable) {
+		if(randomVariable.getTypePriority() > this.getTypePriority()) {
+			return randomVariable.bus(this);
+		}
+		if(randomVariable.isDeterministic()) {
+			return this.sub(randomVariable.doubleValue()).withTime(getNewTime(randomVariable));
+		}
+
+		final double[] argument = getValues(randomVariable);
+		final double[] result = createRealizations(argument.length);
+		if(isDeterministic()) {
+			final double value = doubleValue();
+			for(int i=0; i<result.length; i++) {
+				result[i] = value - argument[i];
+			}
+		}
+		else {
+			for(int i=0; i<result.length; i++) {
+				result[i] = values[i] - argument[i];
+			}
+		}
+		return createRandomVariable(getNewTime(randomVariable), result);
+	}
+
+	@Override
+	public RandomVariable mult(final RandomVariable randomVariable) {
+		if(randomVariable.getTypePriority() > this.getTypePriority()) {
+			return randomVariable.mult(this);
+		}
+		if(randomVariable.isDeterministic()) {
+			return this.mult(randomVariable.doubleValue()).withTime(getNewTime(randomVariable));
+		}
+		if(isDeterministic()) {
+			return asVectorized(randomVariable).mult(doubleValue()).withTime(getNewTime(randomVariable));
+		}
+
+		final double[] argument = getValues(randomVariable);
+		final double[] result = createRealizations(values.length);
+		for(int i=0; i<result.length; i++) {
+			result[i] = values[i] * argument[i];
+		}
+		return createRandomVariable(getNewTime(randomVariable), result);
+	}
+
+	@Override
+	public RandomVariable div(final RandomVariable randomVariable) {
+		if(randomVariable.getTypePriority() > this.getTypePriority()) {
+			return randomVariable.vid(this);
+		}
+		if(randomVariable.isDeterministic()) {
+			return this.div(randomVariable.doubleValue()).withTime(getNewTime(randomVariable));
+		}
+
+		final double[] argument = getValues(randomVariable);
+		final double[] result = createRealizations(argument.length);
+		if(isDeterministic()) {
+			final double value = doubleValue();
+			for(int i=0; i<result.length; i++) {
+				result[i] = value / argument[i];
+			}
+		}
+		else {
+			for(int i=0; i<result.length; i++) {
+				result[i] = values[i] / argument[i];
+			}
+		}
+		return createRandomVariable(getNewTime(randomVariable), result);
+	}
+
+	@Override
+	public RandomVariable cap(final RandomVariable randomVariable) {
+		if(randomVariable.getTypePriority() > this.getTypePriority()) {
+			return randomVariable.cap(this);
+		}
+		if(randomVariable.isDeterministic()) {
+			return this.cap(randomVariable.doubleValue()).withTime(getNewTime(randomVariable));
+		}
+		if(isDeterministic()) {
+			return asVectorized(randomVariable).cap(doubleValue()).withTime(getNewTime(randomVariable));
+		}
+
+		final double[] argument = getValues(randomVariable);
+		final double[] result = createRealizations(values.length);
+		for(int i=0; i<result.length; i++) {
+			result[i] = Math.min(values[i], argument[i]);
+		}
+		return createRandomVariable(getNewTime(randomVariable), result);
+	}
+
+	@Override
+	public RandomVariable floor(final RandomVariable randomVariable) {
+		if(randomVariable.getTypePriority() > this.getTypePriority()) {
+			return randomVariable.floor(this);
+		}
+		if(randomVariable.isDeterministic()) {
+			return this.floor(randomVariable.doubleValue()).withTime(getNewTime(randomVariable));
+		}
+		if(isDeterministic()) {
+			return asVectorized(randomVariable).floor(doubleValue()).withTime(getNewTime(randomVariable));
+		}
+
+		final double[] argument = getValues(randomVariable);
+		final double[] result = createRealizations(values.length);
+		for(int i=0; i<result.length; i++) {
+			result[i] = Math.max(values[i], argument[i]);
+		}
+		return createRandomVariable(getNewTime(randomVariable), result);
+	}
+
+	@Override
+	public RandomVariable accrue(final RandomVariable rate, final double periodLength) {
+		if(rate.getTypePriority() > this.getTypePriority()) {
+			return rate.mult(periodLength).add(1.0).mult(this);
+		}
+		if(rate.isDeterministic()) {
+			return this.mult(1.0 + rate.doubleValue() * periodLength).withTime(getNewTime(rate));
+		}
+
+		final double[] argument = getValues(rate);
+		final double[] result = createRealizations(argument.length);
+		if(isDeterministic()) {
+			final double value = doubleValue();
+			for(int i=0; i<result.length; i++) {
+				result[i] = value * (1.0 + argument[i] * periodLength);
+			}
+		}
+		else {
+			for(int i=0; i<result.length; i++) {
+				result[i] = values[i] * (1.0 + argument[i] * periodLength);
+			}
+		}
+		return createRandomVariable(getNewTime(rate), result);
+	}
+
+	@Override
+	public RandomVariable discount(final RandomVariable rate, final double periodLength) {
+		if(rate.getTypePriority() > this.getTypePriority()) {
+			return rate.mult(periodLength).add(1.0).invert().mult(this);
+		}
+		if(rate.isDeterministic()) {
+			return this.div(1.0 + rate.doubleValue() * periodLength).withTime(getNewTime(rate));
+		}
+
+		final double[] argument = getValues(rate);
+		final double[] result = createRealizations(argument.length);
+		if(isDeterministic()) {
+			final double value = doubleValue();
+			for(int i=0; i<result.length; i++) {
+				result[i] = value / (1.0 + argument[i] * periodLength);
+			}
+		}
+		else {
+			for(int i=0; i<result.length; i++) {
+				result[i] = values[i] / (1.0 + argument[i] * periodLength);
+			}
+		}
+		return createRandomVariable(getNewTime(rate), result);
+	}
+
+	/*
+	 * Ternary operators
+	 */
+
+	@Override
+	public RandomVariable addProduct(final RandomVariable factor1, final double factor2) {
+		if(factor1.getTypePriority() > this.getTypePriority()) {
+			return factor1.mult(factor2).add(this);
+		}
+		return addProduct(factor1, factor2, getNewTime(factor1));
+	}
+
+	@Override
+	public RandomVariable addProduct(final RandomVariable factor1, final RandomVariable factor2) {
+		if(factor1.getTypePriority() > this.getTypePriority() || factor2.getTypePriority() > this.getTypePriority()) {
+			return factor1.mult(factor2).add(this);
+		}
+
+		final double newTime = Math.max(getNewTime(factor1), factor2.getFiltrationTime());
+		if(factor2.isDeterministic()) {
+			return addProduct(factor1, factor2.doubleValue(), newTime);
+		}
+		if(factor1.isDeterministic()) {
+			return addProduct(factor2, factor1.doubleValue(), newTime);
+		}
+
+		final double[] argument1 = getValues(factor1);
+		final double[] argument2 = getValues(factor2);
+		final double[] result = createRealizations(argument1.length);
+		if(isDeterministic()) {
+			final double value = doubleValue();
+			for(int i=0; i<result.length; i++) {
+				result[i] = value + argument1[i] * argument2[i];
+			}
+		}
+		else {
+			for(int i=0; i<result.length; i++) {
+				result[i] = values[i] + argument1[i] * argument2[i];
+			}
+		}
+		return createRandomVariable(newTime, result);
+	}
+
+	private RandomVariableVectorized addProduct(final RandomVariable factor1, final double factor2, final double newTime) {
+		if(factor1.isDeterministic()) {
+			return this.add(factor1.doubleValue() * factor2).withTime(newTime);
+		}
+
+		final double[] argument = getValues(factor1);
+		final double[] result = createRealizations(argument.length);
+		if(isDeterministic()) {
+			final double value = doubleValue();
+			for(int i=0; i<result.length; i++) {
+				result[i] = value + argument[i] * factor2;
+			}
+		}
+		else {
+			for(int i=0; i<result.length; i++) {
+				result[i] = values[i] + argument[i] * factor2;
+			}
+		}
+		return createRandomVariable(newTime, result);
+	}
+
+	/*
+	 * Kernels and helpers
+	 */
+
+	/**
+	 * Returns the sum of the given values, using four independent Kahan compensated accumulators.
+	 *
+	 * @param values The values.
+	 * @return The sum.
+	 */
+	static double sum(final double[] values) {
+		return sum(values, 0, values.length);
+	}
+
+	/**
+	 * Returns the sum of values[offset], ..., values[offset+length-1], using four independent Kahan compensated accumulators.
+	 *
+	 * @param values The values.
+	 * @param offset The index of the first value.
+	 * @param length The number of values.
+	 * @return The sum.
+	 */
+	static double sum(final double[] values, final int offset, final int length) {
+		double sum0 = 0.0, sum1 = 0.0, sum2 = 0.0, sum3 = 0.0;
+		double error0 = 0.0, error1 = 0.0, error2 = 0.0, error3 = 0.0;
+
+		final int end = offset + length;
+		final int endOfBlocks = offset + (length & ~3);
+		for(int i=offset; i<endOfBlocks; i+=4) {
+			final double value0 = values[i] - error0;
+			final double value1 = values[i+1] - error1;
+			final double value2 = values[i+2] - error2;
+			final double value3 = values[i+3] - error3;
+			final double newSum0 = sum0 + value0;
+			final double newSum1 = sum1 + value1;
+			final double newSum2 = sum2 + value2;
+			final double newSum3 = sum3 + value3;
+			error0 = (newSum0 - sum0) - value0;
+			error1 = (newSum1 - sum1) - value1;
+			error2 = (newSum2 - sum2) - value2;
+			error3 = (newSum3 - sum3) - value3;
+			sum0 = newSum0;
+			sum1 = newSum1;
+			sum2 = newSum2;
+			sum3 = newSum3;
+		}
+		for(int i=endOfBlocks; i<end; i++) {
+			final double value = values[i] - error0;
+			final double newSum = sum0 + value;
+			error0 = (newSum - sum0) - value;
+			sum0 = newSum;
+		}
+
+		return ((sum0 + sum1) - (error0 + error1)) + ((sum2 + sum3) - (error2 + error3));
+	}
+
+	/**
+	 * Returns the sum of (values[i]-center)^2, using four independent Kahan compensated accumulators.
+	 *
+	 * @param values The values.
+	 * @param center The center.
+	 * @return The sum of the squared deviations.
+	 */
+	static double sumOfSquaredDeviations(final double[] values, final double center) {
+		return sumOfSquaredDeviations(values, 0, values.length, center);
+	}
+
+	/**
+	 * Returns the sum of (values[i]-center)^2 for i = offset, ..., offset+length-1, using four independent Kahan compensated accumulators.
+	 *
+	 * @param values The values.
+	 * @param offset The index of the first value.
+	 * @param length The number of values.
+	 * @param center The center.
+	 * @return The sum of the squared deviations.
+	 */
+	static double sumOfSquaredDeviations(final double[] values, final int offset, final int length, final double center) {
+		double sum0 = 0.0, sum1 = 0.0, sum2 = 0.0, sum3 = 0.0;
+		double error0 = 0.0, error1 = 0.0, error2 = 0.0, error3 = 0.0;
+
+		final int end = offset + length;
+		final int endOfBlocks = offset + (length & ~3);
+		for(int i=offset; i<endOfBlocks; i+=4) {
+			final double deviation0 = values[i] - center;
+			final double deviation1 = values[i+1] - center;
+			final double deviation2 = values[i+2] - center;
+			final double deviation3 = values[i+3] - center;
+			final double value0 = deviation0 * deviation0 - error0;
+			final double value1 = deviation1 * deviation1 - error1;
+			final double value2 = deviation2 * deviation2 - error2;
+			final double value3 = deviation3 * deviation3 - error3;
+			final double newSum0 = sum0 + value0;
+			final double newSum1 = sum1 + value1;
+			final double newSum2 = sum2 + value2;
+			final double newSum3 = sum3 + value3;
+			error0 = (newSum0 - sum0) - value0;
+			error1 = (newSum1 - sum1) - value1;
+			error2 = (newSum2 - sum2) - value2;
+			error3 = (newSum3 - sum3) - value3;
+			sum0 = newSum0;
+			sum1 = newSum1;
+			sum2 = newSum2;
+			sum3 = newSum3;
+		}
+		for(int i=endOfBlocks; i<end; i++) {
+			final double deviation = values[i] - center;
+			final double value = deviation * deviation - error0;
+			final double newSum = sum0 + value;
+			error0 = (newSum - sum0) - value;
+			sum0 = newSum;
+		}
+
+		return ((sum0 + sum1) - (error0 + error1)) + ((sum2 + sum3) - (error2 + error3));
+	}
+
+	/**
+	 * Returns an array to store the realizations of the result of an operation on this random variable.
+	 * All elements of the array are overwritten by the operation.
+	 *
+	 * Sub-classes may override this method to provide re-usable arrays.
+	 *
+	 * @param size The number of realizations.
+	 * @return An array of length <code>size</code>.
+	 */
+	protected double[] createRealizations(final int size) {
+		return new double[size];
+	}
+
+	/**
+	 * Creates the result of an operation on this random variable.
+	 *
+	 * @param time The filtration time of the result.
+	 * @param realizations The realizations of the result, obtained from {@link #createRealizations(int)}.
+	 * @return The random variable.
+	 */
+	protected RandomVariableVectorized createRandomVariable(final double time, final double[] realizations) {
+		return new RandomVariableVectorized(time, realizations);
+	}
+
+	/**
+	 * Creates the (deterministic) result of an operation on this random variable.
+	 *
+	 * @param time The filtration time of the result.
+	 * @param value The value of the result.
+	 * @return The random variable.
+	 */
+	protected RandomVariableVectorized createRandomVariable(final double time, final double value) {
+		return new RandomVariableVectorized(time, value);
+	}
+
+	/**
+	 * Returns a reference to the realizations (no copy). Must not be modified.
+	 *
+	 * @return The realizations, or null if the random variable is deterministic.
+	 */
+	protected double[] getRealizationsReference() {
+		return values;
+	}
+
+	private double getNewTime(final RandomVariable randomVariable) {
+		// Maximum of time with respect to which measurability is known.
+		return Math.max(getFiltrationTime(), randomVariable.getFiltrationTime());
+	}
+
+	private RandomVariableVectorized withTime(final double time) {
+		if(time == getFiltrationTime()) {
+			return this;
+		}
+		return isDeterministic() ? createRandomVariable(time, doubleValue()) : createRandomVariable(time, values);
+	}
+
+	/*
+	 * The realizations of a stochastic random variable, without copying if the argument is of this class.
+	 */
+	private static double[] getValues(final RandomVariable randomVariable) {
+		if(randomVariable instanceof RandomVariableVectorized) {
+			return ((RandomVariableVectorized)randomVariable).getRealizationsReference();
+		}
+		return randomVariable.getRealizations();
+	}
+
+	private static RandomVariableVectorized asVectorized(final RandomVariable randomVariable) {
+		if(randomVariable instanceof RandomVariableVectorized) {
+			return (RandomVariableVectorized)randomVariable;
+		}
+		return new RandomVariableVectorized(randomVariable.getFiltrationTime(), randomVariable.getRealizations());
+	}
+}
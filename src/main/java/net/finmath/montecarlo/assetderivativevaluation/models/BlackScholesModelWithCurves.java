@@ -149,6 +149,11 @@ public class BlackScholesModelWithCurves extends AbstractProcessModel {
 		return randomVariableFactory.createRandomVariable(value);
 	}
 
+	@Override
+	public RandomVariableFactory getRandomVariableFactory() {
+		return randomVariableFactory;
+	}
+
 	@Override
 	public BlackScholesModelWithCurves getCloneWithModifiedData(final Map<String, Object> dataModified) {
 		/*
@@ -233,6 +233,7 @@ public class InhomogeneousDisplacedLognomalModel extends AbstractProcessModel {
 				+ volatility + ", isUseMilsteinCorrection=" + isUseMilsteinCorrection + "]";
 	}
 
+	@Override
 	public RandomVariableFactory getRandomVariableFactory() {
 		return randomVariableFactory;
 	}
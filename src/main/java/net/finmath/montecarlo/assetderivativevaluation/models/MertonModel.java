@@ -371,6 +371,11 @@ public class MertonModel extends AbstractProcessModel {
 		return randomVariableFactory.createRandomVariable(value);
 	}
 
+	@Override
+	public RandomVariableFactory getRandomVariableFactory() {
+		return randomVariableFactory;
+	}
+
 	@Override
 	public ProcessModel getCloneWithModifiedData(final Map<String, Object> dataModified) {
 		/*
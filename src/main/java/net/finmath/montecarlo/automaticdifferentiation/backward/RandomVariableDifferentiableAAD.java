@@ -8,12 +8,17 @@ package net.finmath.montecarlo.automaticdifferentiation.backward;
 import java.io.IOException;
 import java.io.Serializable;
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.DoubleBinaryOperator;
 import java.util.function.DoubleUnaryOperator;
@@ -45,11 +50,16 @@ import net.finmath.stochastic.Scalar;
  *
  * For details see <a href="http://christianfries.com/finmath/stochasticautodiff/">http://christianfries.com/finmath/stochasticautodiff/</a>.
  *
+ * If the factory has the property <code>isParallelReverseSweep</code>, the reverse sweep of {@link #getGradient(Set)}
+ * splits the paths into slices which are processed in parallel on the common fork-join pool, each task propagating
+ * the derivatives of its slice through the same operator tree. Operators coupling different paths (e.g., the average or the conditional expectation)
+ * are processed on all paths.
+ *
  * The class is serializable. Upon de-serialization the value of {@link #getID()} may be changed to ensure unique IDs in de-serialization context.
  *
  * @author Christian Fries
  * @author Stefan Sedlmair
- * @version 1.1
+ * @version 1.2
  */
 public class RandomVariableDifferentiableAAD implements RandomVariableDifferentiable {
 
@@ -57,8 +67,12 @@ public class RandomVariableDifferentiableAAD implements RandomVariableDifferenti
 
 	private static final int typePriorityDefault = 3;
 
+	private static final RandomVariable zero = new Scalar(0.0);
 	private static final RandomVariable one = new Scalar(1.0);
 
+	// The minimum number of paths per slice for the parallel reverse sweep
+	private static final int minimumNumberOfPathsPerSlice = 1024;
+
 	private final int typePriority;
 
 	private static AtomicLong indexOfNextRandomVariable = new AtomicLong(0);
@@ -193,7 +207,7 @@ public class RandomVariableDifferentiableAAD implements RandomVariableDifferenti
 					case CHOOSE:
 						// Implementation of CHOOSE (INDICATOR_FUNCTION)
 						if(argumentIndex == 0 && (factory.getDiracDeltaApproximationMethod() == DiracDeltaApproximationMethod.REGRESSION_ON_DENSITY || factory.getDiracDeltaApproximationMethod() == DiracDeltaApproximationMethod.REGRESSION_ON_DISTRIBUITON)) {
-							derivative = getDiracDeltaRegression(derivative, argumentValues.get(0));
+							derivative = RandomVariableDifferentiableAAD.getDiracDeltaRegression(derivative, argumentValues.get(0), factory.getDiracDeltaApproximationMethod(), factory.getDiracDeltaApproximationWidthPerStdDev(), factory.getDiracDeltaApproximationDensityRegressionWidthPerStdDev());
 						}
 						break;
 					default:
@@ -218,6 +232,79 @@ public class RandomVariableDifferentiableAAD implements RandomVariableDifferenti
 			}
 		}
 
+		/*
+		 * This implements the update rule D_i = D_i + Dm * d fm/dxi on the paths fromPath (inclusive) to toPath (exclusive),
+		 * where the derivatives in the map are given on these paths only. Requires that the node is not path coupled.
+		 * The values of the arguments on the paths are written to the given buffers (one for each of the arguments X, Y, Z), which are re-used for the next node.
+		 */
+		private void propagateDerivativesFromResultToArgumentOnPaths(final Map<Long, RandomVariable> derivatives, final int fromPath, final int toPath, final double[][] argumentValueBuffers) {
+			if(arguments == null) {
+				// The node has no arguments (it is a leaf node the tree). Do nothing.
+				return;
+			}
+
+			final RandomVariable derivative = derivatives.get(id);
+
+			final RandomVariable X = arguments.size() > 0 && argumentValues != null ? getPathSlice(argumentValues.get(0), fromPath, toPath, argumentValueBuffers, 0) : null;
+			final RandomVariable Y = arguments.size() > 1 && argumentValues != null ? getPathSlice(argumentValues.get(1), fromPath, toPath, argumentValueBuffers, 1) : null;
+			final RandomVariable Z = arguments.size() > 2 && argumentValues != null ? getPathSlice(argumentValues.get(2), fromPath, toPath, argumentValueBuffers, 2) : null;
+
+			/*
+			 * The slices X, Y, Z are views on the buffers. The partial derivatives are evaluated eagerly (the slices are of type RandomVariableFromDoubleArray),
+			 * such that the derivatives put into the map do not refer to the buffers.
+			 */
+
+			for(int argumentIndex = 0; argumentIndex < arguments.size(); argumentIndex++) {
+				final OperatorTreeNode argument = arguments.get(argumentIndex);
+				if(argument != null) {
+					final RandomVariable partialDerivative	= getPartialDerivative(argumentIndex, X, Y, Z);
+					RandomVariable argumentDerivative		= derivatives.get(argument.id);
+
+					if(argumentDerivative == null) {
+						argumentDerivative = derivative.mult(partialDerivative);
+					}
+					else {
+						argumentDerivative = argumentDerivative.addProduct(partialDerivative, derivative);
+					}
+
+					derivatives.put(argument.id, argumentDerivative);
+				}
+			}
+		}
+
+		/**
+		 * Checks if the propagation of the derivative of this node to its arguments on a path depends on the values of other paths,
+		 * either through the partial derivative (e.g., MIN, VARIANCE, the width of the discrete delta of CHOOSE)
+		 * or through the special treatment of the operator (e.g., AVERAGE, CONDITIONAL_EXPECTATION).
+		 *
+		 * @return true, if the node has to be processed on all paths.
+		 */
+		private boolean isPathCoupled() {
+			if(arguments == null) {
+				return false;
+			}
+
+			switch(operatorType) {
+			case AVERAGE:
+			case CONDITIONAL_EXPECTATION:
+			case VARIANCE:
+			case STDEV:
+			case STDERROR:
+			case SVARIANCE:
+			case MIN:
+			case MAX:
+			case AVERAGE2:
+			case VARIANCE2:
+			case STDEV2:
+			case STDERROR2:
+				return true;
+			case CHOOSE:
+				return factory.getDiracDeltaApproximationMethod() != DiracDeltaApproximationMethod.ONE && factory.getDiracDeltaApproximationMethod() != DiracDeltaApproximationMethod.ZERO;
+			default:
+				return false;
+			}
+		}
+
 		/**
 		 * Calculate the partial derivative of this node with respect to an argument node.
 		 * Since a function f may use an argument node X in multiple arguments, say f(X,X), we need to provide index
@@ -237,6 +324,19 @@ public class RandomVariableDifferentiableAAD implements RandomVariableDifferenti
 			final RandomVariable Y = arguments.size() > 1 && argumentValues != null ? argumentValues.get(1) : null;
 			final RandomVariable Z = arguments.size() > 2 && argumentValues != null ? argumentValues.get(2) : null;
 
+			return getPartialDerivative(differentialIndex, X, Y, Z);
+		}
+
+		/**
+		 * Calculate the partial derivative of this node with respect to the argument with the given index.
+		 *
+		 * @param differentialIndex The index of the argument in the functions argument list.
+		 * @param X The value of the first argument (if required).
+		 * @param Y The value of the second argument (if required).
+		 * @param Z The value of the third argument (if required).
+		 * @return The value of the partial derivative.
+		 */
+		private RandomVariable getPartialDerivative(final int differentialIndex, final RandomVariable X, final RandomVariable Y, final RandomVariable Z) {
 			RandomVariable derivative;
 
 			switch(operatorType) {
@@ -451,101 +551,6 @@ public class RandomVariableDifferentiableAAD implements RandomVariableDifferenti
 			return derivative;
 		}
 
-		private RandomVariable getDiracDeltaRegression(RandomVariable derivative, final RandomVariable indicator) {
-			final double diracDeltaApproximationWidthPerStdDev = factory.getDiracDeltaApproximationWidthPerStdDev();
-			final double epsilon = diracDeltaApproximationWidthPerStdDev*indicator.getStandardDeviation();
-
-			final RandomVariable localizedOne = (indicator.add(epsilon/2).choose(one, zero)).mult(indicator.sub(epsilon/2).choose(zero, one));
-
-			final boolean isDirectDeltaRegressionUseRegressionOnAdjointDerivative = false;	// currently disabled, was used in experiments
-			if(isDirectDeltaRegressionUseRegressionOnAdjointDerivative) {
-				final RandomVariable localizedValue = indicator.mult(localizedOne);
-				final RandomVariable[] regressionBasisFunctions = new RandomVariable[] {
-						localizedOne,
-						localizedValue,
-						localizedValue.squared()
-				};
-				derivative = localizedOne.mult((new LinearRegression(regressionBasisFunctions)).getRegressionCoefficients(derivative)[0]).div(localizedOne.getAverage());
-			}
-			else {
-				derivative = derivative.mult(localizedOne).div(localizedOne.getAverage());
-			}
-
-			return derivative.mult(getDensityRegression(indicator));
-
-		}
-
-		private double getDensityRegression(final RandomVariable indicator) {
-			final double diracDeltaApproximationDensityRegressionWidthPerStdDev = factory.getDiracDeltaApproximationDensityRegressionWidthPerStdDev();
-
-			/*
-			 * Density regression
-			 */
-			final double underlyingStdDev = indicator.getStandardDeviation();
-			final int numberOfSamplePointsHalf = 50;			// @TODO numberOfSamplePoints should become a parameter.
-			final double sampleIntervalWidthHalf = diracDeltaApproximationDensityRegressionWidthPerStdDev/2 * underlyingStdDev / numberOfSamplePointsHalf;
-			final double[] samplePointX = new double[numberOfSamplePointsHalf*2];
-			final double[] samplePointY = new double[numberOfSamplePointsHalf*2];
-			double sampleInterval = sampleIntervalWidthHalf;
-			final RandomVariable indicatorPositiveValues = indicator.choose(new Scalar(1.0), new Scalar(0.0));
-			final RandomVariable indicatorNegativeValues = indicator.choose(new Scalar(0.0), new Scalar(1.0));
-
-			switch(factory.getDiracDeltaApproximationMethod()) {
-			case REGRESSION_ON_DENSITY:
-			{
-				for(int i=0; i<numberOfSamplePointsHalf*2; i+=2) {
-					sampleInterval += sampleIntervalWidthHalf;
-
-					final RandomVariable indicatorOnNegValues = indicator.add(sampleInterval).choose(new Scalar(1.0), new Scalar(0.0)).mult(indicatorNegativeValues);
-					final RandomVariable indicatorOnPosValues = indicator.sub(sampleInterval).choose(new Scalar(0.0), new Scalar(1.0)).mult(indicatorPositiveValues);
-
-					samplePointX[i] = -sampleInterval;
-					samplePointY[i] = indicatorOnNegValues.getAverage() / sampleInterval;
-
-					samplePointX[i+1] = sampleInterval;
-					samplePointY[i+1] = indicatorOnPosValues.getAverage() / sampleInterval;
-				}
-
-				final RandomVariable densityX = new RandomVariableFromDoubleArray(0.0, samplePointX);
-				final RandomVariable densityValues = new RandomVariableFromDoubleArray(0.0, samplePointY);
-
-				//				final double[] densityRegressionCoeff = new LinearRegression(new RandomVariable[] { densityX.mult(0.0).add(1.0), densityX }).getRegressionCoefficients(densityValues);
-				final double[] densityRegressionCoeff = new LinearRegression(new RandomVariable[] { densityX.mult(0.0).add(1.0), densityX, densityX.squared() }).getRegressionCoefficients(densityValues);
-				final double density = densityRegressionCoeff[0];
-
-				return density;
-			}
-			case REGRESSION_ON_DISTRIBUITON:
-			{
-				for(int i=0; i<numberOfSamplePointsHalf*2; i+=2) {
-					sampleInterval += sampleIntervalWidthHalf;
-
-					final RandomVariable indicatorOnNegValues = indicator.add(sampleInterval).choose(new Scalar(1.0), new Scalar(0.0)).mult(indicatorNegativeValues);
-					final RandomVariable indicatorOnPosValues = indicator.sub(sampleInterval).choose(new Scalar(0.0), new Scalar(1.0)).mult(indicatorPositiveValues);
-
-					samplePointX[i] = -sampleInterval;
-					samplePointY[i] = -indicatorOnNegValues.getAverage();
-
-					samplePointX[i+1] = sampleInterval;
-					samplePointY[i+1] = indicatorOnPosValues.getAverage();
-				}
-
-				final RandomVariable densityX = new RandomVariableFromDoubleArray(0.0, samplePointX);
-				final RandomVariable densityValues = new RandomVariableFromDoubleArray(0.0, samplePointY);
-				//				final double[] densityRegressionCoeff = new LinearRegression(new RandomVariable[] { densityX, densityX.squared() }).getRegressionCoefficients(densityValues);
-				final double[] densityRegressionCoeff = new LinearRegression(new RandomVariable[] { densityX, densityX.squared(), densityX.pow(3) }).getRegressionCoefficients(densityValues);
-				//				final double[] densityRegressionCoeff = new LinearRegression(new RandomVariable[] { densityX, new Scalar(1.0) }).getRegressionCoefficients(densityValues);
-				//				final double[] densityRegressionCoeff = new LinearRegression(new RandomVariable[] { densityX }).getRegressionCoefficients(densityValues);
-				//				final double[] densityRegressionCoeff = new LinearRegression(new RandomVariable[] { densityX, new Scalar(1.0), densityX.squared(), densityX.pow(3) }).getRegressionCoefficients(densityValues);
-				final double density = densityRegressionCoeff[0];
-
-				return density;
-			}
-			default:
-				throw new UnsupportedOperationException("Density regression method " + factory.getDiracDeltaApproximationMethod().name() + " not supported.");
-			}
-		}
-
 		private static OperatorTreeNode of(final RandomVariable randomVariable) {
 			return (randomVariable != null && randomVariable instanceof RandomVariableDifferentiableAAD) ? ((RandomVariableDifferentiableAAD)randomVariable).getOperatorTreeNode() : null;
 		}
@@ -657,6 +662,13 @@ public class RandomVariableDifferentiableAAD implements RandomVariableDifferenti
 	@Override
 	public Map<Long, RandomVariable> getGradient(final Set<Long> independentIDs) {
 
+		if(getFactory().isParallelReverseSweep()) {
+			final Map<Long, RandomVariable> derivatives = getGradientOnPathSlices(independentIDs);
+			if(derivatives != null) {
+				return derivatives;
+			}
+		}
+
 		// The map maintaining the derivatives id -> derivative
 		final Map<Long, RandomVariable> derivatives = new HashMap<>();
 		// Put derivative of this node w.r.t. itself
@@ -701,6 +713,337 @@ public class RandomVariableDifferentiableAAD implements RandomVariableDifferenti
 		return derivatives;
 	}
 
+	/**
+	 * Performs the backward automatic differentiation with the paths split into slices, each slice being processed in its own task
+	 * on the common fork-join pool. Nodes which are path coupled (see {@link OperatorTreeNode#isPathCoupled()}) are processed on all paths
+	 * and their contributions to the derivatives of their arguments are split into the slices.
+	 *
+	 * @param independentIDs The set of IDs to be removed from the gradient (see {@link #getGradient(Set)}).
+	 * @return The gradient map or null if the number of paths does not allow to split the paths into slices.
+	 */
+	private Map<Long, RandomVariable> getGradientOnPathSlices(final Set<Long> independentIDs) {
+
+		// Collect the nodes of the tree in the order of processing (highest id first) and determine the number of paths
+		final List<OperatorTreeNode> nodes = new ArrayList<>();
+		int numberOfPaths = getValues().size();
+
+		final TreeMap<Long, OperatorTreeNode> independents = new TreeMap<>();
+		independents.put(getID(), getOperatorTreeNode());
+		while(independents.size() > 0) {
+			final OperatorTreeNode independent = independents.pollLastEntry().getValue();
+			nodes.add(independent);
+
+			if(independent.arguments != null) {
+				for(final OperatorTreeNode argument : independent.arguments) {
+					if(argument != null) {
+						independents.put(argument.id, argument);
+					}
+				}
+			}
+			if(independent.argumentValues != null) {
+				for(final RandomVariable argumentValue : independent.argumentValues) {
+					if(argumentValue != null) {
+						numberOfPaths = Math.max(numberOfPaths, argumentValue.size());
+					}
+				}
+			}
+		}
+
+		// We use a few slices per worker to balance the load.
+		final ForkJoinPool pool = ForkJoinPool.commonPool();
+		final int numberOfSlices = Math.min(4 * pool.getParallelism(), numberOfPaths / minimumNumberOfPathsPerSlice);
+		if(numberOfSlices < 2) {
+			return null;
+		}
+
+		final int[] sliceStartPath = new int[numberOfSlices + 1];
+		final List<Map<Long, RandomVariable>> derivativesOnSlices = new ArrayList<>(numberOfSlices);
+		for(int sliceIndex = 0; sliceIndex < numberOfSlices; sliceIndex++) {
+			sliceStartPath[sliceIndex] = (int)((long)sliceIndex * numberOfPaths / numberOfSlices);
+
+			// Put derivative of this node w.r.t. itself
+			final Map<Long, RandomVariable> derivatives = new HashMap<>();
+			derivatives.put(getID(), one);
+			derivativesOnSlices.add(derivatives);
+		}
+		sliceStartPath[numberOfSlices] = numberOfPaths;
+
+		// Each slice has buffers for the values of the (up to three) arguments of a node, re-used for all nodes (allocated on first use)
+		final double[][][] argumentValueBuffersOnSlices = new double[numberOfSlices][3][];
+
+		/*
+		 * Process the nodes in stages: the nodes between two path coupled nodes are processed in parallel on the slices,
+		 * the path coupled nodes are processed on all paths.
+		 */
+		int stageStart = 0;
+		for(int nodeIndex = 0; nodeIndex <= nodes.size(); nodeIndex++) {
+			if(nodeIndex < nodes.size() && !nodes.get(nodeIndex).isPathCoupled()) {
+				continue;
+			}
+
+			if(nodeIndex > stageStart) {
+				final List<OperatorTreeNode> nodesOfStage = nodes.subList(stageStart, nodeIndex);
+				final List<Callable<Void>> workers = new ArrayList<>(numberOfSlices);
+				for(int sliceIndex = 0; sliceIndex < numberOfSlices; sliceIndex++) {
+					final Map<Long, RandomVariable> derivatives = derivativesOnSlices.get(sliceIndex);
+					final int fromPath = sliceStartPath[sliceIndex];
+					final int toPath = sliceStartPath[sliceIndex + 1];
+					final double[][] argumentValueBuffers = argumentValueBuffersOnSlices[sliceIndex];
+					workers.add(new Callable<Void>() {
+						@Override
+						public Void call() {
+							for(final OperatorTreeNode node : nodesOfStage) {
+								node.propagateDerivativesFromResultToArgumentOnPaths(derivatives, fromPath, toPath, argumentValueBuffers);
+								removeDerivativeOfProcessedNode(derivatives, node, independentIDs);
+							}
+							return null;
+						}
+					});
+				}
+
+				try {
+					for(final Future<Void> result : pool.invokeAll(workers)) {
+						result.get();
+					}
+				}
+				catch(final ExecutionException e) {
+					throw new RuntimeException("Reverse sweep failed. See cause of this exception for details.", e.getCause());
+				}
+				catch(final InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new RuntimeException("Reverse sweep interrupted.", e);
+				}
+			}
+
+			if(nodeIndex < nodes.size()) {
+				final OperatorTreeNode node = nodes.get(nodeIndex);
+
+				// Propagate the derivative on all paths
+				final Map<Long, RandomVariable> derivativesOfNode = new HashMap<>();
+				derivativesOfNode.put(node.id, getFromPathSlices(derivativesOnSlices, node.id, sliceStartPath));
+				node.propagateDerivativesFromResultToArgument(derivativesOfNode);
+				derivativesOfNode.remove(node.id);
+
+				// Split the contributions to the arguments into the slices
+				for(int sliceIndex = 0; sliceIndex < numberOfSlices; sliceIndex++) {
+					final Map<Long, RandomVariable> derivatives = derivativesOnSlices.get(sliceIndex);
+					for(final Map.Entry<Long, RandomVariable> contribution : derivativesOfNode.entrySet()) {
+						derivatives.merge(contribution.getKey(), getPathSlice(contribution.getValue(), sliceStartPath[sliceIndex], sliceStartPath[sliceIndex + 1]), RandomVariable::add);
+					}
+					removeDerivativeOfProcessedNode(derivatives, node, independentIDs);
+				}
+			}
+
+			stageStart = nodeIndex + 1;
+		}
+
+		// Re-assemble the derivatives from the slices
+		final Map<Long, RandomVariable> derivatives = new HashMap<>();
+		for(final Long id : derivativesOnSlices.get(0).keySet()) {
+			derivatives.put(id, getFromPathSlices(derivativesOnSlices, id, sliceStartPath));
+		}
+
+		return derivatives;
+	}
+
+	/*
+	 * Removes the derivative of a processed node from the map (if it is not a leaf node and only leaf nodes are retained or if the node is in the set of ids to be removed).
+	 */
+	private void removeDerivativeOfProcessedNode(final Map<Long, RandomVariable> derivatives, final OperatorTreeNode node, final Set<Long> independentIDs) {
+		if(node.arguments != null && node.arguments.size() > 0 && isGradientRetainsLeafNodesOnly()) {
+			derivatives.remove(node.id);
+		}
+
+		if(independentIDs != null && independentIDs.contains(node.id)) {
+			derivatives.remove(node.id);
+		}
+	}
+
+	/**
+	 * Returns a copy of the given random variable restricted to the paths <code>fromPath</code> (inclusive) to <code>toPath</code> (exclusive).
+	 * Deterministic random variables are returned as they are.
+	 *
+	 * @param randomVariable The random variable.
+	 * @param fromPath The first path of the slice.
+	 * @param toPath The end of the slice (exclusive).
+	 * @return The slice of the random variable.
+	 */
+	private static RandomVariable getPathSlice(final RandomVariable randomVariable, final int fromPath, final int toPath) {
+		if(randomVariable == null || randomVariable.isDeterministic()) {
+			return randomVariable;
+		}
+
+		final double[] realizations = new double[toPath - fromPath];
+		for(int path = fromPath; path < toPath; path++) {
+			realizations[path - fromPath] = randomVariable.get(path);
+		}
+		return new RandomVariableFromDoubleArray(randomVariable.getFiltrationTime(), realizations);
+	}
+
+	/**
+	 * Returns the given random variable restricted to the paths <code>fromPath</code> (inclusive) to <code>toPath</code> (exclusive),
+	 * written to the given buffer. Deterministic random variables are returned as they are.
+	 *
+	 * The result is a view on the buffer, i.e., it is only valid until the buffer is written again.
+	 *
+	 * @param randomVariable The random variable.
+	 * @param fromPath The first path of the slice.
+	 * @param toPath The end of the slice (exclusive).
+	 * @param buffers The array holding the buffer at the given index. The buffer is allocated if it is null.
+	 * @param bufferIndex The index of the buffer.
+	 * @return The slice of the random variable.
+	 */
+	private static RandomVariable getPathSlice(final RandomVariable randomVariable, final int fromPath, final int toPath, final double[][] buffers, final int bufferIndex) {
+		if(randomVariable == null || randomVariable.isDeterministic()) {
+			return randomVariable;
+		}
+
+		if(buffers[bufferIndex] == null) {
+			buffers[bufferIndex] = new double[toPath - fromPath];
+		}
+		final double[] realizations = buffers[bufferIndex];
+		for(int path = fromPath; path < toPath; path++) {
+			realizations[path - fromPath] = randomVariable.get(path);
+		}
+		return new RandomVariableFromDoubleArray(randomVariable.getFiltrationTime(), realizations);
+	}
+
+	/**
+	 * Assembles a random variable on all paths from its slices.
+	 *
+	 * @param derivativesOnSlices The maps of the derivatives on the slices.
+	 * @param id The id of the derivative.
+	 * @param sliceStartPath The first path of each slice (followed by the number of paths).
+	 * @return The random variable on all paths.
+	 */
+	private static RandomVariable getFromPathSlices(final List<Map<Long, RandomVariable>> derivativesOnSlices, final Long id, final int[] sliceStartPath) {
+		final RandomVariable valueOnFirstSlice = derivativesOnSlices.get(0).get(id);
+
+		boolean isDeterministic = true;
+		double filtrationTime = Double.NEGATIVE_INFINITY;
+		for(final Map<Long, RandomVariable> derivatives : derivativesOnSlices) {
+			final RandomVariable valueOnSlice = derivatives.get(id);
+			isDeterministic = isDeterministic && valueOnSlice.isDeterministic() && valueOnSlice.doubleValue() == valueOnFirstSlice.doubleValue();
+			filtrationTime = Math.max(filtrationTime, valueOnSlice.getFiltrationTime());
+		}
+		if(isDeterministic) {
+			return valueOnFirstSlice;
+		}
+
+		final double[] realizations = new double[sliceStartPath[sliceStartPath.length - 1]];
+		for(int sliceIndex = 0; sliceIndex < derivativesOnSlices.size(); sliceIndex++) {
+			final RandomVariable valueOnSlice = derivativesOnSlices.get(sliceIndex).get(id);
+			final int fromPath = sliceStartPath[sliceIndex];
+			for(int path = fromPath; path < sliceStartPath[sliceIndex + 1]; path++) {
+				realizations[path] = valueOnSlice.get(path - fromPath);
+			}
+		}
+		return new RandomVariableFromDoubleArray(filtrationTime, realizations);
+	}
+
+	/**
+	 * Approximation of the adjoint of the indicator function via a regression of the density of the indicator (see https://ssrn.com/abstract=3282667 for details).
+	 *
+	 * @param derivative The adjoint of the result of the indicator function.
+	 * @param indicator The argument of the indicator function (the trigger).
+	 * @param diracDeltaApproximationMethod Either REGRESSION_ON_DENSITY or REGRESSION_ON_DISTRIBUITON.
+	 * @param diracDeltaApproximationWidthPerStdDev The width of the localization interval (as multiple of the standard deviation of the indicator).
+	 * @param diracDeltaApproximationDensityRegressionWidthPerStdDev The width of the interval used for the density regression (as multiple of the standard deviation of the indicator).
+	 * @return The adjoint propagated to the trigger.
+	 */
+	static RandomVariable getDiracDeltaRegression(RandomVariable derivative, final RandomVariable indicator, final DiracDeltaApproximationMethod diracDeltaApproximationMethod, final double diracDeltaApproximationWidthPerStdDev, final double diracDeltaApproximationDensityRegressionWidthPerStdDev) {
+		final double epsilon = diracDeltaApproximationWidthPerStdDev*indicator.getStandardDeviation();
+
+		final RandomVariable localizedOne = (indicator.add(epsilon/2).choose(one, zero)).mult(indicator.sub(epsilon/2).choose(zero, one));
+
+		final boolean isDirectDeltaRegressionUseRegressionOnAdjointDerivative = false;	// currently disabled, was used in experiments
+		if(isDirectDeltaRegressionUseRegressionOnAdjointDerivative) {
+			final RandomVariable localizedValue = indicator.mult(localizedOne);
+			final RandomVariable[] regressionBasisFunctions = new RandomVariable[] {
+					localizedOne,
+					localizedValue,
+					localizedValue.squared()
+			};
+			derivative = localizedOne.mult((new LinearRegression(regressionBasisFunctions)).getRegressionCoefficients(derivative)[0]).div(localizedOne.getAverage());
+		}
+		else {
+			derivative = derivative.mult(localizedOne).div(localizedOne.getAverage());
+		}
+
+		return derivative.mult(getDensityRegression(indicator, diracDeltaApproximationMethod, diracDeltaApproximationDensityRegressionWidthPerStdDev));
+
+	}
+
+	private static double getDensityRegression(final RandomVariable indicator, final DiracDeltaApproximationMethod diracDeltaApproximationMethod, final double diracDeltaApproximationDensityRegressionWidthPerStdDev) {
+
+		/*
+		 * Density regression
+		 */
+		final double underlyingStdDev = indicator.getStandardDeviation();
+		final int numberOfSamplePointsHalf = 50;			// @TODO numberOfSamplePoints should become a parameter.
+		final double sampleIntervalWidthHalf = diracDeltaApproximationDensityRegressionWidthPerStdDev/2 * underlyingStdDev / numberOfSamplePointsHalf;
+		final double[] samplePointX = new double[numberOfSamplePointsHalf*2];
+		final double[] samplePointY = new double[numberOfSamplePointsHalf*2];
+		double sampleInterval = sampleIntervalWidthHalf;
+		final RandomVariable indicatorPositiveValues = indicator.choose(new Scalar(1.0), new Scalar(0.0));
+		final RandomVariable indicatorNegativeValues = indicator.choose(new Scalar(0.0), new Scalar(1.0));
+
+		switch(diracDeltaApproximationMethod) {
+		case REGRESSION_ON_DENSITY:
+		{
+			for(int i=0; i<numberOfSamplePointsHalf*2; i+=2) {
+				sampleInterval += sampleIntervalWidthHalf;
+
+				final RandomVariable indicatorOnNegValues = indicator.add(sampleInterval).choose(new Scalar(1.0), new Scalar(0.0)).mult(indicatorNegativeValues);
+				final RandomVariable indicatorOnPosValues = indicator.sub(sampleInterval).choose(new Scalar(0.0), new Scalar(1.0)).mult(indicatorPositiveValues);
+
+				samplePointX[i] = -sampleInterval;
+				samplePointY[i] = indicatorOnNegValues.getAverage() / sampleInterval;
+
+				samplePointX[i+1] = sampleInterval;
+				samplePointY[i+1] = indicatorOnPosValues.getAverage() / sampleInterval;
+			}
+
+			final RandomVariable densityX = new RandomVariableFromDoubleArray(0.0, samplePointX);
+			final RandomVariable densityValues = new RandomVariableFromDoubleArray(0.0, samplePointY);
+
+			//				final double[] densityRegressionCoeff = new LinearRegression(new RandomVariable[] { densityX.mult(0.0).add(1.0), densityX }).getRegressionCoefficients(densityValues);
+			final double[] densityRegressionCoeff = new LinearRegression(new RandomVariable[] { densityX.mult(0.0).add(1.0), densityX, densityX.squared() }).getRegressionCoefficients(densityValues);
+			final double density = densityRegressionCoeff[0];
+
+			return density;
+		}
+		case REGRESSION_ON_DISTRIBUITON:
+		{
+			for(int i=0; i<numberOfSamplePointsHalf*2; i+=2) {
+				sampleInterval += sampleIntervalWidthHalf;
+
+				final RandomVariable indicatorOnNegValues = indicator.add(sampleInterval).choose(new Scalar(1.0), new Scalar(0.0)).mult(indicatorNegativeValues);
+				final RandomVariable indicatorOnPosValues = indicator.sub(sampleInterval).choose(new Scalar(0.0), new Scalar(1.0)).mult(indicatorPositiveValues);
+
+				samplePointX[i] = -sampleInterval;
+				samplePointY[i] = -indicatorOnNegValues.getAverage();
+
+				samplePointX[i+1] = sampleInterval;
+				samplePointY[i+1] = indicatorOnPosValues.getAverage();
+			}
+
+			final RandomVariable densityX = new RandomVariableFromDoubleArray(0.0, samplePointX);
+			final RandomVariable densityValues = new RandomVariableFromDoubleArray(0.0, samplePointY);
+			//				final double[] densityRegressionCoeff = new LinearRegression(new RandomVariable[] { densityX, densityX.squared() }).getRegressionCoefficients(densityValues);
+			final double[] densityRegressionCoeff = new LinearRegression(new RandomVariable[] { densityX, densityX.squared(), densityX.pow(3) }).getRegressionCoefficients(densityValues);
+			//				final double[] densityRegressionCoeff = new LinearRegression(new RandomVariable[] { densityX, new Scalar(1.0) }).getRegressionCoefficients(densityValues);
+			//				final double[] densityRegressionCoeff = new LinearRegression(new RandomVariable[] { densityX }).getRegressionCoefficients(densityValues);
+			//				final double[] densityRegressionCoeff = new LinearRegression(new RandomVariable[] { densityX, new Scalar(1.0), densityX.squared(), densityX.pow(3) }).getRegressionCoefficients(densityValues);
+			final double density = densityRegressionCoeff[0];
+
+			return density;
+		}
+		default:
+			throw new UnsupportedOperationException("Density regression method " + diracDeltaApproximationMethod.name() + " not supported.");
+		}
+	}
+
 	private boolean isGradientRetainsLeafNodesOnly() {
 		return getFactory() != null && getFactory().isGradientRetainsLeafNodesOnly();
 	}
@@ -815,6 +1158,11 @@ public class RandomVariableDifferentiableAAD implements RandomVariableDifferenti
 		return getValues().getQuantile(quantile);
 	}
 
+	@Override
+	public double[] getQuantiles(final double[] quantiles) {
+		return getValues().getQuantiles(quantiles);
+	}
+
 	@Override
 	public double getQuantile(final double quantile, final RandomVariable probabilities) {
 		return getValues().getQuantile(quantile, probabilities);
@@ -1349,6 +1697,6 @@ public class RandomVariableDifferentiableAAD implements RandomVariableDifferenti
 
 	@Override
 	public RandomVariableDifferentiable getCloneIndependent() {
-		return new RandomVariableDifferentiableAAD(this.getValues());
+		return new RandomVariableDifferentiableAAD(this.getValues(), getFactory());
 	}
 }
@@ -0,0 +1,1133 @@
+package net.finmath.montecarlo.automaticdifferentiation.backward;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.IntToDoubleFunction;
+import java.util.stream.DoubleStream;
+
+import net.finmath.functions.DoubleTernaryOperator;
+import net.finmath.montecarlo.automaticdifferentiation.RandomVariableDifferentiable;
+import net.finmath.montecarlo.automaticdifferentiation.backward.RandomVariableDifferentiableAADFactory.DiracDeltaApproximationMethod;
+import net.finmath.stochastic.ConditionalExpectationEstimator;
+import net.finmath.stochastic.RandomVariable;
+import net.finmath.stochastic.Scalar;
+
+/**
+ * Implementation of <code>RandomVariableDifferentiable</code> using
+ * the backward algorithmic differentiation (adjoint algorithmic differentiation, AAD),
+ * where the operations are recorded on a linear <i>tape</i>.
+ *
+ * The class implements the same (stochastic) differentiation rules as {@link RandomVariableDifferentiableAAD}
+ * (including the special treatment of the operators <code>average</code>, <code>getConditionalExpectation</code>
+ * and <code>choose</code>, see <a href="https://ssrn.com/abstract=2995695">ssrn.com/abstract=2995695</a>),
+ * but instead of a graph of operator tree nodes it stores each operation as an entry of a tape, consisting of
+ * a primitive operator code, the tape indices of (at most three) arguments and the argument values required to evaluate the partial derivatives.
+ *
+ * Since an operation is recorded after its arguments, the order of the tape is a topological order of the operator tree.
+ * The backward sweep of {@link #getGradient(Set)} is a single loop over the tape indices in descending order,
+ * storing the adjoints in an array indexed by the tape index. It does not require any hashing or sorting of nodes.
+ *
+ * The tape is provided by the {@link RandomVariableDifferentiableAADTapeFactory}. All operations on random variables of the same factory are
+ * recorded on the same tape (recording is thread safe). Operations combining random variables recorded on different tapes
+ * are not supported and throw an {@link IllegalArgumentException}. The tape (and all values retained by it) is held as long as a
+ * random variable recorded on it is referenced, see {@link RandomVariableDifferentiableAADTapeFactory#resetTape()}.
+ * To bound the size of a long-lived tape (e.g., one recording model parameters used for many valuations), the operations of a valuation
+ * can be recorded within a {@link RandomVariableDifferentiableAADTapeFactory.Scope}: closing the scope removes the entries recorded
+ * within the scope from the tape. Random variables recorded within a closed scope must not be used, this is checked and results in an {@link IllegalStateException}.
+ *
+ * The backward sweep only processes (and only allocates adjoints for) the range of tape indices which may contribute to the random variable,
+ * i.e., the indices above the lowest tape index reachable from it.
+ *
+ * The value of {@link #getID()} consists of a number identifying the tape (upper 32 bits) and the index on the tape (lower 32 bits).
+ *
+ * @version 1.1
+ */
+public class RandomVariableDifferentiableAADTape implements RandomVariableDifferentiable {
+
+	private static final long serialVersionUID = -2936412186374212765L;
+
+	private static final int typePriorityDefault = 3;
+
+	private static final RandomVariable zero = new Scalar(0.0);
+	private static final RandomVariable one = new Scalar(1.0);
+	private static final RandomVariable minusOne = new Scalar(-1.0);
+
+	/*
+	 * Operator codes. An entry with operator code LEAF does not have arguments.
+	 */
+	private static final byte LEAF			= 0;
+	private static final byte ADD			= 1;
+	private static final byte SUB			= 2;
+	private static final byte MULT			= 3;
+	private static final byte DIV			= 4;
+	private static final byte SQUARED		= 5;
+	private static final byte SQRT			= 6;
+	private static final byte LOG			= 7;
+	private static final byte SIN			= 8;
+	private static final byte COS			= 9;
+	private static final byte EXP			= 10;
+	private static final byte INVERT		= 11;
+	private static final byte CAP			= 12;
+	private static final byte FLOOR			= 13;
+	private static final byte ABS			= 14;
+	private static final byte ADDPRODUCT	= 15;
+	private static final byte ADDRATIO		= 16;
+	private static final byte SUBRATIO		= 17;
+	private static final byte CHOOSE		= 18;
+	private static final byte DISCOUNT		= 19;
+	private static final byte ACCRUE		= 20;
+	private static final byte POW			= 21;
+	private static final byte AVERAGE		= 22;
+	private static final byte CONDITIONAL_EXPECTATION = 23;
+
+	private static final int NUMBER_OF_ARGUMENTS = 3;
+
+	/**
+	 * The tape. Entry <i>m</i> of the tape stores the operator code (the function f_m), the tape indices
+	 * of the arguments (-1 for an argument which is not differentiable), the argument values required
+	 * to evaluate the partial derivatives of f_m and the lowest tape index reachable from m.
+	 *
+	 * The tape can be rewound to a previous size (see {@link #rewind(int)}). Each rewind starts a new <i>generation</i>
+	 * and each entry stores the generation in which it was recorded, such that random variables referring to removed entries can be detected.
+	 */
+	static class Tape implements Serializable {
+
+		private static final long serialVersionUID = 1585279453451362458L;
+
+		private static final AtomicInteger numberOfNextTape = new AtomicInteger(0);
+
+		private static final int INITIAL_CAPACITY = 1024;
+
+		/**
+		 * The storage of the tape entries. Upon growth the arrays are copied to a new instance,
+		 * hence entries of an instance obtained via {@link Tape#getEntries()} are not modified by subsequent recordings.
+		 */
+		private static class Entries implements Serializable {
+
+			private static final long serialVersionUID = 6426347718385815563L;
+
+			private final byte[]							operators;
+			private final int[]								arguments;
+			private final RandomVariable[]					argumentValues;
+			private final ConditionalExpectationEstimator[]	estimators;
+			private final int[]								lowestReachableIndices;
+			private final int[]								generations;
+
+			Entries(final int capacity) {
+				operators		= new byte[capacity];
+				arguments		= new int[capacity * NUMBER_OF_ARGUMENTS];
+				argumentValues	= new RandomVariable[capacity * NUMBER_OF_ARGUMENTS];
+				estimators		= new ConditionalExpectationEstimator[capacity];
+				lowestReachableIndices	= new int[capacity];
+				generations		= new int[capacity];
+			}
+
+			Entries(final Entries entries, final int capacity) {
+				operators		= Arrays.copyOf(entries.operators, capacity);
+				arguments		= Arrays.copyOf(entries.arguments, capacity * NUMBER_OF_ARGUMENTS);
+				argumentValues	= Arrays.copyOf(entries.argumentValues, capacity * NUMBER_OF_ARGUMENTS);
+				estimators		= Arrays.copyOf(entries.estimators, capacity);
+				lowestReachableIndices	= Arrays.copyOf(entries.lowestReachableIndices, capacity);
+				generations		= Arrays.copyOf(entries.generations, capacity);
+			}
+
+			int getCapacity() {
+				return operators.length;
+			}
+		}
+
+		private transient int number;
+
+		private Entries entries;
+		private int size;
+		private int generation;
+
+		Tape() {
+			number = numberOfNextTape.getAndIncrement();
+			entries = new Entries(INITIAL_CAPACITY);
+			size = 0;
+			generation = 0;
+		}
+
+		/**
+		 * Record an entry.
+		 *
+		 * @param operator The operator code.
+		 * @param argumentIndices The tape indices of the arguments (-1 for an argument which is not differentiable), or null.
+		 * @param argumentGenerations The generations of the arguments, or null.
+		 * @param argumentValues The argument values, or null.
+		 * @param estimator The conditional expectation estimator (only for CONDITIONAL_EXPECTATION), otherwise null.
+		 * @return The generation (upper 32 bits) and the tape index (lower 32 bits) of the entry.
+		 */
+		synchronized long record(final byte operator, final int[] argumentIndices, final int[] argumentGenerations, final RandomVariable[] argumentValues, final ConditionalExpectationEstimator estimator) {
+			if(size == entries.getCapacity()) {
+				if(size > Integer.MAX_VALUE / NUMBER_OF_ARGUMENTS / 2) {
+					throw new IllegalStateException("Tape capacity exceeded.");
+				}
+				entries = new Entries(entries, 2 * size);
+			}
+
+			final int index = size;
+			int lowestReachableIndex = index;
+			entries.operators[index] = operator;
+			for(int argumentIndex = 0; argumentIndex < NUMBER_OF_ARGUMENTS; argumentIndex++) {
+				final boolean hasArgument = argumentIndices != null && argumentIndex < argumentIndices.length;
+				if(hasArgument && argumentIndices[argumentIndex] >= 0) {
+					checkIsRecorded(argumentIndices[argumentIndex], argumentGenerations[argumentIndex]);
+					lowestReachableIndex = Math.min(lowestReachableIndex, entries.lowestReachableIndices[argumentIndices[argumentIndex]]);
+				}
+				entries.arguments[index * NUMBER_OF_ARGUMENTS + argumentIndex] = hasArgument ? argumentIndices[argumentIndex] : -1;
+				entries.argumentValues[index * NUMBER_OF_ARGUMENTS + argumentIndex] = hasArgument ? argumentValues[argumentIndex] : null;
+			}
+			entries.estimators[index] = estimator;
+			entries.lowestReachableIndices[index] = lowestReachableIndex;
+			entries.generations[index] = generation;
+			size++;
+
+			return ((long)generation << 32) | index;
+		}
+
+		/**
+		 * Remove all entries with index greater or equal to the given size from the tape (releasing their argument values)
+		 * and start a new generation.
+		 *
+		 * @param newSize The new size of the tape. If the tape is not larger than the given size, this method does nothing.
+		 */
+		synchronized void rewind(final int newSize) {
+			if(newSize >= size) {
+				return;
+			}
+
+			Arrays.fill(entries.argumentValues, newSize * NUMBER_OF_ARGUMENTS, size * NUMBER_OF_ARGUMENTS, null);
+			Arrays.fill(entries.estimators, newSize, size, null);
+			size = newSize;
+			generation++;
+		}
+
+		/**
+		 * Checks if the entry with the given index and generation is (still) recorded on the tape.
+		 *
+		 * @param index The tape index.
+		 * @param generationOfEntry The generation in which the entry has been recorded.
+		 * @throws IllegalStateException Thrown if the entry has been removed from the tape.
+		 */
+		synchronized void checkIsRecorded(final int index, final int generationOfEntry) {
+			if(index >= size || entries.generations[index] != generationOfEntry) {
+				throw new IllegalStateException("Random variable has been recorded in a scope of the tape which has been closed.");
+			}
+		}
+
+		synchronized Entries getEntries() {
+			return entries;
+		}
+
+		synchronized int size() {
+			return size;
+		}
+
+		int getNumber() {
+			return number;
+		}
+
+		long getID(final int index) {
+			return ((long)number << 32) | index;
+		}
+
+		boolean isOnTape(final long id) {
+			return (id >>> 32) == number;
+		}
+
+		private void readObject(final java.io.ObjectInputStream stream) throws IOException, ClassNotFoundException {
+			stream.defaultReadObject();
+			// Reassign number to ensure unique IDs
+			number = numberOfNextTape.getAndIncrement();
+		}
+	}
+
+	/*
+	 * Data model. We maintain the underlying values and the position on the tape.
+	 */
+	private RandomVariable values;
+	private final Tape tape;
+	private final int index;
+	private final int generation;
+	private final RandomVariableDifferentiableAADTapeFactory factory;
+
+	/**
+	 * Create a random variable which is a leaf node (an independent) recorded on the current tape of the given factory.
+	 *
+	 * @param values The values of the random variable.
+	 * @param factory The factory providing the tape and the properties of the differentiation.
+	 */
+	public RandomVariableDifferentiableAADTape(final RandomVariable values, final RandomVariableDifferentiableAADTapeFactory factory) {
+		this(values, factory.getTape(), factory);
+	}
+
+	private RandomVariableDifferentiableAADTape(final RandomVariable values, final Tape tape, final RandomVariableDifferentiableAADTapeFactory factory) {
+		this(values, tape, tape.record(LEAF, null, null, null, null), factory);
+	}
+
+	private RandomVariableDifferentiableAADTape(final RandomVariable values, final Tape tape, final long generationAndIndex, final RandomVariableDifferentiableAADTapeFactory factory) {
+		super();
+		this.values = values;
+		this.tape = tape;
+		this.index = (int)generationAndIndex;
+		this.generation = (int)(generationAndIndex >>> 32);
+		this.factory = factory;
+	}
+
+	/**
+	 * Record an operation on the tape and return the corresponding random variable.
+	 *
+	 * @param result The value of the operation.
+	 * @param operator The operator code.
+	 * @param estimator The conditional expectation estimator (only for CONDITIONAL_EXPECTATION), otherwise null.
+	 * @param arguments The arguments of the operation. Arguments which are not of this type are treated as constants.
+	 * @return The result of the operation.
+	 */
+	private RandomVariableDifferentiableAADTape record(final RandomVariable result, final byte operator, final ConditionalExpectationEstimator estimator, final RandomVariable... arguments) {
+		final int[] argumentIndices = new int[arguments.length];
+		final int[] argumentGenerations = new int[arguments.length];
+		final RandomVariable[] argumentValues = new RandomVariable[arguments.length];
+		boolean isDifferentiable = false;
+		for(int argumentIndex = 0; argumentIndex < arguments.length; argumentIndex++) {
+			final RandomVariable argument = arguments[argumentIndex];
+			if(argument instanceof RandomVariableDifferentiableAADTape) {
+				final RandomVariableDifferentiableAADTape argumentOnTape = (RandomVariableDifferentiableAADTape)argument;
+				if(argumentOnTape.tape != tape) {
+					throw new IllegalArgumentException("Operation on random variables recorded on different tapes.");
+				}
+				argumentIndices[argumentIndex] = argumentOnTape.index;
+				argumentGenerations[argumentIndex] = argumentOnTape.generation;
+				argumentValues[argumentIndex] = argumentOnTape.getValues();
+				isDifferentiable = true;
+			}
+			else {
+				argumentIndices[argumentIndex] = -1;
+				argumentValues[argumentIndex] = argument;
+			}
+		}
+
+		if(isDifferentiable) {
+			releaseArgumentValuesNotRequired(operator, argumentIndices, argumentValues);
+		}
+		else {
+			// The result does not depend on a differentiable: no need to retain any values
+			Arrays.fill(argumentValues, null);
+		}
+
+		return new RandomVariableDifferentiableAADTape(result, tape, tape.record(operator, argumentIndices, argumentGenerations, argumentValues, estimator), factory);
+	}
+
+	/*
+	 * Remove the references to argument values which are not required to evaluate the partial derivatives
+	 * with respect to the differentiable arguments (this reduces the memory requirements of the tape).
+	 */
+	private static void releaseArgumentValuesNotRequired(final byte operator, final int[] argumentIndices, final RandomVariable[] argumentValues) {
+		final boolean isDifferentiable0 = argumentIndices.length > 0 && argumentIndices[0] >= 0;
+		final boolean isDifferentiable1 = argumentIndices.length > 1 && argumentIndices[1] >= 0;
+		final boolean isDifferentiable2 = argumentIndices.length > 2 && argumentIndices[2] >= 0;
+
+		switch(operator) {
+		case ADD:
+		case SUB:
+		case AVERAGE:
+		case CONDITIONAL_EXPECTATION:
+			Arrays.fill(argumentValues, null);
+			break;
+		case MULT:
+			if(!isDifferentiable0) {
+				argumentValues[1] = null;
+			}
+			if(!isDifferentiable1) {
+				argumentValues[0] = null;
+			}
+			break;
+		case DIV:
+			if(!isDifferentiable1) {
+				argumentValues[0] = null;
+			}
+			break;
+		case ADDPRODUCT:
+			argumentValues[0] = null;
+			if(!isDifferentiable1) {
+				argumentValues[2] = null;
+			}
+			if(!isDifferentiable2) {
+				argumentValues[1] = null;
+			}
+			break;
+		case ACCRUE:
+			if(!isDifferentiable1 && !isDifferentiable2) {
+				argumentValues[0] = null;
+			}
+			if(!isDifferentiable0 && !isDifferentiable2) {
+				argumentValues[1] = null;
+			}
+			if(!isDifferentiable0 && !isDifferentiable1) {
+				argumentValues[2] = null;
+			}
+			break;
+		case CHOOSE:
+			if(!isDifferentiable0) {
+				argumentValues[1] = null;
+				argumentValues[2] = null;
+			}
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Returns the underlying values.
+	 *
+	 * @return The underling values.
+	 */
+	@Override
+	public RandomVariable getValues(){
+		return values;
+	}
+
+	public RandomVariableDifferentiableAADTapeFactory getFactory() {
+		return factory;
+	}
+
+	/**
+	 * Returns the index of this random variable on its tape.
+	 *
+	 * @return The index of this random variable on its tape.
+	 */
+	public int getTapeIndex() {
+		return index;
+	}
+
+	@Override
+	public Long getID(){
+		return tape.getID(index);
+	}
+
+	/**
+	 * Returns the gradient of this random variable with respect to all its leaf nodes
+	 * (or with respect to the given IDs, if <code>independentIDs</code> is not null).
+	 * The method calculated the map \( v \mapsto \frac{d u}{d v} \) where \( u \) denotes <code>this</code>.
+	 *
+	 * Performs a backward automatic differentiation by a single sweep over the tape, starting at the index of this random variable
+	 * and stopping at the lowest index reachable from it.
+	 * If <code>independentIDs</code> is given, the sweep stops at the smallest index of the given IDs.
+	 *
+	 * @return The gradient map.
+	 */
+	@Override
+	public Map<Long, RandomVariable> getGradient(final Set<Long> independentIDs) {
+		tape.checkIsRecorded(index, generation);
+		final Tape.Entries entries = tape.getEntries();
+
+		// The lowest index the sweep has to process. If independents are given, determine the tape entries requested.
+		final int lowestReachableIndex = entries.lowestReachableIndices[index];
+		boolean[] isRequested = null;
+		int lowestIndex = lowestReachableIndex;
+		if(independentIDs != null) {
+			isRequested = new boolean[index - lowestReachableIndex + 1];
+			lowestIndex = index+1;
+			for(final Long id : independentIDs) {
+				if(id != null && tape.isOnTape(id) && (int)id.longValue() >= lowestReachableIndex && (int)id.longValue() <= index) {
+					isRequested[(int)id.longValue() - lowestReachableIndex] = true;
+					lowestIndex = Math.min(lowestIndex, (int)id.longValue());
+				}
+			}
+		}
+
+		if(lowestIndex > index) {
+			// None of the requested independents is reachable
+			return new HashMap<>();
+		}
+
+		final boolean isGradientRetainsLeafNodesOnly = getFactory().isGradientRetainsLeafNodesOnly();
+
+		// The adjoints, indexed by the tape index minus lowestIndex.
+		final RandomVariable[] adjoints = new RandomVariable[index - lowestIndex + 1];
+		adjoints[index - lowestIndex] = one;
+
+		final Map<Long, RandomVariable> gradient = new HashMap<>();
+		for(int entryIndex = index; entryIndex >= lowestIndex; entryIndex--) {
+			final RandomVariable adjoint = adjoints[entryIndex - lowestIndex];
+			if(adjoint == null) {
+				// Entry does not contribute to this random variable
+				continue;
+			}
+			adjoints[entryIndex - lowestIndex] = null;
+
+			final byte operator = entries.operators[entryIndex];
+			if(operator != LEAF) {
+				propagateDerivativesFromResultToArgument(entries, entryIndex, adjoint, adjoints, lowestIndex);
+			}
+
+			final boolean isResult = isRequested != null ? isRequested[entryIndex - lowestReachableIndex] : (operator == LEAF || !isGradientRetainsLeafNodesOnly);
+			if(isResult) {
+				gradient.put(tape.getID(entryIndex), adjoint);
+			}
+		}
+
+		return gradient;
+	}
+
+	/*
+	 * This implements the update rule D_i = D_i + Dm * d fm/dxi where i are the arguments of the entry m.
+	 * The adjoint D_i is stored at adjoints[i - lowestIndex]. Arguments below lowestIndex are not required and skipped.
+	 */
+	private void propagateDerivativesFromResultToArgument(final Tape.Entries entries, final int entryIndex, final RandomVariable adjoint, final RandomVariable[] adjoints, final int lowestIndex) {
+		final byte operator = entries.operators[entryIndex];
+		final int offset = entryIndex * NUMBER_OF_ARGUMENTS;
+
+		final RandomVariable X = entries.argumentValues[offset];
+		final RandomVariable Y = entries.argumentValues[offset+1];
+		final RandomVariable Z = entries.argumentValues[offset+2];
+
+		for(int argumentIndex = 0; argumentIndex < NUMBER_OF_ARGUMENTS; argumentIndex++) {
+			final int argument = entries.arguments[offset + argumentIndex];
+			if(argument < lowestIndex) {
+				continue;
+			}
+
+			RandomVariable derivative = adjoint;
+
+			/*
+			 * Special treatment of some stochastic operators
+			 */
+			switch(operator) {
+			case AVERAGE:
+				derivative = derivative.average();
+				break;
+			case CONDITIONAL_EXPECTATION:
+				derivative = entries.estimators[entryIndex].getConditionalExpectation(derivative);
+				break;
+			case CHOOSE:
+				if(argumentIndex == 0 && (getFactory().getDiracDeltaApproximationMethod() == DiracDeltaApproximationMethod.REGRESSION_ON_DENSITY || getFactory().getDiracDeltaApproximationMethod() == DiracDeltaApproximationMethod.REGRESSION_ON_DISTRIBUITON)) {
+					derivative = RandomVariableDifferentiableAAD.getDiracDeltaRegression(derivative, X,
+							getFactory().getDiracDeltaApproximationMethod(),
+							getFactory().getDiracDeltaApproximationWidthPerStdDev(),
+							getFactory().getDiracDeltaApproximationDensityRegressionWidthPerStdDev());
+				}
+				break;
+			default:
+				break;
+			}
+
+			final RandomVariable partialDerivative = getPartialDerivative(operator, argumentIndex, X, Y, Z);
+
+			if(adjoints[argument - lowestIndex] == null) {
+				adjoints[argument - lowestIndex] = derivative.mult(partialDerivative);
+			}
+			else {
+				adjoints[argument - lowestIndex] = adjoints[argument - lowestIndex].addProduct(partialDerivative, derivative);
+			}
+		}
+	}
+
+	/**
+	 * Calculate the partial derivative of an operator with respect to an argument.
+	 *
+	 * @param operator The operator code.
+	 * @param differentialIndex The index of the argument in the functions argument list.
+	 * @param X The value of the first argument (if retained).
+	 * @param Y The value of the second argument (if retained).
+	 * @param Z The value of the third argument (if retained).
+	 * @return The value of the partial derivative.
+	 */
+	private RandomVariable getPartialDerivative(final byte operator, final int differentialIndex, final RandomVariable X, final RandomVariable Y, final RandomVariable Z) {
+
+		RandomVariable derivative;
+
+		switch(operator) {
+		/* functions with one argument  */
+		case SQUARED:
+			derivative = X.mult(2.0);
+			break;
+		case SQRT:
+			derivative = X.sqrt().invert().mult(0.5);
+			break;
+		case EXP:
+			derivative = X.exp();
+			break;
+		case LOG:
+			derivative = X.invert();
+			break;
+		case SIN:
+			derivative = X.cos();
+			break;
+		case COS:
+			derivative = X.sin().mult(-1.0);
+			break;
+		case INVERT:
+			derivative = X.invert().squared().mult(-1);
+			break;
+		case AVERAGE:
+		case CONDITIONAL_EXPECTATION:
+			derivative = one;
+			break;
+		case ABS:
+			derivative = X.choose(one, minusOne);
+			break;
+		case ADD:
+			derivative = one;
+			break;
+		case SUB:
+			derivative = differentialIndex == 0 ? one : minusOne;
+			break;
+		case MULT:
+			derivative = differentialIndex == 0 ? Y : X;
+			break;
+		case DIV:
+			derivative = differentialIndex == 0 ? Y.invert() : X.div(Y.squared()).mult(-1);
+			break;
+		case CAP:
+			if(differentialIndex == 0) {
+				derivative = X.sub(Y).choose(zero, one);
+			}
+			else {
+				derivative = X.sub(Y).choose(one, zero);
+			}
+			break;
+		case FLOOR:
+			if(differentialIndex == 0) {
+				derivative = X.sub(Y).choose(one, zero);
+			}
+			else {
+				derivative = X.sub(Y).choose(zero, one);
+			}
+			break;
+		case POW:
+			// second argument will always be deterministic and constant (currently pow does not exist with a random variable exponent)
+			derivative = (differentialIndex == 0) ? X.pow(Y.doubleValue() - 1.0).mult(Y) : zero;
+			break;
+		case ADDPRODUCT:
+			if(differentialIndex == 0) {
+				derivative = one;
+			} else if(differentialIndex == 1) {
+				derivative = Z;
+			} else {
+				derivative = Y;
+			}
+			break;
+		case ADDRATIO:
+			if(differentialIndex == 0) {
+				derivative = one;
+			} else if(differentialIndex == 1) {
+				derivative = Z.invert();
+			} else {
+				derivative = Y.div(Z.squared()).mult(-1.0);
+			}
+			break;
+		case SUBRATIO:
+			if(differentialIndex == 0) {
+				derivative = one;
+			} else if(differentialIndex == 1) {
+				derivative = Z.invert().mult(-1.0);
+			} else {
+				derivative = Y.div(Z.squared());
+			}
+			break;
+		case ACCRUE:
+			if(differentialIndex == 0) {
+				derivative = Y.mult(Z).add(1.0);
+			} else if(differentialIndex == 1) {
+				derivative = X.mult(Z);
+			} else {
+				derivative = X.mult(Y);
+			}
+			break;
+		case DISCOUNT:
+			if(differentialIndex == 0) {
+				derivative = Y.mult(Z).add(1.0).invert();
+			} else if(differentialIndex == 1) {
+				derivative = X.mult(Z).div(Y.mult(Z).add(1.0).squared()).mult(-1.0);
+			} else {
+				derivative = X.mult(Y).div(Y.mult(Z).add(1.0).squared()).mult(-1.0);
+			}
+			break;
+		case CHOOSE:
+			if(differentialIndex == 0) {
+				switch(getFactory().getDiracDeltaApproximationMethod()) {
+				case ONE:
+				{
+					derivative = Y.sub(Z);
+					break;
+				}
+				case ZERO:
+				{
+					derivative = zero;
+					break;
+				}
+				case DISCRETE_DELTA:
+				{
+					/*
+					 * Approximation via local finite difference
+					 * (see https://ssrn.com/abstract=2995695 for details).
+					 */
+					final double epsilon = getFactory().getDiracDeltaApproximationWidthPerStdDev()*X.getStandardDeviation();
+					if(Double.isInfinite(epsilon)) {
+						derivative = Y.sub(Z);
+					}
+					else if(epsilon > 0) {
+						derivative = Y.sub(Z);
+						derivative = derivative.mult(X.add(epsilon/2).choose(one, zero));
+						derivative = derivative.mult(X.sub(epsilon/2).choose(zero, one));
+						derivative = derivative.div(epsilon);
+					}
+					else {
+						derivative = zero;
+					}
+					break;
+				}
+				case REGRESSION_ON_DENSITY:
+				case REGRESSION_ON_DISTRIBUITON:
+				{
+					derivative = Y.sub(Z);
+					break;
+				}
+				default:
+				{
+					throw new UnsupportedOperationException("Diract Delta Approximation Method " + getFactory().getDiracDeltaApproximationMethod().name() + " not supported.");
+				}
+				}
+			} else if(differentialIndex == 1) {
+				derivative = X.choose(one, zero);
+			} else {
+				derivative = X.choose(zero, one);
+			}
+			break;
+		default:
+			throw new IllegalArgumentException("Operation " + operator + " not supported in differentiation.");
+		}
+
+		return derivative;
+	}
+
+	@Override
+	public Map<Long, RandomVariable> getTangents(final Set<Long> dependentIDs) {
+		throw new UnsupportedOperationException();
+	}
+
+	/*
+	 * The following methods are end points since they return <code>double</double> values.
+	 * You cannot differentiate these results.
+	 */
+
+	@Override
+	public boolean equals(final RandomVariable randomVariable) {
+		return getValues().equals(randomVariable);
+	}
+
+	@Override
+	public double getFiltrationTime() {
+		return getValues().getFiltrationTime();
+	}
+
+	@Override
+	public int getTypePriority() {
+		return typePriorityDefault;
+	}
+
+	@Override
+	public double get(final int pathOrState) {
+		return getValues().get(pathOrState);
+	}
+
+	@Override
+	public int size() {
+		return getValues().size();
+	}
+
+	@Override
+	public boolean isDeterministic() {
+		return getValues().isDeterministic();
+	}
+
+	@Override
+	public double[] getRealizations() {
+		return getValues().getRealizations();
+	}
+
+	@Override
+	public Double doubleValue() {
+		return getValues().doubleValue();
+	}
+
+	@Override
+	public double getMin() {
+		return getValues().getMin();
+	}
+
+	@Override
+	public double getMax() {
+		return getValues().getMax();
+	}
+
+	@Override
+	public double getAverage() {
+		return getValues().getAverage();
+	}
+
+	@Override
+	public double getAverage(final RandomVariable probabilities) {
+		return getValues().getAverage(probabilities);
+	}
+
+	@Override
+	public double getVariance() {
+		return getValues().getVariance();
+	}
+
+	@Override
+	public double getVariance(final RandomVariable probabilities) {
+		return getValues().getVariance(probabilities);
+	}
+
+	@Override
+	public double getSampleVariance() {
+		return getValues().getSampleVariance();
+	}
+
+	@Override
+	public double getStandardDeviation() {
+		return getValues().getStandardDeviation();
+	}
+
+	@Override
+	public double getStandardDeviation(final RandomVariable probabilities) {
+		return getValues().getStandardDeviation(probabilities);
+	}
+
+	@Override
+	public double getStandardError() {
+		return getValues().getStandardError();
+	}
+
+	@Override
+	public double getStandardError(final RandomVariable probabilities) {
+		return getValues().getStandardError(probabilities);
+	}
+
+	@Override
+	public double getQuantile(final double quantile) {
+		return getValues().getQuantile(quantile);
+	}
+
+	@Override
+	public double getQuantile(final double quantile, final RandomVariable probabilities) {
+		return getValues().getQuantile(quantile, probabilities);
+	}
+
+	@Override
+	public double getQuantileExpectation(final double quantileStart, final double quantileEnd) {
+		return getValues().getQuantileExpectation(quantileStart, quantileEnd);
+	}
+
+	@Override
+	public double[] getHistogram(final double[] intervalPoints) {
+		return getValues().getHistogram(intervalPoints);
+	}
+
+	@Override
+	public double[][] getHistogram(final int numberOfPoints, final double standardDeviations) {
+		return getValues().getHistogram(numberOfPoints, standardDeviations);
+	}
+
+	/*
+	 * The following methods are differentiable operations.
+	 */
+
+	@Override
+	public RandomVariable cache() {
+		values = values.cache();
+		return this;
+	}
+
+	@Override
+	public RandomVariable cap(final double cap) {
+		return record(getValues().cap(cap), CAP, null, this, new Scalar(cap));
+	}
+
+	@Override
+	public RandomVariable floor(final double floor) {
+		return record(getValues().floor(floor), FLOOR, null, this, new Scalar(floor));
+	}
+
+	@Override
+	public RandomVariable add(final double value) {
+		return record(getValues().add(value), ADD, null, this, null);
+	}
+
+	@Override
+	public RandomVariable sub(final double value) {
+		return record(getValues().sub(value), SUB, null, this, null);
+	}
+
+	@Override
+	public RandomVariable mult(final double value) {
+		return record(getValues().mult(value), MULT, null, this, new Scalar(value));
+	}
+
+	@Override
+	public RandomVariable div(final double value) {
+		return record(getValues().div(value), DIV, null, this, new Scalar(value));
+	}
+
+	@Override
+	public RandomVariable pow(final double exponent) {
+		return record(getValues().pow(exponent), POW, null, this, new Scalar(exponent));
+	}
+
+	@Override
+	public RandomVariable average() {
+		return record(getValues().average(), AVERAGE, null, this);
+	}
+
+	@Override
+	public RandomVariable getConditionalExpectation(final ConditionalExpectationEstimator estimator) {
+		return record(getValues().getConditionalExpectation(estimator), CONDITIONAL_EXPECTATION, estimator, this);
+	}
+
+	@Override
+	public RandomVariable squared() {
+		return record(getValues().squared(), SQUARED, null, this);
+	}
+
+	@Override
+	public RandomVariable sqrt() {
+		return record(getValues().sqrt(), SQRT, null, this);
+	}
+
+	@Override
+	public RandomVariable exp() {
+		return record(getValues().exp(), EXP, null, this);
+	}
+
+	@Override
+	public RandomVariable log() {
+		return record(getValues().log(), LOG, null, this);
+	}
+
+	@Override
+	public RandomVariable sin() {
+		return record(getValues().sin(), SIN, null, this);
+	}
+
+	@Override
+	public RandomVariable cos() {
+		return record(getValues().cos(), COS, null, this);
+	}
+
+	/*
+	 * Binary operators: checking for return type priority.
+	 */
+
+	@Override
+	public RandomVariable add(final RandomVariable randomVariable) {
+		if(randomVariable.getTypePriority() > this.getTypePriority()) {
+			// Check type priority
+			return randomVariable.add(this);
+		}
+
+		return record(getValues().add(randomVariable.getValues()), ADD, null, this, randomVariable);
+	}
+
+	@Override
+	public RandomVariable sub(final RandomVariable randomVariable) {
+		if(randomVariable.getTypePriority() > this.getTypePriority()) {
+			// Check type priority
+			return randomVariable.bus(this);
+		}
+
+		return record(getValues().sub(randomVariable.getValues()), SUB, null, this, randomVariable);
+	}
+
+	@Override
+	public RandomVariable bus(final RandomVariable randomVariable) {
+		if(randomVariable.getTypePriority() > this.getTypePriority()) {
+			// Check type priority
+			return randomVariable.sub(this);
+		}
+
+		// SUB with swapped arguments
+		return record(getValues().bus(randomVariable.getValues()), SUB, null, randomVariable, this);
+	}
+
+	@Override
+	public RandomVariable mult(final RandomVariable randomVariable) {
+		if(randomVariable.getTypePriority() > this.getTypePriority()) {
+			// Check type priority
+			return randomVariable.mult(this);
+		}
+
+		return record(getValues().mult(randomVariable.getValues()), MULT, null, this, randomVariable);
+	}
+
+	@Override
+	public RandomVariable div(final RandomVariable randomVariable) {
+		if(randomVariable.getTypePriority() > this.getTypePriority()) {
+			// Check type priority
+			return randomVariable.vid(this);
+		}
+
+		return record(getValues().div(randomVariable.getValues()), DIV, null, this, randomVariable);
+	}
+
+	@Override
+	public RandomVariable vid(final RandomVariable randomVariable) {
+		if(randomVariable.getTypePriority() > this.getTypePriority()) {
+			// Check type priority
+			return randomVariable.div(this);
+		}
+
+		// DIV with swapped arguments
+		return record(getValues().vid(randomVariable.getValues()), DIV, null, randomVariable, this);
+	}
+
+	@Override
+	public RandomVariable cap(final RandomVariable randomVariable) {
+		if(randomVariable.getTypePriority() > this.getTypePriority()) {
+			// Check type priority
+			return randomVariable.cap(this);
+		}
+
+		return record(getValues().cap(randomVariable.getValues()), CAP, null, this, randomVariable);
+	}
+
+	@Override
+	public RandomVariable floor(final RandomVariable floor) {
+		if(floor.getTypePriority() > this.getTypePriority()) {
+			// Check type priority
+			return floor.floor(this);
+		}
+
+		return record(getValues().floor(floor.getValues()), FLOOR, null, this, floor);
+	}
+
+	@Override
+	public RandomVariable accrue(final RandomVariable rate, final double periodLength) {
+		if(rate.getTypePriority() > this.getTypePriority()) {
+			// Check type priority
+			return rate.mult(periodLength).add(1.0).mult(this);
+		}
+
+		return record(getValues().accrue(rate.getValues(), periodLength), ACCRUE, null, this, rate, new Scalar(periodLength));
+	}
+
+	@Override
+	public RandomVariable discount(final RandomVariable rate, final double periodLength) {
+		if(rate.getTypePriority() > this.getTypePriority()) {
+			// Check type priority
+			return rate.mult(periodLength).add(1.0).invert().mult(this);
+		}
+
+		return record(getValues().discount(rate.getValues(), periodLength), DISCOUNT, null, this, rate, new Scalar(periodLength));
+	}
+
+	@Override
+	public RandomVariable choose(final RandomVariable valueIfTriggerNonNegative, final RandomVariable valueIfTriggerNegative) {
+		return record(getValues().choose(valueIfTriggerNonNegative.getValues(), valueIfTriggerNegative.getValues()), CHOOSE, null, this, valueIfTriggerNonNegative, valueIfTriggerNegative);
+	}
+
+	@Override
+	public RandomVariable invert() {
+		return record(getValues().invert(), INVERT, null, this);
+	}
+
+	@Override
+	public RandomVariable abs() {
+		return record(getValues().abs(), ABS, null, this);
+	}
+
+	@Override
+	public RandomVariable addProduct(final RandomVariable factor1, final double factor2) {
+		if(factor1.getTypePriority() > this.getTypePriority()) {
+			// Check type priority
+			return factor1.mult(factor2).add(this);
+		}
+
+		return record(getValues().addProduct(factor1.getValues(), factor2), ADDPRODUCT, null, this, factor1, new Scalar(factor2));
+	}
+
+	@Override
+	public RandomVariable addProduct(final RandomVariable factor1, final RandomVariable factor2) {
+		if(factor1.getTypePriority() > this.getTypePriority() || factor2.getTypePriority() > this.getTypePriority()) {
+			// Check type priority
+			return factor1.mult(factor2).add(this);
+		}
+
+		return record(getValues().addProduct(factor1.getValues(), factor2.getValues()), ADDPRODUCT, null, this, factor1, factor2);
+	}
+
+	@Override
+	public RandomVariable addRatio(final RandomVariable numerator, final RandomVariable denominator) {
+		if(numerator.getTypePriority() > this.getTypePriority() || denominator.getTypePriority() > this.getTypePriority()) {
+			// Check type priority
+			return numerator.div(denominator).add(this);
+		}
+
+		return record(getValues().addRatio(numerator.getValues(), denominator.getValues()), ADDRATIO, null, this, numerator, denominator);
+	}
+
+	@Override
+	public RandomVariable subRatio(final RandomVariable numerator, final RandomVariable denominator) {
+		if(numerator.getTypePriority() > this.getTypePriority() || denominator.getTypePriority() > this.getTypePriority()) {
+			// Check type priority
+			return numerator.div(denominator).mult(-1).add(this);
+		}
+
+		return record(getValues().subRatio(numerator.getValues(), denominator.getValues()), SUBRATIO, null, this, numerator, denominator);
+	}
+
+	/*
+	 * The following methods are end points, the result is not differentiable.
+	 */
+
+	@Override
+	public RandomVariable isNaN() {
+		return getValues().isNaN();
+	}
+
+	@Override
+	public IntToDoubleFunction getOperator() {
+		return getValues().getOperator();
+	}
+
+	@Override
+	public DoubleStream getRealizationsStream() {
+		return getValues().getRealizationsStream();
+	}
+
+	@Override
+	public RandomVariable apply(final DoubleUnaryOperator operator) {
+		throw new UnsupportedOperationException("Applying functions is not supported.");
+	}
+
+	@Override
+	public RandomVariable apply(final DoubleBinaryOperator operator, final RandomVariable argument) {
+		throw new UnsupportedOperationException("Applying functions is not supported.");
+	}
+
+	@Override
+	public RandomVariable apply(final DoubleTernaryOperator operator, final RandomVariable argument1, final RandomVariable argument2) {
+		throw new UnsupportedOperationException("Applying functions is not supported.");
+	}
+
+	@Override
+	public String toString() {
+		return "RandomVariableDifferentiableAADTape [values=" + values + ",\n ID=" + getID() + "]";
+	}
+
+	@Override
+	public RandomVariableDifferentiable getCloneIndependent() {
+		return new RandomVariableDifferentiableAADTape(this.getValues(), getFactory());
+	}
+}
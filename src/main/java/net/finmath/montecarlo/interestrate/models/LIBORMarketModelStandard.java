@@ -274,6 +274,15 @@ public class LIBORMarketModelStandard extends AbstractProcessModel implements LI
 		return calibrationProducts.toArray(new CalibrationProduct[calibrationProducts.size()]);
 	}
 
+	/**
+	 * The numeraire is calculated from the forward rates fixed at the tenor times (see {@link #getNumeraire(MonteCarloProcess, double)}),
+	 * hence the states at these times are required.
+	 */
+	@Override
+	public TimeDiscretization getTimesOfRequiredStates() {
+		return liborPeriodDiscretization;
+	}
+
 	/**
 	 * Return the numeraire at a given time.
 	 * The numeraire is provided for interpolated points. If requested on points which are not
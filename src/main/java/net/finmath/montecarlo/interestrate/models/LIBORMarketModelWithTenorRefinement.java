@@ -176,6 +176,15 @@ public class LIBORMarketModelWithTenorRefinement extends AbstractProcessModel im
 		numeraires = new ConcurrentHashMap<>();
 	}
 
+	/**
+	 * The numeraire is calculated from the forward rates fixed at the tenor times (see {@link #getNumeraire(MonteCarloProcess, double)}),
+	 * hence the states at these times are required.
+	 */
+	@Override
+	public TimeDiscretization getTimesOfRequiredStates() {
+		return liborPeriodDiscretizations[0];
+	}
+
 	/**
 	 * Return the numeraire at a given time.
 	 *
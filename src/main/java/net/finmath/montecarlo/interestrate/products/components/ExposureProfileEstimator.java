@@ -0,0 +1,232 @@
+package net.finmath.montecarlo.interestrate.products.components;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.interestrate.TermStructureMonteCarloSimulationModel;
+import net.finmath.montecarlo.interestrate.TermStructureMonteCarloSimulationWithCache;
+import net.finmath.montecarlo.interestrate.products.AbstractLIBORMonteCarloProduct;
+import net.finmath.stochastic.RandomVariable;
+import net.finmath.util.BoundedCache.EvictionPolicy;
+
+/**
+ * Estimates the exposure profile of an underlying (e.g., a {@link net.finmath.montecarlo.interestrate.products.Portfolio})
+ * on a given grid of evaluation times.
+ *
+ * For each evaluation time \( t \) the exposure \( E( V(t) \vert \mathcal{F}_t ) \) is estimated by an {@link ExposureEstimator}
+ * and reduced to
+ * <ul>
+ * 	<li>the expected exposure \( EE(t) = E( V(t) ) \),</li>
+ * 	<li>the expected positive exposure \( EPE(t) = E( \max(V(t), 0) ) \),</li>
+ * 	<li>the expected negative exposure \( ENE(t) = E( \min(V(t), 0) ) \),</li>
+ * 	<li>the potential future exposure \( PFE_{q}(t) \), i.e., the q-quantile of \( \max(V(t), 0) \), for each given quantile level q.</li>
+ * </ul>
+ * As for {@link ExposureEstimator}, the values are the values at time t (not discounted to 0) and the expectations are taken with respect to
+ * the measure of the simulation.
+ *
+ * The evaluation times are valued in parallel on a {@link TermStructureMonteCarloSimulationWithCache} wrapping the given simulation,
+ * such that forward rates and numeraires requested for several evaluation times (e.g., those of the same fixing and payment dates) are
+ * evaluated only once. Each evaluation time calculates its regression basis functions and its regression once. Of each evaluation
+ * time only the reduced profile is kept (not the exposure). The cache shared by the evaluation times may be bounded, see
+ * {@link #ExposureProfileEstimator(AbstractLIBORMonteCarloProduct, double[], double[], long)}. By default it is unbounded,
+ * such that its size grows with the number of forward rates and numeraires requested.
+ *
+ * @version 1.1
+ */
+public class ExposureProfileEstimator {
+
+	/**
+	 * The exposure profile, i.e., the expected exposure, the expected positive and negative exposure and the
+	 * potential future exposures for each evaluation time.
+	 */
+	public static class ExposureProfile {
+
+		private final double[]		evaluationTimes;
+		private final double[]		quantiles;
+		private final double[]		expectedExposure;
+		private final double[]		expectedPositiveExposure;
+		private final double[]		expectedNegativeExposure;
+		private final double[][]	potentialFutureExposure;
+
+		private ExposureProfile(final double[] evaluationTimes, final double[] quantiles, final double[] expectedExposure,
+				final double[] expectedPositiveExposure, final double[] expectedNegativeExposure, final double[][] potentialFutureExposure) {
+			this.evaluationTimes = evaluationTimes;
+			this.quantiles = quantiles;
+			this.expectedExposure = expectedExposure;
+			this.expectedPositiveExposure = expectedPositiveExposure;
+			this.expectedNegativeExposure = expectedNegativeExposure;
+			this.potentialFutureExposure = potentialFutureExposure;
+		}
+
+		/**
+		 * @return The evaluation times.
+		 */
+		public double[] getEvaluationTimes() {
+			return evaluationTimes.clone();
+		}
+
+		/**
+		 * @return The quantile levels of the potential future exposures.
+		 */
+		public double[] getQuantiles() {
+			return quantiles.clone();
+		}
+
+		/**
+		 * @return The expected exposure E(V(t)) for each evaluation time t.
+		 */
+		public double[] getExpectedExposure() {
+			return expectedExposure.clone();
+		}
+
+		/**
+		 * @return The expected positive exposure E(max(V(t),0)) for each evaluation time t.
+		 */
+		public double[] getExpectedPositiveExposure() {
+			return expectedPositiveExposure.clone();
+		}
+
+		/**
+		 * @return The expected negative exposure E(min(V(t),0)) for each evaluation time t.
+		 */
+		public double[] getExpectedNegativeExposure() {
+			return expectedNegativeExposure.clone();
+		}
+
+		/**
+		 * Returns the potential future exposure for the quantile level with a given index.
+		 *
+		 * @param quantileIndex The index of the quantile level in {@link #getQuantiles()}.
+		 * @return The q-quantile of max(V(t),0) for each evaluation time t.
+		 */
+		public double[] getPotentialFutureExposure(final int quantileIndex) {
+			return potentialFutureExposure[quantileIndex].clone();
+		}
+
+		@Override
+		public String toString() {
+			return "ExposureProfile [numberOfEvaluationTimes=" + evaluationTimes.length + ", numberOfQuantiles=" + quantiles.length + "]";
+		}
+	}
+
+	private final ExposureEstimator exposureEstimator;
+	private final double[]			evaluationTimes;
+	private final double[]			quantiles;
+	private final long				cacheMaximumSizeInBytes;
+
+	/**
+	 * Creates the estimator of the exposure profile of an underlying.
+	 *
+	 * @param underlying The underlying (e.g., a portfolio).
+	 * @param evaluationTimes The evaluation times of the profile.
+	 * @param quantiles The quantile levels of the potential future exposures.
+	 * @param cacheMaximumSizeInBytes The maximum size in bytes of each of the caches of forward rates and numeraires shared by the evaluation times.
+	 */
+	public ExposureProfileEstimator(final AbstractLIBORMonteCarloProduct underlying, final double[] evaluationTimes, final double[] quantiles, final long cacheMaximumSizeInBytes) {
+		super();
+		exposureEstimator		= new ExposureEstimator(underlying);
+		this.evaluationTimes	= evaluationTimes.clone();
+		this.quantiles			= quantiles.clone();
+		this.cacheMaximumSizeInBytes	= cacheMaximumSizeInBytes;
+	}
+
+	/**
+	 * Creates the estimator of the exposure profile of an underlying. The cache shared by the evaluation times is unbounded.
+	 *
+	 * @param underlying The underlying (e.g., a portfolio).
+	 * @param evaluationTimes The evaluation times of the profile.
+	 * @param quantiles The quantile levels of the potential future exposures.
+	 */
+	public ExposureProfileEstimator(final AbstractLIBORMonteCarloProduct underlying, final double[] evaluationTimes, final double[] quantiles) {
+		this(underlying, evaluationTimes, quantiles, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Creates the estimator of the exposure profile of an underlying, using the 95% quantile for the potential future exposure.
+	 *
+	 * @param underlying The underlying (e.g., a portfolio).
+	 * @param evaluationTimes The evaluation times of the profile.
+	 */
+	public ExposureProfileEstimator(final AbstractLIBORMonteCarloProduct underlying, final double[] evaluationTimes) {
+		this(underlying, evaluationTimes, new double[] { 0.95 });
+	}
+
+	/**
+	 * Returns the exposure profile of the underlying within the specified model.
+	 *
+	 * @param model The model used to price the underlying.
+	 * @return The exposure profile.
+	 * @throws net.finmath.exception.CalculationException Thrown if the valuation fails, specific cause may be available via the <code>cause()</code> method.
+	 */
+	public ExposureProfile getExposureProfile(final TermStructureMonteCarloSimulationModel model) throws CalculationException {
+		final TermStructureMonteCarloSimulationWithCache modelWithCache = new TermStructureMonteCarloSimulationWithCache(model, cacheMaximumSizeInBytes, EvictionPolicy.LEAST_RECENTLY_USED);
+
+		final List<Callable<double[]>> valuations = new ArrayList<>();
+		for(final double evaluationTime : evaluationTimes) {
+			valuations.add(new Callable<double[]>() {
+				@Override
+				public double[] call() throws CalculationException {
+					final RandomVariable exposure = exposureEstimator.getValue(evaluationTime, modelWithCache);
+					final RandomVariable positiveExposure = exposure.floor(0.0);
+
+					final double[] potentialFutureExposure = positiveExposure.getQuantiles(quantiles);
+
+					final double[] profileValues = new double[3 + quantiles.length];
+					profileValues[0] = exposure.getAverage();
+					profileValues[1] = positiveExposure.getAverage();
+					profileValues[2] = exposure.cap(0.0).getAverage();
+					System.arraycopy(potentialFutureExposure, 0, profileValues, 3, quantiles.length);
+					return profileValues;
+				}
+			});
+		}
+
+		final double[]		expectedExposure			= new double[evaluationTimes.length];
+		final double[]		expectedPositiveExposure	= new double[evaluationTimes.length];
+		final double[]		expectedNegativeExposure	= new double[evaluationTimes.length];
+		final double[][]	potentialFutureExposure		= new double[quantiles.length][evaluationTimes.length];
+		try {
+			final List<Future<double[]>> results = ForkJoinPool.commonPool().invokeAll(valuations);
+			for(int timeIndex = 0; timeIndex < evaluationTimes.length; timeIndex++) {
+				final double[] profileValues = results.get(timeIndex).get();
+				expectedExposure[timeIndex]			= profileValues[0];
+				expectedPositiveExposure[timeIndex]	= profileValues[1];
+				expectedNegativeExposure[timeIndex]	= profileValues[2];
+				for(int quantileIndex = 0; quantileIndex < quantiles.length; quantileIndex++) {
+					potentialFutureExposure[quantileIndex][timeIndex] = profileValues[3 + quantileIndex];
+				}
+			}
+		}
+		catch(final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CalculationException(e);
+		}
+		catch(final ExecutionException e) {
+			if(e.getCause() instanceof CalculationException) {
+				throw (CalculationException)e.getCause();
+			}
+			throw new RuntimeException("Valuation of exposure profile failed. See cause of this exception for details.", e.getCause());
+		}
+
+		return new ExposureProfile(evaluationTimes.clone(), quantiles.clone(), expectedExposure, expectedPositiveExposure, expectedNegativeExposure, potentialFutureExposure);
+	}
+
+	/**
+	 * @return The evaluation times of the profile.
+	 */
+	public double[] getEvaluationTimes() {
+		return evaluationTimes.clone();
+	}
+
+	/**
+	 * @return The quantile levels of the potential future exposures.
+	 */
+	public double[] getQuantiles() {
+		return quantiles.clone();
+	}
+}
@@ -6,17 +6,29 @@
 package net.finmath.montecarlo.process;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
 
 import net.finmath.concurrency.FutureWrapper;
+import net.finmath.montecarlo.BrownianMotionFromMersenneRandomNumbers;
+import net.finmath.montecarlo.BrownianMotionFromPhiloxRandomNumbers;
 import net.finmath.montecarlo.IndependentIncrements;
+import net.finmath.montecarlo.RandomVariableFactory;
+import net.finmath.montecarlo.RandomVariableFromDoubleArray;
+import net.finmath.montecarlo.RandomVariableFromFloatArray;
+import net.finmath.montecarlo.automaticdifferentiation.AbstractRandomVariableDifferentiableFactory;
+import net.finmath.montecarlo.automaticdifferentiation.RandomVariableDifferentiable;
 import net.finmath.montecarlo.model.ProcessModel;
 import net.finmath.stochastic.RandomVariable;
+import net.finmath.time.TimeDiscretization;
 
 /**
  * This class implements some numerical schemes for multi-dimensional multi-factor Ito process.
@@ -53,9 +65,34 @@ import net.finmath.stochastic.RandomVariable;
  * The value \( m \) is called <code>numberOfFactors</code> here.
  * The default for <code>numberOfFactors</code> is 1.
  *
+ * <p>
+ * The generation of the process can be parallelized across components (the default) or across paths,
+ * see {@link ParallelizationStrategy}.
+ * </p>
+ *
+ * <p>
+ * By default the process is stored for all time indices. If a time discretization of <i>retained times</i> is given,
+ * only the states at these times (and the time index 0) are kept, all other states are released
+ * as soon as the next time step has been calculated. This allows to generate long time discretizations
+ * with a memory requirement proportional to the number of times required by the products.
+ * The states which the model reads when calculating its numeraire (e.g., the states at the tenor times of a LIBOR market model,
+ * see {@link ProcessModel#getTimesOfRequiredStates()}) are retained in addition.
+ * Requesting a state which has not been retained results in an exception.
+ * </p>
+ *
+ * <p>
+ * For differentiable random variables (backward automatic differentiation), a number of <i>checkpoints</i> may be specified.
+ * In that case the time steps are split into segments starting at the checkpoints and the operator tree of the simulation is cut at
+ * each checkpoint and at each retained state: the values returned by {@link #getProcessValue(int, int)} are independent
+ * copies of the simulated values. The gradient of a value calculated from the process (e.g., the value of a product) with respect to the
+ * model parameters has then to be calculated via {@link #getGradient(RandomVariableDifferentiable)}, which
+ * re-records the time steps segment-by-segment (in reverse order) starting from the stored states at the checkpoints.
+ * This bounds the memory required by the operator tree to that of a single segment, at the cost of simulating the process twice.
+ * </p>
+ *
  * @author Christian Fries
  * @see net.finmath.montecarlo.model.ProcessModel The interface definition contains more details.
- * @version 1.4
+ * @version 1.5
  */
 public class EulerSchemeFromProcessModel extends MonteCarloProcessFromProcessModel {
 
@@ -72,10 +109,40 @@ public class EulerSchemeFromProcessModel extends MonteCarloProcessFromProcessMod
 		PREDICTOR_CORRECTOR_FUNCTIONAL
 	}
 
+	/**
+	 * Strategy used to parallelize the generation of the process.
+	 */
+	public enum ParallelizationStrategy {
+		/**
+		 * In each time step, each component of the process is calculated in its own task.
+		 * This does not give a speedup for a one-dimensional process.
+		 */
+		COMPONENTS,
+		/**
+		 * The paths are split into chunks and each chunk is evolved over all time steps in its own task on a fork-join pool.
+		 * If the stochastic driver is a {@link BrownianMotionFromPhiloxRandomNumbers} or a {@link BrownianMotionFromMersenneRandomNumbers},
+		 * each chunk generates the increments of its paths directly, such that the increments over all paths are neither generated nor stored.
+		 * For other stochastic drivers the chunks operate on chunked copies of the increments (created by the model's random variable factory, if provided).
+		 * The retained states are written in place into random variables over all paths.
+		 *
+		 * This requires that the model's drift, factor loadings and state space transform are path-wise operations on the
+		 * given state (which is the case for the models in this library).
+		 * The mode falls back to {@link #COMPONENTS} if the model's random variable factory, the initial state, the drift, the factor loadings
+		 * or the increments are differentiable (AAD), since chunking would break the operator tree.
+		 */
+		PATHS
+	}
+
 	private final IndependentIncrements stochasticDriver;
 
 	private Scheme		scheme = Scheme.EULER_FUNCTIONAL;
 
+	private ParallelizationStrategy parallelizationStrategy = ParallelizationStrategy.COMPONENTS;
+
+	private TimeDiscretization timesOfRetainedStates = null;
+
+	private int numberOfCheckpoints = 0;
+
 	// Used locally for multi-threadded calculation.
 	private ExecutorService executor;
 
@@ -84,7 +151,70 @@ public class EulerSchemeFromProcessModel extends MonteCarloProcessFromProcessMod
 	 */
 	private transient RandomVariable[][]	discreteProcess = null;
 	private transient RandomVariable[]		discreteProcessWeights;
+	private transient boolean[]				isStateRetained;
+
+	/*
+	 * The checkpoints of the process (only used if numberOfCheckpoints > 0 and the process is differentiable).
+	 */
+	private transient int[]					checkpointTimeIndices;
+	private transient RandomVariable[][]	checkpointStates;
+
+
+	/**
+	 * Create an Euler discretization scheme which retains only the states required at the given times.
+	 *
+	 * For a time not being part of the simulation time discretization, the states of the two neighbouring
+	 * time indices are retained (allowing interpolation).
+	 *
+	 * @param model The model (the SDE specifcation) used to generate the (sampling of the) stochastic process.
+	 * @param stochasticDriver The stochastic driver of the process (e.g. a Brownian motion).
+	 * @param scheme The scheme to use. See {@link Scheme}.
+	 * @param parallelizationStrategy The strategy used to parallelize the generation of the process. See {@link ParallelizationStrategy}.
+	 * @param timesOfRetainedStates The times at which the states should be retained (e.g. the times required by a product). If null, all states are retained.
+	 * @param numberOfCheckpoints The number of checkpoints used to split the simulation into segments for the backward automatic differentiation. If 0, no checkpoints are used.
+	 */
+	public EulerSchemeFromProcessModel(final ProcessModel model, final IndependentIncrements stochasticDriver, final Scheme scheme, final ParallelizationStrategy parallelizationStrategy, final TimeDiscretization timesOfRetainedStates, final int numberOfCheckpoints) {
+		super(stochasticDriver.getTimeDiscretization(), model);
+		if(numberOfCheckpoints < 0) {
+			throw new IllegalArgumentException("Number of checkpoints must not be negative.");
+		}
+		this.stochasticDriver = stochasticDriver;
+		this.scheme = scheme;
+		this.parallelizationStrategy = parallelizationStrategy;
+		this.timesOfRetainedStates = timesOfRetainedStates;
+		this.numberOfCheckpoints = numberOfCheckpoints;
+	}
+
+	/**
+	 * Create an Euler discretization scheme which retains only the states required at the given times.
+	 *
+	 * For a time not being part of the simulation time discretization, the states of the two neighbouring
+	 * time indices are retained (allowing interpolation).
+	 *
+	 * @param model The model (the SDE specifcation) used to generate the (sampling of the) stochastic process.
+	 * @param stochasticDriver The stochastic driver of the process (e.g. a Brownian motion).
+	 * @param scheme The scheme to use. See {@link Scheme}.
+	 * @param parallelizationStrategy The strategy used to parallelize the generation of the process. See {@link ParallelizationStrategy}.
+	 * @param timesOfRetainedStates The times at which the states should be retained (e.g. the times required by a product). If null, all states are retained.
+	 */
+	public EulerSchemeFromProcessModel(final ProcessModel model, final IndependentIncrements stochasticDriver, final Scheme scheme, final ParallelizationStrategy parallelizationStrategy, final TimeDiscretization timesOfRetainedStates) {
+		this(model, stochasticDriver, scheme, parallelizationStrategy, timesOfRetainedStates, 0);
+	}
 
+	/**
+	 * Create an Euler discretization scheme.
+	 *
+	 * @param model The model (the SDE specifcation) used to generate the (sampling of the) stochastic process.
+	 * @param stochasticDriver The stochastic driver of the process (e.g. a Brownian motion).
+	 * @param scheme The scheme to use. See {@link Scheme}.
+	 * @param parallelizationStrategy The strategy used to parallelize the generation of the process. See {@link ParallelizationStrategy}.
+	 */
+	public EulerSchemeFromProcessModel(final ProcessModel model, final IndependentIncrements stochasticDriver, final Scheme scheme, final ParallelizationStrategy parallelizationStrategy) {
+		super(stochasticDriver.getTimeDiscretization(), model);
+		this.stochasticDriver = stochasticDriver;
+		this.scheme = scheme;
+		this.parallelizationStrategy = parallelizationStrategy;
+	}
 
 	/**
 	 * Create an Euler discretization scheme.
@@ -125,6 +255,10 @@ public class EulerSchemeFromProcessModel extends MonteCarloProcessFromProcessMod
 			}
 		}
 
+		if(discreteProcess[timeIndex] == null) {
+			throw new IllegalArgumentException("The process at time index " + timeIndex + " (time=" + getTime(timeIndex) + ") has not been retained. Add the time to the retained times of this process.");
+		}
+
 		if(discreteProcess[timeIndex][componentIndex] == null) {
 			throw new NullPointerException("Generation of process component " + componentIndex + " at time index " + timeIndex + " failed. Likely due to out of memory");
 		}
@@ -168,6 +302,9 @@ public class EulerSchemeFromProcessModel extends MonteCarloProcessFromProcessMod
 		discreteProcess			= new RandomVariable[getTimeDiscretization().getNumberOfTimeSteps() + 1][getNumberOfComponents()];
 		discreteProcessWeights	= new RandomVariable[getTimeDiscretization().getNumberOfTimeSteps() + 1];
 
+		// Determine the states to retain
+		isStateRetained = getIsStateRetained();
+
 		// Set initial Monte-Carlo weights
 		discreteProcessWeights[0] = stochasticDriver.getRandomVariableForConstant(1.0 / numberOfPaths);
 
@@ -179,6 +316,16 @@ public class EulerSchemeFromProcessModel extends MonteCarloProcessFromProcessMod
 			discreteProcess[0][componentIndex] = applyStateSpaceTransform(0, componentIndex, currentState[componentIndex]);
 		}
 
+		if(numberOfCheckpoints > 0 && isDifferentiable(initialState)) {
+			doPrecalculateProcessWithCheckpoints(currentState);
+			return;
+		}
+
+		if(parallelizationStrategy == ParallelizationStrategy.PATHS && isPathChunkingSupported(initialState)) {
+			doPrecalculateProcessInPathChunks();
+			return;
+		}
+
 		/*
 		 * Evolve the process using an Euler scheme.
 		 * The evolution is performed multi-threadded.
@@ -303,8 +450,18 @@ public class EulerSchemeFromProcessModel extends MonteCarloProcessFromProcessMod
 
 			// Set Monte-Carlo weights
 			discreteProcessWeights[timeIndex] = discreteProcessWeights[timeIndex - 1];
+
+			// Release the state of the previous time step if it is not retained
+			if(!isStateRetained[timeIndex - 1]) {
+				discreteProcess[timeIndex - 1] = null;
+			}
 		} // End for(timeIndex)
 
+		// Release the final state if it is not retained
+		if(!isStateRetained[discreteProcess.length - 1]) {
+			discreteProcess[discreteProcess.length - 1] = null;
+		}
+
 		try {
 			executor.shutdown();
 		}
@@ -313,6 +470,742 @@ public class EulerSchemeFromProcessModel extends MonteCarloProcessFromProcessMod
 		}
 	}
 
+	/**
+	 * Calculates the whole (discrete) process by evolving chunks of paths in parallel.
+	 * Requires that the initial value <code>discreteProcess[0]</code> has been set.
+	 *
+	 * The chunks write the retained states in place into arrays over all paths, such that only the current state of each chunk is held in addition to the result.
+	 */
+	private void doPrecalculateProcessInPathChunks() {
+		final int numberOfPaths			= getNumberOfPaths();
+		final int numberOfComponents	= getNumberOfComponents();
+		final int numberOfTimes			= getTimeDiscretization().getNumberOfTimeSteps() + 1;
+
+		/*
+		 * Split the paths into chunks. We use a few chunks per worker to balance the load.
+		 */
+		final ForkJoinPool pool = ForkJoinPool.commonPool();
+		final int chunkSize = (numberOfPaths + 4 * pool.getParallelism() - 1) / (4 * pool.getParallelism());
+		final int numberOfChunks = (numberOfPaths + chunkSize - 1) / chunkSize;
+
+		// The retained states, assembled in place by the chunks
+		final AssembledState[][] assembledStates = new AssembledState[numberOfTimes][];
+		for(int timeIndex = 1; timeIndex < numberOfTimes; timeIndex++) {
+			if(isStateRetained[timeIndex]) {
+				assembledStates[timeIndex] = new AssembledState[numberOfComponents];
+				for(int componentIndex = 0; componentIndex < numberOfComponents; componentIndex++) {
+					assembledStates[timeIndex][componentIndex] = new AssembledState(numberOfPaths);
+				}
+			}
+		}
+
+		final List<Callable<Void>> workers = new ArrayList<>(numberOfChunks);
+		for(int chunkIndex = 0; chunkIndex < numberOfChunks; chunkIndex++) {
+			final int fromPath = chunkIndex * chunkSize;
+			final int toPath = Math.min(fromPath + chunkSize, numberOfPaths);
+			workers.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					doPrecalculateProcessOnPathChunk(fromPath, toPath, assembledStates);
+					return null;
+				}
+			});
+		}
+
+		try {
+			if(isUseMultiThreadding) {
+				for(final Future<Void> result : pool.invokeAll(workers)) {
+					result.get();
+				}
+			}
+			else {
+				for(final Callable<Void> worker : workers) {
+					worker.call();
+				}
+			}
+		}
+		catch(final ExecutionException e) {
+			throw new RuntimeException("Euler step failed. See cause of this exception for details.", e.getCause());
+		}
+		catch(final Exception e) {
+			throw new RuntimeException("Euler step failed. See cause of this exception for details.", e);
+		}
+
+		// Create the random variables from the assembled states
+		final RandomVariableFactory randomVariableFactory = getModel().getRandomVariableFactory();
+		for(int timeIndex = 1; timeIndex < numberOfTimes; timeIndex++) {
+			// Set Monte-Carlo weights
+			discreteProcessWeights[timeIndex] = discreteProcessWeights[timeIndex - 1];
+
+			if(!isStateRetained[timeIndex]) {
+				discreteProcess[timeIndex] = null;
+				continue;
+			}
+
+			for(int componentIndex = 0; componentIndex < numberOfComponents; componentIndex++) {
+				final RandomVariable previousValue = discreteProcess[timeIndex-1] != null ? discreteProcess[timeIndex-1][componentIndex] : null;
+				discreteProcess[timeIndex][componentIndex] = assembledStates[timeIndex][componentIndex].getRandomVariable(getTime(timeIndex), previousValue, randomVariableFactory);
+			}
+			assembledStates[timeIndex] = null;
+		}
+	}
+
+	/**
+	 * Evolves the process on the paths <code>fromPath</code> (inclusive) to <code>toPath</code> (exclusive)
+	 * and writes the retained states to the given assembled states.
+	 *
+	 * @param fromPath The first path of the chunk.
+	 * @param toPath The end of the chunk (exclusive).
+	 * @param assembledStates The retained states over all paths, indexed by time index and component index (null for a state which is not retained).
+	 */
+	private void doPrecalculateProcessOnPathChunk(final int fromPath, final int toPath, final AssembledState[][] assembledStates) {
+		final int numberOfComponents	= getNumberOfComponents();
+		final int numberOfFactors		= getNumberOfFactors();
+		final int numberOfTimes			= getTimeDiscretization().getNumberOfTimeSteps() + 1;
+
+		final RandomVariable[] initialState = getInitialState();
+		final RandomVariable[] currentState = new RandomVariable[numberOfComponents];
+		RandomVariable[] previousValue = new RandomVariable[numberOfComponents];
+		for (int componentIndex = 0; componentIndex < numberOfComponents; componentIndex++) {
+			currentState[componentIndex] = getPathChunk(initialState[componentIndex], fromPath, toPath);
+			previousValue[componentIndex] = getPathChunk(discreteProcess[0][componentIndex], fromPath, toPath);
+		}
+
+		// A Mersenne Twister Brownian motion generates the increments of the chunk for all time indices (the random numbers are generated path by path)
+		final RandomVariable[][] brownianIncrementsOfChunk = stochasticDriver instanceof BrownianMotionFromMersenneRandomNumbers ?
+				((BrownianMotionFromMersenneRandomNumbers)stochasticDriver).getBrownianIncrements(fromPath, toPath) : null;
+
+		final RandomVariable[] brownianIncrement = new RandomVariable[numberOfFactors];
+		for (int timeIndex = 1; timeIndex < numberOfTimes; timeIndex++) {
+			final double deltaT = getTime(timeIndex) - getTime(timeIndex - 1);
+			final RandomVariable[] value = new RandomVariable[numberOfComponents];
+
+			// Fetch drift vector
+			final RandomVariable[] drift;
+			try {
+				drift = getDrift(timeIndex - 1, previousValue, null);
+			}
+			catch(final Exception e) {
+				throw new RuntimeException(e + " - drift calculaton failed at time index " + timeIndex + " (time=" + getTime(timeIndex - 1) + ") . See cause of this exception for details.", e);
+			}
+
+			// Fetch brownianIncrement vector (a counter-based Brownian motion can generate the chunk directly)
+			for(int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
+				if(brownianIncrementsOfChunk != null) {
+					brownianIncrement[factorIndex] = brownianIncrementsOfChunk[timeIndex - 1][factorIndex];
+				}
+				else if(stochasticDriver instanceof BrownianMotionFromPhiloxRandomNumbers) {
+					brownianIncrement[factorIndex] = ((BrownianMotionFromPhiloxRandomNumbers)stochasticDriver).getBrownianIncrement(timeIndex - 1, factorIndex, fromPath, toPath);
+				}
+				else {
+					brownianIncrement[factorIndex] = getPathChunk(stochasticDriver.getIncrement(timeIndex - 1, factorIndex), fromPath, toPath);
+				}
+			}
+			if(brownianIncrementsOfChunk != null) {
+				// Release the increments of the chunk which have been used
+				brownianIncrementsOfChunk[timeIndex - 1] = null;
+			}
+
+			// Calculate new realization
+			for (int componentIndex = 0; componentIndex < numberOfComponents; componentIndex++) {
+				final RandomVariable driftOfComponent = drift[componentIndex];
+				final RandomVariable[] factorLoadings = driftOfComponent != null ? getFactorLoading(timeIndex - 1, componentIndex, previousValue) : null;
+
+				// Check if the component process has stopped to evolve
+				if (driftOfComponent == null || factorLoadings == null) {
+					value[componentIndex] = previousValue[componentIndex];
+					continue;
+				}
+
+				// Chunking would cut the dependency of the process on a differentiable drift or factor loading
+				if(driftOfComponent instanceof RandomVariableDifferentiable || isDifferentiable(factorLoadings)) {
+					throw new IllegalArgumentException("The model has differentiable drift or factor loadings at time index " + (timeIndex - 1) + ". Use ParallelizationStrategy.COMPONENTS.");
+				}
+
+				if(scheme == Scheme.EULER_FUNCTIONAL || scheme == Scheme.PREDICTOR_CORRECTOR_FUNCTIONAL) {
+					currentState[componentIndex] = applyStateSpaceTransformInverse(timeIndex - 1, componentIndex, previousValue[componentIndex]);
+				}
+
+				// Apply drift and diffusion
+				currentState[componentIndex] = currentState[componentIndex].addProduct(driftOfComponent, deltaT).addSumProduct(factorLoadings, brownianIncrement);
+
+				// Transform the state space to the value space
+				value[componentIndex] = applyStateSpaceTransform(timeIndex, componentIndex, currentState[componentIndex]).cache();
+			}
+
+			if (scheme == Scheme.PREDICTOR_CORRECTOR || scheme == Scheme.PREDICTOR_CORRECTOR_FUNCTIONAL) {
+				// Apply corrector step to realizations at next time step
+				final RandomVariable[] driftWithPredictor = getDrift(timeIndex - 1, value, null);
+
+				for (int componentIndex = 0; componentIndex < numberOfComponents; componentIndex++) {
+					final RandomVariable driftWithPredictorOfComponent		= driftWithPredictor[componentIndex];
+					final RandomVariable driftWithoutPredictorOfComponent	= drift[componentIndex];
+
+					if (driftWithPredictorOfComponent == null || driftWithoutPredictorOfComponent == null) {
+						continue;
+					}
+
+					// Calculated the predictor corrector drift adjustment
+					final RandomVariable driftAdjustment = driftWithPredictorOfComponent.sub(driftWithoutPredictorOfComponent).div(2.0).mult(deltaT);
+
+					// Add drift adjustment
+					currentState[componentIndex] = currentState[componentIndex].add(driftAdjustment);
+
+					// Re-apply state space transform
+					value[componentIndex] = applyStateSpaceTransform(timeIndex, componentIndex, currentState[componentIndex]);
+				}
+			}
+
+			// Write the retained state in place
+			if(assembledStates[timeIndex] != null) {
+				for (int componentIndex = 0; componentIndex < numberOfComponents; componentIndex++) {
+					assembledStates[timeIndex][componentIndex].set(fromPath, toPath, value[componentIndex], value[componentIndex] != previousValue[componentIndex]);
+				}
+			}
+
+			// Release the state of the previous time step
+			previousValue = value;
+		}
+	}
+
+	/**
+	 * Calculates the whole (discrete) process, cutting the operator tree at the checkpoints and at the retained states.
+	 * Requires that the initial value <code>discreteProcess[0]</code> has been set.
+	 *
+	 * @param currentState The initial state (in the state space of the model). Will be modified.
+	 */
+	private void doPrecalculateProcessWithCheckpoints(final RandomVariable[] currentState) {
+		final int numberOfTimes = getTimeDiscretization().getNumberOfTimeSteps() + 1;
+
+		checkpointTimeIndices = getCheckpointTimeIndices();
+		checkpointStates = new RandomVariable[checkpointTimeIndices.length][];
+		checkpointStates[0] = discreteProcess[0];
+
+		RandomVariable[] previousValue = discreteProcess[0];
+		int checkpointIndex = 0;
+		for(int timeIndex = 1; timeIndex < numberOfTimes; timeIndex++) {
+			RandomVariable[] value = getProcessValueOfTimeStep(timeIndex, currentState, previousValue);
+
+			final boolean isCheckpoint = checkpointIndex + 1 < checkpointTimeIndices.length && checkpointTimeIndices[checkpointIndex + 1] == timeIndex;
+			if(isCheckpoint || isStateRetained[timeIndex]) {
+				final RandomVariable[] valueIndependent = getCloneIndependent(value);
+				discreteProcess[timeIndex] = isStateRetained[timeIndex] ? valueIndependent : null;
+
+				if(isCheckpoint) {
+					// Continue the simulation from the (independent) state at the checkpoint, releasing the operator tree of the segment
+					checkpointIndex++;
+					checkpointStates[checkpointIndex] = valueIndependent;
+					for(int componentIndex = 0; componentIndex < currentState.length; componentIndex++) {
+						currentState[componentIndex] = applyStateSpaceTransformInverse(timeIndex, componentIndex, valueIndependent[componentIndex]);
+					}
+					value = valueIndependent;
+				}
+			}
+			else {
+				discreteProcess[timeIndex] = null;
+			}
+
+			// Set Monte-Carlo weights
+			discreteProcessWeights[timeIndex] = discreteProcessWeights[timeIndex - 1];
+
+			previousValue = value;
+		}
+	}
+
+	/**
+	 * Calculates the process at the given time index from the process at the previous time index (sequentially over the components).
+	 *
+	 * @param timeIndex The time index of the new state.
+	 * @param currentState The state (in the state space of the model) at the previous time index. Will be updated to the new state.
+	 * @param previousValue The process at the previous time index.
+	 * @return The process at the given time index.
+	 */
+	private RandomVariable[] getProcessValueOfTimeStep(final int timeIndex, final RandomVariable[] currentState, final RandomVariable[] previousValue) {
+		final int numberOfComponents = getNumberOfComponents();
+		final double deltaT = getTime(timeIndex) - getTime(timeIndex - 1);
+
+		// Fetch drift vector
+		final RandomVariable[] drift;
+		try {
+			drift = getDrift(timeIndex - 1, previousValue, null);
+		}
+		catch(final Exception e) {
+			throw new RuntimeException(e + " - drift calculaton failed at time index " + timeIndex + " (time=" + getTime(timeIndex - 1) + ") . See cause of this exception for details.", e);
+		}
+
+		// Fetch brownianIncrement vector
+		final RandomVariable[] brownianIncrement = stochasticDriver.getIncrement(timeIndex - 1);
+
+		// Calculate new realization
+		final RandomVariable[] value = new RandomVariable[numberOfComponents];
+		for (int componentIndex = 0; componentIndex < numberOfComponents; componentIndex++) {
+			final RandomVariable driftOfComponent = drift[componentIndex];
+			final RandomVariable[] factorLoadings = driftOfComponent != null ? getFactorLoading(timeIndex - 1, componentIndex, previousValue) : null;
+
+			// Check if the component process has stopped to evolve
+			if (driftOfComponent == null || factorLoadings == null) {
+				value[componentIndex] = previousValue[componentIndex];
+				continue;
+			}
+
+			if(scheme == Scheme.EULER_FUNCTIONAL || scheme == Scheme.PREDICTOR_CORRECTOR_FUNCTIONAL) {
+				currentState[componentIndex] = applyStateSpaceTransformInverse(timeIndex - 1, componentIndex, previousValue[componentIndex]);
+			}
+
+			// Apply drift and diffusion
+			currentState[componentIndex] = currentState[componentIndex].addProduct(driftOfComponent, deltaT).addSumProduct(factorLoadings, brownianIncrement);
+
+			// Transform the state space to the value space
+			value[componentIndex] = applyStateSpaceTransform(timeIndex, componentIndex, currentState[componentIndex]);
+		}
+
+		if (scheme == Scheme.PREDICTOR_CORRECTOR || scheme == Scheme.PREDICTOR_CORRECTOR_FUNCTIONAL) {
+			// Apply corrector step to realizations at next time step
+			final RandomVariable[] driftWithPredictor = getDrift(timeIndex - 1, value, null);
+
+			for (int componentIndex = 0; componentIndex < numberOfComponents; componentIndex++) {
+				final RandomVariable driftWithPredictorOfComponent		= driftWithPredictor[componentIndex];
+				final RandomVariable driftWithoutPredictorOfComponent	= drift[componentIndex];
+
+				if (driftWithPredictorOfComponent == null || driftWithoutPredictorOfComponent == null) {
+					continue;
+				}
+
+				// Calculated the predictor corrector drift adjustment
+				final RandomVariable driftAdjustment = driftWithPredictorOfComponent.sub(driftWithoutPredictorOfComponent).div(2.0).mult(deltaT);
+
+				// Add drift adjustment
+				currentState[componentIndex] = currentState[componentIndex].add(driftAdjustment);
+
+				// Re-apply state space transform
+				value[componentIndex] = applyStateSpaceTransform(timeIndex, componentIndex, currentState[componentIndex]);
+			}
+		}
+
+		return value;
+	}
+
+	/**
+	 * Returns the gradient of a value calculated from this process (e.g., the value of a product) with respect to the
+	 * independent variables of the model (e.g., the model parameters), see {@link RandomVariableDifferentiable#getGradient()}.
+	 *
+	 * If this process uses checkpoints, the gradient is calculated by a reverse sweep over the segments of the simulation:
+	 * starting with the last segment, the time steps of each segment are re-recorded from the stored state at its checkpoint
+	 * and the adjoints of the states at the end of the segment are propagated to the state at the checkpoint and to the model parameters.
+	 * Hence, at most the operator tree of a single segment is held in memory.
+	 * The independent copies of the states used to cut the operator tree (at the checkpoints and the retained states) do not appear in the
+	 * returned map: their adjoints are propagated to the states they copy, such that the map has the same keys as the gradient of the full operator tree.
+	 *
+	 * If this process does not use checkpoints, the method returns <code>value.getGradient()</code>.
+	 *
+	 * @param value A value calculated from this process.
+	 * @return The gradient map.
+	 */
+	public Map<Long, RandomVariable> getGradient(final RandomVariableDifferentiable value) {
+		final Map<Long, RandomVariable> gradient = new HashMap<>(value.getGradient());
+
+		final int[] checkpointTimeIndices;
+		final RandomVariable[][] checkpointStates;
+		final RandomVariable[][] discreteProcess;
+		synchronized(this) {
+			checkpointTimeIndices = this.checkpointTimeIndices;
+			checkpointStates = this.checkpointStates;
+			discreteProcess = this.discreteProcess;
+		}
+		if(checkpointStates == null) {
+			return gradient;
+		}
+
+		final int numberOfComponents = getNumberOfComponents();
+		final int numberOfTimeSteps = getTimeDiscretization().getNumberOfTimeSteps();
+
+		// The adjoint of the state at the end of the current segment, propagated from the subsequent segment.
+		RandomVariable[] adjointOfCheckpointState = null;
+		for(int checkpointIndex = checkpointTimeIndices.length - 1; checkpointIndex >= 0; checkpointIndex--) {
+			final int startTimeIndex = checkpointTimeIndices[checkpointIndex];
+			final int endTimeIndex = checkpointIndex + 1 < checkpointTimeIndices.length ? checkpointTimeIndices[checkpointIndex + 1] : numberOfTimeSteps;
+
+			// Start the segment from the state at the checkpoint (the initial state for the first segment)
+			final RandomVariable[] currentState = new RandomVariable[numberOfComponents];
+			final RandomVariable[] startValue;
+			if(checkpointIndex == 0) {
+				final RandomVariable[] initialState = getInitialState();
+				startValue = new RandomVariable[numberOfComponents];
+				for(int componentIndex = 0; componentIndex < numberOfComponents; componentIndex++) {
+					currentState[componentIndex] = initialState[componentIndex];
+					startValue[componentIndex] = applyStateSpaceTransform(0, componentIndex, currentState[componentIndex]);
+				}
+			}
+			else {
+				startValue = getCloneIndependent(checkpointStates[checkpointIndex]);
+				for(int componentIndex = 0; componentIndex < numberOfComponents; componentIndex++) {
+					currentState[componentIndex] = applyStateSpaceTransformInverse(startTimeIndex, componentIndex, startValue[componentIndex]);
+				}
+			}
+
+			// Re-record the segment and build the sum of its outputs weighted by their adjoints
+			RandomVariable adjointWeightedOutputs = null;
+			RandomVariable[] previousValue = startValue;
+			for(int timeIndex = startTimeIndex + 1; timeIndex <= endTimeIndex; timeIndex++) {
+				final RandomVariable[] processValue = getProcessValueOfTimeStep(timeIndex, currentState, previousValue);
+
+				for(int componentIndex = 0; componentIndex < numberOfComponents; componentIndex++) {
+					// Remove the adjoints of the (independent) copies of the states from the gradient, they are propagated through the segment
+					RandomVariable adjoint = null;
+					if(discreteProcess[timeIndex] != null) {
+						adjoint = getAdjoint(gradient, discreteProcess[timeIndex][componentIndex], adjoint);
+					}
+					if(timeIndex == endTimeIndex && checkpointIndex + 1 < checkpointTimeIndices.length) {
+						adjoint = getAdjoint(gradient, checkpointStates[checkpointIndex + 1][componentIndex], adjoint);
+						if(adjointOfCheckpointState != null && adjointOfCheckpointState[componentIndex] != null) {
+							adjoint = adjoint != null ? adjoint.add(adjointOfCheckpointState[componentIndex]) : adjointOfCheckpointState[componentIndex];
+						}
+					}
+
+					if(adjoint != null && processValue[componentIndex] instanceof RandomVariableDifferentiable) {
+						final RandomVariable adjointWeightedOutput = processValue[componentIndex].mult(adjoint);
+						adjointWeightedOutputs = adjointWeightedOutputs != null ? adjointWeightedOutputs.add(adjointWeightedOutput) : adjointWeightedOutput;
+					}
+				}
+
+				previousValue = processValue;
+			}
+
+			adjointOfCheckpointState = null;
+			if(!(adjointWeightedOutputs instanceof RandomVariableDifferentiable)) {
+				continue;
+			}
+
+			// Reverse sweep over the segment
+			final Map<Long, RandomVariable> gradientOfSegment = ((RandomVariableDifferentiable)adjointWeightedOutputs).getGradient();
+
+			if(checkpointIndex > 0) {
+				// The adjoints of the copies at the start of the segment are removed and added to the state at the checkpoint (in the previous segment)
+				adjointOfCheckpointState = new RandomVariable[numberOfComponents];
+				for(int componentIndex = 0; componentIndex < numberOfComponents; componentIndex++) {
+					adjointOfCheckpointState[componentIndex] = getAdjoint(gradientOfSegment, startValue[componentIndex], null);
+				}
+			}
+
+			for(final Map.Entry<Long, RandomVariable> partialDerivative : gradientOfSegment.entrySet()) {
+				gradient.merge(partialDerivative.getKey(), partialDerivative.getValue(), RandomVariable::add);
+			}
+		}
+
+		return gradient;
+	}
+
+	/**
+	 * Removes the adjoint of the given random variable from the gradient map and adds it to the given adjoint.
+	 *
+	 * @param gradient The gradient map.
+	 * @param randomVariable A random variable (if it is not differentiable, there is no adjoint).
+	 * @param adjoint The adjoint to which the adjoint of the random variable is added (may be null).
+	 * @return The sum of the adjoints, or null if both are not present.
+	 */
+	private static RandomVariable getAdjoint(final Map<Long, RandomVariable> gradient, final RandomVariable randomVariable, final RandomVariable adjoint) {
+		if(!(randomVariable instanceof RandomVariableDifferentiable)) {
+			return adjoint;
+		}
+
+		final RandomVariable adjointOfRandomVariable = gradient.remove(((RandomVariableDifferentiable)randomVariable).getID());
+		if(adjointOfRandomVariable == null) {
+			return adjoint;
+		}
+		return adjoint != null ? adjoint.add(adjointOfRandomVariable) : adjointOfRandomVariable;
+	}
+
+	/**
+	 * Returns copies of the given random variables which are independent variables in the sense of automatic differentiation.
+	 * Random variables which are not differentiable are returned as they are.
+	 *
+	 * @param values The random variables.
+	 * @return The independent copies.
+	 */
+	private static RandomVariable[] getCloneIndependent(final RandomVariable[] values) {
+		final RandomVariable[] valuesIndependent = new RandomVariable[values.length];
+		for(int componentIndex = 0; componentIndex < values.length; componentIndex++) {
+			valuesIndependent[componentIndex] = values[componentIndex] instanceof RandomVariableDifferentiable ? ((RandomVariableDifferentiable)values[componentIndex]).getCloneIndependent() : values[componentIndex];
+		}
+		return valuesIndependent;
+	}
+
+	/**
+	 * Determines the time indices of the checkpoints: the time steps are split into <code>numberOfCheckpoints</code> segments of (almost) equal length.
+	 * The first checkpoint is the time index 0.
+	 *
+	 * @return The time indices of the checkpoints.
+	 */
+	private int[] getCheckpointTimeIndices() {
+		final int numberOfTimeSteps = getTimeDiscretization().getNumberOfTimeSteps();
+		final int numberOfSegments = Math.max(Math.min(numberOfCheckpoints, numberOfTimeSteps), 1);
+
+		final int[] timeIndices = new int[numberOfSegments];
+		for(int checkpointIndex = 0; checkpointIndex < numberOfSegments; checkpointIndex++) {
+			timeIndices[checkpointIndex] = (int)Math.round((double)checkpointIndex * numberOfTimeSteps / numberOfSegments);
+		}
+		return timeIndices;
+	}
+
+	/**
+	 * Determines for each time index if the state has to be retained.
+	 *
+	 * In addition to the retained times, the states required by the model (see {@link ProcessModel#getTimesOfRequiredStates()})
+	 * up to the last retained time are retained, such that the model can calculate its numeraire at the retained times.
+	 *
+	 * @return Array of flags, one for each time index of the time discretization.
+	 */
+	private boolean[] getIsStateRetained() {
+		final boolean[] isRetained = new boolean[getTimeDiscretization().getNumberOfTimes()];
+		if(timesOfRetainedStates == null) {
+			Arrays.fill(isRetained, true);
+			return isRetained;
+		}
+
+		isRetained[0] = true;
+		for(final double time : timesOfRetainedStates) {
+			setIsStateRetained(isRetained, time);
+		}
+
+		final TimeDiscretization timesOfRequiredStates = getModel().getTimesOfRequiredStates();
+		if(timesOfRequiredStates != null && timesOfRetainedStates.getNumberOfTimes() > 0) {
+			final double lastRetainedTime = timesOfRetainedStates.getTime(timesOfRetainedStates.getNumberOfTimes()-1);
+			for(final double time : timesOfRequiredStates) {
+				if(time <= lastRetainedTime) {
+					setIsStateRetained(isRetained, time);
+				}
+			}
+		}
+		return isRetained;
+	}
+
+	/**
+	 * Flags the state at the given time as retained. For a time not being part of the time discretization,
+	 * the states of the two neighbouring time indices are retained.
+	 *
+	 * @param isRetained Array of flags, one for each time index of the time discretization. Will be modified.
+	 * @param time The time.
+	 */
+	private void setIsStateRetained(final boolean[] isRetained, final double time) {
+		final int timeIndex = getTimeIndex(time);
+		if(timeIndex >= 0) {
+			isRetained[timeIndex] = true;
+		}
+		else {
+			// Retain the neighbouring time indices
+			final int timeIndexNext = -timeIndex-1;
+			if(timeIndexNext - 1 >= 0) {
+				isRetained[Math.min(timeIndexNext - 1, isRetained.length - 1)] = true;
+			}
+			if(timeIndexNext < isRetained.length) {
+				isRetained[timeIndexNext] = true;
+			}
+		}
+	}
+
+	/**
+	 * The realizations of a retained state over all paths, written in place by the path chunks.
+	 * Chunks with deterministic values are only recorded (their paths are filled if another chunk is stochastic).
+	 */
+	private static class AssembledState {
+
+		private final int numberOfPaths;
+
+		private double[]	realizations;
+		private float[]		realizationsSinglePrecision;
+		private final Map<Integer, RandomVariable> deterministicValuesOfChunks = new HashMap<>();
+		private final Map<Integer, Integer> endsOfDeterministicChunks = new HashMap<>();
+		private boolean isChanged = false;
+
+		AssembledState(final int numberOfPaths) {
+			this.numberOfPaths = numberOfPaths;
+		}
+
+		/**
+		 * Writes the value of a chunk.
+		 *
+		 * @param fromPath The first path of the chunk.
+		 * @param toPath The end of the chunk (exclusive).
+		 * @param valueOnChunk The value on the chunk.
+		 * @param isChangedOnChunk True, if the value differs from the value of the previous time step (i.e., the component has not stopped to evolve).
+		 */
+		void set(final int fromPath, final int toPath, final RandomVariable valueOnChunk, final boolean isChangedOnChunk) {
+			final double[] targetRealizations;
+			final float[] targetRealizationsSinglePrecision;
+			synchronized(this) {
+				isChanged |= isChangedOnChunk;
+				if(valueOnChunk.isDeterministic()) {
+					deterministicValuesOfChunks.put(fromPath, valueOnChunk);
+					endsOfDeterministicChunks.put(fromPath, toPath);
+					return;
+				}
+				// The precision is determined by the first stochastic chunk (a single precision simulation remains in single precision)
+				if(realizations == null && realizationsSinglePrecision == null) {
+					if(valueOnChunk instanceof RandomVariableFromFloatArray) {
+						realizationsSinglePrecision = new float[numberOfPaths];
+					}
+					else {
+						realizations = new double[numberOfPaths];
+					}
+				}
+				targetRealizations = realizations;
+				targetRealizationsSinglePrecision = realizationsSinglePrecision;
+			}
+
+			// The chunks write disjoint ranges
+			for(int path = fromPath; path < toPath; path++) {
+				if(targetRealizations != null) {
+					targetRealizations[path] = valueOnChunk.get(path - fromPath);
+				}
+				else {
+					targetRealizationsSinglePrecision[path] = (float)valueOnChunk.get(path - fromPath);
+				}
+			}
+		}
+
+		/**
+		 * Creates the random variable over all paths. Must not be called before all chunks have been written.
+		 *
+		 * @param time The filtration time of the random variable.
+		 * @param previousValue The value of the previous time step (if retained), otherwise null.
+		 * @param randomVariableFactory The random variable factory of the model (may be null).
+		 * @return The random variable over all paths.
+		 */
+		synchronized RandomVariable getRandomVariable(final double time, final RandomVariable previousValue, final RandomVariableFactory randomVariableFactory) {
+			// Check if the component process has stopped to evolve
+			if(!isChanged && previousValue != null) {
+				return previousValue;
+			}
+
+			if(realizations == null && realizationsSinglePrecision == null) {
+				// All chunks are deterministic
+				final RandomVariable valueOnFirstChunk = deterministicValuesOfChunks.get(0);
+				boolean isDeterministic = true;
+				for(final RandomVariable valueOnChunk : deterministicValuesOfChunks.values()) {
+					isDeterministic &= valueOnChunk.doubleValue() == valueOnFirstChunk.doubleValue();
+				}
+				if(isDeterministic) {
+					return valueOnFirstChunk;
+				}
+				realizations = new double[numberOfPaths];
+			}
+
+			// Fill the paths of the deterministic chunks
+			for(final Map.Entry<Integer, RandomVariable> deterministicValueOfChunk : deterministicValuesOfChunks.entrySet()) {
+				final int fromPath = deterministicValueOfChunk.getKey();
+				final double value = deterministicValueOfChunk.getValue().doubleValue();
+				if(realizations != null) {
+					Arrays.fill(realizations, fromPath, endsOfDeterministicChunks.get(fromPath), value);
+				}
+				else {
+					Arrays.fill(realizationsSinglePrecision, fromPath, endsOfDeterministicChunks.get(fromPath), (float)value);
+				}
+			}
+
+			if(realizations == null) {
+				return new RandomVariableFromFloatArray(time, realizationsSinglePrecision);
+			}
+			else if(randomVariableFactory != null) {
+				return randomVariableFactory.createRandomVariable(time, realizations);
+			}
+			else {
+				return new RandomVariableFromDoubleArray(time, realizations);
+			}
+		}
+	}
+
+	/**
+	 * Returns a copy of the given random variable restricted to the paths <code>fromPath</code> (inclusive) to <code>toPath</code> (exclusive).
+	 * Deterministic random variables are returned as they are. The chunk is created by the random variable factory of the model, if provided,
+	 * otherwise single precision random variables remain in single precision.
+	 *
+	 * @param randomVariable The random variable.
+	 * @param fromPath The first path of the chunk.
+	 * @param toPath The end of the chunk (exclusive).
+	 * @return The chunk of the random variable.
+	 */
+	private RandomVariable getPathChunk(final RandomVariable randomVariable, final int fromPath, final int toPath) {
+		if(randomVariable == null || randomVariable.isDeterministic()) {
+			return randomVariable;
+		}
+
+		final RandomVariableFactory randomVariableFactory = getModel().getRandomVariableFactory();
+		if(randomVariableFactory == null && randomVariable instanceof RandomVariableFromFloatArray) {
+			final float[] realizations = new float[toPath - fromPath];
+			for(int path = fromPath; path < toPath; path++) {
+				realizations[path - fromPath] = (float)randomVariable.get(path);
+			}
+			return new RandomVariableFromFloatArray(randomVariable.getFiltrationTime(), realizations);
+		}
+
+		final double[] realizations = new double[toPath - fromPath];
+		for(int path = fromPath; path < toPath; path++) {
+			realizations[path - fromPath] = randomVariable.get(path);
+		}
+		return randomVariableFactory != null ? randomVariableFactory.createRandomVariable(randomVariable.getFiltrationTime(), realizations) : new RandomVariableFromDoubleArray(randomVariable.getFiltrationTime(), realizations);
+	}
+
+	/**
+	 * Checks if the given state contains differentiable random variables.
+	 *
+	 * @param state The state of the process.
+	 * @return true, if one of the components is a differentiable random variable.
+	 */
+	private static boolean isDifferentiable(final RandomVariable[] state) {
+		if(state == null) {
+			return false;
+		}
+		for(final RandomVariable value : state) {
+			if(value instanceof RandomVariableDifferentiable) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks if the process can be generated in path chunks. This is not the case
+	 * if the model's random variable factory creates differentiable random variables or if
+	 * the initial state, the initial value, the drift, the factor loadings (at time index 0) or the increments are differentiable random variables.
+	 *
+	 * @param initialState The initial state of the process.
+	 * @return true, if the process can be generated in path chunks.
+	 */
+	private boolean isPathChunkingSupported(final RandomVariable[] initialState) {
+		if(getModel().getRandomVariableFactory() instanceof AbstractRandomVariableDifferentiableFactory) {
+			return false;
+		}
+		if(isDifferentiable(initialState) || isDifferentiable(discreteProcess[0])) {
+			return false;
+		}
+		if(getTimeDiscretization().getNumberOfTimeSteps() > 0) {
+			if(stochasticDriver instanceof BrownianMotionFromMersenneRandomNumbers || stochasticDriver instanceof BrownianMotionFromPhiloxRandomNumbers) {
+				// The chunks generate their increments, the increments over all paths are not requested
+				if(stochasticDriver.getRandomVariableForConstant(0.0) instanceof RandomVariableDifferentiable) {
+					return false;
+				}
+			}
+			else {
+				for(int factorIndex = 0; factorIndex < getNumberOfFactors(); factorIndex++) {
+					if(stochasticDriver.getIncrement(0, factorIndex) instanceof RandomVariableDifferentiable) {
+						return false;
+					}
+				}
+			}
+
+			final RandomVariable[] drift = getDrift(0, discreteProcess[0], null);
+			if(isDifferentiable(drift)) {
+				return false;
+			}
+			for(int componentIndex = 0; componentIndex < getNumberOfComponents(); componentIndex++) {
+				if(drift[componentIndex] != null && isDifferentiable(getFactorLoading(0, componentIndex, discreteProcess[0]))) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * @return Returns the numberOfPaths.
 	 */
@@ -344,14 +1237,35 @@ public class EulerSchemeFromProcessModel extends MonteCarloProcessFromProcessMod
 		return scheme;
 	}
 
+	/**
+	 * @return Returns the parallelization strategy.
+	 */
+	public ParallelizationStrategy getParallelizationStrategy() {
+		return parallelizationStrategy;
+	}
+
+	/**
+	 * @return Returns the times at which the states are retained (null if all states are retained).
+	 */
+	public TimeDiscretization getTimesOfRetainedStates() {
+		return timesOfRetainedStates;
+	}
+
+	/**
+	 * @return Returns the number of checkpoints used for the backward automatic differentiation (0 if no checkpoints are used).
+	 */
+	public int getNumberOfCheckpoints() {
+		return numberOfCheckpoints;
+	}
+
 	@Override
 	public EulerSchemeFromProcessModel clone() {
-		return new EulerSchemeFromProcessModel(getModel(), getStochasticDriver(), scheme);
+		return new EulerSchemeFromProcessModel(getModel(), getStochasticDriver(), scheme, parallelizationStrategy, timesOfRetainedStates, numberOfCheckpoints);
 	}
 
 	@Override
 	public MonteCarloProcess getCloneWithModifiedModel(ProcessModel model) {
-		return new EulerSchemeFromProcessModel(model, getStochasticDriver(), scheme);
+		return new EulerSchemeFromProcessModel(model, getStochasticDriver(), scheme, parallelizationStrategy, timesOfRetainedStates, numberOfCheckpoints);
 	}
 
 	@Override
@@ -374,18 +1288,22 @@ public class EulerSchemeFromProcessModel extends MonteCarloProcessFromProcessMod
 		}
 
 		final Scheme newScheme = (Scheme) dataModified.getOrDefault("scheme", scheme);
+		final ParallelizationStrategy newParallelizationStrategy = (ParallelizationStrategy) dataModified.getOrDefault("parallelizationStrategy", parallelizationStrategy);
+		final TimeDiscretization newTimesOfRetainedStates = (TimeDiscretization) dataModified.getOrDefault("timesOfRetainedStates", timesOfRetainedStates);
+		final int newNumberOfCheckpoints = (Integer) dataModified.getOrDefault("numberOfCheckpoints", numberOfCheckpoints);
 
-		return new EulerSchemeFromProcessModel(newModel, newStochasticDriver, newScheme);
+		return new EulerSchemeFromProcessModel(newModel, newStochasticDriver, newScheme, newParallelizationStrategy, newTimesOfRetainedStates, newNumberOfCheckpoints);
 	}
 
 	@Override
 	public Object getCloneWithModifiedSeed(final int seed) {
-		return new EulerSchemeFromProcessModel(getModel(), getStochasticDriver().getCloneWithModifiedSeed(seed));
+		return new EulerSchemeFromProcessModel(getModel(), getStochasticDriver().getCloneWithModifiedSeed(seed), scheme, parallelizationStrategy, timesOfRetainedStates, numberOfCheckpoints);
 	}
 
 	@Override
 	public String toString() {
-		return "EulerSchemeFromProcessModel [stochasticDriver=" + stochasticDriver + ", scheme=" + scheme + ", executor="
-				+ executor + "]";
+		return "EulerSchemeFromProcessModel [stochasticDriver=" + stochasticDriver + ", scheme=" + scheme
+				+ ", parallelizationStrategy=" + parallelizationStrategy + ", timesOfRetainedStates=" + timesOfRetainedStates
+				+ ", numberOfCheckpoints=" + numberOfCheckpoints + ", executor=" + executor + "]";
 	}
 }
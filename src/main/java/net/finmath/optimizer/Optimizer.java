@@ -23,6 +23,23 @@ public interface Optimizer {
 		void setValues(double[] parameters, double[] values) throws SolverException;
 	}
 
+	/**
+	 * Interface for an objective function providing its derivatives.
+	 *
+	 * Optimizers using derivatives (e.g. {@link LevenbergMarquardt}) will use <code>setDerivatives</code>
+	 * instead of their own finite difference approximation.
+	 */
+	interface ObjectiveFunctionWithDerivatives extends ObjectiveFunction {
+		/**
+		 * Calculate the derivatives of the objective function.
+		 *
+		 * @param parameters Input value. The parameter vector.
+		 * @param derivatives Output value, where derivatives[i][j] is d(value(j)) / d(parameters(i)).
+		 * @throws SolverException Thrown if the valuation fails.
+		 */
+		void setDerivatives(double[] parameters, double[][] derivatives) throws SolverException;
+	}
+
 	/**
 	 * Get the best fit parameter vector.
 	 *
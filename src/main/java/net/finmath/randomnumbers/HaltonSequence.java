@@ -10,10 +10,13 @@ import java.util.concurrent.atomic.AtomicLong;
 /**
  * Implements a multi-dimensional Halton sequence (quasi random numbers) with the given bases.
  *
+ * The sample vector with a given index is calculated directly, such that any block of the sequence can be
+ * generated independently, see {@link #getSamples(long, int, double[], int)}.
+ *
  * @author Christian Fries
  * @version 1.0
  */
-public class HaltonSequence implements RandomNumberGenerator {
+public class HaltonSequence implements IndexedRandomNumberGenerator {
 
 	private static final long serialVersionUID = -4799340450248196350L;
 
@@ -48,6 +51,20 @@ public class HaltonSequence implements RandomNumberGenerator {
 		return base.length;
 	}
 
+	@Override
+	public double[] getSample(final long index) {
+		return getHaltonNumber(index);
+	}
+
+	@Override
+	public void getSamples(final long fromIndex, final int numberOfSamples, final double[] values, final int offset) {
+		for(int i = 0; i < numberOfSamples; i++) {
+			for(int dimension = 0; dimension<base.length; dimension++) {
+				values[offset + i * base.length + dimension] = getHaltonNumberForGivenBase(fromIndex + i, base[dimension]);
+			}
+		}
+	}
+
 	public double[] getHaltonNumber(final long index) {
 		final double[] x = new double[base.length];
 		for(int dimension = 0; dimension<base.length; dimension++) {
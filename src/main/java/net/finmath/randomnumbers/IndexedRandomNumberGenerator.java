@@ -0,0 +1,33 @@
+package net.finmath.randomnumbers;
+
+/**
+ * Interface for an n-dimensional random number generator (e.g., a quasi random sequence) which allows to
+ * access the sample vector with a given index of the sequence directly.
+ *
+ * Since the sample vectors do not depend on the order of the calls, blocks of the sequence can be generated
+ * independently (e.g., by different threads) and reproducibly.
+ *
+ * @version 1.0
+ */
+public interface IndexedRandomNumberGenerator extends RandomNumberGenerator {
+
+	/**
+	 * Get the sample vector with a given index of the sequence. The method does not change the state of {@link #getNext()}.
+	 *
+	 * @param index The index of the sample vector (starting at 0).
+	 * @return The sample vector of dimension n, where n is <code>getDimension</code>.
+	 */
+	double[] getSample(long index);
+
+	/**
+	 * Fill an array with the sample vectors with index fromIndex, ..., fromIndex+numberOfSamples-1.
+	 * The component d of the sample vector with index fromIndex+i is stored in <code>values[offset + i * getDimension() + d]</code>.
+	 * The method does not change the state of {@link #getNext()}.
+	 *
+	 * @param fromIndex The index of the first sample vector.
+	 * @param numberOfSamples The number of sample vectors.
+	 * @param values The array receiving the sample vectors.
+	 * @param offset Offset into values.
+	 */
+	void getSamples(long fromIndex, int numberOfSamples, double[] values, int offset);
+}
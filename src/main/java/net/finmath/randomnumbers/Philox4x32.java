@@ -0,0 +1,147 @@
+package net.finmath.randomnumbers;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counter-based random number generator Philox-4x32-10 (Salmon, Moraes, Dror, Shaw: Parallel random numbers: as easy as 1, 2, 3, 2011).
+ *
+ * The generator is a keyed bijection of a 128 bit counter to 128 bits of random output. Hence, the random number
+ * associated with a given counter can be calculated directly, without generating the preceding numbers of the sequence.
+ * This allows to generate any block of a sequence independently (e.g., in parallel) and to re-generate
+ * numbers instead of storing them. The results do not depend on the order of the calls or the number of threads.
+ *
+ * The key is derived from the seed. The counter consists of a 64 bit index and two 32 bit sub-indices,
+ * e.g., path, time index and factor of a Brownian motion, see {@link #getBits(long, int, int, int[])}.
+ * Each counter generates two uniform random numbers, see {@link #getUniform(long, int, int, int)}.
+ *
+ * For convenience the class also implements {@link RandomNumberGenerator1D}, generating the sequence
+ * of uniforms of the counters (0,0,0), (1,0,0), (2,0,0), ...
+ *
+ * The class is immutable (except for the counter of the sequential interface) and thread safe.
+ *
+ * @version 1.0
+ */
+public class Philox4x32 implements RandomNumberGenerator1D {
+
+	private static final long serialVersionUID = -5371530658520128467L;
+
+	private static final int PHILOX_M0 = 0xD2511F53;
+	private static final int PHILOX_M1 = 0xCD9E8D57;
+	private static final int PHILOX_W0 = 0x9E3779B9;
+	private static final int PHILOX_W1 = 0xBB67AE85;
+
+	private static final int NUMBER_OF_ROUNDS = 10;
+
+	private static final double TWO_POW_MINUS_53 = 1.0 / (1L << 53);
+
+	private final int key0;
+	private final int key1;
+
+	private final AtomicLong currentIndex = new AtomicLong();
+
+	/**
+	 * Create the generator with a given seed.
+	 *
+	 * @param seed The seed (the 64 bit key of the bijection).
+	 */
+	public Philox4x32(final long seed) {
+		key0 = (int)seed;
+		key1 = (int)(seed >>> 32);
+	}
+
+	/**
+	 * Calculate the 128 random bits associated with the counter (index, subIndex1, subIndex2).
+	 *
+	 * @param index The 64 bit index (first and second word of the counter).
+	 * @param subIndex1 The third word of the counter.
+	 * @param subIndex2 The fourth word of the counter.
+	 * @param result An array of length 4 receiving the four 32 bit words of the result.
+	 */
+	public void getBits(final long index, final int subIndex1, final int subIndex2, final int[] result) {
+		getBits((int)index, (int)(index >>> 32), subIndex1, subIndex2, key0, key1, result);
+	}
+
+	/**
+	 * Get a uniform random number in (0,1) associated with the counter (index, subIndex1, subIndex2).
+	 * Each counter provides two independent uniforms, selected by <code>component</code>.
+	 *
+	 * @param index The 64 bit index.
+	 * @param subIndex1 The first sub-index (third word of the counter).
+	 * @param subIndex2 The second sub-index (fourth word of the counter).
+	 * @param component Either 0 or 1.
+	 * @return A uniform random number in the open interval (0,1).
+	 */
+	public double getUniform(final long index, final int subIndex1, final int subIndex2, final int component) {
+		final int[] bits = new int[4];
+		getBits(index, subIndex1, subIndex2, bits);
+		return component == 0 ? getUniformFromBits(bits[0], bits[1]) : getUniformFromBits(bits[2], bits[3]);
+	}
+
+	/**
+	 * Fill an array with uniform random numbers in (0,1) associated with the counters
+	 * (fromIndex/2, subIndex1, subIndex2), ..., ((fromIndex+length-1)/2, subIndex1, subIndex2), where
+	 * the element with even number i uses the first and the element with odd number i uses the second uniform
+	 * of the counter i/2.
+	 *
+	 * The result does not depend on how a range of indices is split into blocks.
+	 *
+	 * @param fromIndex The first (uniform) index.
+	 * @param subIndex1 The first sub-index (third word of the counter).
+	 * @param subIndex2 The second sub-index (fourth word of the counter).
+	 * @param values The array receiving the uniforms.
+	 * @param offset Offset into values.
+	 * @param length The number of uniforms to generate.
+	 */
+	public void getUniforms(final long fromIndex, final int subIndex1, final int subIndex2, final double[] values, final int offset, final int length) {
+		final int[] bits = new int[4];
+		long counter = -1;
+		for(int i=0; i<length; i++) {
+			final long index = fromIndex + i;
+			if((index >>> 1) != counter) {
+				counter = index >>> 1;
+				getBits(counter, subIndex1, subIndex2, bits);
+			}
+			values[offset+i] = (index & 1) == 0 ? getUniformFromBits(bits[0], bits[1]) : getUniformFromBits(bits[2], bits[3]);
+		}
+	}
+
+	@Override
+	public double nextDouble() {
+		final long index = currentIndex.getAndIncrement();
+		return getUniform(index >>> 1, 0, 0, (int)(index & 1));
+	}
+
+	private static double getUniformFromBits(final int high, final int low) {
+		final long bits = ((long)high << 32) | (low & 0xffffffffL);
+		return ((bits >>> 11) + 0.5) * TWO_POW_MINUS_53;
+	}
+
+	private static void getBits(int counter0, int counter1, int counter2, int counter3, int key0, int key1, final int[] result) {
+		for(int round=0; round<NUMBER_OF_ROUNDS; round++) {
+			if(round > 0) {
+				key0 += PHILOX_W0;
+				key1 += PHILOX_W1;
+			}
+			final long product0 = (PHILOX_M0 & 0xffffffffL) * (counter0 & 0xffffffffL);
+			final long product1 = (PHILOX_M1 & 0xffffffffL) * (counter2 & 0xffffffffL);
+			final int high0 = (int)(product0 >>> 32);
+			final int low0 = (int)product0;
+			final int high1 = (int)(product1 >>> 32);
+			final int low1 = (int)product1;
+
+			counter0 = high1 ^ counter1 ^ key0;
+			counter1 = low1;
+			counter2 = high0 ^ counter3 ^ key1;
+			counter3 = low0;
+		}
+		result[0] = counter0;
+		result[1] = counter1;
+		result[2] = counter2;
+		result[3] = counter3;
+	}
+
+	@Override
+	public String toString() {
+		return "Philox4x32 [key0=" + key0 + ", key1=" + key1 + "]";
+	}
+}
@@ -218,6 +218,21 @@ public interface RandomVariable extends Serializable {
 	 */
 	double getQuantile(double quantile);
 
+	/**
+	 * Returns the quantile values for a given array of quantile levels, i.e., the array of {@link #getQuantile(double)} for each level.
+	 * Implementations may sort the realizations once for all quantile levels.
+	 *
+	 * @param quantiles The quantile levels.
+	 * @return The quantile values assuming equi-distribution.
+	 */
+	default double[] getQuantiles(final double[] quantiles) {
+		final double[] quantileValues = new double[quantiles.length];
+		for(int i=0; i<quantiles.length; i++) {
+			quantileValues[i] = getQuantile(quantiles[i]);
+		}
+		return quantileValues;
+	}
+
 	/**
 	 * Returns the quantile value for this given random variable, i.e., the value x such that P(this &lt; x) = quantile,
 	 * where P denotes the probability measure.
@@ -0,0 +1,294 @@
+package net.finmath.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+import net.finmath.stochastic.RandomVariable;
+
+/**
+ * A thread-safe cache bounded by the (estimated) size of its values in bytes.
+ *
+ * Reads are lock-free (the entries are stored in a <code>ConcurrentHashMap</code>), writes are synchronized.
+ * If a write lets the size of the cache exceed the maximum size, entries are evicted according to the
+ * {@link EvictionPolicy} until the size of the cache is below the maximum size. A value which is larger than the maximum size
+ * is not stored.
+ *
+ * The cache records the number of hits, misses and evictions, see {@link #getStatistics()}.
+ *
+ * Note: the cache does not compute missing values. The caller has to be able to re-calculate an evicted value.
+ *
+ * @param <K> The type of the keys.
+ * @param <V> The type of the values.
+ * @version 1.0
+ */
+public class BoundedCache<K, V> {
+
+	/**
+	 * The policy used to select the entries to be evicted.
+	 */
+	public enum EvictionPolicy {
+		/** Evict the entries least recently used. */
+		LEAST_RECENTLY_USED,
+		/** Evict the entries least frequently used (ties are resolved by least recent use). */
+		LEAST_FREQUENTLY_USED
+	}
+
+	/**
+	 * The statistics of a cache (a snapshot).
+	 */
+	public static class Statistics {
+		private final long numberOfHits;
+		private final long numberOfMisses;
+		private final long numberOfEvictions;
+		private final long numberOfEntries;
+		private final long sizeInBytes;
+
+		private Statistics(final long numberOfHits, final long numberOfMisses, final long numberOfEvictions, final long numberOfEntries, final long sizeInBytes) {
+			this.numberOfHits = numberOfHits;
+			this.numberOfMisses = numberOfMisses;
+			this.numberOfEvictions = numberOfEvictions;
+			this.numberOfEntries = numberOfEntries;
+			this.sizeInBytes = sizeInBytes;
+		}
+
+		public long getNumberOfHits() {
+			return numberOfHits;
+		}
+
+		public long getNumberOfMisses() {
+			return numberOfMisses;
+		}
+
+		public long getNumberOfEvictions() {
+			return numberOfEvictions;
+		}
+
+		public long getNumberOfEntries() {
+			return numberOfEntries;
+		}
+
+		public long getSizeInBytes() {
+			return sizeInBytes;
+		}
+
+		/**
+		 * @return The ratio of hits to the number of requests (or NaN if there was no request).
+		 */
+		public double getHitRatio() {
+			return (double)numberOfHits / (numberOfHits + numberOfMisses);
+		}
+
+		@Override
+		public String toString() {
+			return "Statistics [numberOfHits=" + numberOfHits + ", numberOfMisses=" + numberOfMisses + ", numberOfEvictions="
+					+ numberOfEvictions + ", numberOfEntries=" + numberOfEntries + ", sizeInBytes=" + sizeInBytes + "]";
+		}
+	}
+
+	private static class Entry<V> {
+		private final V value;
+		private final long sizeInBytes;
+		private volatile long lastAccess;
+		private final AtomicLong numberOfAccesses = new AtomicLong();
+
+		Entry(final V value, final long sizeInBytes, final long lastAccess) {
+			this.value = value;
+			this.sizeInBytes = sizeInBytes;
+			this.lastAccess = lastAccess;
+		}
+	}
+
+	private final long					maximumSizeInBytes;
+	private final EvictionPolicy		evictionPolicy;
+	private final ToLongFunction<V>		sizeInBytesOfValue;
+
+	private final Map<K, Entry<V>>		entries = new ConcurrentHashMap<>();
+	private final AtomicLong			clock = new AtomicLong();
+	private volatile long				sizeInBytes = 0;
+
+	private final LongAdder				numberOfHits = new LongAdder();
+	private final LongAdder				numberOfMisses = new LongAdder();
+	private final LongAdder				numberOfEvictions = new LongAdder();
+
+	/**
+	 * Create a cache bounded by the size of its values in bytes.
+	 *
+	 * @param maximumSizeInBytes The maximum size of the cache in bytes (use <code>Long.MAX_VALUE</code> for an unbounded cache).
+	 * @param evictionPolicy The policy used to select the entries to be evicted.
+	 * @param sizeInBytesOfValue A function providing the (estimated) size of a value in bytes.
+	 */
+	public BoundedCache(final long maximumSizeInBytes, final EvictionPolicy evictionPolicy, final ToLongFunction<V> sizeInBytesOfValue) {
+		super();
+		if(maximumSizeInBytes < 0) {
+			throw new IllegalArgumentException("Maximum size of the cache must not be negative.");
+		}
+		this.maximumSizeInBytes = maximumSizeInBytes;
+		this.evictionPolicy = evictionPolicy;
+		this.sizeInBytesOfValue = sizeInBytesOfValue;
+	}
+
+	/**
+	 * Create a cache for random variables bounded by the size of their realizations in bytes.
+	 *
+	 * @param maximumSizeInBytes The maximum size of the cache in bytes (use <code>Long.MAX_VALUE</code> for an unbounded cache).
+	 * @param evictionPolicy The policy used to select the entries to be evicted.
+	 * @param <K> The type of the keys.
+	 * @return A new cache.
+	 */
+	public static <K> BoundedCache<K, RandomVariable> ofRandomVariables(final long maximumSizeInBytes, final EvictionPolicy evictionPolicy) {
+		return new BoundedCache<>(maximumSizeInBytes, evictionPolicy, BoundedCache::getSizeInBytes);
+	}
+
+	/**
+	 * Returns an estimate of the size of the realizations of a random variable in bytes.
+	 *
+	 * @param randomVariable A random variable.
+	 * @return The estimated size of the realizations in bytes.
+	 */
+	public static long getSizeInBytes(final RandomVariable randomVariable) {
+		return randomVariable.isDeterministic() ? Double.BYTES : (long)Double.BYTES * randomVariable.size();
+	}
+
+	/**
+	 * Returns the value stored under the given key or null, if the cache does not contain the key.
+	 *
+	 * @param key The key.
+	 * @return The value stored under the given key or null.
+	 */
+	public V get(final K key) {
+		final Entry<V> entry = entries.get(key);
+		if(entry == null) {
+			numberOfMisses.increment();
+			return null;
+		}
+
+		numberOfHits.increment();
+		entry.lastAccess = clock.incrementAndGet();
+		entry.numberOfAccesses.incrementAndGet();
+		return entry.value;
+	}
+
+	/**
+	 * Store a value under the given key, possibly evicting other entries.
+	 *
+	 * @param key The key.
+	 * @param value The value (not null).
+	 */
+	public synchronized void put(final K key, final V value) {
+		final long sizeInBytesOfEntry = sizeInBytesOfValue.applyAsLong(value);
+
+		final Entry<V> previousEntry = entries.remove(key);
+		if(previousEntry != null) {
+			sizeInBytes -= previousEntry.sizeInBytes;
+		}
+
+		if(sizeInBytesOfEntry > maximumSizeInBytes) {
+			return;
+		}
+
+		entries.put(key, new Entry<>(value, sizeInBytesOfEntry, clock.incrementAndGet()));
+		sizeInBytes += sizeInBytesOfEntry;
+
+		if(sizeInBytes > maximumSizeInBytes) {
+			evict(key);
+		}
+	}
+
+	/**
+	 * Remove the value stored under the given key.
+	 *
+	 * @param key The key.
+	 */
+	public synchronized void remove(final K key) {
+		final Entry<V> entry = entries.remove(key);
+		if(entry != null) {
+			sizeInBytes -= entry.sizeInBytes;
+		}
+	}
+
+	/**
+	 * Remove all entries. The statistics are not reset.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		sizeInBytes = 0;
+	}
+
+	/**
+	 * @return The number of entries.
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return The (estimated) size of the stored values in bytes.
+	 */
+	public long getSizeInBytes() {
+		return sizeInBytes;
+	}
+
+	/**
+	 * @return The maximum size of the cache in bytes.
+	 */
+	public long getMaximumSizeInBytes() {
+		return maximumSizeInBytes;
+	}
+
+	/**
+	 * @return The policy used to select the entries to be evicted.
+	 */
+	public EvictionPolicy getEvictionPolicy() {
+		return evictionPolicy;
+	}
+
+	/**
+	 * @return A snapshot of the statistics of this cache.
+	 */
+	public Statistics getStatistics() {
+		return new Statistics(numberOfHits.sum(), numberOfMisses.sum(), numberOfEvictions.sum(), entries.size(), sizeInBytes);
+	}
+
+	/*
+	 * Evict entries (except the given one) until the size is below the maximum size. Called while holding the lock.
+	 */
+	private void evict(final K keyToRetain) {
+		final List<Map.Entry<K, Entry<V>>> candidates = new ArrayList<>(entries.entrySet());
+
+		final Comparator<Map.Entry<K, Entry<V>>> leastRecentlyUsed = Comparator.comparingLong(entry -> entry.getValue().lastAccess);
+		switch(evictionPolicy) {
+		case LEAST_RECENTLY_USED:
+			candidates.sort(leastRecentlyUsed);
+			break;
+		case LEAST_FREQUENTLY_USED:
+			candidates.sort(Comparator.<Map.Entry<K, Entry<V>>>comparingLong(entry -> entry.getValue().numberOfAccesses.get()).thenComparing(leastRecentlyUsed));
+			break;
+		default:
+			throw new IllegalArgumentException("Eviction policy " + evictionPolicy + " not supported.");
+		}
+
+		for(final Map.Entry<K, Entry<V>> candidate : candidates) {
+			if(sizeInBytes <= maximumSizeInBytes) {
+				break;
+			}
+			if(candidate.getKey().equals(keyToRetain)) {
+				continue;
+			}
+			entries.remove(candidate.getKey());
+			sizeInBytes -= candidate.getValue().sizeInBytes;
+			numberOfEvictions.increment();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "BoundedCache [maximumSizeInBytes=" + maximumSizeInBytes + ", evictionPolicy=" + evictionPolicy
+				+ ", statistics=" + getStatistics() + "]";
+	}
+}
@@ -27,6 +27,7 @@ public class FDMConstantElasticityOfVarianceModel implements FiniteDifference1DM
 	private final int numStandardDeviations;
 	private final double center;
 	private final double theta;
+	private final FDMThetaMethod.LinearSystemSolver linearSystemSolver;
 
 	public FDMConstantElasticityOfVarianceModel(
 			int numTimesteps,
@@ -37,7 +38,8 @@ public class FDMConstantElasticityOfVarianceModel implements FiniteDifference1DM
 			double initialValue,
 			double riskFreeRate,
 			double volatility,
-			double exponent) {
+			double exponent,
+			FDMThetaMethod.LinearSystemSolver linearSystemSolver) {
 		this.initialValue = initialValue;
 		this.riskFreeRate = riskFreeRate;
 		this.volatility = volatility;
@@ -48,6 +50,20 @@ public class FDMConstantElasticityOfVarianceModel implements FiniteDifference1DM
 		this.numStandardDeviations = numStandardDeviations;
 		this.center = center;
 		this.theta = theta;
+		this.linearSystemSolver = linearSystemSolver;
+	}
+
+	public FDMConstantElasticityOfVarianceModel(
+			int numTimesteps,
+			int numSpacesteps,
+			int numStandardDeviations,
+			double center,
+			double theta,
+			double initialValue,
+			double riskFreeRate,
+			double volatility,
+			double exponent) {
+		this(numTimesteps, numSpacesteps, numStandardDeviations, center, theta, initialValue, riskFreeRate, volatility, exponent, FDMThetaMethod.LinearSystemSolver.LU_DECOMPOSITION);
 	}
 
 	/* (non-Javadoc)
@@ -110,7 +126,7 @@ public class FDMConstantElasticityOfVarianceModel implements FiniteDifference1DM
 	 */
 	@Override
 	public double[][] getValue(double evaluationTime, double time, DoubleUnaryOperator values, FiniteDifference1DBoundary boundary) {
-		final FDMThetaMethod solver = new FDMThetaMethod(this, boundary, time, center, theta);
+		final FDMThetaMethod solver = new FDMThetaMethod(this, boundary, time, center, theta, linearSystemSolver);
 		return solver.getValue(evaluationTime, time, values);
 	}
 
@@ -15,6 +15,11 @@ import net.finmath.finitedifference.models.FiniteDifference1DModel;
  * Theta method for local volatility PDE.
  * This is where the real stuff happens.
  *
+ * The linear system of each time step can be solved either by a dense LU decomposition
+ * (the default) or by the Thomas algorithm operating on the three diagonals of the
+ * (tridiagonal) system matrix, see {@link LinearSystemSolver}. The latter requires O(N) memory
+ * and O(N) operations per time step, where N is the number of space steps.
+ *
  * @author Ralph Rudd
  * @author Christian Fries
  * @author Jörg Kienitz
@@ -22,18 +27,54 @@ import net.finmath.finitedifference.models.FiniteDifference1DModel;
 
 
 public class FDMThetaMethod {
+
+	/**
+	 * Method used to solve the linear system of a time step.
+	 */
+	public enum LinearSystemSolver {
+		/** Dense matrices with an LU decomposition of the system matrix in each time step. */
+		LU_DECOMPOSITION,
+		/** Primitive diagonals with the Thomas algorithm (tridiagonal matrix algorithm), no pivoting. */
+		TRIDIAGONAL
+	}
+
 	private final FiniteDifference1DModel model;
 	private final FiniteDifference1DBoundary boundaryCondition;
 	private final double theta;
 	private final double center;
 	private final double timeHorizon;
+	private final LinearSystemSolver linearSystemSolver;
 
-	public FDMThetaMethod(FiniteDifference1DModel model, FiniteDifference1DBoundary boundaryCondition, double timeHorizon, double center, double theta) {
+	/**
+	 * Create the theta method solver.
+	 *
+	 * @param model The model.
+	 * @param boundaryCondition The boundary condition.
+	 * @param timeHorizon The time horizon (maturity of the product).
+	 * @param center The center of the grid.
+	 * @param theta The theta of the theta method (0 = explicit, 1 = implicit, 0.5 = Crank-Nicolson).
+	 * @param linearSystemSolver The method used to solve the linear system in each time step.
+	 */
+	public FDMThetaMethod(FiniteDifference1DModel model, FiniteDifference1DBoundary boundaryCondition, double timeHorizon, double center, double theta, LinearSystemSolver linearSystemSolver) {
 		this.model = model;
 		this.boundaryCondition = boundaryCondition;
 		this.timeHorizon = timeHorizon;
 		this.center = center;
 		this.theta = theta;
+		this.linearSystemSolver = linearSystemSolver;
+	}
+
+	/**
+	 * Create the theta method solver using a dense LU decomposition in each time step.
+	 *
+	 * @param model The model.
+	 * @param boundaryCondition The boundary condition.
+	 * @param timeHorizon The time horizon (maturity of the product).
+	 * @param center The center of the grid.
+	 * @param theta The theta of the theta method (0 = explicit, 1 = implicit, 0.5 = Crank-Nicolson).
+	 */
+	public FDMThetaMethod(FiniteDifference1DModel model, FiniteDifference1DBoundary boundaryCondition, double timeHorizon, double center, double theta) {
+		this(model, boundaryCondition, timeHorizon, center, theta, LinearSystemSolver.LU_DECOMPOSITION);
 	}
 
 	public double[][] getValue(double evaluationTime, double time, DoubleUnaryOperator valueAtMaturity) {
@@ -44,6 +85,10 @@ public class FDMThetaMethod {
 			throw new IllegalArgumentException("Given time != timeHorizon not supported.");
 		}
 
+		if(linearSystemSolver == LinearSystemSolver.TRIDIAGONAL) {
+			return getValueUsingTridiagonalSolver(valueAtMaturity);
+		}
+
 		// Grid Generation
 		final double maximumStockPriceOnGrid = model.getForwardValue(timeHorizon)
 				+ model.getNumStandardDeviations() * Math.sqrt(model.varianceOfStockPrice(timeHorizon));
@@ -157,6 +202,153 @@ public class FDMThetaMethod {
 		return stockAndOptionPrice;
 	}
 
+	/**
+	 * Theta method operating on the three diagonals of the system.
+	 * The matrices D1, D2, T1, T2 of the dense implementation are never formed, their products
+	 * are evaluated row by row and the system is solved with the Thomas algorithm.
+	 *
+	 * @param valueAtMaturity The payoff function.
+	 * @return The grid of stock prices (index 0) and option values (index 1).
+	 */
+	private double[][] getValueUsingTridiagonalSolver(DoubleUnaryOperator valueAtMaturity) {
+		// Grid Generation
+		final double maximumStockPriceOnGrid = model.getForwardValue(timeHorizon)
+				+ model.getNumStandardDeviations() * Math.sqrt(model.varianceOfStockPrice(timeHorizon));
+		final double minimumStockPriceOnGrid = Math.max(model.getForwardValue(timeHorizon)
+				- model.getNumStandardDeviations() * Math.sqrt(model.varianceOfStockPrice(timeHorizon)), 0);
+		final double deltaStock = (maximumStockPriceOnGrid - minimumStockPriceOnGrid) / model.getNumSpacesteps();
+		final double deltaTau = timeHorizon / model.getNumTimesteps();
+		final double riskFreeRate = model.getRiskFreeRate();
+
+		// Create interior spatial array of stock prices
+		final int spaceLength = model.getNumSpacesteps() - 1;
+		final double[] stock = new double[spaceLength];
+		for (int i= 0; i < spaceLength; i++) {
+			stock[i] = minimumStockPriceOnGrid + (i + 1) * deltaStock;
+		}
+
+		/*
+		 * Constant parts of the rows of F2 = 0.5 r dt D1 T1 (sub-diagonal -drift, super-diagonal +drift)
+		 * and F3 = 0.5 dt D2 T2 (sub- and super-diagonal +diffusion, diagonal -2 diffusion).
+		 */
+		final double[] drift = new double[spaceLength];
+		final double[] diffusion = new double[spaceLength];
+		for (int i = 0; i < spaceLength; i++) {
+			final double scaledStock = minimumStockPriceOnGrid / deltaStock + (i + 1);
+			drift[i] = 0.5 * riskFreeRate * deltaTau * scaledStock;
+			diffusion[i] = 0.5 * deltaTau * scaledStock * scaledStock;
+		}
+
+		// Work arrays
+		double[] U = new double[spaceLength];
+		double[] rightHandSide = new double[spaceLength];
+		final double[] lower = new double[spaceLength];
+		final double[] diagonal = new double[spaceLength];
+		final double[] upper = new double[spaceLength];
+		for (int i = 0; i < spaceLength; i++) {
+			U[i] = valueAtMaturity.applyAsDouble(stock[i]);
+		}
+
+		// Theta finite difference method
+		for (int m = 0; m < model.getNumTimesteps(); m++) {
+			final double tau = m * deltaTau;
+			final double tauNext = (m + 1) * deltaTau;
+
+			/*
+			 * Right hand side ((1-theta) F + theta I) U and system matrix H = theta G + (1-theta) I, where
+			 * F = (1 - r dt) I + F2 + Sigma F3 and G = (1 + r dt) I - F2 - Sigma2 F3.
+			 */
+			for (int i = 0; i < spaceLength; i++) {
+				final double sigma = Math.pow(model.getLocalVolatility(stock[i], timeHorizon - tau), 2);
+				final double sigma2 = Math.pow(model.getLocalVolatility(stock[i], timeHorizon - tauNext), 2);
+
+				final double explicitLower = (1 - theta) * (-drift[i] + sigma * diffusion[i]);
+				final double explicitDiagonal = (1 - theta) * (1 - riskFreeRate * deltaTau - 2 * sigma * diffusion[i]) + theta;
+				final double explicitUpper = (1 - theta) * (drift[i] + sigma * diffusion[i]);
+
+				double value = explicitDiagonal * U[i];
+				if(i > 0) {
+					value += explicitLower * U[i-1];
+				}
+				if(i < spaceLength-1) {
+					value += explicitUpper * U[i+1];
+				}
+				rightHandSide[i] = value;
+
+				lower[i] = theta * (drift[i] - sigma2 * diffusion[i]);
+				diagonal[i] = theta * (1 + riskFreeRate * deltaTau + 2 * sigma2 * diffusion[i]) + (1 - theta);
+				upper[i] = theta * (-drift[i] - sigma2 * diffusion[i]);
+			}
+
+			// Boundary vectors b (at tau) and b2 (at tau + dtau)
+			final double Sl = (minimumStockPriceOnGrid / deltaStock + 1);
+			final double Su = (maximumStockPriceOnGrid / deltaStock - 1);
+			final double vl = Math.pow(model.getLocalVolatility(minimumStockPriceOnGrid + deltaStock,
+					timeHorizon - tau), 2);
+			final double vu = Math.pow(model.getLocalVolatility(maximumStockPriceOnGrid - deltaStock,
+					timeHorizon - tau), 2);
+			final double vl2 = Math.pow(model.getLocalVolatility(minimumStockPriceOnGrid + deltaStock,
+					timeHorizon - tauNext), 2);
+			final double vu2 = Math.pow(model.getLocalVolatility(maximumStockPriceOnGrid - deltaStock,
+					timeHorizon - tauNext), 2);
+
+			final double lowerBoundary = (1 - theta) * 0.5 * deltaTau * Sl * (vl * Sl - riskFreeRate) * timeReversedLowerBoundary(minimumStockPriceOnGrid, tau)
+					+ theta * 0.5 * deltaTau * Sl * (vl2 * Sl - riskFreeRate) * timeReversedLowerBoundary(minimumStockPriceOnGrid, tauNext);
+			final double upperBoundary = (1 - theta) * 0.5 * deltaTau * Su * (vu * Su + riskFreeRate) * timeReversedUpperBoundary(maximumStockPriceOnGrid, tau)
+					+ theta * 0.5 * deltaTau * Su * (vu2 * Su + riskFreeRate) * timeReversedUpperBoundary(maximumStockPriceOnGrid, tauNext);
+			if(spaceLength == 1) {
+				rightHandSide[0] += upperBoundary;
+			}
+			else {
+				rightHandSide[0] += lowerBoundary;
+				rightHandSide[spaceLength - 1] += upperBoundary;
+			}
+
+			solveTridiagonalSystem(lower, diagonal, upper, rightHandSide, U);
+
+			// Swap buffers: rightHandSide is overwritten in the next step
+			final double[] swap = U;
+			U = rightHandSide;
+			rightHandSide = swap;
+		}
+
+		final double[][] stockAndOptionPrice = new double[2][spaceLength];
+		stockAndOptionPrice[0] = stock;
+		stockAndOptionPrice[1] = U;
+		return stockAndOptionPrice;
+	}
+
+	/**
+	 * Solve the tridiagonal system A x = d using the Thomas algorithm.
+	 * The algorithm does not pivot, it is stable if A is diagonally dominant.
+	 *
+	 * The diagonals of A are left unchanged, the solution x is written to <code>rightHandSide</code>.
+	 *
+	 * @param lower The sub-diagonal of A, where <code>lower[i]</code> is the element A(i,i-1) (<code>lower[0]</code> is ignored).
+	 * @param diagonal The diagonal of A.
+	 * @param upper The super-diagonal of A, where <code>upper[i]</code> is the element A(i,i+1) (last element is ignored).
+	 * @param rightHandSide The right hand side d. Will be overwritten by the solution.
+	 * @param workspace Work array of the same length (content will be destroyed).
+	 */
+	static void solveTridiagonalSystem(double[] lower, double[] diagonal, double[] upper, double[] rightHandSide, double[] workspace) {
+		final int n = diagonal.length;
+
+		// Forward elimination, workspace holds the modified super-diagonal
+		double pivot = diagonal[0];
+		workspace[0] = upper[0] / pivot;
+		rightHandSide[0] = rightHandSide[0] / pivot;
+		for(int i = 1; i < n; i++) {
+			pivot = diagonal[i] - lower[i] * workspace[i-1];
+			workspace[i] = upper[i] / pivot;
+			rightHandSide[i] = (rightHandSide[i] - lower[i] * rightHandSide[i-1]) / pivot;
+		}
+
+		// Back substitution
+		for(int i = n-2; i >= 0; i--) {
+			rightHandSide[i] -= workspace[i] * rightHandSide[i+1];
+		}
+	}
+
 	// Time-reversed Boundary Conditions
 	//    private double U_initial(double stockPrice, double tau) {
 	//        return valueAtMaturity
@@ -1,7 +1,14 @@
 package net.finmath.fouriermethod.calibration;
 
 import java.util.ArrayList;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 
 import org.apache.commons.lang3.ArrayUtils;
@@ -36,6 +43,9 @@ import net.finmath.optimizer.SolverException;
  * To change the calibration entity please change the convention in the option surface.
  * The calibration entity (i.e. price/vol/normal vol) is directly detected from market data.
  *
+ * The smiles of the different maturities may be evaluated concurrently (see {@link #CalibratedModel(OptionSurfaceData, CalibratableProcess, OptimizerFactory, EuropeanOptionSmile, double[], double[], boolean)})
+ * and the calibration may be started from several initial parameters in parallel (see {@link #getCalibration(List)}).
+ *
  * @author Alessandro Gnoatto
  */
 public class CalibratedModel {
@@ -51,6 +61,8 @@ public class CalibratedModel {
 	private final double[] upperBound;
 	private final double[] parameterStep;
 
+	private final boolean isMaturitiesInParallel;
+
 	/**
 	 * Create the calibration from data.
 	 *
@@ -60,10 +72,11 @@ public class CalibratedModel {
 	 * @param pricer How do we compute prices: Carr Madan, Cos, Conv, Lewis...
 	 * @param initialParameters Initial parameters
 	 * @param parameterStep Parameter steps.
+	 * @param isMaturitiesInParallel If true, the smiles of the different maturities are evaluated concurrently in each evaluation of the objective function.
 	 */
 	public CalibratedModel(final OptionSurfaceData surface, final CalibratableProcess model,
 			final OptimizerFactory optimizerFactory, final EuropeanOptionSmile pricer, final double[] initialParameters,
-			final double[] parameterStep) {
+			final double[] parameterStep, final boolean isMaturitiesInParallel) {
 		super();
 		this.surface = surface;
 		this.model = model;
@@ -73,6 +86,23 @@ public class CalibratedModel {
 		lowerBound = model.getParameterLowerBounds();
 		upperBound = model.getParameterUpperBounds();
 		this.parameterStep = parameterStep;
+		this.isMaturitiesInParallel = isMaturitiesInParallel;
+	}
+
+	/**
+	 * Create the calibration from data. The smiles of the different maturities are evaluated sequentially.
+	 *
+	 * @param surface The target calibration instruments. They dictate the calibration entity: vol/price.
+	 * @param model The model to calibrate.
+	 * @param optimizerFactory Factory providing the optimizer to use.
+	 * @param pricer How do we compute prices: Carr Madan, Cos, Conv, Lewis...
+	 * @param initialParameters Initial parameters
+	 * @param parameterStep Parameter steps.
+	 */
+	public CalibratedModel(final OptionSurfaceData surface, final CalibratableProcess model,
+			final OptimizerFactory optimizerFactory, final EuropeanOptionSmile pricer, final double[] initialParameters,
+			final double[] parameterStep) {
+		this(surface, model, optimizerFactory, pricer, initialParameters, parameterStep, false);
 	}
 
 	/**
@@ -82,63 +112,94 @@ public class CalibratedModel {
 	 * @throws SolverException Thrown if the calibration problem cannot be solved.
 	 */
 	public OptimizationResult getCalibration() throws SolverException {
+		return getCalibration(initialParameters);
+	}
 
-		final Optimizer.ObjectiveFunction objectiveFunction = new Optimizer.ObjectiveFunction() {
-			@Override
-			public void setValues(final double[] parameters, final double[] values) {
-
-				//We change the parameters of the model
-				final CalibratableProcess newModel = model.getCloneForModifiedParameters(parameters);
-				final CharacteristicFunctionModel newModelFourier = newModel.getCharacteristicFunctionModel();
-
-				final int numberOfMaturities = surface.getMaturities().length;
-				final double[] mats = surface.getMaturities();
-
-				final QuotingConvention targetConvention = surface.getQuotingConvention();
-
-				final ArrayList<Double> vals = new ArrayList<>();
-
-				for(int t = 0; t<numberOfMaturities; t++) {
-
-					final double[] currentStrikes = surface.getSmile(mats[t]).getStrikes();
-
-					final EuropeanOptionSmile newPricer = pricer.getCloneWithModifiedParameters(mats[t],currentStrikes);
-
-					try {
-						final Map<String, Function<Double, Double>> currentModelPrices = newPricer.getValue(0.0, newModelFourier);
+	/**
+	 * Solves the calibration problem from several initial parameters (multi-start) and returns the best fit,
+	 * i.e., the calibration with the smallest root mean squared error.
+	 *
+	 * The optimizations are run concurrently on a dedicated thread pool (which is shut down on return), such that
+	 * they do not compete with the concurrent evaluation of the maturities (which uses the common fork join pool).
+	 * Starts where the optimizer fails or which do not result in a finite root mean squared error are ignored,
+	 * unless all starts fail.
+	 *
+	 * @param initialParametersOfStarts A list of initial parameters, one for each start of the optimizer.
+	 * @return the calibrated model of the best start wrapped in an {@link OptimizationResult}.
+	 * @throws SolverException Thrown if the calibration problem cannot be solved from any of the initial parameters.
+	 */
+	public OptimizationResult getCalibration(final List<double[]> initialParametersOfStarts) throws SolverException {
+		if(initialParametersOfStarts.isEmpty()) {
+			throw new IllegalArgumentException("At least one set of initial parameters is required.");
+		}
 
-						for(int i = 0; i<currentStrikes.length;i++) {
+		final List<Callable<OptimizationResult>> calibrations = new ArrayList<>();
+		for(final double[] initialParametersOfStart : initialParametersOfStarts) {
+			calibrations.add(new Callable<OptimizationResult>() {
+				@Override
+				public OptimizationResult call() throws SolverException {
+					return getCalibration(initialParametersOfStart);
+				}
+			});
+		}
 
-							if(targetConvention.equals(QuotingConvention.VOLATILITYLOGNORMAL)) {
-								//we convert prices into lognormal volatilities
-								final double forward = surface.getEquityForwardCurve().getDiscountFactor(mats[t]);
-								final double optionMaturity =mats[t];
-								final double optionStrike = currentStrikes[i];
-								final double payoffUnit = surface.getDiscountCurve().getDiscountFactor(mats[t]);
-								final double optionValue = currentModelPrices.get("valuePerStrike").apply(optionStrike);
-								vals.add(net.finmath.functions.AnalyticFormulas.blackScholesOptionImpliedVolatility(forward, optionMaturity, optionStrike, payoffUnit, optionValue));
+		final ExecutorService executor = Executors.newFixedThreadPool(Math.min(calibrations.size(), Runtime.getRuntime().availableProcessors()));
+
+		OptimizationResult bestResult = null;
+		SolverException firstException = null;
+		try {
+			for(final Future<OptimizationResult> result : executor.invokeAll(calibrations)) {
+				try {
+					final OptimizationResult optimizationResult = result.get();
+					final double rootMeanSquaredError = optimizationResult.getRootMeanSquaredError();
+					if(!(rootMeanSquaredError < Double.POSITIVE_INFINITY)) {
+						// The start has no valid evaluation (the error is NaN or infinite)
+						continue;
+					}
+					if(bestResult == null || !(bestResult.getRootMeanSquaredError() <= rootMeanSquaredError)) {
+						bestResult = optimizationResult;
+					}
+				}
+				catch(final ExecutionException e) {
+					if(!(e.getCause() instanceof SolverException)) {
+						throw new RuntimeException("Calibration failed. See cause of this exception for details.", e.getCause());
+					}
+					if(firstException == null) {
+						firstException = (SolverException)e.getCause();
+					}
+				}
+			}
+		}
+		catch(final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SolverException(e);
+		}
+		finally {
+			executor.shutdown();
+		}
 
+		if(bestResult == null) {
+			throw firstException != null ? firstException : new SolverException("Calibration failed: no start resulted in a finite root mean squared error.");
+		}
 
-							}else if(targetConvention.equals(QuotingConvention.VOLATILITYNORMAL)) {
-								//we convert prices into normal volatilities
-								final double forward = surface.getEquityForwardCurve().getDiscountFactor(mats[t]);
-								final double optionMaturity =mats[t];
-								final double optionStrike = currentStrikes[i];
-								final double payoffUnit = surface.getDiscountCurve().getDiscountFactor(mats[t]);
-								final double optionValue = currentModelPrices.get("valuePerStrike").apply(optionStrike);
-								vals.add(net.finmath.functions.AnalyticFormulas.bachelierOptionImpliedVolatility(forward, optionMaturity, optionStrike, payoffUnit, optionValue));
-							}else {
-								//just output the prices
-								vals.add(currentModelPrices.get("valuePerStrike").apply(currentStrikes[i]));
-							}
+		return bestResult;
+	}
 
-						}
-					} catch (final CalculationException e) {
-						e.printStackTrace();
-					}
+	private OptimizationResult getCalibration(final double[] initialParameters) throws SolverException {
 
+		final Optimizer.ObjectiveFunction objectiveFunction = new Optimizer.ObjectiveFunction() {
+			@Override
+			public void setValues(final double[] parameters, final double[] values) throws SolverException {
+				try {
+					/*
+					 * A model value without implied volatility is NaN (only this entry, not the whole evaluation). The optimizer
+					 * rejects an evaluation with a NaN value, while the finite difference derivatives of the other values remain valid.
+					 */
+					System.arraycopy(getModelValues(parameters), 0, values, 0, values.length);
+				}
+				catch(final CalculationException e) {
+					throw new SolverException(e);
 				}
-				for(int i = 0; i<values.length; i++) {values[i] = vals.get(i);}
 			}
 		};
 
@@ -160,6 +221,117 @@ public class CalibratedModel {
 		return new OptimizationResult(calibratedModel, optimizer.getBestFitParameters(), optimizer.getIterations(), optimizer.getRootMeanSquaredError(), calibrationOutput);
 	}
 
+	/**
+	 * Calculate the model values of all calibration instruments (in the order of the target values).
+	 *
+	 * The smile of each maturity is obtained from a single valuation of the pricer (e.g. one FFT for all strikes).
+	 * If requested, the maturities are evaluated concurrently.
+	 *
+	 * @param parameters The model parameters.
+	 * @return The model values in the calibration entity of the surface (price, log-normal or normal volatility).
+	 * @throws CalculationException Thrown if the valuation fails.
+	 */
+	private double[] getModelValues(final double[] parameters) throws CalculationException {
+
+		//We change the parameters of the model
+		final CalibratableProcess newModel = model.getCloneForModifiedParameters(parameters);
+		final CharacteristicFunctionModel newModelFourier = newModel.getCharacteristicFunctionModel();
+
+		final double[] mats = surface.getMaturities();
+
+		final double[][] valuesPerMaturity = new double[mats.length][];
+		if(isMaturitiesInParallel && mats.length > 1) {
+			final List<Callable<double[]>> valuations = new ArrayList<>();
+			for(final double maturity : mats) {
+				valuations.add(new Callable<double[]>() {
+					@Override
+					public double[] call() throws CalculationException {
+						return getModelValues(newModelFourier, maturity);
+					}
+				});
+			}
+
+			try {
+				final List<Future<double[]>> results = ForkJoinPool.commonPool().invokeAll(valuations);
+				for(int t = 0; t < mats.length; t++) {
+					valuesPerMaturity[t] = results.get(t).get();
+				}
+			}
+			catch(final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new CalculationException(e);
+			}
+			catch(final ExecutionException e) {
+				if(e.getCause() instanceof CalculationException) {
+					throw (CalculationException)e.getCause();
+				}
+				throw new RuntimeException("Valuation of smile failed. See cause of this exception for details.", e.getCause());
+			}
+		}
+		else {
+			for(int t = 0; t < mats.length; t++) {
+				valuesPerMaturity[t] = getModelValues(newModelFourier, mats[t]);
+			}
+		}
+
+		int numberOfValues = 0;
+		for(final double[] values : valuesPerMaturity) {
+			numberOfValues += values.length;
+		}
+
+		final double[] values = new double[numberOfValues];
+		int valueIndex = 0;
+		for(final double[] valuesOfMaturity : valuesPerMaturity) {
+			System.arraycopy(valuesOfMaturity, 0, values, valueIndex, valuesOfMaturity.length);
+			valueIndex += valuesOfMaturity.length;
+		}
+		return values;
+	}
+
+	/**
+	 * Calculate the model values of the smile of a given maturity.
+	 *
+	 * @param modelFourier The model.
+	 * @param maturity The maturity of the smile.
+	 * @return The model values in the calibration entity of the surface (price, log-normal or normal volatility).
+	 * @throws CalculationException Thrown if the valuation fails.
+	 */
+	private double[] getModelValues(final CharacteristicFunctionModel modelFourier, final double maturity) throws CalculationException {
+
+		final double[] currentStrikes = surface.getSmile(maturity).getStrikes();
+
+		final EuropeanOptionSmile newPricer = pricer.getCloneWithModifiedParameters(maturity, currentStrikes);
+		final Function<Double, Double> valuePerStrike = newPricer.getValue(0.0, modelFourier).get("valuePerStrike");
+
+		final double[] prices = new double[currentStrikes.length];
+		for(int i = 0; i < currentStrikes.length; i++) {
+			prices[i] = valuePerStrike.apply(currentStrikes[i]);
+		}
+
+		final QuotingConvention targetConvention = surface.getQuotingConvention();
+		if(targetConvention.equals(QuotingConvention.VOLATILITYLOGNORMAL) || targetConvention.equals(QuotingConvention.VOLATILITYNORMAL)) {
+			//we convert prices into implied volatilities
+			final double[] forwards = new double[currentStrikes.length];
+			final double[] optionMaturities = new double[currentStrikes.length];
+			final double[] payoffUnits = new double[currentStrikes.length];
+			Arrays.fill(forwards, surface.getEquityForwardCurve().getDiscountFactor(maturity));
+			Arrays.fill(optionMaturities, maturity);
+			Arrays.fill(payoffUnits, surface.getDiscountCurve().getDiscountFactor(maturity));
+
+			// A strike without implied volatility results in NaN (only for this strike)
+			if(targetConvention.equals(QuotingConvention.VOLATILITYLOGNORMAL)) {
+				return net.finmath.functions.AnalyticFormulas.blackScholesOptionImpliedVolatility(forwards, optionMaturities, currentStrikes, payoffUnits, prices);
+			}
+			else {
+				return net.finmath.functions.AnalyticFormulas.bachelierOptionImpliedVolatility(forwards, optionMaturities, currentStrikes, payoffUnits, prices);
+			}
+		}
+		else {
+			//just output the prices
+			return prices;
+		}
+	}
+
 	/**
 	 * This is a service method that takes care of putting al the target values in a single array.
 	 * @return
@@ -191,69 +363,35 @@ public class CalibratedModel {
 	 *
 	 * @param parameters Calibration parameters.
 	 */
-	private ArrayList<String> outputCalibrationResult(final double[] parameters) {
+	private ArrayList<String> outputCalibrationResult(final double[] parameters) throws SolverException {
 
 		final ArrayList<String> calibrationOutput = new ArrayList<>();
 
-		//We change the parameters of the model
-		final CalibratableProcess newModel = model.getCloneForModifiedParameters(parameters);
-		final CharacteristicFunctionModel newModelFourier = newModel.getCharacteristicFunctionModel();
+		final double[] modelValues;
+		try {
+			modelValues = getModelValues(parameters);
+		}
+		catch(final CalculationException e) {
+			throw new SolverException(e);
+		}
 
-		final int numberOfMaturities = surface.getMaturities().length;
 		final double[] mats = surface.getMaturities();
 
-		final QuotingConvention targetConvention = surface.getQuotingConvention();
-
-		double value;
-		double targetValue;
-		double T;
-		double K;
-
 		calibrationOutput.add("Strike"+ "\t" + "Maturity"+ "\t" + "Market Value" + "\t" + "Model Value" + "\t" + "Squared Error");
 
-		for(int t = 0; t<numberOfMaturities; t++) {
-			T = mats[t];
+		int valueIndex = 0;
+		for(int t = 0; t<mats.length; t++) {
+			final double T = mats[t];
 			final OptionSmileData currentSmile = surface.getSmile(mats[t]);
 			final double[] currentStrikes = currentSmile.getStrikes();
 
-			final EuropeanOptionSmile newPricer = pricer.getCloneWithModifiedParameters(mats[t],currentStrikes);
+			for(int i = 0; i<currentStrikes.length;i++) {
+				final double K = currentStrikes[i];
+				final double targetValue = currentSmile.getOption(currentStrikes[i]).getValue();
+				final double value = modelValues[valueIndex++];
 
-			try {
-				final Map<String, Function<Double, Double>> currentModelPrices = newPricer.getValue(0.0, newModelFourier);
-
-				for(int i = 0; i<currentStrikes.length;i++) {
-					K = currentStrikes[i];
-					targetValue = currentSmile.getOption(currentStrikes[i]).getValue();
-
-					if(targetConvention.equals(QuotingConvention.VOLATILITYLOGNORMAL)) {
-						//we convert prices into lognormal volatilities
-						final double forward = surface.getEquityForwardCurve().getDiscountFactor(mats[t]);
-						final double optionMaturity =mats[t];
-						final double optionStrike = currentStrikes[i];
-						final double payoffUnit = surface.getDiscountCurve().getDiscountFactor(mats[t]);
-						final double optionValue = currentModelPrices.get("valuePerStrike").apply(optionStrike);//currentModelPrices.get(currentStrikes[i]);
-						value = net.finmath.functions.AnalyticFormulas.blackScholesOptionImpliedVolatility(forward, optionMaturity, optionStrike, payoffUnit, optionValue);
-
-
-					}else if(targetConvention.equals(QuotingConvention.VOLATILITYNORMAL)) {
-						//we convert prices into normal volatilities
-						final double forward = surface.getEquityForwardCurve().getDiscountFactor(mats[t]);
-						final double optionMaturity =mats[t];
-						final double optionStrike = currentStrikes[i];
-						final double payoffUnit = surface.getDiscountCurve().getDiscountFactor(mats[t]);
-						final double optionValue = currentModelPrices.get("valuePerStrike").apply(optionStrike);//currentModelPrices.get(currentStrikes[i]);
-						value = net.finmath.functions.AnalyticFormulas.bachelierOptionImpliedVolatility(forward, optionMaturity, optionStrike, payoffUnit, optionValue);
-					}else {
-						//just output the prices
-						value = currentModelPrices.get("valuePerStrike").apply(currentStrikes[i]);//currentModelPrices.get(currentStrikes[i]);
-					}
-					calibrationOutput.add(K+ "\t" + T + "\t" + targetValue + "\t" + value+ "\t" + Math.pow(targetValue-value,2));
-				}
-			} catch (final CalculationException e) {
-				e.printStackTrace();
+				calibrationOutput.add(K+ "\t" + T + "\t" + targetValue + "\t" + value+ "\t" + Math.pow(targetValue-value,2));
 			}
-
-
 		}
 		return calibrationOutput;
 	}
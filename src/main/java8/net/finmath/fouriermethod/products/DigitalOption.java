@@ -7,6 +7,8 @@ package net.finmath.fouriermethod.products;
 
 import org.apache.commons.math3.complex.Complex;
 
+import net.finmath.integration.RealIntegral;
+
 /**
  * Implements valuation of a European option on a single asset.
  *
@@ -40,6 +42,21 @@ public class DigitalOption extends AbstractFourierTransformProduct {
 		nameOfUnderlying	= null;		// Use asset with index 0
 	}
 
+	/**
+	 * Construct a product representing a digital option on an asset S (where S the asset with index 0 from the model - single asset case),
+	 * valued using a given integration rule.
+	 *
+	 * @param maturity The maturity T in the option payoff indicator(S(T)-K)
+	 * @param strike The strike K in the option payoff indicator(S(T)-K).
+	 * @param integrator The integration rule used to integrate over the real line.
+	 */
+	public DigitalOption(final double maturity, final double strike, final RealIntegral integrator) {
+		super(integrator);
+		this.maturity			= maturity;
+		this.strike				= strike;
+		nameOfUnderlying	= null;		// Use asset with index 0
+	}
+
 	/* (non-Javadoc)
 	 * @see net.finmath.fouriermethod.CharacteristicFunctionInterface#apply(org.apache.commons.math3.complex.Complex)
 	 */
@@ -5,12 +5,10 @@ import java.util.Map;
 import java.util.function.Function;
 
 import org.apache.commons.math3.complex.Complex;
-import org.apache.commons.math3.transform.DftNormalization;
-import org.apache.commons.math3.transform.FastFourierTransformer;
-import org.apache.commons.math3.transform.TransformType;
 
 import net.finmath.exception.CalculationException;
 import net.finmath.fouriermethod.CharacteristicFunction;
+import net.finmath.fouriermethod.FastFourierTransform;
 import net.finmath.fouriermethod.models.CharacteristicFunctionModel;
 import net.finmath.interpolation.RationalFunctionInterpolation;
 import net.finmath.interpolation.RationalFunctionInterpolation.ExtrapolationMethod;
@@ -30,6 +28,9 @@ import net.finmath.interpolation.RationalFunctionInterpolation.InterpolationMeth
  *
  * From a financial point of view the choice of this strip corresponds to transforming a covered call position.
  *
+ * The integrand is evaluated on primitive arrays (using the bulk evaluation {@link CharacteristicFunction#apply(double[], double[])})
+ * and transformed by a {@link FastFourierTransform}. The buffers are reused for all valuations performed by the same thread.
+ *
  * References:
  * <ul>
  *  <li> Carr. P. and Madan, D. (1999) Option Valuation Using the Fast Fourier Transform. Journal of Computational Finance.</li>
@@ -84,47 +85,57 @@ public class EuropeanOptionSmileByCarrMadan extends EuropeanOptionSmile{
 		final double lambda = 2*Math.PI/(numberOfPoints*gridSpacing); //Equation 23 Carr and Madan
 		final double upperBound = (numberOfPoints * lambda)/2.0; //Equation 20 Carr and Madan
 
-		final Complex[] integrandEvaluations = new Complex[numberOfPoints];
+		final Workspace workspace = Workspace.get(numberOfPoints);
+		final double[] arguments = workspace.arguments;
+		final double[] integrandEvaluations = workspace.values;
+
+		//Integration over a line parallel to the real axis, the characteristic function is evaluated at z-i with z = u - i lineOfIntegration
+		for(int i = 0; i<numberOfPoints; i++) {
+			arguments[2*i]		= gridSpacing * i;
+			arguments[2*i+1]	= -lineOfIntegration - 1.0;
+		}
+
+		//The characteristic function is already discounted
+		modelCF.apply(arguments, integrandEvaluations);
 
 		for(int i = 0; i<numberOfPoints; i++) {
 
 			final double u = gridSpacing * i;
 
-			//Integration over a line parallel to the real axis
-			final Complex z = new Complex(u,-lineOfIntegration);
+			//The transform of the payoff -(z-i)z at z = u - i lineOfIntegration
+			final double zReal = u;
+			final double zImag = -lineOfIntegration;
+			final double denominatorReal = -(zReal * zReal - (zImag - 1.0) * zImag);
+			final double denominatorImag = -(zReal * zImag + (zImag - 1.0) * zReal);
 
-			//The characteristic function is already discounted
-			final Complex numerator = modelCF.apply(z.subtract(Complex.I));
+			final double numeratorReal = integrandEvaluations[2*i];
+			final double numeratorImag = integrandEvaluations[2*i+1];
 
-			final Complex denominator = apply(z);
-			Complex ratio = numerator.divide(denominator);
-			ratio = (ratio.multiply(((Complex.I).multiply(upperBound*u)).exp())).multiply(gridSpacing);
+			final double denominatorSquared = denominatorReal * denominatorReal + denominatorImag * denominatorImag;
+			final double ratioReal = (numeratorReal * denominatorReal + numeratorImag * denominatorImag) / denominatorSquared;
+			final double ratioImag = (numeratorImag * denominatorReal - numeratorReal * denominatorImag) / denominatorSquared;
 
-			double delta;
-			if (i==0){
-				delta=1.0;
-			}else{
-				delta = 0.0;
-			}
-			final double simpsonWeight = (3+Math.pow(-1,i+1)-delta)/3;
+			final double simpsonWeight = i == 0 ? 1.0/3.0 : (i % 2 == 1 ? 4.0/3.0 : 2.0/3.0);
+			final double weight = gridSpacing * simpsonWeight;
 
-			integrandEvaluations[i] = ratio.multiply(simpsonWeight);
+			final double shiftReal = Math.cos(upperBound*u) * weight;
+			final double shiftImag = Math.sin(upperBound*u) * weight;
+
+			integrandEvaluations[2*i]	= ratioReal * shiftReal - ratioImag * shiftImag;
+			integrandEvaluations[2*i+1]	= ratioReal * shiftImag + ratioImag * shiftReal;
 		}
 
 		//Compute the FFT
-		Complex[] transformedVector = new Complex[numberOfPoints];
-		final FastFourierTransformer fft=new FastFourierTransformer(DftNormalization.STANDARD);
-		transformedVector=	fft.transform(integrandEvaluations,TransformType.FORWARD);
+		workspace.fastFourierTransform.transform(integrandEvaluations);
 
 		//Find relevant prices via interpolation
-		final double[] logStrikeVector = new double[numberOfPoints];
 		final double[] strikeVector = new double[numberOfPoints];
 		final double[] optionPriceVector = new double[numberOfPoints];
 
 		for(int j = 0; j<numberOfPoints; j++) {
-			logStrikeVector[j] = -upperBound+lambda*j;
-			strikeVector[j] = Math.exp(logStrikeVector[j]);
-			optionPriceVector[j] = (transformedVector[j].multiply(Math.exp(-lineOfIntegration * logStrikeVector[j]))).getReal()/Math.PI;
+			final double logStrike = -upperBound+lambda*j;
+			strikeVector[j] = Math.exp(logStrike);
+			optionPriceVector[j] = integrandEvaluations[2*j] * Math.exp(-lineOfIntegration * logStrike) / Math.PI;
 		}
 
 		final RationalFunctionInterpolation interpolation = new RationalFunctionInterpolation(strikeVector, optionPriceVector,intMethod, extMethod);
@@ -146,6 +157,33 @@ public class EuropeanOptionSmileByCarrMadan extends EuropeanOptionSmile{
 		return results;
 	}
 
+	/**
+	 * Buffers of the valuation, reused by the valuations of a thread.
+	 */
+	private static class Workspace {
+
+		private static final ThreadLocal<Workspace> workspaces = new ThreadLocal<>();
+
+		private final FastFourierTransform fastFourierTransform;
+		private final double[] arguments;
+		private final double[] values;
+
+		private Workspace(final int numberOfPoints) {
+			fastFourierTransform = new FastFourierTransform(numberOfPoints);
+			arguments = new double[2*numberOfPoints];
+			values = new double[2*numberOfPoints];
+		}
+
+		private static Workspace get(final int numberOfPoints) {
+			Workspace workspace = workspaces.get();
+			if(workspace == null || workspace.fastFourierTransform.getNumberOfPoints() != numberOfPoints) {
+				workspace = new Workspace(numberOfPoints);
+				workspaces.set(workspace);
+			}
+			return workspace;
+		}
+	}
+
 	@Override
 	public EuropeanOptionSmile getCloneWithModifiedParameters(final double maturity, final double[] strikes) {
 		return new EuropeanOptionSmileByCarrMadan(maturity, strikes);
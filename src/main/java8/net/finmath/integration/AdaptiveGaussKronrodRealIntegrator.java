@@ -0,0 +1,174 @@
+
+package net.finmath.integration;
+
+import java.util.PriorityQueue;
+import java.util.function.DoubleUnaryOperator;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * An adaptive integrator using the 7-point Gauss-Legendre rule and its 15-point Kronrod extension.
+ *
+ * On each sub-interval the integral is approximated by the Kronrod rule, the difference to the Gauss-Legendre
+ * rule (using a subset of the same evaluation points) serves as error estimate. The integrator starts from a
+ * uniform partition of the domain and repeatedly bisects the sub-interval with the largest error estimate, until
+ * the total error estimate is below the requested accuracy or the maximum number of evaluations is reached.
+ *
+ * Compared to a rule with a fixed number of points (like {@link SimpsonRealIntegrator}), the number of evaluations
+ * adapts to the smoothness and decay of the integrand.
+ *
+ * @version 1.0
+ */
+public class AdaptiveGaussKronrodRealIntegrator extends AbstractRealIntegral {
+
+	// Nodes of the 15-point Kronrod rule (the nodes with odd index are the nodes of the 7-point Gauss rule)
+	private static final double[] kronrodNodes = {
+			0.991455371120812639206854697526329, 0.949107912342758524526189684047851,
+			0.864864423359769072789712788640926, 0.741531185599394439863864773280788,
+			0.586087235467691130294144845693013, 0.405845151377397166906606412076961,
+			0.207784955007898467600689403773245, 0.000000000000000000000000000000000
+	};
+
+	private static final double[] kronrodWeights = {
+			0.022935322010529224963732008058970, 0.063092092629978553290700663189204,
+			0.104790010322250183839876322541518, 0.140653259715525918745189590510238,
+			0.169004726639267902826583426598550, 0.190350578064785409913256402421014,
+			0.204432940075298892414161999234649, 0.209482141084727828012999174891714
+	};
+
+	private static final double[] gaussWeights = {
+			0.129484966168869693270611432679082, 0.279705391489276667901467771423780,
+			0.381830050505118944950369775488975, 0.417959183673469387755102040816327
+	};
+
+	private static final int numberOfEvaluationsPerInterval = 15;
+
+	private final double	absoluteAccuracy;
+	private final double	relativeAccuracy;
+	private final int		initialNumberOfIntervals;
+	private final int		maxNumberOfEvaluations;
+
+	/**
+	 * A sub-interval together with its integral and error estimate.
+	 */
+	private static class Interval implements Comparable<Interval> {
+		private final double lowerBound;
+		private final double upperBound;
+		private final double integral;
+		private final double error;
+
+		Interval(final double lowerBound, final double upperBound, final double integral, final double error) {
+			this.lowerBound = lowerBound;
+			this.upperBound = upperBound;
+			this.integral = integral;
+			this.error = error;
+		}
+
+		@Override
+		public int compareTo(final Interval other) {
+			// Largest error first
+			return Double.compare(other.error, error);
+		}
+	}
+
+	/**
+	 * Create an adaptive Gauss-Kronrod integrator.
+	 *
+	 * @param lowerBound Lower bound of the integral.
+	 * @param upperBound Upper bound of the integral.
+	 * @param absoluteAccuracy The requested absolute accuracy.
+	 * @param relativeAccuracy The requested relative accuracy.
+	 * @param initialNumberOfIntervals The number of sub-intervals of the initial uniform partition, must be greater or equal to 1.
+	 * @param maxNumberOfEvaluations The maximum number of evaluations of the integrand (the integration stops with the current estimate if exceeded).
+	 */
+	public AdaptiveGaussKronrodRealIntegrator(final double lowerBound, final double upperBound, final double absoluteAccuracy, final double relativeAccuracy, final int initialNumberOfIntervals, final int maxNumberOfEvaluations) {
+		super(lowerBound, upperBound);
+		Validate.inclusiveBetween(1, Integer.MAX_VALUE, initialNumberOfIntervals, "Parameter initialNumberOfIntervals required to be > 0.");
+		this.absoluteAccuracy = absoluteAccuracy;
+		this.relativeAccuracy = relativeAccuracy;
+		this.initialNumberOfIntervals = initialNumberOfIntervals;
+		this.maxNumberOfEvaluations = maxNumberOfEvaluations;
+	}
+
+	/**
+	 * Create an adaptive Gauss-Kronrod integrator starting from a partition into 16 sub-intervals, using at most 100000 evaluations.
+	 *
+	 * @param lowerBound Lower bound of the integral.
+	 * @param upperBound Upper bound of the integral.
+	 * @param absoluteAccuracy The requested absolute accuracy.
+	 * @param relativeAccuracy The requested relative accuracy.
+	 */
+	public AdaptiveGaussKronrodRealIntegrator(final double lowerBound, final double upperBound, final double absoluteAccuracy, final double relativeAccuracy) {
+		this(lowerBound, upperBound, absoluteAccuracy, relativeAccuracy, 16, 100000);
+	}
+
+	@Override
+	public double integrate(final DoubleUnaryOperator integrand) {
+		final double	lowerBound			= getLowerBound();
+		final double	upperBound			= getUpperBound();
+		final double	range				= upperBound-lowerBound;
+
+		final PriorityQueue<Interval> intervals = new PriorityQueue<>();
+		double integral = 0.0;
+		double error = 0.0;
+		for(int i = 0; i < initialNumberOfIntervals; i++) {
+			final double intervalLowerBound = lowerBound + range * i / initialNumberOfIntervals;
+			final double intervalUpperBound = i == initialNumberOfIntervals-1 ? upperBound : lowerBound + range * (i+1) / initialNumberOfIntervals;
+			final Interval interval = integrate(integrand, intervalLowerBound, intervalUpperBound);
+			intervals.add(interval);
+			integral += interval.integral;
+			error += interval.error;
+		}
+
+		int numberOfEvaluations = initialNumberOfIntervals * numberOfEvaluationsPerInterval;
+		while(error > Math.max(absoluteAccuracy, relativeAccuracy * Math.abs(integral)) && numberOfEvaluations + 2 * numberOfEvaluationsPerInterval <= maxNumberOfEvaluations) {
+			final Interval interval = intervals.poll();
+			final double midPoint = 0.5 * (interval.lowerBound + interval.upperBound);
+			if(midPoint <= interval.lowerBound || midPoint >= interval.upperBound) {
+				// The interval cannot be bisected further
+				intervals.add(interval);
+				break;
+			}
+
+			final Interval left = integrate(integrand, interval.lowerBound, midPoint);
+			final Interval right = integrate(integrand, midPoint, interval.upperBound);
+			numberOfEvaluations += 2 * numberOfEvaluationsPerInterval;
+
+			intervals.add(left);
+			intervals.add(right);
+
+			integral += left.integral + right.integral - interval.integral;
+			error += left.error + right.error - interval.error;
+		}
+
+		// Sum up again to avoid the accumulation of rounding errors from the updates
+		integral = 0.0;
+		for(final Interval interval : intervals) {
+			integral += interval.integral;
+		}
+
+		return integral;
+	}
+
+	private static Interval integrate(final DoubleUnaryOperator integrand, final double lowerBound, final double upperBound) {
+		final double center = 0.5 * (lowerBound + upperBound);
+		final double halfLength = 0.5 * (upperBound - lowerBound);
+
+		final double valueAtCenter = integrand.applyAsDouble(center);
+		double kronrodSum = valueAtCenter * kronrodWeights[7];
+		double gaussSum = valueAtCenter * gaussWeights[3];
+		for(int j = 0; j < 7; j++) {
+			final double offset = halfLength * kronrodNodes[j];
+			final double sum = integrand.applyAsDouble(center - offset) + integrand.applyAsDouble(center + offset);
+			kronrodSum += kronrodWeights[j] * sum;
+			if(j % 2 == 1) {
+				gaussSum += gaussWeights[j / 2] * sum;
+			}
+		}
+
+		final double integral = kronrodSum * halfLength;
+		final double error = Math.abs((kronrodSum - gaussSum) * halfLength);
+
+		return new Interval(lowerBound, upperBound, integral, error);
+	}
+}
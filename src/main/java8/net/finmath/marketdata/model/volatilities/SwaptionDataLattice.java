@@ -274,6 +274,24 @@ public class SwaptionDataLattice implements Serializable {
 		final List<Integer> moneynesss	= new ArrayList<>();
 		final List<Double> values		= new ArrayList<>();
 
+		final boolean isImpliedVolatilityConversion = (targetConvention == QuotingConvention.PAYERVOLATILITYLOGNORMAL || targetConvention == QuotingConvention.PAYERVOLATILITYNORMAL)
+				&& !(targetConvention == quotingConvention && displacement == this.displacement);
+		if(isImpliedVolatilityConversion) {
+			final List<DataKey> keys = new ArrayList<>(entryMap.keySet());
+			for(final DataKey key : keys) {
+				maturities.add(key.maturity);
+				tenors.add(key.tenor);
+				moneynesss.add(key.moneyness * reverse);
+			}
+
+			return new SwaptionDataLattice(referenceDate, targetConvention, displacement,
+					forwardCurveName, discountCurveName, floatMetaSchedule, fixMetaSchedule,
+					maturities.stream().mapToInt(Integer::intValue).toArray(),
+					tenors.stream().mapToInt(Integer::intValue).toArray(),
+					moneynesss.stream().mapToInt(Integer::intValue).toArray(),
+					getImpliedVolatilities(keys, targetConvention, displacement, model));
+		}
+
 		for(final DataKey key : entryMap.keySet()) {
 			maturities.add(key.maturity);
 			tenors.add(key.tenor);
@@ -289,6 +307,60 @@ public class SwaptionDataLattice implements Serializable {
 				values.stream().mapToDouble(Double::doubleValue).toArray());
 	}
 
+	/**
+	 * Convert the values of the given keys to implied volatilities, inverting all payer prices in one batch.
+	 * Quotes for which the batch inversion does not give a positive finite volatility (where no implied volatility exists)
+	 * are converted by the scalar inversion, such that the result agrees with {@link #getValue(int, int, int, QuotingConvention, double, AnalyticModel)}
+	 * up to the accuracy of the inversion.
+	 *
+	 * @param keys The keys of the values to convert.
+	 * @param toConvention The volatility convention to convert to.
+	 * @param toDisplacement The displacement to be used, if converting to log normal implied volatility.
+	 * @param model The model for context.
+	 * @return The implied volatilities (in the order of the keys).
+	 */
+	private double[] getImpliedVolatilities(final List<DataKey> keys, final QuotingConvention toConvention, final double toDisplacement, final AnalyticModel model) {
+		final int numberOfQuotes = keys.size();
+		final double[] forwards			= new double[numberOfQuotes];
+		final double[] optionMaturities	= new double[numberOfQuotes];
+		final double[] optionStrikes	= new double[numberOfQuotes];
+		final double[] payoffUnits		= new double[numberOfQuotes];
+		final double[] optionValues		= new double[numberOfQuotes];
+
+		for(int quoteIndex = 0; quoteIndex < numberOfQuotes; quoteIndex++) {
+			final DataKey key = keys.get(quoteIndex);
+
+			final Schedule floatSchedule	= floatMetaSchedule.generateSchedule(getReferenceDate(), key.maturity, key.tenor);
+			final Schedule fixSchedule	= fixMetaSchedule.generateSchedule(getReferenceDate(), key.maturity, key.tenor);
+
+			final double forward = Swap.getForwardSwapRate(fixSchedule, floatSchedule, model.getForwardCurve(forwardCurveName), model);
+			final double offset = key.moneyness /10000.0;
+
+			forwards[quoteIndex]			= forward;
+			optionMaturities[quoteIndex]	= floatSchedule.getFixing(0);
+			optionStrikes[quoteIndex]		= forward + (quotingConvention == QuotingConvention.RECEIVERPRICE ? -offset : offset);
+			payoffUnits[quoteIndex]			= SwapAnnuity.getSwapAnnuity(fixSchedule.getFixing(0), fixSchedule, model.getDiscountCurve(discountCurveName), model);
+			optionValues[quoteIndex]		= convertToConvention(getValue(key), key, QuotingConvention.PAYERPRICE, 0, quotingConvention, displacement, model);
+		}
+
+		final double[] impliedVolatilities;
+		if(toConvention == QuotingConvention.PAYERVOLATILITYLOGNORMAL) {
+			impliedVolatilities = AnalyticFormulas.blackScholesDisplacedOptionImpliedVolatility(forwards, toDisplacement, optionMaturities, optionStrikes, payoffUnits, optionValues);
+		}
+		else {
+			impliedVolatilities = AnalyticFormulas.bachelierOptionImpliedVolatility(forwards, optionMaturities, optionStrikes, payoffUnits, optionValues);
+		}
+
+		// Quotes without a positive implied volatility (e.g. values above the forward, non-positive forwards) keep the result of the scalar conversion
+		for(int quoteIndex = 0; quoteIndex < numberOfQuotes; quoteIndex++) {
+			if(!(impliedVolatilities[quoteIndex] > 0 && impliedVolatilities[quoteIndex] < Double.POSITIVE_INFINITY)) {
+				impliedVolatilities[quoteIndex] = convertToConvention(optionValues[quoteIndex], keys.get(quoteIndex), toConvention, toDisplacement, QuotingConvention.PAYERPRICE, 0, model);
+			}
+		}
+
+		return impliedVolatilities;
+	}
+
 	/**
 	 * Append the data of another lattice to this lattice. If the other lattice follows a different quoting convention, it is automatically converted.
 	 * However, this method does not check, whether the two lattices are aligned in terms of reference date, curve names and meta schedules.
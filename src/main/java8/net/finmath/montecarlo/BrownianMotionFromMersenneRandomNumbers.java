@@ -8,6 +8,7 @@ package net.finmath.montecarlo;
 import java.io.IOException;
 import java.io.Serializable;
 
+import org.apache.commons.lang3.SerializationUtils;
 import org.apache.commons.lang3.Validate;
 
 import net.finmath.randomnumbers.MersenneTwister;
@@ -34,13 +35,21 @@ import net.finmath.time.TimeDiscretization;
  *
  * The class is immutable and thread safe. It uses lazy initialization.
  *
+ * The increments of a block of paths may be generated without generating (or storing) the increments of the other paths,
+ * see {@link #getBrownianIncrements(int, int)}.
+ *
  * @author Christian Fries
- * @version 1.6
+ * @version 1.7
  */
 public class BrownianMotionFromMersenneRandomNumbers implements BrownianMotion, Serializable {
 
 	private static final long serialVersionUID = -5430067621669213475L;
 
+	/*
+	 * The number of paths between two stored states of the random number generator, used to start the generation of a block of paths.
+	 */
+	private static final int NUMBER_OF_PATHS_PER_GENERATOR_STATE = 1024;
+
 	private final TimeDiscretization						timeDiscretization;
 
 	private final int			numberOfFactors;
@@ -51,6 +60,7 @@ public class BrownianMotionFromMersenneRandomNumbers implements BrownianMotion,
 
 	private transient	RandomVariable[][]	brownianIncrements;
 	private transient 	Object				brownianIncrementsLazyInitLock = new Object();
+	private transient	MersenneTwister[]	generatorStates;
 
 	/**
 	 * Construct a Brownian motion.
@@ -134,6 +144,38 @@ public class BrownianMotionFromMersenneRandomNumbers implements BrownianMotion,
 		return brownianIncrements[timeIndex][factor];
 	}
 
+	/**
+	 * Generate the Brownian increments of the paths <code>fromPath</code> (inclusive) to <code>toPath</code> (exclusive)
+	 * for all time indices and factors.
+	 *
+	 * The result is identical to the corresponding realizations of {@link #getBrownianIncrement(int, int)},
+	 * but the method does not generate (or store) the increments of the other paths.
+	 * Since the random numbers are generated path by path, the generation starts from the state of the random number generator
+	 * at the closest preceding path among every 1024th path. These states are determined once, by a sequential pass over the uniform random numbers.
+	 *
+	 * @param fromPath The first path.
+	 * @param toPath The end of the block of paths (exclusive).
+	 * @return The increments of the paths <code>fromPath</code>, ..., <code>toPath-1</code>, indexed by time index and factor.
+	 */
+	public RandomVariable[][] getBrownianIncrements(final int fromPath, final int toPath) {
+		Validate.isTrue(0 <= fromPath && fromPath <= toPath && toPath <= numberOfPaths, "Invalid block of paths (from %d to %d).", fromPath, toPath);
+
+		final MersenneTwister[] states;
+		synchronized(brownianIncrementsLazyInitLock) {
+			if(generatorStates == null) {
+				generatorStates = getGeneratorStates();
+			}
+			states = generatorStates;
+		}
+
+		// Skip the random numbers of the paths from the stored state to the first path
+		final int stateIndex = fromPath / NUMBER_OF_PATHS_PER_GENERATOR_STATE;
+		final MersenneTwister mersenneTwister = SerializationUtils.clone(states[stateIndex]);
+		skip(mersenneTwister, fromPath - stateIndex * NUMBER_OF_PATHS_PER_GENERATOR_STATE);
+
+		return generateBrownianIncrements(mersenneTwister, toPath - fromPath);
+	}
+
 	/**
 	 * Lazy initialization of brownianIncrement. Synchronized to ensure thread safety of lazy init.
 	 */
@@ -145,8 +187,26 @@ public class BrownianMotionFromMersenneRandomNumbers implements BrownianMotion,
 		// Create random number sequence generator
 		final MersenneTwister mersenneTwister = new MersenneTwister(seed);
 
+		brownianIncrements = generateBrownianIncrements(mersenneTwister, numberOfPaths);
+	}
+
+	/**
+	 * Generate the increments of a given number of paths, starting from the current state of the given random number generator.
+	 *
+	 * @param mersenneTwister The random number generator. Will be advanced.
+	 * @param numberOfPathsToGenerate The number of paths.
+	 * @return The increments, indexed by time index and factor.
+	 */
+	private RandomVariable[][] generateBrownianIncrements(final MersenneTwister mersenneTwister, final int numberOfPathsToGenerate) {
+		/*
+		 * For a single precision factory we generate into a float array and wrap it directly,
+		 * avoiding a double precision copy of all increments.
+		 */
+		final boolean isSinglePrecision = randomVariableFactory instanceof RandomVariableFloatFactory;
+
 		// Allocate memory
-		final double[][][] brownianIncrementsArray = new double[timeDiscretization.getNumberOfTimeSteps()][numberOfFactors][numberOfPaths];
+		final double[][][] brownianIncrementsArray = isSinglePrecision ? null : new double[timeDiscretization.getNumberOfTimeSteps()][numberOfFactors][numberOfPathsToGenerate];
+		final float[][][] brownianIncrementsArrayFloat = isSinglePrecision ? new float[timeDiscretization.getNumberOfTimeSteps()][numberOfFactors][numberOfPathsToGenerate] : null;
 
 		// Pre-calculate square roots of deltaT
 		final double[] sqrtOfTimeStep = new double[timeDiscretization.getNumberOfTimeSteps()];
@@ -161,28 +221,67 @@ public class BrownianMotionFromMersenneRandomNumbers implements BrownianMotion,
 		 * MersenneTwister is known to generate "independent" increments in 623 dimensions.
 		 * Since we want to generate independent streams (paths), the loop over path is the outer loop.
 		 */
-		for(int path=0; path<numberOfPaths; path++) {
+		for(int path=0; path<numberOfPathsToGenerate; path++) {
 			for(int timeIndex=0; timeIndex<timeDiscretization.getNumberOfTimeSteps(); timeIndex++) {
 				final double sqrtDeltaT = sqrtOfTimeStep[timeIndex];
 				// Generate uncorrelated Brownian increment
 				for(int factor=0; factor<numberOfFactors; factor++) {
 					final double uniformIncrement = mersenneTwister.nextDoubleFast();
-					brownianIncrementsArray[timeIndex][factor][path] = net.finmath.functions.NormalDistribution.inverseCumulativeDistribution(uniformIncrement) * sqrtDeltaT;
+					final double increment = net.finmath.functions.NormalDistribution.inverseCumulativeDistribution(uniformIncrement) * sqrtDeltaT;
+					if(isSinglePrecision) {
+						brownianIncrementsArrayFloat[timeIndex][factor][path] = (float)increment;
+					}
+					else {
+						brownianIncrementsArray[timeIndex][factor][path] = increment;
+					}
 				}
 			}
 		}
 
 		// Allocate memory for RandomVariableFromDoubleArray wrapper objects.
-		brownianIncrements = new RandomVariable[timeDiscretization.getNumberOfTimeSteps()][numberOfFactors];
+		final RandomVariable[][] increments = new RandomVariable[timeDiscretization.getNumberOfTimeSteps()][numberOfFactors];
 
 		// Wrap the values in RandomVariableFromDoubleArray objects
 		for(int timeIndex=0; timeIndex<timeDiscretization.getNumberOfTimeSteps(); timeIndex++) {
 			final double time = timeDiscretization.getTime(timeIndex+1);
 			for(int factor=0; factor<numberOfFactors; factor++) {
-				brownianIncrements[timeIndex][factor] =
-						randomVariableFactory.createRandomVariable(time, brownianIncrementsArray[timeIndex][factor]);
+				increments[timeIndex][factor] = isSinglePrecision ?
+						new RandomVariableFromFloatArray(time, brownianIncrementsArrayFloat[timeIndex][factor]) :
+							randomVariableFactory.createRandomVariable(time, brownianIncrementsArray[timeIndex][factor]);
 			}
 		}
+		return increments;
+	}
+
+	/**
+	 * Determine the states of the random number generator at every <code>NUMBER_OF_PATHS_PER_GENERATOR_STATE</code>-th path.
+	 *
+	 * @return The states of the random number generator.
+	 */
+	private MersenneTwister[] getGeneratorStates() {
+		final MersenneTwister mersenneTwister = new MersenneTwister(seed);
+
+		final MersenneTwister[] states = new MersenneTwister[(numberOfPaths + NUMBER_OF_PATHS_PER_GENERATOR_STATE - 1) / NUMBER_OF_PATHS_PER_GENERATOR_STATE];
+		for(int stateIndex = 0; stateIndex < states.length; stateIndex++) {
+			if(stateIndex > 0) {
+				skip(mersenneTwister, NUMBER_OF_PATHS_PER_GENERATOR_STATE);
+			}
+			states[stateIndex] = SerializationUtils.clone(mersenneTwister);
+		}
+		return states;
+	}
+
+	/**
+	 * Advance the random number generator by the random numbers of a given number of paths.
+	 *
+	 * @param mersenneTwister The random number generator. Will be advanced.
+	 * @param numberOfPathsToSkip The number of paths.
+	 */
+	private void skip(final MersenneTwister mersenneTwister, final int numberOfPathsToSkip) {
+		final long numberOfRandomNumbers = (long)numberOfPathsToSkip * timeDiscretization.getNumberOfTimeSteps() * numberOfFactors;
+		for(long i = 0; i < numberOfRandomNumbers; i++) {
+			mersenneTwister.nextDoubleFast();
+		}
 	}
 
 	@Override
@@ -7,10 +7,14 @@ package net.finmath.montecarlo;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 import org.apache.commons.lang3.Validate;
 
+import net.finmath.randomnumbers.IndexedRandomNumberGenerator;
 import net.finmath.randomnumbers.RandomNumberGenerator;
+import net.finmath.randomnumbers.SobolSequence;
 import net.finmath.stochastic.RandomVariable;
 import net.finmath.time.TimeDiscretization;
 
@@ -32,10 +36,20 @@ import net.finmath.time.TimeDiscretization;
  * defines the state of an object of this class, i.e., BrownianMotionLazyInit for which
  * there parameters agree, generate the same random numbers.
  *
+ * If the random number generator is an {@link IndexedRandomNumberGenerator} (e.g., a {@link net.finmath.randomnumbers.SobolSequence}),
+ * the path with index i uses the sample vector with index <code>sampleOffset</code>+i of the sequence (independent of the state of the generator)
+ * and blocks of paths are generated in parallel. For an unscrambled {@link net.finmath.randomnumbers.SobolSequence} the path with index i uses
+ * the sample vector with index <code>sampleOffset</code>+i+1, skipping the origin (the vector 0), whose inverse normal distribution is not finite.
+ * Hence, different instances (and clones) using the same generator and the same sample offset generate identical paths
+ * (and do not consume successive sample vectors of the generator). To use successive sample vectors (e.g., for a second
+ * simulation with additional paths), set the sample offset to the number of paths used so far.
+ *
+ * Otherwise the paths use consecutive calls to <code>getNext()</code>.
+ *
  * The class is immutable and thread safe. It uses lazy initialization.
  *
  * @author Christian Fries
- * @version 1.6
+ * @version 1.8
  */
 public class BrownianMotionFromRandomNumberGenerator implements BrownianMotion, Serializable {
 
@@ -46,6 +60,9 @@ public class BrownianMotionFromRandomNumberGenerator implements BrownianMotion,
 	private final int			numberOfFactors;
 	private final int			numberOfPaths;
 	private final RandomNumberGenerator randomNumberGenerator;
+	private final long			sampleOffset;
+
+	private static final int BLOCK_SIZE = 1 << 10;
 
 	private final RandomVariableFactory randomVariableFactory;
 
@@ -65,18 +82,21 @@ public class BrownianMotionFromRandomNumberGenerator implements BrownianMotion,
 	 * @param numberOfPaths Number of paths to simulate.
 	 * @param randomNumberGenerator A random number generator for n-dimensional uniform random numbers (n = numberOfTimeSteps*numberOfFactors).
 	 * @param randomVariableFactory Factory to be used to create random variable.
+	 * @param sampleOffset If the random number generator is an {@link IndexedRandomNumberGenerator}: the index of the sample vector used by the first path (the number of sample vectors skipped), otherwise ignored.
 	 */
 	public BrownianMotionFromRandomNumberGenerator(
 			final TimeDiscretization timeDiscretization,
 			final int numberOfFactors,
 			final int numberOfPaths,
 			final RandomNumberGenerator randomNumberGenerator,
-			final RandomVariableFactory randomVariableFactory) {
+			final RandomVariableFactory randomVariableFactory,
+			final long sampleOffset) {
 		super();
 		this.timeDiscretization = timeDiscretization;
 		this.numberOfFactors	= numberOfFactors;
 		this.numberOfPaths		= numberOfPaths;
 		this.randomNumberGenerator = randomNumberGenerator;
+		this.sampleOffset		= sampleOffset;
 
 		this.randomVariableFactory = randomVariableFactory;
 
@@ -86,6 +106,30 @@ public class BrownianMotionFromRandomNumberGenerator implements BrownianMotion,
 		Validate.notNull(randomNumberGenerator);
 		final int requiredDimension = numberOfFactors*timeDiscretization.getNumberOfTimeSteps();
 		Validate.isTrue(randomNumberGenerator.getDimension() >= requiredDimension, "Dimension of RandomNumberGenerator required to be at least %d.", requiredDimension);
+		Validate.isTrue(sampleOffset >= 0, "Sample offset required to be non-negative.");
+	}
+
+	/**
+	 * Construct a Brownian motion.
+	 *
+	 * The constructor allows to set the factory to be used for the construction of
+	 * random variables. This allows to generate Brownian increments represented
+	 * by different implementations of the RandomVariable (e.g. the RandomVariableFromFloatArray internally
+	 * using float representations).
+	 *
+	 * @param timeDiscretization The time discretization used for the Brownian increments.
+	 * @param numberOfFactors Number of factors.
+	 * @param numberOfPaths Number of paths to simulate.
+	 * @param randomNumberGenerator A random number generator for n-dimensional uniform random numbers (n = numberOfTimeSteps*numberOfFactors).
+	 * @param randomVariableFactory Factory to be used to create random variable.
+	 */
+	public BrownianMotionFromRandomNumberGenerator(
+			final TimeDiscretization timeDiscretization,
+			final int numberOfFactors,
+			final int numberOfPaths,
+			final RandomNumberGenerator randomNumberGenerator,
+			final RandomVariableFactory randomVariableFactory) {
+		this(timeDiscretization, numberOfFactors, numberOfPaths, randomNumberGenerator, randomVariableFactory, 0);
 	}
 
 	/**
@@ -106,13 +150,13 @@ public class BrownianMotionFromRandomNumberGenerator implements BrownianMotion,
 
 	@Override
 	public BrownianMotion getCloneWithModifiedSeed(final int seed) {
-		return new BrownianMotionFromRandomNumberGenerator(getTimeDiscretization(), getNumberOfFactors(), getNumberOfPaths(), randomNumberGenerator);
+		return new BrownianMotionFromRandomNumberGenerator(getTimeDiscretization(), getNumberOfFactors(), getNumberOfPaths(), randomNumberGenerator, randomVariableFactory, sampleOffset);
 	}
 
 	@Override
 	public BrownianMotion getCloneWithModifiedTimeDiscretization(final TimeDiscretization newTimeDiscretization) {
 		/// @TODO This can be improved: a complete recreation of the Brownian motion wouldn't be necessary!
-		return new BrownianMotionFromRandomNumberGenerator(newTimeDiscretization, getNumberOfFactors(), getNumberOfPaths(), randomNumberGenerator);
+		return new BrownianMotionFromRandomNumberGenerator(newTimeDiscretization, getNumberOfFactors(), getNumberOfPaths(), randomNumberGenerator, randomVariableFactory, sampleOffset);
 	}
 
 	@Override
@@ -154,15 +198,29 @@ public class BrownianMotionFromRandomNumberGenerator implements BrownianMotion,
 		 * The inner loop goes over time and factors.
 		 * Since we want to generate independent streams (paths), the loop over path is the outer loop.
 		 */
-		for(int path=0; path<numberOfPaths; path++) {
-			final double[] randomNumbers = randomNumberGenerator.getNext();
-			for(int timeIndex=0; timeIndex<timeDiscretization.getNumberOfTimeSteps(); timeIndex++) {
-				final double sqrtDeltaT = sqrtOfTimeStep[timeIndex];
-				// Generate uncorrelated Brownian increment
-				for(int factor=0; factor<numberOfFactors; factor++) {
-					final double uniformIncrement = randomNumbers[timeIndex * numberOfFactors + factor];
-					brownianIncrementsArray[timeIndex][factor][path] = net.finmath.functions.NormalDistribution.inverseCumulativeDistribution(uniformIncrement) * sqrtDeltaT;
+		if(randomNumberGenerator instanceof IndexedRandomNumberGenerator) {
+			// The path with index i uses the sample vector with index firstIndex + i, blocks of paths are generated in parallel
+			final IndexedRandomNumberGenerator indexedRandomNumberGenerator = (IndexedRandomNumberGenerator)randomNumberGenerator;
+			final long firstIndex = getIndexOfFirstSample(indexedRandomNumberGenerator) + sampleOffset;
+			final int dimension = indexedRandomNumberGenerator.getDimension();
+			final int numberOfBlocks = (numberOfPaths + BLOCK_SIZE - 1) / BLOCK_SIZE;
+			IntStream.range(0, numberOfBlocks).parallel().forEach(new IntConsumer() {
+				@Override
+				public void accept(final int block) {
+					final int fromPath = block * BLOCK_SIZE;
+					final int toPath = Math.min(fromPath + BLOCK_SIZE, numberOfPaths);
+					final double[] randomNumbers = new double[(toPath-fromPath) * dimension];
+					indexedRandomNumberGenerator.getSamples(firstIndex + fromPath, toPath-fromPath, randomNumbers, 0);
+					for(int path=fromPath; path<toPath; path++) {
+						setBrownianIncrements(brownianIncrementsArray, path, randomNumbers, (path-fromPath) * dimension, sqrtOfTimeStep);
+					}
 				}
+			});
+		}
+		else {
+			for(int path=0; path<numberOfPaths; path++) {
+				final double[] randomNumbers = randomNumberGenerator.getNext();
+				setBrownianIncrements(brownianIncrementsArray, path, randomNumbers, 0, sqrtOfTimeStep);
 			}
 		}
 
@@ -179,6 +237,31 @@ public class BrownianMotionFromRandomNumberGenerator implements BrownianMotion,
 		}
 	}
 
+	/**
+	 * Returns the index of the sample vector used by the first path. For an unscrambled {@link SobolSequence} this is 1,
+	 * skipping the origin (the vector 0), whose inverse normal distribution is not finite. Otherwise it is 0.
+	 *
+	 * @param indexedRandomNumberGenerator The random number generator.
+	 * @return The index of the sample vector used by the first path.
+	 */
+	static long getIndexOfFirstSample(final IndexedRandomNumberGenerator indexedRandomNumberGenerator) {
+		if(indexedRandomNumberGenerator instanceof SobolSequence && !((SobolSequence)indexedRandomNumberGenerator).isScrambled()) {
+			return 1;
+		}
+		return 0;
+	}
+
+	private void setBrownianIncrements(final double[][][] brownianIncrementsArray, final int path, final double[] randomNumbers, final int offset, final double[] sqrtOfTimeStep) {
+		for(int timeIndex=0; timeIndex<timeDiscretization.getNumberOfTimeSteps(); timeIndex++) {
+			final double sqrtDeltaT = sqrtOfTimeStep[timeIndex];
+			// Generate uncorrelated Brownian increment
+			for(int factor=0; factor<numberOfFactors; factor++) {
+				final double uniformIncrement = randomNumbers[offset + timeIndex * numberOfFactors + factor];
+				brownianIncrementsArray[timeIndex][factor][path] = net.finmath.functions.NormalDistribution.inverseCumulativeDistribution(uniformIncrement) * sqrtDeltaT;
+			}
+		}
+	}
+
 	@Override
 	public TimeDiscretization getTimeDiscretization() {
 		return timeDiscretization;
@@ -194,6 +277,13 @@ public class BrownianMotionFromRandomNumberGenerator implements BrownianMotion,
 		return numberOfPaths;
 	}
 
+	/**
+	 * @return The index of the sample vector used by the first path, if the random number generator is an {@link IndexedRandomNumberGenerator}.
+	 */
+	public long getSampleOffset() {
+		return sampleOffset;
+	}
+
 	@Override
 	public RandomVariable getRandomVariableForConstant(final double value) {
 		return randomVariableFactory.createRandomVariable(value);
@@ -205,7 +295,8 @@ public class BrownianMotionFromRandomNumberGenerator implements BrownianMotion,
 				+ "\n" + "timeDiscretizationFromArray: " + timeDiscretization.toString()
 				+ "\n" + "numberOfPaths: " + numberOfPaths
 				+ "\n" + "numberOfFactors: " + numberOfFactors
-				+ "\n" + "randomNumberGenerator: " + randomNumberGenerator;
+				+ "\n" + "randomNumberGenerator: " + randomNumberGenerator
+				+ "\n" + "sampleOffset: " + sampleOffset;
 	}
 
 	@Override
@@ -228,6 +319,9 @@ public class BrownianMotionFromRandomNumberGenerator implements BrownianMotion,
 		if (randomNumberGenerator != that.randomNumberGenerator) {
 			return false;
 		}
+		if (sampleOffset != that.sampleOffset) {
+			return false;
+		}
 		return timeDiscretization.equals(that.timeDiscretization);
 	}
 
@@ -242,6 +336,7 @@ public class BrownianMotionFromRandomNumberGenerator implements BrownianMotion,
 		result = 31 * result + numberOfFactors;
 		result = 31 * result + numberOfPaths;
 		result = 31 * result + randomNumberGenerator.hashCode();
+		result = 31 * result + Long.hashCode(sampleOffset);
 		return result;
 	}
 
@@ -5,6 +5,7 @@
  */
 package net.finmath.montecarlo;
 
+import java.lang.ref.SoftReference;
 import java.util.Arrays;
 import java.util.List;
 import java.util.function.DoubleBinaryOperator;
@@ -52,6 +53,9 @@ public class RandomVariableFromDoubleArray implements RandomVariable {
 	// Data model for the non-stochastic case (if realizations==null)
 	private final double      valueIfNonStochastic;
 
+	// Cache of the sorted realizations, used by repeated quantile and histogram queries
+	private transient volatile SoftReference<double[]> realizationsSortedReference;
+
 	/**
 	 * Create a random variable from a given other implementation of <code>RandomVariable</code>.
 	 *
@@ -451,14 +455,55 @@ public class RandomVariableFromDoubleArray implements RandomVariable {
 			return Double.NaN;
 		}
 
-		final double[] realizationsSorted = realizations.clone();
-		java.util.Arrays.sort(realizationsSorted);
+		final int indexOfQuantileValue = getIndexOfQuantileValue(quantile);
+
+		// Use the sorted realizations if they are available, otherwise select the value without sorting
+		final double[] realizationsSorted = realizationsSortedReference != null ? realizationsSortedReference.get() : null;
+		if(realizationsSorted != null) {
+			return realizationsSorted[indexOfQuantileValue];
+		}
+
+		/*
+		 * Arrays.sort orders NaN after all other values. We move NaNs to the end and
+		 * select from the remaining values, such that the result agrees with the sorted realizations.
+		 */
+		final double[] values = new double[size()];
+		int numberOfValues = 0;
+		for(final double realization : realizations) {
+			if(!Double.isNaN(realization)) {
+				values[numberOfValues++] = realization;
+			}
+		}
+		if(indexOfQuantileValue >= numberOfValues) {
+			return Double.NaN;
+		}
+
+		return select(values, numberOfValues, indexOfQuantileValue);
+	}
 
-		final int indexOfQuantileValue = Math.min(Math.max((int)Math.round((size()+1) * quantile - 1), 0), size()-1);
+	@Override
+	public double[] getQuantiles(final double[] quantiles) {
+		if(quantiles.length <= 1 || isDeterministic() || size() == 0) {
+			return RandomVariable.super.getQuantiles(quantiles);
+		}
 
-		return realizationsSorted[indexOfQuantileValue];
+		final double[] realizationsSorted = getRealizationsSorted();
+
+		final double[] quantileValues = new double[quantiles.length];
+		for(int i=0; i<quantiles.length; i++) {
+			quantileValues[i] = realizationsSorted[getIndexOfQuantileValue(quantiles[i])];
+		}
+		return quantileValues;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 *
+	 * The method returns the smallest realization x such that the sum of the probabilities of all
+	 * realizations less or equal to x is greater or equal to quantile (relative to the sum of all probabilities).
+	 * If the probabilities are deterministic, all realizations have the same probability. Note that this definition
+	 * may differ from the one used by {@link #getQuantile(double)}, which rounds the index <i>(n+1) quantile - 1</i>.
+	 */
 	@Override
 	public double getQuantile(final double quantile, final RandomVariable probabilities) {
 		if(isDeterministic()) {
@@ -468,7 +513,22 @@ public class RandomVariableFromDoubleArray implements RandomVariable {
 			return Double.NaN;
 		}
 
-		throw new RuntimeException("Method not implemented.");
+		final double[] values = realizations.clone();
+		final double[] weights = new double[values.length];
+		double totalWeight = 0.0;
+		if(probabilities.isDeterministic()) {
+			// Equi-distribution
+			Arrays.fill(weights, 1.0);
+			totalWeight = weights.length;
+		}
+		else {
+			for(int i=0; i<weights.length; i++) {
+				weights[i] = probabilities.get(i);
+				totalWeight += weights[i];
+			}
+		}
+
+		return selectWeighted(values, weights, quantile * totalWeight);
 	}
 
 	@Override
@@ -483,11 +543,10 @@ public class RandomVariableFromDoubleArray implements RandomVariable {
 			return getQuantileExpectation(quantileEnd, quantileStart);
 		}
 
-		final double[] realizationsSorted = realizations.clone();
-		java.util.Arrays.sort(realizationsSorted);
+		final double[] realizationsSorted = getRealizationsSorted();
 
-		final int indexOfQuantileValueStart	= Math.min(Math.max((int)Math.round((size()+1) * quantileStart - 1), 0), size()-1);
-		final int indexOfQuantileValueEnd		= Math.min(Math.max((int)Math.round((size()+1) * quantileEnd - 1), 0), size()-1);
+		final int indexOfQuantileValueStart	= getIndexOfQuantileValue(quantileStart);
+		final int indexOfQuantileValueEnd		= getIndexOfQuantileValue(quantileEnd);
 
 		double quantileExpectation = 0.0;
 		for (int i=indexOfQuantileValueStart; i<=indexOfQuantileValueEnd;i++) {
@@ -498,6 +557,143 @@ public class RandomVariableFromDoubleArray implements RandomVariable {
 		return quantileExpectation;
 	}
 
+	private int getIndexOfQuantileValue(final double quantile) {
+		return Math.min(Math.max((int)Math.round((size()+1) * quantile - 1), 0), size()-1);
+	}
+
+	/**
+	 * Returns the sorted realizations. The array is cached (via a soft reference) and must not be modified.
+	 *
+	 * @return The sorted realizations.
+	 */
+	private double[] getRealizationsSorted() {
+		double[] realizationsSorted = realizationsSortedReference != null ? realizationsSortedReference.get() : null;
+		if(realizationsSorted == null) {
+			realizationsSorted = realizations.clone();
+			java.util.Arrays.sort(realizationsSorted);
+			realizationsSortedReference = new SoftReference<>(realizationsSorted);
+		}
+		return realizationsSorted;
+	}
+
+	/**
+	 * Returns the k-th smallest element of values[0], ..., values[length-1] using a quickselect
+	 * with median of three pivot and three-way partitioning, falling back to sorting if the
+	 * recursion depth gets too large (introselect). The array is reordered. The values must not contain NaN.
+	 *
+	 * @param values The values (will be reordered).
+	 * @param length The number of values to consider.
+	 * @param k The index of the element in the sorted values.
+	 * @return The k-th smallest element.
+	 */
+	private static double select(final double[] values, final int length, final int k) {
+		int lower = 0;
+		int upper = length-1;
+		int depthLimit = 2 * (Integer.SIZE - Integer.numberOfLeadingZeros(length));
+		while(upper > lower) {
+			if(depthLimit-- == 0) {
+				java.util.Arrays.sort(values, lower, upper+1);
+				return values[k];
+			}
+
+			final double pivot = medianOfThree(values[lower], values[(lower+upper) >>> 1], values[upper]);
+
+			// Partition into values[lower..less-1] < pivot, values[less..greater] == pivot, values[greater+1..upper] > pivot
+			int less = lower;
+			int greater = upper;
+			int i = lower;
+			while(i <= greater) {
+				if(values[i] < pivot) {
+					swap(values, i++, less++);
+				}
+				else if(values[i] > pivot) {
+					swap(values, i, greater--);
+				}
+				else {
+					i++;
+				}
+			}
+
+			if(k < less) {
+				upper = less-1;
+			}
+			else if(k > greater) {
+				lower = greater+1;
+			}
+			else {
+				return pivot;
+			}
+		}
+		return values[k];
+	}
+
+	/**
+	 * Returns the smallest element x of values such that the sum of the weights of the elements less or equal to x
+	 * is greater or equal to the given target weight, using a quickselect on the values and weights.
+	 * The arrays are reordered.
+	 *
+	 * @param values The values (will be reordered).
+	 * @param weights The weights of the values (will be reordered).
+	 * @param targetWeight The target weight.
+	 * @return The weighted quantile.
+	 */
+	private static double selectWeighted(final double[] values, final double[] weights, final double targetWeight) {
+		int lower = 0;
+		int upper = values.length-1;
+		double weightBelow = 0.0;		// Sum of the weights of the elements left of lower
+		while(upper > lower) {
+			final double pivot = medianOfThree(values[lower], values[(lower+upper) >>> 1], values[upper]);
+
+			int less = lower;
+			int greater = upper;
+			int i = lower;
+			while(i <= greater) {
+				if(values[i] < pivot) {
+					swap(values, i, less);
+					swap(weights, i++, less++);
+				}
+				else if(values[i] > pivot) {
+					swap(values, i, greater);
+					swap(weights, i, greater--);
+				}
+				else {
+					i++;
+				}
+			}
+
+			double weightLess = 0.0;
+			for(int j=lower; j<less; j++) {
+				weightLess += weights[j];
+			}
+			double weightEqual = 0.0;
+			for(int j=less; j<=greater; j++) {
+				weightEqual += weights[j];
+			}
+
+			if(less > lower && weightBelow + weightLess >= targetWeight) {
+				upper = less-1;
+			}
+			else if(greater == upper || weightBelow + weightLess + weightEqual >= targetWeight) {
+				return pivot;
+			}
+			else {
+				weightBelow += weightLess + weightEqual;
+				lower = greater+1;
+			}
+		}
+		return values[lower];
+	}
+
+	private static double medianOfThree(final double a, final double b, final double c) {
+		return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+	}
+
+	private static void swap(final double[] values, final int i, final int j) {
+		final double value = values[i];
+		values[i] = values[j];
+		values[j] = value;
+	}
+
 	@Override
 	public double[] getHistogram(final double[] intervalPoints)
 	{
@@ -525,8 +721,7 @@ public class RandomVariableFromDoubleArray implements RandomVariable {
 			 * There is one exception:
 			 * If the size of the random variable is 0, all entries will be zero.
 			 */
-			final double[] realizationsSorted = realizations.clone();
-			java.util.Arrays.sort(realizationsSorted);
+			final double[] realizationsSorted = getRealizationsSorted();
 
 			int sampleIndex=0;
 			for (int intervalIndex=0; intervalIndex<intervalPoints.length; intervalIndex++)
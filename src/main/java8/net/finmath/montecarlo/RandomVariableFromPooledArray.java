@@ -0,0 +1,112 @@
+package net.finmath.montecarlo;
+
+import java.util.stream.DoubleStream;
+
+/**
+ * A {@link RandomVariableVectorized} whose results of operations store their realizations in arrays taken from
+ * the pool of a {@link RandomVariableFromPooledArrayFactory}. An array is returned to the pool when the
+ * scope in which the result was created is closed (see {@link RandomVariableFromPooledArrayFactory.Scope}).
+ * Hence, a random variable is valid only until its scope is closed (unless it has been kept).
+ *
+ * The accessors (<code>get</code>, <code>getRealizations</code>, <code>getRealizationsStream</code>), the reductions
+ * (<code>getAverage</code>, <code>getVariance</code>) and the vectorized operations of {@link RandomVariableVectorized}
+ * (with this random variable as receiver or as argument) throw an {@link IllegalStateException} if the scope of the
+ * random variable has been closed. Other operations inherited from {@link RandomVariableFromDoubleArray} are not checked.
+ *
+ * Instances are created by {@link RandomVariableFromPooledArrayFactory}.
+ *
+ * @version 1.2
+ */
+public class RandomVariableFromPooledArray extends RandomVariableVectorized {
+
+	private static final long serialVersionUID = 6101435427587357231L;
+
+	private final transient RandomVariableFromPooledArrayFactory factory;
+	private final transient RandomVariableFromPooledArrayFactory.PooledArray pooledArray;
+
+	RandomVariableFromPooledArray(final RandomVariableFromPooledArrayFactory factory, final RandomVariableFromPooledArrayFactory.PooledArray pooledArray, final double time, final double value) {
+		super(time, value);
+		this.factory = factory;
+		this.pooledArray = null;
+	}
+
+	RandomVariableFromPooledArray(final RandomVariableFromPooledArrayFactory factory, final RandomVariableFromPooledArrayFactory.PooledArray pooledArray, final double time, final double[] realizations) {
+		super(time, realizations);
+		this.factory = factory;
+		this.pooledArray = pooledArray;
+	}
+
+	/**
+	 * @return The scope in which the realizations of this random variable were created, or null if the realizations are not pooled.
+	 */
+	public RandomVariableFromPooledArrayFactory.Scope getScope() {
+		return pooledArray != null ? pooledArray.getScope() : null;
+	}
+
+	@Override
+	public double get(final int pathOrState) {
+		checkNotReleased();
+		return super.get(pathOrState);
+	}
+
+	@Override
+	public double[] getRealizations() {
+		checkNotReleased();
+		return super.getRealizations();
+	}
+
+	@Override
+	public DoubleStream getRealizationsStream() {
+		checkNotReleased();
+		return super.getRealizationsStream();
+	}
+
+	@Override
+	public double getAverage() {
+		checkNotReleased();
+		return super.getAverage();
+	}
+
+	@Override
+	public double getVariance() {
+		checkNotReleased();
+		return super.getVariance();
+	}
+
+	@Override
+	protected double[] createRealizations(final int size) {
+		// Called by every vectorized operation with this random variable as receiver
+		checkNotReleased();
+		if(factory == null) {
+			return new double[size];
+		}
+		return factory.acquire(size);
+	}
+
+	@Override
+	protected double[] getRealizationsReference() {
+		// Called by every vectorized operation with this random variable as argument
+		checkNotReleased();
+		return super.getRealizationsReference();
+	}
+
+	@Override
+	protected RandomVariableVectorized createRandomVariable(final double time, final double[] realizations) {
+		if(realizations == super.getRealizationsReference()) {
+			// The result shares the realizations of this random variable
+			return new RandomVariableFromPooledArray(factory, pooledArray, time, realizations);
+		}
+		return new RandomVariableFromPooledArray(factory, factory != null ? factory.getPooledArray(realizations) : null, time, realizations);
+	}
+
+	@Override
+	protected RandomVariableVectorized createRandomVariable(final double time, final double value) {
+		return new RandomVariableFromPooledArray(factory, null, time, value);
+	}
+
+	private void checkNotReleased() {
+		if(pooledArray != null && pooledArray.isReleased()) {
+			throw new IllegalStateException("The scope of the random variable has been closed. Use Scope.keep to use a random variable after its scope has been closed.");
+		}
+	}
+}
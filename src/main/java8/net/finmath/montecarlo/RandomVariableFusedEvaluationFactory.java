@@ -0,0 +1,36 @@
+package net.finmath.montecarlo;
+
+import net.finmath.stochastic.RandomVariable;
+
+/**
+ * A factory creating random variables of type {@link RandomVariableFusedEvaluation}, i.e.,
+ * random variables where chains of element-wise operations are fused into a single pass over the paths.
+ *
+ * @version 1.0
+ */
+public class RandomVariableFusedEvaluationFactory extends AbstractRandomVariableFactory {
+
+	private static final long serialVersionUID = 4417431960470521823L;
+
+	/**
+	 * Create a factory for random variables of type {@link RandomVariableFusedEvaluation}.
+	 */
+	public RandomVariableFusedEvaluationFactory() {
+		super();
+	}
+
+	@Override
+	public RandomVariable createRandomVariable(final double time, final double value) {
+		return new RandomVariableFusedEvaluation(time, value);
+	}
+
+	@Override
+	public RandomVariable createRandomVariable(final double time, final double[] values) {
+		return new RandomVariableFusedEvaluation(time, values);
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName();
+	}
+}
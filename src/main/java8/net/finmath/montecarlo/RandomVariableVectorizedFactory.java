@@ -0,0 +1,40 @@
+package net.finmath.montecarlo;
+
+import net.finmath.stochastic.RandomVariable;
+
+/**
+ * A factory creating random variables of type {@link RandomVariableVectorized}, i.e.,
+ * random variables backed by a <code>double[]</code> using loop kernels eligible for the
+ * auto-vectorization of the JIT compiler.
+ *
+ * Use this factory (e.g., for the Brownian motion and the model) as a drop-in replacement
+ * of {@link RandomVariableFromArrayFactory}.
+ *
+ * @version 1.0
+ */
+public class RandomVariableVectorizedFactory extends AbstractRandomVariableFactory {
+
+	private static final long serialVersionUID = -2730587236618417541L;
+
+	/**
+	 * Create a factory for random variables of type {@link RandomVariableVectorized}.
+	 */
+	public RandomVariableVectorizedFactory() {
+		super();
+	}
+
+	@Override
+	public RandomVariable createRandomVariable(final double time, final double value) {
+		return new RandomVariableVectorized(time, value);
+	}
+
+	@Override
+	public RandomVariable createRandomVariable(final double time, final double[] values) {
+		return new RandomVariableVectorized(time, values);
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName();
+	}
+}
@@ -147,6 +147,11 @@ public class BachelierModel extends AbstractProcessModel {
 		return randomVariableFactory.createRandomVariable(value);
 	}
 
+	@Override
+	public RandomVariableFactory getRandomVariableFactory() {
+		return randomVariableFactory;
+	}
+
 	@Override
 	public BachelierModel getCloneWithModifiedData(final Map<String, Object> dataModified) {
 		/*
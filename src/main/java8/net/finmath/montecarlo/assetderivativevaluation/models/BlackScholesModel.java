@@ -153,6 +153,11 @@ public class BlackScholesModel extends AbstractProcessModel {
 		return randomVariableFactory.createRandomVariable(value);
 	}
 
+	@Override
+	public RandomVariableFactory getRandomVariableFactory() {
+		return randomVariableFactory;
+	}
+
 	@Override
 	public BlackScholesModel getCloneWithModifiedData(final Map<String, Object> dataModified) {
 		/*
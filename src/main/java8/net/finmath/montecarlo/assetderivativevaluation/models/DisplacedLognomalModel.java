@@ -200,6 +200,7 @@ public class DisplacedLognomalModel extends AbstractProcessModel {
 				+ volatility + "]";
 	}
 
+	@Override
 	public RandomVariableFactory getRandomVariableFactory() {
 		return randomVariableFactory;
 	}
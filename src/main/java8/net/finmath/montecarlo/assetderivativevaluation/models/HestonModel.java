@@ -444,6 +444,11 @@ public class HestonModel extends AbstractProcessModel {
 		return randomVariableFactory.createRandomVariable(value);
 	}
 
+	@Override
+	public RandomVariableFactory getRandomVariableFactory() {
+		return randomVariableFactory;
+	}
+
 	@Override
 	public HestonModel getCloneWithModifiedData(final Map<String, Object> dataModified) {
 		/*
@@ -148,6 +148,11 @@ public class InhomogenousBachelierModel extends AbstractProcessModel {
 		return randomVariableFactory.createRandomVariable(value);
 	}
 
+	@Override
+	public RandomVariableFactory getRandomVariableFactory() {
+		return randomVariableFactory;
+	}
+
 	@Override
 	public InhomogenousBachelierModel getCloneWithModifiedData(final Map<String, Object> dataModified) {
 		/*
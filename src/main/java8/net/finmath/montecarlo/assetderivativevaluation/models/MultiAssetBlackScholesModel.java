@@ -208,6 +208,11 @@ public class MultiAssetBlackScholesModel extends AbstractProcessModel {
 		return randomVariableFactory.createRandomVariable(value);
 	}
 
+	@Override
+	public RandomVariableFactory getRandomVariableFactory() {
+		return randomVariableFactory;
+	}
+
 	@Override
 	public int getNumberOfComponents() {
 		return initialValues.length;
@@ -260,6 +260,11 @@ public class VarianceGammaModel extends AbstractProcessModel {
 		return randomVariableFactory.createRandomVariable(value);
 	}
 
+	@Override
+	public RandomVariableFactory getRandomVariableFactory() {
+		return randomVariableFactory;
+	}
+
 	@Override
 	public ProcessModel getCloneWithModifiedData(final Map<String, Object> dataModified) throws CalculationException {
 		/*
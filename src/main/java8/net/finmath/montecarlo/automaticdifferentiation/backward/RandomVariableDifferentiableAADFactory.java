@@ -44,12 +44,15 @@ public class RandomVariableDifferentiableAADFactory extends AbstractRandomVariab
 
 	private final boolean isGradientRetainsLeafNodesOnly;
 
+	private final boolean isParallelReverseSweep;
+
 	/**
 	 * Create a factory for objects of type {@link RandomVariableDifferentiableAAD}.
 	 *
 	 * Supported propeties are
 	 * <ul>
 	 * <li>isGradientRetainsLeafNodesOnly: Boolean</li>
+	 * <li>isParallelReverseSweep: Boolean - if true, the paths are split into slices processed in parallel in the reverse sweep (default false)</li>
 	 * <li>diracDeltaApproximationMethod: String</li>
 	 * <li>diracDeltaApproximationWidthPerStdDev: Double</li>
 	 * </ul>
@@ -69,6 +72,7 @@ public class RandomVariableDifferentiableAADFactory extends AbstractRandomVariab
 		diracDeltaApproximationDensityRegressionWidthPerStdDev = (Double)properties.getOrDefault("diracDeltaApproximationDensityRegressionWidthPerStdDev", 0.5);
 
 		isGradientRetainsLeafNodesOnly = (Boolean) properties.getOrDefault("isGradientRetainsLeafNodesOnly", true);
+		isParallelReverseSweep = (Boolean) properties.getOrDefault("isParallelReverseSweep", false);
 	}
 
 	/**
@@ -120,12 +124,19 @@ public class RandomVariableDifferentiableAADFactory extends AbstractRandomVariab
 		return isGradientRetainsLeafNodesOnly;
 	}
 
+	/**
+	 * @return true, if the reverse sweep splits the paths into slices which are processed in parallel.
+	 */
+	public boolean isParallelReverseSweep() {
+		return isParallelReverseSweep;
+	}
+
 	@Override
 	public String toString() {
 		return "RandomVariableDifferentiableAADFactory [diracDeltaApproximationMethod=" + diracDeltaApproximationMethod
 				+ ", diracDeltaApproximationWidthPerStdDev=" + diracDeltaApproximationWidthPerStdDev
 				+ ", diracDeltaApproximationDensityRegressionWidthPerStdDev="
 				+ diracDeltaApproximationDensityRegressionWidthPerStdDev + ", isGradientRetainsLeafNodesOnly="
-				+ isGradientRetainsLeafNodesOnly + ", toString()=" + super.toString() + "]";
+				+ isGradientRetainsLeafNodesOnly + ", isParallelReverseSweep=" + isParallelReverseSweep + ", toString()=" + super.toString() + "]";
 	}
 }
@@ -0,0 +1,201 @@
+
+package net.finmath.montecarlo.automaticdifferentiation.backward;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.finmath.montecarlo.RandomVariableFactory;
+import net.finmath.montecarlo.RandomVariableFromArrayFactory;
+import net.finmath.montecarlo.automaticdifferentiation.AbstractRandomVariableDifferentiableFactory;
+import net.finmath.montecarlo.automaticdifferentiation.RandomVariableDifferentiable;
+import net.finmath.montecarlo.automaticdifferentiation.backward.RandomVariableDifferentiableAADFactory.DiracDeltaApproximationMethod;
+
+/**
+ * A factory for objects of type {@link RandomVariableDifferentiableAADTape}, i.e., backward automatic differentiation
+ * where the operations are recorded on a linear tape.
+ *
+ * The factory supports the same properties as {@link RandomVariableDifferentiableAADFactory}.
+ *
+ * All random variables created by this factory (and the results of operations on them) are recorded on the current tape of the factory.
+ * The tape is released (and a new tape is started) once no random variable recorded on it is referenced.
+ * The method {@link #resetTape()} starts a new tape explicitly, which allows to release the values retained by the tape while some random variables
+ * (e.g., model parameters) are still referenced. Random variables recorded on the previous tape remain valid (including their gradients),
+ * but they must not be combined with random variables recorded on the new tape.
+ *
+ * Since the tape retains the argument values of all operations recorded on it, a tape which is kept alive by long-lived random variables
+ * (e.g., the model parameters) grows with each valuation. The method {@link #openScope()} opens a {@link Scope}: closing it removes all
+ * operations recorded after it had been opened from the tape, such that the tape returns to its previous size. Example:
+ * <pre>
+ * try(RandomVariableDifferentiableAADTapeFactory.Scope scope = factory.openScope()) {
+ * 	RandomVariableDifferentiable value = (RandomVariableDifferentiable)product.getValue(0.0, model);
+ * 	Map&lt;Long, RandomVariable&gt; gradient = value.getGradient();
+ * 	...
+ * }
+ * </pre>
+ *
+ * @version 1.1
+ */
+public class RandomVariableDifferentiableAADTapeFactory extends AbstractRandomVariableDifferentiableFactory {
+
+	private static final long serialVersionUID = 4211369437735366312L;
+
+	private final DiracDeltaApproximationMethod diracDeltaApproximationMethod;
+	private final double diracDeltaApproximationWidthPerStdDev;
+	private final double diracDeltaApproximationDensityRegressionWidthPerStdDev;
+
+	private final boolean isGradientRetainsLeafNodesOnly;
+
+	/*
+	 * The factory holds only a weak reference to the current tape: the tape is referenced by the random variables recorded on it
+	 * and it is released once these are no longer referenced. A new tape is then started on demand.
+	 */
+	private transient WeakReference<RandomVariableDifferentiableAADTape.Tape> tape;
+
+	/**
+	 * Create a factory for objects of type {@link RandomVariableDifferentiableAADTape}.
+	 *
+	 * Supported propeties are
+	 * <ul>
+	 * <li>isGradientRetainsLeafNodesOnly: Boolean</li>
+	 * <li>diracDeltaApproximationMethod: String</li>
+	 * <li>diracDeltaApproximationWidthPerStdDev: Double</li>
+	 * <li>diracDeltaApproximationDensityRegressionWidthPerStdDev: Double</li>
+	 * </ul>
+	 *
+	 * @param randomVariableFactoryForNonDifferentiable Random variable factory for the underlying values.
+	 * @param properties A key value map with properties.
+	 */
+	public RandomVariableDifferentiableAADTapeFactory(final RandomVariableFactory randomVariableFactoryForNonDifferentiable, final Map<String, Object> properties) {
+		super(randomVariableFactoryForNonDifferentiable);
+
+		diracDeltaApproximationMethod = DiracDeltaApproximationMethod.valueOf((String)properties.getOrDefault("diracDeltaApproximationMethod", DiracDeltaApproximationMethod.DISCRETE_DELTA.name()));
+		diracDeltaApproximationWidthPerStdDev = (Double)properties.getOrDefault("diracDeltaApproximationWidthPerStdDev", properties.getOrDefault("barrierDiracWidth", 0.05));
+		diracDeltaApproximationDensityRegressionWidthPerStdDev = (Double)properties.getOrDefault("diracDeltaApproximationDensityRegressionWidthPerStdDev", 0.5);
+
+		isGradientRetainsLeafNodesOnly = (Boolean) properties.getOrDefault("isGradientRetainsLeafNodesOnly", true);
+
+		tape = new WeakReference<>(null);
+	}
+
+	/**
+	 * @param properties A key value map with properties.
+	 */
+	public RandomVariableDifferentiableAADTapeFactory(final Map<String, Object> properties) {
+		this(new RandomVariableFromArrayFactory(), properties);
+	}
+
+	/**
+	 * @param randomVariableFactoryForNonDifferentiable Random variable factory for the underlying values.
+	 */
+	public RandomVariableDifferentiableAADTapeFactory(final RandomVariableFactory randomVariableFactoryForNonDifferentiable) {
+		this(randomVariableFactoryForNonDifferentiable, new HashMap<String, Object>());
+	}
+
+	public RandomVariableDifferentiableAADTapeFactory() {
+		this(new RandomVariableFromArrayFactory());
+	}
+
+	@Override
+	public RandomVariableDifferentiable createRandomVariable(final double time, final double value) {
+		return new RandomVariableDifferentiableAADTape(createRandomVariableNonDifferentiable(time, value), this);
+	}
+
+	@Override
+	public RandomVariableDifferentiable createRandomVariable(final double time, final double[] values) {
+		return new RandomVariableDifferentiableAADTape(createRandomVariableNonDifferentiable(time, values), this);
+	}
+
+	/**
+	 * Start a new tape. Subsequently created random variables are recorded on the new tape.
+	 * The previous tape is released once no random variable recorded on it is referenced.
+	 */
+	public synchronized void resetTape() {
+		tape = new WeakReference<>(null);
+	}
+
+	/**
+	 * A scope of the current tape. Closing the scope removes all entries recorded on the tape after the scope has been opened
+	 * and releases the values retained by them. The random variables recorded within the scope (including those of other threads recording
+	 * on the same tape) must not be used after the scope has been closed, this results in an {@link IllegalStateException}.
+	 * The gradients calculated within the scope remain valid.
+	 *
+	 * Nested scopes have to be closed in reverse order of their opening.
+	 */
+	public static class Scope implements AutoCloseable {
+
+		private final RandomVariableDifferentiableAADTape.Tape tape;
+		private final int sizeOfTapeAtOpening;
+
+		private Scope(final RandomVariableDifferentiableAADTape.Tape tape) {
+			this.tape = tape;
+			this.sizeOfTapeAtOpening = tape.size();
+		}
+
+		/**
+		 * Removes the entries recorded within this scope from the tape.
+		 */
+		@Override
+		public void close() {
+			tape.rewind(sizeOfTapeAtOpening);
+		}
+	}
+
+	/**
+	 * Opens a scope of the current tape, see {@link Scope}.
+	 *
+	 * @return The scope.
+	 */
+	public synchronized Scope openScope() {
+		return new Scope(getTape());
+	}
+
+	/**
+	 * @return The number of entries recorded on the current tape.
+	 */
+	public synchronized int getTapeSize() {
+		final RandomVariableDifferentiableAADTape.Tape currentTape = tape.get();
+		return currentTape != null ? currentTape.size() : 0;
+	}
+
+	synchronized RandomVariableDifferentiableAADTape.Tape getTape() {
+		RandomVariableDifferentiableAADTape.Tape currentTape = tape.get();
+		if(currentTape == null) {
+			currentTape = new RandomVariableDifferentiableAADTape.Tape();
+			tape = new WeakReference<>(currentTape);
+		}
+		return currentTape;
+	}
+
+	public DiracDeltaApproximationMethod getDiracDeltaApproximationMethod() {
+		return diracDeltaApproximationMethod;
+	}
+
+	public double getDiracDeltaApproximationWidthPerStdDev() {
+		return diracDeltaApproximationWidthPerStdDev;
+	}
+
+	public double getDiracDeltaApproximationDensityRegressionWidthPerStdDev() {
+		return diracDeltaApproximationDensityRegressionWidthPerStdDev;
+	}
+
+	public boolean isGradientRetainsLeafNodesOnly() {
+		return isGradientRetainsLeafNodesOnly;
+	}
+
+	private void readObject(final java.io.ObjectInputStream in) throws ClassNotFoundException, IOException {
+		in.defaultReadObject();
+		// initialization of transients
+		tape = new WeakReference<>(null);
+	}
+
+	@Override
+	public String toString() {
+		return "RandomVariableDifferentiableAADTapeFactory [diracDeltaApproximationMethod=" + diracDeltaApproximationMethod
+				+ ", diracDeltaApproximationWidthPerStdDev=" + diracDeltaApproximationWidthPerStdDev
+				+ ", diracDeltaApproximationDensityRegressionWidthPerStdDev="
+				+ diracDeltaApproximationDensityRegressionWidthPerStdDev + ", isGradientRetainsLeafNodesOnly="
+				+ isGradientRetainsLeafNodesOnly + ", toString()=" + super.toString() + "]";
+	}
+}
@@ -5,9 +5,20 @@
  */
 package net.finmath.montecarlo.conditionalexpectation;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
 import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.CholeskyDecomposition;
 import org.apache.commons.math3.linear.DecompositionSolver;
+import org.apache.commons.math3.linear.NonPositiveDefiniteMatrixException;
+import org.apache.commons.math3.linear.NonSymmetricMatrixException;
+import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.commons.math3.linear.SingularValueDecomposition;
 
 import net.finmath.stochastic.ConditionalExpectationEstimator;
@@ -27,8 +38,14 @@ import net.finmath.stochastic.RandomVariable;
  * basis functions have to correspond to the same entities, however, generated in
  * different simulations (number of path, etc., may be different).
  *
+ * The scalar products of the basis functions (the matrix X<sup>T</sup> X) are calculated in a single pass over the paths
+ * (split into chunks processed in parallel) without allocating intermediate random variables. The normal equations are solved
+ * using a Cholesky decomposition, falling back to a singular value decomposition if the matrix is (numerically) singular.
+ * Multiple dependents can be regressed against the same basis functions in a single pass via
+ * {@link #getLinearRegressionParameters(RandomVariable[])} and {@link #getConditionalExpectation(RandomVariable[])}.
+ *
  * @author Christian Fries
- * @version 1.0
+ * @version 1.1
  */
 public class MonteCarloConditionalExpectationRegression implements ConditionalExpectationEstimator {
 
@@ -60,10 +77,19 @@ public class MonteCarloConditionalExpectationRegression implements ConditionalEx
 	}
 
 
+	// The number of paths per chunk for the calculation of the scalar products (fixed, such that the result does not depend on the number of threads)
+	private static final int numberOfPathsPerChunk = 4096;
+
+	/*
+	 * The Cholesky decomposition is used if the ratio of the smallest to the largest diagonal element of
+	 * the Cholesky factor, squared (an estimate of the inverse condition number), is above this threshold.
+	 */
+	private static final double choleskyInverseConditionThreshold = 1E-12;
+
 	private RegressionBasisFunctions basisFunctionsEstimator		= null;
 	private RegressionBasisFunctions basisFunctionsPredictor		= null;
 
-	private transient DecompositionSolver solver;
+	private transient volatile DecompositionSolver solver;
 	private final transient Object solverLock;
 
 	public MonteCarloConditionalExpectationRegression() {
@@ -109,6 +135,31 @@ public class MonteCarloConditionalExpectationRegression implements ConditionalEx
 		return conditionalExpectation;
 	}
 
+	/**
+	 * Returns the conditional expectations of the given random variables, where the regression of all random variables
+	 * is performed in a single pass over the paths.
+	 *
+	 * @param randomVariables The random variables.
+	 * @return The conditional expectations of the random variables.
+	 */
+	public RandomVariable[] getConditionalExpectation(final RandomVariable[] randomVariables) {
+		// Get regression parameters x as the solution of XTX x = XT y
+		final double[][] linearRegressionParameters = getLinearRegressionParameters(randomVariables);
+
+		// Calculate estimate, i.e. X x
+		final RandomVariable[] basisFunctions = basisFunctionsPredictor.getBasisFunctions();
+		final RandomVariable[] conditionalExpectations = new RandomVariable[randomVariables.length];
+		for(int k=0; k<randomVariables.length; k++) {
+			RandomVariable conditionalExpectation = basisFunctions[0].mult(linearRegressionParameters[k][0]);
+			for(int i=1; i<basisFunctions.length; i++) {
+				conditionalExpectation = conditionalExpectation.addProduct(basisFunctions[i], linearRegressionParameters[k][i]);
+			}
+			conditionalExpectations[k] = conditionalExpectation;
+		}
+
+		return conditionalExpectations;
+	}
+
 	/**
 	 * Return the solution x of XTX x = XT y for a given y.
 	 *
@@ -116,37 +167,209 @@ public class MonteCarloConditionalExpectationRegression implements ConditionalEx
 	 * @return The solution x of XTX x = XT y.
 	 */
 	public double[] getLinearRegressionParameters(final RandomVariable dependents) {
+		return getLinearRegressionParameters(new RandomVariable[] { dependents })[0];
+	}
+
+	/**
+	 * Return the solutions x<sub>k</sub> of XTX x<sub>k</sub> = XT y<sub>k</sub> for given y<sub>k</sub>.
+	 * The projections XT y<sub>k</sub> are calculated in a single pass over the paths.
+	 *
+	 * @param dependents The sample vectors of the random variables y<sub>k</sub>.
+	 * @return The solutions x<sub>k</sub> of XTX x<sub>k</sub> = XT y<sub>k</sub>, i.e., <code>linearRegressionParameters[k]</code> is the solution for <code>dependents[k]</code>.
+	 */
+	public double[][] getLinearRegressionParameters(final RandomVariable[] dependents) {
 
 		final RandomVariable[] basisFunctions = basisFunctionsEstimator.getBasisFunctions();
 
 		/*
 		 * We cache the creation of XTX, or to be precise, the solver, that solves XTX x = z for a given z.
 		 */
-		synchronized (solverLock) {
-			if(solver == null) {
-				// Build XTX - the symmetric matrix consisting of the scalar products of the basis functions.
-				final double[][] XTX = new double[basisFunctions.length][basisFunctions.length];
-				for(int i=0; i<basisFunctions.length; i++) {
-					for(int j=i; j<basisFunctions.length; j++) {
-						XTX[i][j] = basisFunctions[i].mult(basisFunctions[j]).getAverage();	// Scalar product
-						XTX[j][i] = XTX[i][j];												// Symmetric matrix
+		DecompositionSolver solver = this.solver;
+		if(solver == null) {
+			synchronized (solverLock) {
+				solver = this.solver;
+				if(solver == null) {
+					// Build XTX - the symmetric matrix consisting of the scalar products of the basis functions.
+					final double[][] XTX = getAveragesOfProducts(basisFunctions, basisFunctions, null);
+
+					solver = getSolver(XTX);
+					this.solver = solver;
+				}
+			}
+		}
+
+		// Build XTy - the projection of the dependents random variables on the basis functions.
+		final double[][] XTy = getAveragesOfProducts(dependents, basisFunctions, null);
+
+		// Solve X^T X x = X^T y - which gives us the regression coefficients x = linearRegressionParameters
+		final double[][] linearRegressionParameters = new double[dependents.length][];
+		for(int k=0; k<dependents.length; k++) {
+			linearRegressionParameters[k] = solver.solve(new ArrayRealVector(XTy[k], false)).toArray();
+		}
+
+		return linearRegressionParameters;
+	}
+
+	/**
+	 * Returns a solver for the symmetric positive semi-definite matrix XTX. The solver uses a Cholesky decomposition
+	 * if the matrix is positive definite and not too badly conditioned, otherwise a singular value decomposition (giving the solution of minimal norm).
+	 *
+	 * @param XTX A symmetric positive semi-definite matrix.
+	 * @return A solver for XTX x = z.
+	 */
+	static DecompositionSolver getSolver(final double[][] XTX) {
+		try {
+			final CholeskyDecomposition choleskyDecomposition = new CholeskyDecomposition(new Array2DRowRealMatrix(XTX, false));
+
+			final RealMatrix factor = choleskyDecomposition.getL();
+			double diagonalMin = Double.MAX_VALUE;
+			double diagonalMax = 0.0;
+			for(int i=0; i<XTX.length; i++) {
+				diagonalMin = Math.min(diagonalMin, factor.getEntry(i, i));
+				diagonalMax = Math.max(diagonalMax, factor.getEntry(i, i));
+			}
+
+			if(diagonalMin > 0 && diagonalMin * diagonalMin > choleskyInverseConditionThreshold * diagonalMax * diagonalMax) {
+				return choleskyDecomposition.getSolver();
+			}
+		}
+		catch(final NonPositiveDefiniteMatrixException | NonSymmetricMatrixException e) {
+			// Fall back to singular value decomposition
+		}
+
+		return new SingularValueDecomposition(new Array2DRowRealMatrix(XTX, false)).getSolver();
+	}
+
+	/**
+	 * Calculates the matrix of the scalar products <code>E(w X<sub>i</sub> Y<sub>j</sub>)</code>, i.e., the average of the
+	 * (weighted) products of the random variables, in a single pass over the paths. The paths are split into chunks of a fixed size which are processed in parallel.
+	 * No intermediate random variables are allocated.
+	 *
+	 * The sums are calculated using a Kahan summation within each chunk and across the chunks (in the order of the chunks).
+	 * Since the chunks do not depend on the number of threads, the result does not depend on the machine.
+	 *
+	 * If <code>left</code> and <code>right</code> are the same array, only half of the symmetric matrix is calculated.
+	 *
+	 * @param left The random variables X<sub>i</sub>.
+	 * @param right The random variables Y<sub>j</sub>.
+	 * @param weights The weights w (or null, corresponding to the weight 1).
+	 * @return The matrix of the averages of the products, where the row index corresponds to <code>left</code> and the column index to <code>right</code>.
+	 */
+	static double[][] getAveragesOfProducts(final RandomVariable[] left, final RandomVariable[] right, final RandomVariable weights) {
+		final boolean isSymmetric = left == right;
+
+		int numberOfPaths = weights != null ? weights.size() : 1;
+		for(final RandomVariable randomVariable : left) {
+			numberOfPaths = Math.max(numberOfPaths, randomVariable.size());
+		}
+		for(final RandomVariable randomVariable : right) {
+			numberOfPaths = Math.max(numberOfPaths, randomVariable.size());
+		}
+
+		final int numberOfChunks = (numberOfPaths + numberOfPathsPerChunk - 1) / numberOfPathsPerChunk;
+
+		final double[][] sums;
+		if(numberOfChunks == 1) {
+			sums = getSumsOfProducts(left, right, weights, isSymmetric, 0, numberOfPaths);
+		}
+		else {
+			final List<Callable<double[][]>> workers = new ArrayList<>(numberOfChunks);
+			for(int chunkIndex = 0; chunkIndex < numberOfChunks; chunkIndex++) {
+				final int fromPath = chunkIndex * numberOfPathsPerChunk;
+				final int toPath = Math.min(fromPath + numberOfPathsPerChunk, numberOfPaths);
+				workers.add(new Callable<double[][]>() {
+					@Override
+					public double[][] call() {
+						return getSumsOfProducts(left, right, weights, isSymmetric, fromPath, toPath);
+					}
+				});
+			}
+
+			/*
+			 * Kahan summation of the sums of the chunks (in the order of the chunks)
+			 */
+			sums = new double[left.length][right.length];
+			final double[][] errors = new double[left.length][right.length];
+			try {
+				for(final Future<double[][]> result : ForkJoinPool.commonPool().invokeAll(workers)) {
+					final double[][] sumsOnChunk = result.get();
+					for(int i=0; i<left.length; i++) {
+						for(int j=isSymmetric ? i : 0; j<right.length; j++) {
+							final double value = sumsOnChunk[i][j] - errors[i][j];
+							final double newSum = sums[i][j] + value;
+							errors[i][j] = (newSum - sums[i][j]) - value;
+							sums[i][j] = newSum;
+						}
 					}
 				}
+			}
+			catch(final ExecutionException e) {
+				throw new RuntimeException("Calculation of scalar products failed. See cause of this exception for details.", e.getCause());
+			}
+			catch(final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("Calculation of scalar products interrupted.", e);
+			}
+		}
 
-				solver = new SingularValueDecomposition(new Array2DRowRealMatrix(XTX, false)).getSolver();
+		for(int i=0; i<left.length; i++) {
+			for(int j=isSymmetric ? i : 0; j<right.length; j++) {
+				sums[i][j] /= numberOfPaths;
+				if(isSymmetric) {
+					sums[j][i] = sums[i][j];									// Symmetric matrix
+				}
 			}
 		}
 
-		// Build XTy - the projection of the dependents random variable on the basis functions.
-		final double[] XTy = new double[basisFunctions.length];
-		for(int i=0; i<basisFunctions.length; i++) {
-			XTy[i] = dependents.mult(basisFunctions[i]).getAverage();				// Scalar product
+		return sums;
+	}
+
+	/**
+	 * Calculates the sums of the (weighted) products of the random variables on the paths <code>fromPath</code> (inclusive) to <code>toPath</code> (exclusive),
+	 * using a Kahan summation. If <code>isSymmetric</code> is true, only the upper triangle (<code>j &ge; i</code>) is calculated.
+	 */
+	private static double[][] getSumsOfProducts(final RandomVariable[] left, final RandomVariable[] right, final RandomVariable weights, final boolean isSymmetric, final int fromPath, final int toPath) {
+		final double[][] sums = new double[left.length][right.length];
+		final double[][] errors = new double[left.length][right.length];
+
+		final double[] valuesLeft = new double[left.length];
+		final double[] valuesRight = isSymmetric ? valuesLeft : new double[right.length];
+		for(int path = fromPath; path < toPath; path++) {
+			final double weight = weights != null ? weights.get(path) : 1.0;
+			if(weight == 0.0) {
+				continue;
+			}
+
+			for(int i=0; i<left.length; i++) {
+				valuesLeft[i] = left[i].get(path);
+			}
+			if(!isSymmetric) {
+				for(int j=0; j<right.length; j++) {
+					valuesRight[j] = right[j].get(path);
+				}
+			}
+
+			for(int i=0; i<left.length; i++) {
+				final double weightedValueLeft = weight * valuesLeft[i];
+				final double[] sumsOfRow = sums[i];
+				final double[] errorsOfRow = errors[i];
+				for(int j=isSymmetric ? i : 0; j<right.length; j++) {
+					final double value = weightedValueLeft * valuesRight[j] - errorsOfRow[j];		// Error corrected value
+					final double newSum = sumsOfRow[j] + value;										// New sum
+					errorsOfRow[j] = (newSum - sumsOfRow[j]) - value;								// New numerical error
+					sumsOfRow[j] = newSum;
+				}
+			}
 		}
 
-		// Solve X^T X x = X^T y - which gives us the regression coefficients x = linearRegressionParameters
-		final double[] linearRegressionParameters = solver.solve(new ArrayRealVector(XTy)).toArray();
+		// Apply the remaining error compensation
+		for(int i=0; i<left.length; i++) {
+			for(int j=isSymmetric ? i : 0; j<right.length; j++) {
+				sums[i][j] -= errors[i][j];
+			}
+		}
 
-		return linearRegressionParameters;
+		return sums;
 	}
 
 	public RegressionBasisFunctions getBasisFunctionsEstimator() {
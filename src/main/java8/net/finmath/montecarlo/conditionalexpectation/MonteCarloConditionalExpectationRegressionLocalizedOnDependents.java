@@ -5,10 +5,8 @@
  */
 package net.finmath.montecarlo.conditionalexpectation;
 
-import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.apache.commons.math3.linear.ArrayRealVector;
 import org.apache.commons.math3.linear.DecompositionSolver;
-import org.apache.commons.math3.linear.SingularValueDecomposition;
 
 import net.finmath.stochastic.RandomVariable;
 import net.finmath.stochastic.Scalar;
@@ -84,46 +82,47 @@ public class MonteCarloConditionalExpectationRegressionLocalizedOnDependents ext
 
 	/**
 	 * Return the solution x of XTX x = XT y for a given y.
-	 * @TODO Performance upon repeated call can be optimized by caching XTX.
+	 *
+	 * Since the localization depends on y, the matrix XTX is calculated for each call.
 	 *
 	 * @param dependents The sample vector of the random variable y.
 	 * @return The solution x of XTX x = XT y.
 	 */
 	@Override
-	public double[] getLinearRegressionParameters(RandomVariable dependents) {
+	public double[] getLinearRegressionParameters(final RandomVariable dependents) {
 
 		final RandomVariable localizerWeights = dependents.squared().sub(Math.pow(dependents.getStandardDeviation()*standardDeviations,2.0)).choose(new Scalar(0.0), new Scalar(1.0));
 
-		// Localize basis functions
-		final RandomVariable[] basisFunctionsNonLocalized = getBasisFunctionsEstimator().getBasisFunctions();
-		final RandomVariable[] basisFunctions = new RandomVariable[basisFunctionsNonLocalized.length];
-		for(int i=0; i<basisFunctions.length; i++) {
-			basisFunctions[i] = basisFunctionsNonLocalized[i].mult(localizerWeights);
-		}
+		final RandomVariable[] basisFunctions = getBasisFunctionsEstimator().getBasisFunctions();
 
-		// Localize dependents
-		dependents = dependents.mult(localizerWeights);
+		// Build XTX - the symmetric matrix consisting of the scalar products of the localized basis functions.
+		final double[][] XTX = getAveragesOfProducts(basisFunctions, basisFunctions, localizerWeights);
 
-		// Build XTX - the symmetric matrix consisting of the scalar products of the basis functions.
-		final double[][] XTX = new double[basisFunctions.length][basisFunctions.length];
-		for(int i=0; i<basisFunctions.length; i++) {
-			for(int j=i; j<basisFunctions.length; j++) {
-				XTX[i][j] = basisFunctions[i].mult(basisFunctions[j]).getAverage();	// Scalar product
-				XTX[j][i] = XTX[i][j];												// Symmetric matrix
-			}
-		}
+		final DecompositionSolver solver = getSolver(XTX);
 
-		final DecompositionSolver solver = new SingularValueDecomposition(new Array2DRowRealMatrix(XTX, false)).getSolver();
-
-		// Build XTy - the projection of the dependents random variable on the basis functions.
-		final double[] XTy = new double[basisFunctions.length];
-		for(int i=0; i<basisFunctions.length; i++) {
-			XTy[i] = dependents.mult(basisFunctions[i]).getAverage();				// Scalar product
-		}
+		// Build XTy - the projection of the localized dependents random variable on the localized basis functions.
+		final double[] XTy = getAveragesOfProducts(new RandomVariable[] { dependents }, basisFunctions, localizerWeights)[0];
 
 		// Solve X^T X x = X^T y - which gives us the regression coefficients x = linearRegressionParameters
-		final double[] linearRegressionParameters = solver.solve(new ArrayRealVector(XTy)).toArray();
+		final double[] linearRegressionParameters = solver.solve(new ArrayRealVector(XTy, false)).toArray();
+
+		return linearRegressionParameters;
+	}
 
+	/**
+	 * Return the solutions x<sub>k</sub> of XTX x<sub>k</sub> = XT y<sub>k</sub> for given y<sub>k</sub>.
+	 *
+	 * Since the localization depends on y<sub>k</sub>, each dependent is regressed separately.
+	 *
+	 * @param dependents The sample vectors of the random variables y<sub>k</sub>.
+	 * @return The solutions x<sub>k</sub> of XTX x<sub>k</sub> = XT y<sub>k</sub>.
+	 */
+	@Override
+	public double[][] getLinearRegressionParameters(final RandomVariable[] dependents) {
+		final double[][] linearRegressionParameters = new double[dependents.length][];
+		for(int k=0; k<dependents.length; k++) {
+			linearRegressionParameters[k] = getLinearRegressionParameters(dependents[k]);
+		}
 		return linearRegressionParameters;
 	}
 }
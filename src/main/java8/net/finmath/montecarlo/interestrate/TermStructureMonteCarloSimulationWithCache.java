@@ -0,0 +1,353 @@
+package net.finmath.montecarlo.interestrate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.process.MonteCarloProcess;
+import net.finmath.stochastic.RandomVariable;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.util.BoundedCache;
+import net.finmath.util.BoundedCache.EvictionPolicy;
+
+/**
+ * A term structure Monte-Carlo simulation which delegates to a given simulation and caches the
+ * forward rates, the numeraires and the LIBORs requested from it.
+ *
+ * Products valued on this object (e.g., the products of a portfolio) share the cache, such that identical
+ * requests (identical simulation time, period start and period end) are evaluated only once. The requests are
+ * recorded and can be queried via {@link #getForwardRateRequests()} and {@link #getNumeraireRequests()}, such that
+ * they can be evaluated up front (in parallel) via {@link #prefetch(Set, Set)} for another simulation.
+ *
+ * The class implements {@link LIBORModelMonteCarloSimulationModel}, such that it can be used with the products requiring a LIBOR model.
+ * If the underlying simulation is not a {@link LIBORModelMonteCarloSimulationModel}, the methods specific to the LIBOR
+ * period discretization throw an {@link UnsupportedOperationException}.
+ *
+ * The size of each of the caches (forward rates, numeraires and LIBORs) may be bounded by a maximum size in bytes, see
+ * {@link #TermStructureMonteCarloSimulationWithCache(TermStructureMonteCarloSimulationModel, long, EvictionPolicy)}. Evicted values are
+ * re-calculated by the underlying simulation if requested again. The (small) set of requests is always retained.
+ * By default the caches are unbounded and the cached values are not released. The object should then be used for the valuation of a batch
+ * of products and discarded afterwards.
+ *
+ * @version 1.1
+ */
+public class TermStructureMonteCarloSimulationWithCache implements LIBORModelMonteCarloSimulationModel {
+
+	/**
+	 * A request of a forward rate, i.e., the simulation time, the period start and the period end.
+	 */
+	public static final class ForwardRateRequest {
+		private final double time;
+		private final double periodStart;
+		private final double periodEnd;
+
+		public ForwardRateRequest(final double time, final double periodStart, final double periodEnd) {
+			this.time = time;
+			this.periodStart = periodStart;
+			this.periodEnd = periodEnd;
+		}
+
+		public double getTime() {
+			return time;
+		}
+
+		public double getPeriodStart() {
+			return periodStart;
+		}
+
+		public double getPeriodEnd() {
+			return periodEnd;
+		}
+
+		@Override
+		public boolean equals(final Object other) {
+			if(this == other) {
+				return true;
+			}
+			if(!(other instanceof ForwardRateRequest)) {
+				return false;
+			}
+			final ForwardRateRequest request = (ForwardRateRequest)other;
+			return Double.compare(time, request.time) == 0 && Double.compare(periodStart, request.periodStart) == 0 && Double.compare(periodEnd, request.periodEnd) == 0;
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(new double[] { time, periodStart, periodEnd });
+		}
+
+		@Override
+		public String toString() {
+			return "ForwardRateRequest [time=" + time + ", periodStart=" + periodStart + ", periodEnd=" + periodEnd + "]";
+		}
+	}
+
+	private final TermStructureMonteCarloSimulationModel model;
+
+	private final long				cacheMaximumSizeInBytes;
+	private final EvictionPolicy	cacheEvictionPolicy;
+
+	private final BoundedCache<ForwardRateRequest, RandomVariable>	forwardRateCache;
+	private final BoundedCache<Double, RandomVariable>				numeraireCache;
+	private final BoundedCache<List<Integer>, RandomVariable>		liborCache;
+
+	private final Set<ForwardRateRequest>	forwardRateRequests = ConcurrentHashMap.newKeySet();
+	private final Set<Double>				numeraireRequests = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Create a simulation caching the forward rates and numeraires of a given simulation,
+	 * where the size of each of the caches is bounded by a given maximum size in bytes.
+	 *
+	 * @param model The simulation to which the requests are delegated.
+	 * @param cacheMaximumSizeInBytes The maximum size of each of the caches in bytes (<code>Long.MAX_VALUE</code> for unbounded caches).
+	 * @param cacheEvictionPolicy The policy used to select the values to be evicted from a cache exceeding its maximum size.
+	 */
+	public TermStructureMonteCarloSimulationWithCache(final TermStructureMonteCarloSimulationModel model, final long cacheMaximumSizeInBytes, final EvictionPolicy cacheEvictionPolicy) {
+		super();
+		this.model = model;
+		this.cacheMaximumSizeInBytes = cacheMaximumSizeInBytes;
+		this.cacheEvictionPolicy = cacheEvictionPolicy;
+
+		forwardRateCache	= BoundedCache.ofRandomVariables(cacheMaximumSizeInBytes, cacheEvictionPolicy);
+		numeraireCache		= BoundedCache.ofRandomVariables(cacheMaximumSizeInBytes, cacheEvictionPolicy);
+		liborCache			= BoundedCache.ofRandomVariables(cacheMaximumSizeInBytes, cacheEvictionPolicy);
+	}
+
+	/**
+	 * Create a simulation caching the forward rates and numeraires of a given simulation. The caches are unbounded.
+	 *
+	 * @param model The simulation to which the requests are delegated.
+	 */
+	public TermStructureMonteCarloSimulationWithCache(final TermStructureMonteCarloSimulationModel model) {
+		this(model, Long.MAX_VALUE, EvictionPolicy.LEAST_RECENTLY_USED);
+	}
+
+	/**
+	 * Evaluate the given requests (in parallel) and store them in the cache.
+	 * If the caches are bounded, values may be evicted before they are requested.
+	 *
+	 * @param forwardRateRequests The forward rate requests.
+	 * @param numeraireRequests The numeraire requests (simulation times).
+	 * @throws CalculationException Thrown if the evaluation of a request fails.
+	 */
+	public void prefetch(final Set<ForwardRateRequest> forwardRateRequests, final Set<Double> numeraireRequests) throws CalculationException {
+		final List<Callable<RandomVariable>> requests = new ArrayList<>();
+		for(final Double time : numeraireRequests) {
+			requests.add(new Callable<RandomVariable>() {
+				@Override
+				public RandomVariable call() throws CalculationException {
+					return getNumeraire(time);
+				}
+			});
+		}
+		for(final ForwardRateRequest request : forwardRateRequests) {
+			requests.add(new Callable<RandomVariable>() {
+				@Override
+				public RandomVariable call() throws CalculationException {
+					return getForwardRate(request.getTime(), request.getPeriodStart(), request.getPeriodEnd());
+				}
+			});
+		}
+
+		try {
+			for(final Future<RandomVariable> result : ForkJoinPool.commonPool().invokeAll(requests)) {
+				result.get();
+			}
+		}
+		catch(final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CalculationException(e);
+		}
+		catch(final ExecutionException e) {
+			if(e.getCause() instanceof CalculationException) {
+				throw (CalculationException)e.getCause();
+			}
+			throw new RuntimeException("Evaluation of requests failed. See cause of this exception for details.", e.getCause());
+		}
+	}
+
+	/**
+	 * @return The set of forward rate requests which have been evaluated by this object.
+	 */
+	public Set<ForwardRateRequest> getForwardRateRequests() {
+		return Collections.unmodifiableSet(forwardRateRequests);
+	}
+
+	/**
+	 * @return The set of numeraire requests (simulation times) which have been evaluated by this object.
+	 */
+	public Set<Double> getNumeraireRequests() {
+		return Collections.unmodifiableSet(numeraireRequests);
+	}
+
+	/**
+	 * @return The maximum size of each of the caches in bytes.
+	 */
+	public long getCacheMaximumSizeInBytes() {
+		return cacheMaximumSizeInBytes;
+	}
+
+	/**
+	 * @return The underlying simulation.
+	 */
+	public TermStructureMonteCarloSimulationModel getUnderlyingSimulation() {
+		return model;
+	}
+
+	@Override
+	public RandomVariable getForwardRate(final double time, final double periodStart, final double periodEnd) throws CalculationException {
+		final ForwardRateRequest request = new ForwardRateRequest(time, periodStart, periodEnd);
+		RandomVariable forwardRate = forwardRateCache.get(request);
+		if(forwardRate == null) {
+			forwardRate = model.getForwardRate(time, periodStart, periodEnd);
+			forwardRateCache.put(request, forwardRate);
+			forwardRateRequests.add(request);
+		}
+		return forwardRate;
+	}
+
+	@Override
+	public RandomVariable getNumeraire(final double time) throws CalculationException {
+		RandomVariable numeraire = numeraireCache.get(time);
+		if(numeraire == null) {
+			numeraire = model.getNumeraire(time);
+			numeraireCache.put(time, numeraire);
+			numeraireRequests.add(time);
+		}
+		return numeraire;
+	}
+
+	@Override
+	public RandomVariable getLIBOR(final int timeIndex, final int liborIndex) throws CalculationException {
+		final List<Integer> request = Arrays.asList(timeIndex, liborIndex);
+		RandomVariable libor = liborCache.get(request);
+		if(libor == null) {
+			libor = getLIBORModelMonteCarloSimulationModel().getLIBOR(timeIndex, liborIndex);
+			liborCache.put(request, libor);
+		}
+		return libor;
+	}
+
+	@Override
+	public RandomVariable[] getLIBORs(final int timeIndex) throws CalculationException {
+		final RandomVariable[] libors = new RandomVariable[getNumberOfLibors()];
+		for(int liborIndex = 0; liborIndex < libors.length; liborIndex++) {
+			libors[liborIndex] = getLIBOR(timeIndex, liborIndex);
+		}
+		return libors;
+	}
+
+	@Override
+	public TimeDiscretization getLiborPeriodDiscretization() {
+		return getLIBORModelMonteCarloSimulationModel().getLiborPeriodDiscretization();
+	}
+
+	@Override
+	public int getNumberOfLibors() {
+		return getLIBORModelMonteCarloSimulationModel().getNumberOfLibors();
+	}
+
+	@Override
+	public double getLiborPeriod(final int timeIndex) {
+		return getLIBORModelMonteCarloSimulationModel().getLiborPeriod(timeIndex);
+	}
+
+	@Override
+	public int getLiborPeriodIndex(final double time) {
+		return getLIBORModelMonteCarloSimulationModel().getLiborPeriodIndex(time);
+	}
+
+	@Override
+	public int getNumberOfPaths() {
+		return model.getNumberOfPaths();
+	}
+
+	@Override
+	public LocalDateTime getReferenceDate() {
+		return model.getReferenceDate();
+	}
+
+	@Override
+	public TimeDiscretization getTimeDiscretization() {
+		return model.getTimeDiscretization();
+	}
+
+	@Override
+	public double getTime(final int timeIndex) {
+		return model.getTime(timeIndex);
+	}
+
+	@Override
+	public int getTimeIndex(final double time) {
+		return model.getTimeIndex(time);
+	}
+
+	@Override
+	public RandomVariable getRandomVariableForConstant(final double value) {
+		return model.getRandomVariableForConstant(value);
+	}
+
+	@Override
+	public RandomVariable getMonteCarloWeights(final int timeIndex) throws CalculationException {
+		return model.getMonteCarloWeights(timeIndex);
+	}
+
+	@Override
+	public RandomVariable getMonteCarloWeights(final double time) throws CalculationException {
+		return model.getMonteCarloWeights(time);
+	}
+
+	@Override
+	public int getNumberOfFactors() {
+		return model.getNumberOfFactors();
+	}
+
+	@Override
+	public TermStructureModel getModel() {
+		return model.getModel();
+	}
+
+	@Override
+	public MonteCarloProcess getProcess() {
+		return model.getProcess();
+	}
+
+	@Override
+	public Map<String, RandomVariable> getModelParameters() {
+		return model.getModelParameters();
+	}
+
+	@Override
+	public TermStructureMonteCarloSimulationModel getCloneWithModifiedData(final Map<String, Object> dataModified) throws CalculationException {
+		return new TermStructureMonteCarloSimulationWithCache((TermStructureMonteCarloSimulationModel)model.getCloneWithModifiedData(dataModified), cacheMaximumSizeInBytes, cacheEvictionPolicy);
+	}
+
+	@Override
+	@Deprecated
+	public Object getCloneWithModifiedSeed(final int seed) {
+		return new TermStructureMonteCarloSimulationWithCache((TermStructureMonteCarloSimulationModel)model.getCloneWithModifiedSeed(seed), cacheMaximumSizeInBytes, cacheEvictionPolicy);
+	}
+
+	private LIBORModelMonteCarloSimulationModel getLIBORModelMonteCarloSimulationModel() {
+		if(!(model instanceof LIBORModelMonteCarloSimulationModel)) {
+			throw new UnsupportedOperationException("The underlying simulation " + model.getClass().getSimpleName() + " does not provide a LIBOR period discretization.");
+		}
+		return (LIBORModelMonteCarloSimulationModel)model;
+	}
+
+	@Override
+	public String toString() {
+		return "TermStructureMonteCarloSimulationWithCache [model=" + model + ", numberOfCachedForwardRates=" + forwardRateCache.size()
+		+ ", numberOfCachedNumeraires=" + numeraireCache.size() + ", cacheMaximumSizeInBytes=" + cacheMaximumSizeInBytes + "]";
+	}
+}
@@ -35,6 +35,8 @@ import net.finmath.montecarlo.process.MonteCarloProcess;
 import net.finmath.stochastic.RandomVariable;
 import net.finmath.stochastic.Scalar;
 import net.finmath.time.TimeDiscretization;
+import net.finmath.util.BoundedCache;
+import net.finmath.util.BoundedCache.EvictionPolicy;
 
 /**
  * Implements a Hull-White model with time dependent mean reversion speed and time dependent short rate volatility.
@@ -113,6 +115,10 @@ import net.finmath.time.TimeDiscretization;
  * given curves are used only at the discretization points given by <code>liborPeriodDiscretization</code>.
  * This implies that the model reports only a limited set of risk factors in the methods {@link HullWhiteModel#getModelParameters()}.
  *
+ * The discount factors derived from the curves are cached. The property <code>"cacheMaximumSizeInBytes"</code> (a <code>Long</code>) bounds
+ * the size of each of these caches and the property <code>"cacheEvictionPolicy"</code> (a <code>String</code> naming a
+ * {@link net.finmath.util.BoundedCache.EvictionPolicy}) specifies which entries are evicted. Evicted values are re-calculated on demand.
+ *
  * @see net.finmath.montecarlo.interestrate.models.covariance.ShortRateVolatilityModel
  * @see <a href="http://ssrn.com/abstract=2737091">ssrn.com/abstract=2737091</a>
  *
@@ -142,12 +148,17 @@ public class HullWhiteModel extends AbstractProcessModel implements ShortRateMod
 
 	private final boolean isInterpolateDiscountFactorsOnLiborPeriodDiscretization;
 
+	private final long				cacheMaximumSizeInBytes;
+	private final EvictionPolicy	cacheEvictionPolicy;
+
 	/*
 	 * Cache
+	 * The forward rates are model parameters (see getModelParameters) and are created only once.
+	 * The discount factors are derived from them and are re-calculated if they have been evicted from the (bounded) cache.
 	 */
-	private transient List<RandomVariable> numeraireDiscountFactors = new ArrayList<>();
+	private transient BoundedCache<Integer, RandomVariable> numeraireDiscountFactors;
 	private transient List<RandomVariable> numeraireDiscountFactorForwardRates = new ArrayList<>();
-	private transient List<RandomVariable> discountFactorFromForwardCurveCache = new ArrayList<>();
+	private transient BoundedCache<Integer, RandomVariable> discountFactorFromForwardCurveCache;
 	private transient List<RandomVariable> forwardRateCache = new ArrayList<>();
 
 	/**
@@ -192,6 +203,13 @@ public class HullWhiteModel extends AbstractProcessModel implements ShortRateMod
 
 		isInterpolateDiscountFactorsOnLiborPeriodDiscretization = (Boolean) this.properties.getOrDefault("isInterpolateDiscountFactorsOnLiborPeriodDiscretization", Boolean.valueOf(true));
 		discountCurveFromForwardCurve = new DiscountCurveFromForwardCurve(forwardRateCurve);
+
+		cacheMaximumSizeInBytes = properties != null ? ((Number)properties.getOrDefault("cacheMaximumSizeInBytes", Long.MAX_VALUE)).longValue() : Long.MAX_VALUE;
+		cacheEvictionPolicy = properties != null ? EvictionPolicy.valueOf(((String)properties.getOrDefault("cacheEvictionPolicy", EvictionPolicy.LEAST_RECENTLY_USED.name())).toUpperCase()) : EvictionPolicy.LEAST_RECENTLY_USED;
+		// Retain the cache properties for clones of this model
+		this.properties.put("cacheMaximumSizeInBytes", cacheMaximumSizeInBytes);
+		this.properties.put("cacheEvictionPolicy", cacheEvictionPolicy.name());
+		initializeCaches();
 	}
 
 	/**
@@ -428,6 +446,11 @@ public class HullWhiteModel extends AbstractProcessModel implements ShortRateMod
 		return randomVariableFactory.createRandomVariable(value);
 	}
 
+	@Override
+	public RandomVariableFactory getRandomVariableFactory() {
+		return randomVariableFactory;
+	}
+
 	@Override
 	public RandomVariable getForwardRate(final MonteCarloProcess process, final double time, final double periodStart, final double periodEnd) throws CalculationException
 	{
@@ -863,25 +886,43 @@ public class HullWhiteModel extends AbstractProcessModel implements ShortRateMod
 		final TimeDiscretization timeDiscretizationForCurves = isInterpolateDiscountFactorsOnLiborPeriodDiscretization ? liborPeriodDiscretization : process.getTimeDiscretization();
 		final double time = timeDiscretizationForCurves.getTime(timeIndex);
 
-		synchronized(numeraireDiscountFactorForwardRates) {
-			if(numeraireDiscountFactors.size() == 0) {
-				final double dfInitial = discountCurve.getDiscountFactor(analyticModel, timeDiscretizationForCurves.getTime(0));
-				RandomVariable deterministicNumeraireAdjustment
-				= randomVariableFactory.createRandomVariable(dfInitial);
-				numeraireDiscountFactors.add(0, deterministicNumeraireAdjustment);
+		// Lock-free read
+		final RandomVariable deterministicNumeraireAdjustmentFromCache = numeraireDiscountFactors.get(timeIndex);
+		if(deterministicNumeraireAdjustmentFromCache != null) {
+			return deterministicNumeraireAdjustmentFromCache;
+		}
 
+		synchronized(numeraireDiscountFactorForwardRates) {
+			if(numeraireDiscountFactorForwardRates.size() == 0) {
 				for(int i=0; i<timeDiscretizationForCurves.getNumberOfTimeSteps(); i++) {
 					final double dfPrev = discountCurve.getDiscountFactor(analyticModel, timeDiscretizationForCurves.getTime(i));
 					final double dfNext = discountCurve.getDiscountFactor(analyticModel, timeDiscretizationForCurves.getTime(i+1));
 					final double timeStep = timeDiscretizationForCurves.getTimeStep(i);
-					final double timeNext = timeDiscretizationForCurves.getTime(i+1);
 					final RandomVariable forwardRate = randomVariableFactory.createRandomVariable((dfPrev / dfNext - 1.0) / timeStep);
 					numeraireDiscountFactorForwardRates.add(i, forwardRate);
-					deterministicNumeraireAdjustment = deterministicNumeraireAdjustment.discount(forwardRate, timeStep);
-					numeraireDiscountFactors.add(i+1, deterministicNumeraireAdjustment);
 				}
 			}
-			final RandomVariable deterministicNumeraireAdjustment = numeraireDiscountFactors.get(timeIndex);
+
+			RandomVariable deterministicNumeraireAdjustment = numeraireDiscountFactors.get(timeIndex);
+			if(deterministicNumeraireAdjustment == null) {
+				// Start from the latest discount factor available in the cache
+				int timeIndexStart = timeIndex-1;
+				while(timeIndexStart >= 0 && (deterministicNumeraireAdjustment = numeraireDiscountFactors.get(timeIndexStart)) == null) {
+					timeIndexStart--;
+				}
+				if(deterministicNumeraireAdjustment == null) {
+					timeIndexStart = 0;
+					final double dfInitial = discountCurve.getDiscountFactor(analyticModel, timeDiscretizationForCurves.getTime(0));
+					deterministicNumeraireAdjustment = randomVariableFactory.createRandomVariable(dfInitial);
+					numeraireDiscountFactors.put(0, deterministicNumeraireAdjustment);
+				}
+
+				for(int i=timeIndexStart; i<timeIndex; i++) {
+					final double timeStep = timeDiscretizationForCurves.getTimeStep(i);
+					deterministicNumeraireAdjustment = deterministicNumeraireAdjustment.discount(numeraireDiscountFactorForwardRates.get(i), timeStep);
+					numeraireDiscountFactors.put(i+1, deterministicNumeraireAdjustment);
+				}
+			}
 			return deterministicNumeraireAdjustment;
 		}
 	}
@@ -916,27 +957,37 @@ public class HullWhiteModel extends AbstractProcessModel implements ShortRateMod
 	}
 
 	private RandomVariable getDiscountFactorFromForwardCurve(final MonteCarloProcess process, final int timeIndex) {
+		// Lock-free read
+		final RandomVariable discountFactorFromCache = discountFactorFromForwardCurveCache.get(timeIndex);
+		if(discountFactorFromCache != null) {
+			return discountFactorFromCache;
+		}
+
 		synchronized(discountFactorFromForwardCurveCache) {
-			if(discountFactorFromForwardCurveCache.size() <= timeIndex) {
-				// Initialize cache
+			RandomVariable dfAsRandomVariable = discountFactorFromForwardCurveCache.get(timeIndex);
+			if(dfAsRandomVariable == null) {
 				final TimeDiscretization timeDiscretizationForCurves = isInterpolateDiscountFactorsOnLiborPeriodDiscretization ? liborPeriodDiscretization : process.getTimeDiscretization();
-				for(int i=discountFactorFromForwardCurveCache.size(); i<=timeIndex; i++) {
-					RandomVariable dfAsRandomVariable;
-					if(i == 0) {
-						final double df = discountCurveFromForwardCurve.getDiscountFactor(analyticModel, timeDiscretizationForCurves.getTime(i));
-						dfAsRandomVariable = randomVariableFactory.createRandomVariable(df);
-					}
-					else {
-						final RandomVariable dfPrevious = discountFactorFromForwardCurveCache.get(i-1);
-						final RandomVariable forwardRate = getForwardRateInitialValue(process, i-1);
-						dfAsRandomVariable = dfPrevious.div(forwardRate.mult(timeDiscretizationForCurves.getTimeStep(i-1)).add(1.0));
-					}
-					discountFactorFromForwardCurveCache.add(dfAsRandomVariable);
+
+				// Start from the latest discount factor available in the cache
+				int timeIndexStart = timeIndex-1;
+				while(timeIndexStart >= 0 && (dfAsRandomVariable = discountFactorFromForwardCurveCache.get(timeIndexStart)) == null) {
+					timeIndexStart--;
+				}
+				if(dfAsRandomVariable == null) {
+					timeIndexStart = 0;
+					final double df = discountCurveFromForwardCurve.getDiscountFactor(analyticModel, timeDiscretizationForCurves.getTime(0));
+					dfAsRandomVariable = randomVariableFactory.createRandomVariable(df);
+					discountFactorFromForwardCurveCache.put(0, dfAsRandomVariable);
+				}
+
+				for(int i=timeIndexStart+1; i<=timeIndex; i++) {
+					final RandomVariable forwardRate = getForwardRateInitialValue(process, i-1);
+					dfAsRandomVariable = dfAsRandomVariable.div(forwardRate.mult(timeDiscretizationForCurves.getTimeStep(i-1)).add(1.0));
+					discountFactorFromForwardCurveCache.put(i, dfAsRandomVariable);
 				}
 			}
+			return dfAsRandomVariable;
 		}
-
-		return discountFactorFromForwardCurveCache.get(timeIndex);
 	}
 
 	private RandomVariable getForwardRateInitialValue(final MonteCarloProcess process, final int timeIndex) {
@@ -961,10 +1012,30 @@ public class HullWhiteModel extends AbstractProcessModel implements ShortRateMod
 		/*
 		 * Init transient fields
 		 */
-		numeraireDiscountFactors = new ArrayList<>();
 		numeraireDiscountFactorForwardRates = new ArrayList<>();
-		discountFactorFromForwardCurveCache = new ArrayList<>();
 		forwardRateCache = new ArrayList<>();
+		initializeCaches();
+	}
+
+	private void initializeCaches() {
+		// Note: a model serialized by a version without bounded caches uses unbounded caches
+		final long maximumSizeInBytes = cacheEvictionPolicy != null ? cacheMaximumSizeInBytes : Long.MAX_VALUE;
+		final EvictionPolicy evictionPolicy = cacheEvictionPolicy != null ? cacheEvictionPolicy : EvictionPolicy.LEAST_RECENTLY_USED;
+		numeraireDiscountFactors = BoundedCache.ofRandomVariables(maximumSizeInBytes, evictionPolicy);
+		discountFactorFromForwardCurveCache = BoundedCache.ofRandomVariables(maximumSizeInBytes, evictionPolicy);
+	}
+
+	/**
+	 * Returns the statistics of the caches of discount factors.
+	 * The size of these caches may be bounded via the property <code>cacheMaximumSizeInBytes</code>.
+	 *
+	 * @return A map from the name of the cache to its statistics.
+	 */
+	public Map<String, BoundedCache.Statistics> getCacheStatistics() {
+		final Map<String, BoundedCache.Statistics> cacheStatistics = new TreeMap<>();
+		cacheStatistics.put("numeraireDiscountFactors", numeraireDiscountFactors.getStatistics());
+		cacheStatistics.put("discountFactorsFromForwardCurve", discountFactorFromForwardCurveCache.getStatistics());
+		return cacheStatistics;
 	}
 
 	@Override
@@ -16,7 +16,6 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
-import java.util.Vector;
 import java.util.concurrent.ConcurrentHashMap;
 
 import net.finmath.exception.CalculationException;
@@ -45,6 +44,8 @@ import net.finmath.time.RegularSchedule;
 import net.finmath.time.Schedule;
 import net.finmath.time.TimeDiscretization;
 import net.finmath.time.TimeDiscretizationFromArray;
+import net.finmath.util.BoundedCache;
+import net.finmath.util.BoundedCache.EvictionPolicy;
 
 /**
  * Implements a (generalized) LIBOR market model with generic covariance structure (lognormal, normal, displaced or stochastic volatility)
@@ -141,6 +142,15 @@ import net.finmath.time.TimeDiscretizationFromArray;
  * 			May be used to limit the simulated valued to prevent values attaining POSITIVE_INFINITY and
  * 			numerical problems. To disable the cap, set <code>liborCap</code> to <code>Double.POSITIVE_INFINITY</code>.
  *		</li>
+ * 		<li>
+ * 			<code>cacheMaximumSizeInBytes</code>: An optional <code>Long</code> value bounding the size (in bytes) of each of the caches
+ * 			of numeraires, numeraire discount factors and interpolation drift adjustments (default: unbounded).
+ * 			Evicted values are re-calculated on demand.
+ *		</li>
+ * 		<li>
+ * 			<code>cacheEvictionPolicy</code>: The {@link net.finmath.util.BoundedCache.EvictionPolicy} (<code>String</code>) used if
+ * 			a cache exceeds its maximum size (default: <code>LEAST_RECENTLY_USED</code>).
+ *		</li>
  * </ul>
  * <br>
  * The main task of this class is to calculate the risk-neutral drift and the
@@ -194,12 +204,35 @@ public class LIBORMarketModelFromCovarianceModel extends AbstractProcessModel im
 	private double[][][]		integratedLIBORCovariance;
 	private transient Object	integratedLIBORCovarianceLazyInitLock = new Object();
 
-	// Cache for the numeraires, needs to be invalidated if process changes - move out of the object (to process?)
-	private transient MonteCarloProcess						numerairesProcess = null;
-	private transient ConcurrentHashMap<Integer, RandomVariable>	numeraires = new ConcurrentHashMap<>();
-	private transient ConcurrentHashMap<Double, RandomVariable>		numeraireDiscountFactorForwardRates = new ConcurrentHashMap<>();
-	private transient ConcurrentHashMap<Double, RandomVariable>		numeraireDiscountFactors = new ConcurrentHashMap<>();
-	private transient Vector<RandomVariable>						interpolationDriftAdjustmentsTerminal = new Vector<>();
+	// Bounds of the caches below
+	private long				cacheMaximumSizeInBytes		= Long.MAX_VALUE;
+	private EvictionPolicy		cacheEvictionPolicy			= EvictionPolicy.LEAST_RECENTLY_USED;
+
+	/*
+	 * Cache for the numeraires, valid for a single process. The caches are replaced (not cleared) if the process changes,
+	 * such that a reader holding the caches of one process never sees values calculated for another process.
+	 */
+	private transient volatile ProcessCaches	caches;
+	private transient Object					cachesLazyInitLock = new Object();
+
+	/**
+	 * The caches of numeraires, numeraire discount factors and interpolation drift adjustments for a given process.
+	 */
+	private static final class ProcessCaches {
+		private final MonteCarloProcess									process;
+		private final BoundedCache<Integer, RandomVariable>			numeraires;
+		private final ConcurrentHashMap<Double, RandomVariable>		numeraireDiscountFactorForwardRates;
+		private final BoundedCache<Double, RandomVariable>			numeraireDiscountFactors;
+		private final BoundedCache<Integer, RandomVariable>			interpolationDriftAdjustmentsTerminal;
+
+		private ProcessCaches(final MonteCarloProcess process, final long cacheMaximumSizeInBytes, final EvictionPolicy cacheEvictionPolicy) {
+			this.process = process;
+			numeraires = BoundedCache.ofRandomVariables(cacheMaximumSizeInBytes, cacheEvictionPolicy);
+			numeraireDiscountFactorForwardRates = new ConcurrentHashMap<>();
+			numeraireDiscountFactors = BoundedCache.ofRandomVariables(cacheMaximumSizeInBytes, cacheEvictionPolicy);
+			interpolationDriftAdjustmentsTerminal = BoundedCache.ofRandomVariables(cacheMaximumSizeInBytes, cacheEvictionPolicy);
+		}
+	}
 
 	/**
 	 * Creates a LIBOR Market Model for given covariance with a calibration (if calibration items are given).
@@ -353,6 +386,14 @@ public class LIBORMarketModelFromCovarianceModel extends AbstractProcessModel im
 	 * 			numerical problems. To disable the cap, set <code>liborCap</code> to <code>Double.POSITIVE_INFINITY</code>.
 	 *		</li>
 	 * 		<li>
+	 * 			<code>cacheMaximumSizeInBytes</code>: An optional <code>Long</code> value bounding the size (in bytes) of each of the caches
+	 * 			of numeraires, numeraire discount factors and interpolation drift adjustments (default: unbounded).
+	 *		</li>
+	 * 		<li>
+	 * 			<code>cacheEvictionPolicy</code>: The {@link net.finmath.util.BoundedCache.EvictionPolicy} (<code>String</code>) used if
+	 * 			a cache exceeds its maximum size (default: <code>LEAST_RECENTLY_USED</code>).
+	 *		</li>
+	 * 		<li>
 	 * 			<code>calibrationParameters</code>: Possible values:
 	 * 			<ul>
 	 * 				<li>
@@ -407,6 +448,13 @@ public class LIBORMarketModelFromCovarianceModel extends AbstractProcessModel im
 		if(properties != null && properties.containsKey("liborCap")) {
 			liborCap	= (Double)properties.get("liborCap");
 		}
+		if(properties != null && properties.containsKey("cacheMaximumSizeInBytes")) {
+			cacheMaximumSizeInBytes	= ((Number)properties.get("cacheMaximumSizeInBytes")).longValue();
+		}
+		if(properties != null && properties.containsKey("cacheEvictionPolicy")) {
+			cacheEvictionPolicy	= EvictionPolicy.valueOf(((String)properties.get("cacheEvictionPolicy")).toUpperCase());
+		}
+		initializeCaches();
 
 		Map<String,Object> calibrationParameters = null;
 		if(properties != null && properties.containsKey("calibrationParameters")) {
@@ -841,6 +889,15 @@ public class LIBORMarketModelFromCovarianceModel extends AbstractProcessModel im
 		return forwardRateCurve.getReferenceDate() != null ? forwardRateCurve.getReferenceDate().atStartOfDay() : null;
 	}
 
+	/**
+	 * The numeraire is calculated from the forward rates fixed at the tenor times (see {@link #getNumeraire(MonteCarloProcess, double)}),
+	 * hence the states at these times are required.
+	 */
+	@Override
+	public TimeDiscretization getTimesOfRequiredStates() {
+		return liborPeriodDiscretization;
+	}
+
 	/**
 	 * Return the numeraire at a given time.
 	 *
@@ -914,26 +971,52 @@ public class LIBORMarketModelFromCovarianceModel extends AbstractProcessModel im
 		final TimeDiscretization timeDiscretizationForCurves = isInterpolateDiscountFactorsOnLiborPeriodDiscretization ? liborPeriodDiscretization : process.getTimeDiscretization();
 		final double time = timeDiscretizationForCurves.getTime(timeIndex);
 
-		synchronized(numeraireDiscountFactorForwardRates) {
-			ensureCacheConsistency(process);
+		final ProcessCaches processCaches = getCaches(process);
+		final ConcurrentHashMap<Double, RandomVariable> numeraireDiscountFactorForwardRates = processCaches.numeraireDiscountFactorForwardRates;
+		final BoundedCache<Double, RandomVariable> numeraireDiscountFactors = processCaches.numeraireDiscountFactors;
 
-			RandomVariable deterministicNumeraireAdjustment = numeraireDiscountFactors.get(time);
-			if(deterministicNumeraireAdjustment == null) {
-				final double dfInitial = discountCurve.getDiscountFactor(curveModel, timeDiscretizationForCurves.getTime(0));
-				deterministicNumeraireAdjustment = randomVariableFactory.createRandomVariable(dfInitial);
-				numeraireDiscountFactors.put(timeDiscretizationForCurves.getTime(0), deterministicNumeraireAdjustment);
+		// Lock-free read from the caches of this process
+		final RandomVariable cachedNumeraireAdjustment = numeraireDiscountFactors.get(time);
+		if(cachedNumeraireAdjustment != null) {
+			return cachedNumeraireAdjustment;
+		}
 
+		synchronized(numeraireDiscountFactorForwardRates) {
+			/*
+			 * The forward rates are model parameters (see getModelParameters) and are created only once.
+			 * The discount factors are derived from them and are re-calculated if they have been evicted from the cache.
+			 */
+			if(numeraireDiscountFactorForwardRates.isEmpty()) {
 				for(int i=0; i<timeDiscretizationForCurves.getNumberOfTimeSteps(); i++) {
 					final double dfPrev = discountCurve.getDiscountFactor(curveModel, timeDiscretizationForCurves.getTime(i));
 					final double dfNext = discountCurve.getDiscountFactor(curveModel, timeDiscretizationForCurves.getTime(i+1));
 					final double timeStep = timeDiscretizationForCurves.getTimeStep(i);
-					final double timeNext = timeDiscretizationForCurves.getTime(i+1);
 					final RandomVariable forwardRate = randomVariableFactory.createRandomVariable((dfPrev / dfNext - 1.0) / timeStep);
 					numeraireDiscountFactorForwardRates.put(timeDiscretizationForCurves.getTime(i), forwardRate);
+				}
+			}
+
+			RandomVariable deterministicNumeraireAdjustment = numeraireDiscountFactors.get(time);
+			if(deterministicNumeraireAdjustment == null) {
+				// Start from the latest discount factor available in the cache
+				int timeIndexStart = timeIndex-1;
+				while(timeIndexStart >= 0 && (deterministicNumeraireAdjustment = numeraireDiscountFactors.get(timeDiscretizationForCurves.getTime(timeIndexStart))) == null) {
+					timeIndexStart--;
+				}
+				if(deterministicNumeraireAdjustment == null) {
+					timeIndexStart = 0;
+					final double dfInitial = discountCurve.getDiscountFactor(curveModel, timeDiscretizationForCurves.getTime(0));
+					deterministicNumeraireAdjustment = randomVariableFactory.createRandomVariable(dfInitial);
+					numeraireDiscountFactors.put(timeDiscretizationForCurves.getTime(0), deterministicNumeraireAdjustment);
+				}
+
+				for(int i=timeIndexStart; i<timeIndex; i++) {
+					final double timeStep = timeDiscretizationForCurves.getTimeStep(i);
+					final double timeNext = timeDiscretizationForCurves.getTime(i+1);
+					final RandomVariable forwardRate = numeraireDiscountFactorForwardRates.get(timeDiscretizationForCurves.getTime(i));
 					deterministicNumeraireAdjustment = deterministicNumeraireAdjustment.discount(forwardRate, timeStep);
 					numeraireDiscountFactors.put(timeNext, deterministicNumeraireAdjustment);
 				}
-				deterministicNumeraireAdjustment = numeraireDiscountFactors.get(time);
 			}
 			return deterministicNumeraireAdjustment;
 		}
@@ -947,18 +1030,44 @@ public class LIBORMarketModelFromCovarianceModel extends AbstractProcessModel im
 		return forwardDiscountBondAsOfZero.mult(inverseForwardBondAsOfZero).div(inverseForwardBondAsOfTime);
 	}
 
-	private void ensureCacheConsistency(final MonteCarloProcess process) {
-		/*
-		 * Check if caches are valid (i.e. process did not change)
-		 */
-		if (process != numerairesProcess) {
-			// Clear caches
-			numeraires.clear();
-			numeraireDiscountFactorForwardRates.clear();
-			numeraireDiscountFactors.clear();
-			numerairesProcess = process;
-			interpolationDriftAdjustmentsTerminal.clear();
+	/**
+	 * Returns the caches for the given process. If the caches are valid for another process, they are replaced by new (empty) caches.
+	 * Callers only use the returned snapshot, such that values calculated for another process are never mixed in.
+	 *
+	 * @param process The process.
+	 * @return The caches for the given process.
+	 */
+	private ProcessCaches getCaches(final MonteCarloProcess process) {
+		ProcessCaches currentCaches = caches;
+		if(currentCaches.process != process) {
+			synchronized(cachesLazyInitLock) {
+				currentCaches = caches;
+				if(currentCaches.process != process) {
+					currentCaches = new ProcessCaches(process, cacheMaximumSizeInBytes, cacheEvictionPolicy);
+					caches = currentCaches;
+				}
+			}
 		}
+		return currentCaches;
+	}
+
+	private void initializeCaches() {
+		caches = new ProcessCaches(null, cacheMaximumSizeInBytes, cacheEvictionPolicy);
+	}
+
+	/**
+	 * Returns the statistics of the caches of numeraires, numeraire discount factors and interpolation drift adjustments.
+	 * The size of these caches may be bounded via the property <code>cacheMaximumSizeInBytes</code>.
+	 *
+	 * @return A map from the name of the cache to its statistics.
+	 */
+	public Map<String, BoundedCache.Statistics> getCacheStatistics() {
+		final ProcessCaches processCaches = caches;
+		final Map<String, BoundedCache.Statistics> cacheStatistics = new TreeMap<>();
+		cacheStatistics.put("numeraires", processCaches.numeraires.getStatistics());
+		cacheStatistics.put("numeraireDiscountFactors", processCaches.numeraireDiscountFactors.getStatistics());
+		cacheStatistics.put("interpolationDriftAdjustments", processCaches.interpolationDriftAdjustmentsTerminal.getStatistics());
+		return cacheStatistics;
 	}
 
 	protected RandomVariable getNumerairetUnAdjusted(final MonteCarloProcess process, final double time) throws CalculationException {
@@ -1011,15 +1120,18 @@ public class LIBORMarketModelFromCovarianceModel extends AbstractProcessModel im
 	}
 
 	protected RandomVariable getNumerairetUnAdjustedAtLIBORIndex(final MonteCarloProcess process, final int liborTimeIndex) throws CalculationException {
+		final BoundedCache<Integer, RandomVariable> numeraires = getCaches(process).numeraires;
+
+		// Lock-free read from the caches of this process
+		final RandomVariable cachedNumeraireUnadjusted = numeraires.get(liborTimeIndex);
+		if(cachedNumeraireUnadjusted != null) {
+			return cachedNumeraireUnadjusted;
+		}
+
 		/*
 		 * synchronize lazy init cache
 		 */
 		synchronized(numeraires) {
-			/*
-			 * Check if numeraire cache is valid (i.e. process did not change)
-			 */
-			ensureCacheConsistency(process);
-
 			/*
 			 * Check if numeraire is part of the cache
 			 */
@@ -1070,7 +1182,7 @@ public class LIBORMarketModelFromCovarianceModel extends AbstractProcessModel im
 	}
 
 	public Map<Double, RandomVariable> getNumeraireAdjustments() {
-		return Collections.unmodifiableMap(numeraireDiscountFactorForwardRates);
+		return Collections.unmodifiableMap(caches.numeraireDiscountFactorForwardRates);
 	}
 
 	@Override
@@ -1226,6 +1338,11 @@ public class LIBORMarketModelFromCovarianceModel extends AbstractProcessModel im
 		return randomVariableFactory.createRandomVariable(value);
 	}
 
+	@Override
+	public RandomVariableFactory getRandomVariableFactory() {
+		return randomVariableFactory;
+	}
+
 	/**
 	 * @return Returns the driftApproximationMethod.
 	 */
@@ -1405,19 +1522,20 @@ public class LIBORMarketModelFromCovarianceModel extends AbstractProcessModel im
 			}
 			// Lazy init of interpolationDriftAdjustmentsTerminal
 			if(evaluationTimeIndex == tenorPeriodStartIndex) {
-				synchronized(interpolationDriftAdjustmentsTerminal) {
-					// Invalidate cache if process has changed
-					ensureCacheConsistency(process);
+				final BoundedCache<Integer, RandomVariable> interpolationDriftAdjustmentsTerminal = getCaches(process).interpolationDriftAdjustmentsTerminal;
 
-					// Check if value is cached
-					if(interpolationDriftAdjustmentsTerminal.size() <= liborIndex) {
-						interpolationDriftAdjustmentsTerminal.setSize(getNumberOfLibors());
-					}
+				// Lock-free read from the caches of this process
+				final RandomVariable cachedInterpolationDriftAdjustment = interpolationDriftAdjustmentsTerminal.get(liborIndex);
+				if(cachedInterpolationDriftAdjustment != null) {
+					return cachedInterpolationDriftAdjustment;
+				}
 
+				synchronized(interpolationDriftAdjustmentsTerminal) {
+					// Check if value is cached
 					RandomVariable interpolationDriftAdjustment = interpolationDriftAdjustmentsTerminal.get(liborIndex);
 					if(interpolationDriftAdjustment == null) {
 						interpolationDriftAdjustment = getInterpolationDriftAdjustmentEvaluated(process, evaluationTimeIndex, liborIndex);
-						interpolationDriftAdjustmentsTerminal.set(liborIndex, interpolationDriftAdjustment);
+						interpolationDriftAdjustmentsTerminal.put(liborIndex, interpolationDriftAdjustment);
 					}
 
 					return interpolationDriftAdjustment;
@@ -1633,6 +1751,8 @@ public class LIBORMarketModelFromCovarianceModel extends AbstractProcessModel im
 			properties.put("stateSpace",	stateSpace.name());
 			properties.put("interpolationMethod", interpolationMethod.name());
 			properties.put("liborCap", liborCap);
+			properties.put("cacheMaximumSizeInBytes", cacheMaximumSizeInBytes);
+			properties.put("cacheEvictionPolicy", cacheEvictionPolicy.name());
 			return LIBORMarketModelFromCovarianceModel.of(getLiborPeriodDiscretization(), getAnalyticModel(), getForwardRateCurve(), getDiscountCurve(), randomVariableFactory, covarianceModel, null, properties);
 		} catch (final CalculationException e) {
 			return null;
@@ -1664,6 +1784,8 @@ public class LIBORMarketModelFromCovarianceModel extends AbstractProcessModel im
 		properties.put("stateSpace",	stateSpace.name());
 		properties.put("interpolationMethod", interpolationMethod.name());
 		properties.put("liborCap", liborCap);
+		properties.put("cacheMaximumSizeInBytes", cacheMaximumSizeInBytes);
+		properties.put("cacheEvictionPolicy", cacheEvictionPolicy.name());
 
 		if(dataModified != null) {
 			randomVariableFactory = (RandomVariableFactory)dataModified.getOrDefault("randomVariableFactory", randomVariableFactory);
@@ -1699,7 +1821,8 @@ public class LIBORMarketModelFromCovarianceModel extends AbstractProcessModel im
 	@Override
 	public Map<String, RandomVariable> getModelParameters() {
 		// Using process from cache
-		final MonteCarloProcess process = numerairesProcess;
+		final ProcessCaches processCaches = caches;
+		final MonteCarloProcess process = processCaches.process;
 
 		final Map<String, RandomVariable> modelParameters = new TreeMap<>();
 
@@ -1725,7 +1848,7 @@ public class LIBORMarketModelFromCovarianceModel extends AbstractProcessModel im
 
 		// Add numeraire adjustments
 		// TODO Trigger lazy init
-		for(final Entry<Double, RandomVariable> numeraireAdjustment : numeraireDiscountFactorForwardRates.entrySet()) {
+		for(final Entry<Double, RandomVariable> numeraireAdjustment : processCaches.numeraireDiscountFactorForwardRates.entrySet()) {
 			modelParameters.put("NUMERAIREADJUSTMENT("+ numeraireAdjustment.getKey() + ")", numeraireAdjustment.getValue());
 		}
 
@@ -1739,10 +1862,13 @@ public class LIBORMarketModelFromCovarianceModel extends AbstractProcessModel im
 		 * Init transient fields
 		 */
 		integratedLIBORCovarianceLazyInitLock = new Object();
-		numeraires = new ConcurrentHashMap<>();
-		numeraireDiscountFactorForwardRates = new ConcurrentHashMap<>();
-		numeraireDiscountFactors = new ConcurrentHashMap<>();
-		interpolationDriftAdjustmentsTerminal = new Vector<>();
+		cachesLazyInitLock = new Object();
+		if(cacheEvictionPolicy == null) {
+			// Serialized by a version without bounded caches
+			cacheMaximumSizeInBytes = Long.MAX_VALUE;
+			cacheEvictionPolicy = EvictionPolicy.LEAST_RECENTLY_USED;
+		}
+		initializeCaches();
 	}
 
 	@Override
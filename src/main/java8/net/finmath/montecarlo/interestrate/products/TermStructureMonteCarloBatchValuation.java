@@ -0,0 +1,202 @@
+package net.finmath.montecarlo.interestrate.products;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.interestrate.TermStructureMonteCarloSimulationModel;
+import net.finmath.montecarlo.interestrate.TermStructureMonteCarloSimulationWithCache;
+import net.finmath.montecarlo.interestrate.TermStructureMonteCarloSimulationWithCache.ForwardRateRequest;
+import net.finmath.stochastic.RandomVariable;
+
+/**
+ * Valuation of a batch of products (e.g., the products of a {@link Portfolio}) over one shared simulation.
+ *
+ * The products are valued (in parallel) on a {@link TermStructureMonteCarloSimulationWithCache} wrapping the given simulation,
+ * such that forward rates and numeraires requested by several products (or several periods of a product) are evaluated only once.
+ * The method {@link #getValues(double, TermStructureMonteCarloSimulationModel)} reports the (unweighted) value of each product,
+ * the method {@link #getValue(double, TermStructureMonteCarloSimulationModel)} reports the sum of the values weighted by the weights
+ * of the batch (e.g., the weights of the {@link Portfolio}).
+ *
+ * Since the products do not declare their requests, the requests are recorded during the first valuation. Subsequent valuations
+ * (e.g., with a different seed or with a modified model as used for finite difference sensitivities) evaluate the
+ * recorded (deduplicated) requests up front and in parallel, before the products are valued from the cache.
+ *
+ * @version 1.1
+ */
+public class TermStructureMonteCarloBatchValuation {
+
+	private final List<TermStructureMonteCarloProduct> products;
+	private final double[] weights;
+
+	private volatile Set<ForwardRateRequest>	forwardRateRequests = Collections.emptySet();
+	private volatile Set<Double>				numeraireRequests = Collections.emptySet();
+
+	/**
+	 * Create the batch valuation of a list of weighted products.
+	 *
+	 * @param products The list of products.
+	 * @param weights The weights of the products (having the same length as the list of products).
+	 */
+	public TermStructureMonteCarloBatchValuation(final List<? extends TermStructureMonteCarloProduct> products, final double[] weights) {
+		super();
+		if(weights.length != products.size()) {
+			throw new IllegalArgumentException("Number of weights (" + weights.length + ") does not match the number of products (" + products.size() + ").");
+		}
+		this.products = new ArrayList<>(products);
+		this.weights = weights.clone();
+	}
+
+	/**
+	 * Create the batch valuation of a list of products, each having weight 1.
+	 *
+	 * @param products The list of products.
+	 */
+	public TermStructureMonteCarloBatchValuation(final List<? extends TermStructureMonteCarloProduct> products) {
+		this(products, getUnitWeights(products.size()));
+	}
+
+	/**
+	 * Create the batch valuation of the products of a portfolio, using the weights of the portfolio.
+	 *
+	 * @param portfolio The portfolio.
+	 */
+	public TermStructureMonteCarloBatchValuation(final Portfolio portfolio) {
+		this(Arrays.asList(portfolio.getProducts()), portfolio.getWeights());
+	}
+
+	/**
+	 * Returns the values of the products within the specified model, evaluated at a given evalutationTime.
+	 *
+	 * @param evaluationTime The time on which the values of the products should be observed.
+	 * @param model The model used to price the products.
+	 * @return The array of random variables representing the values of the products discounted to evaluation time (in the order of the products).
+	 * @throws net.finmath.exception.CalculationException Thrown if the valuation fails, specific cause may be available via the <code>cause()</code> method.
+	 */
+	public RandomVariable[] getValues(final double evaluationTime, final TermStructureMonteCarloSimulationModel model) throws CalculationException {
+		final TermStructureMonteCarloSimulationWithCache modelWithCache = new TermStructureMonteCarloSimulationWithCache(model);
+
+		// Evaluate the requests known from previous valuations up front
+		modelWithCache.prefetch(forwardRateRequests, numeraireRequests);
+
+		final List<Callable<RandomVariable>> valuations = new ArrayList<>();
+		for(final TermStructureMonteCarloProduct product : products) {
+			valuations.add(new Callable<RandomVariable>() {
+				@Override
+				public RandomVariable call() throws CalculationException {
+					return product.getValue(evaluationTime, modelWithCache);
+				}
+			});
+		}
+
+		final RandomVariable[] values = new RandomVariable[products.size()];
+		try {
+			final List<Future<RandomVariable>> results = ForkJoinPool.commonPool().invokeAll(valuations);
+			for(int productIndex = 0; productIndex < values.length; productIndex++) {
+				values[productIndex] = results.get(productIndex).get();
+			}
+		}
+		catch(final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CalculationException(e);
+		}
+		catch(final ExecutionException e) {
+			if(e.getCause() instanceof CalculationException) {
+				throw (CalculationException)e.getCause();
+			}
+			throw new RuntimeException("Valuation of products failed. See cause of this exception for details.", e.getCause());
+		}
+
+		// Record the requests for subsequent valuations
+		forwardRateRequests = new HashSet<>(modelWithCache.getForwardRateRequests());
+		numeraireRequests = new HashSet<>(modelWithCache.getNumeraireRequests());
+
+		return values;
+	}
+
+	/**
+	 * Returns the sum of the values of the products, weighted by the weights of this batch, within the specified model, evaluated at a given evalutationTime.
+	 *
+	 * For a batch created from a {@link Portfolio} this is the value of the portfolio.
+	 *
+	 * @param evaluationTime The time on which the value should be observed.
+	 * @param model The model used to price the products.
+	 * @return The random variable representing the weighted sum of the values of the products discounted to evaluation time.
+	 * @throws net.finmath.exception.CalculationException Thrown if the valuation fails, specific cause may be available via the <code>cause()</code> method.
+	 */
+	public RandomVariable getValue(final double evaluationTime, final TermStructureMonteCarloSimulationModel model) throws CalculationException {
+		return getValue(evaluationTime, model, weights);
+	}
+
+	/**
+	 * Returns the sum of the values of the products, weighted by the given weights (instead of the weights of this batch),
+	 * within the specified model, evaluated at a given evalutationTime.
+	 *
+	 * @param evaluationTime The time on which the value should be observed.
+	 * @param model The model used to price the products.
+	 * @param weights The weights of the products (having the same length as the list of products).
+	 * @return The random variable representing the weighted sum of the values of the products discounted to evaluation time.
+	 * @throws net.finmath.exception.CalculationException Thrown if the valuation fails, specific cause may be available via the <code>cause()</code> method.
+	 */
+	public RandomVariable getValue(final double evaluationTime, final TermStructureMonteCarloSimulationModel model, final double[] weights) throws CalculationException {
+		if(weights.length != products.size()) {
+			throw new IllegalArgumentException("Number of weights (" + weights.length + ") does not match the number of products (" + products.size() + ").");
+		}
+
+		final RandomVariable[] values = getValues(evaluationTime, model);
+
+		RandomVariable value = model.getRandomVariableForConstant(0.0);
+		for(int productIndex = 0; productIndex < values.length; productIndex++) {
+			value = value.addProduct(values[productIndex], weights[productIndex]);
+		}
+		return value;
+	}
+
+	/**
+	 * @return The products (as an unmodifiable list).
+	 */
+	public List<TermStructureMonteCarloProduct> getProducts() {
+		return Collections.unmodifiableList(products);
+	}
+
+	/**
+	 * @return The weights of the products (in the order of the products).
+	 */
+	public double[] getWeights() {
+		return weights.clone();
+	}
+
+	/**
+	 * @return The (deduplicated) forward rate requests recorded during the last valuation.
+	 */
+	public Set<ForwardRateRequest> getForwardRateRequests() {
+		return Collections.unmodifiableSet(forwardRateRequests);
+	}
+
+	/**
+	 * @return The (deduplicated) numeraire requests (simulation times) recorded during the last valuation.
+	 */
+	public Set<Double> getNumeraireRequests() {
+		return Collections.unmodifiableSet(numeraireRequests);
+	}
+
+	private static double[] getUnitWeights(final int numberOfProducts) {
+		final double[] weights = new double[numberOfProducts];
+		Arrays.fill(weights, 1.0);
+		return weights;
+	}
+
+	@Override
+	public String toString() {
+		return "TermStructureMonteCarloBatchValuation [numberOfProducts=" + products.size() + ", numberOfForwardRateRequests="
+				+ forwardRateRequests.size() + ", numberOfNumeraireRequests=" + numeraireRequests.size() + "]";
+	}
+}
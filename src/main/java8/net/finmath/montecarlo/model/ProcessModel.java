@@ -9,8 +9,10 @@ import java.time.LocalDateTime;
 import java.util.Map;
 
 import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.RandomVariableFactory;
 import net.finmath.montecarlo.process.MonteCarloProcess;
 import net.finmath.stochastic.RandomVariable;
+import net.finmath.time.TimeDiscretization;
 
 /**
  * The interface for a model of a stochastic process <i>X</i> where
@@ -109,6 +111,19 @@ public interface ProcessModel {
 	 */
 	RandomVariable getNumeraire(MonteCarloProcess process, double time) throws CalculationException;
 
+	/**
+	 * Returns the times at which the model reads states of the process when calculating the numeraire (or other
+	 * functionals) at a later time, e.g., the LIBORs at the tenor times for the numeraire of a LIBOR market model.
+	 *
+	 * A process which does not retain all its states (see {@link net.finmath.montecarlo.process.EulerSchemeFromProcessModel#getTimesOfRetainedStates()})
+	 * retains these states in addition to the requested ones.
+	 *
+	 * @return The times of the states required by the model, or null if the model reads only the state at the time of the request.
+	 */
+	default TimeDiscretization getTimesOfRequiredStates() {
+		return null;
+	}
+
 	/**
 	 * This method has to be implemented to return the drift, i.e.
 	 * the coefficient vector <br>
@@ -159,6 +174,15 @@ public interface ProcessModel {
 	 */
 	RandomVariable getRandomVariableForConstant(double value);
 
+	/**
+	 * Returns the factory used by the model to create random variables.
+	 *
+	 * @return The random variable factory of the model, or null if the model does not provide it.
+	 */
+	default RandomVariableFactory getRandomVariableFactory() {
+		return null;
+	}
+
 	/**
 	 * Returns a clone of this model where the specified properties have been modified.
 	 *
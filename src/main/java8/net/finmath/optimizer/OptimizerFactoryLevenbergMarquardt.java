@@ -66,6 +66,16 @@ public class OptimizerFactoryLevenbergMarquardt implements OptimizerFactory {
 			public void setValues(final double[] parameters, final double[] values) throws SolverException {
 				objectiveFunction.setValues(parameters, values);
 			}
+
+			@Override
+			public void setDerivatives(final double[] parameters, final double[][] derivatives) throws SolverException {
+				if(objectiveFunction instanceof Optimizer.ObjectiveFunctionWithDerivatives) {
+					((Optimizer.ObjectiveFunctionWithDerivatives)objectiveFunction).setDerivatives(parameters, derivatives);
+				}
+				else {
+					super.setDerivatives(parameters, derivatives);
+				}
+			}
 		})
 				.setLambda(lambda)
 				.setErrorTolerance(errorTolerance)
@@ -5,41 +5,189 @@
  */
 package net.finmath.randomnumbers;
 
-import org.apache.commons.math3.random.SobolSequenceGenerator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Implements a multi-dimensional Sobol sequence.
  *
- * The class is just a wrapper to Apache commons-math implementation
- * in order to implement the interface <code>RandomNumberGenerator</code>
- * with a minimal change. The value 0, the first element of the sequence, is omitted.
+ * The sequence is generated from the direction numbers of Joe and Kuo (2008). By default the direction numbers
+ * for up to 1000 dimensions shipped with Apache commons-math are used and the (unscrambled) sequence agrees
+ * with the one of <code>org.apache.commons.math3.random.SobolSequenceGenerator</code>. Direction numbers for higher dimensions
+ * (e.g., the file <code>new-joe-kuo-6.21201</code>) can be provided as a stream.
  *
+ * The sample vector with a given index is calculated directly from the Gray code of the index (in O(log(index)) operations),
+ * consecutive sample vectors are calculated by a single XOR per dimension. Hence, any block of the sequence can be generated
+ * independently, see {@link #getSample(long)} and {@link #getSamples(long, int, double[], int)}.
+ * The first element of the (unscrambled) sequence is the vector 0.
+ *
+ * Optionally, the sequence can be randomized by a nested uniform (Owen) scrambling, implemented by a hash based permutation
+ * of the (bit reversed) leading 32 bits (Burley, 2020). The scrambled values are the mid points of the scrambled
+ * 32 bit intervals and lie in the open interval (0,1).
+ *
+ * The class is immutable (except for the counter of the sequential interface {@link #getNext()}) and thread safe.
+ *
+ * References:
+ * <ul>
+ * 	<li>Joe, S. and Kuo, F. Y. (2008) Constructing Sobol sequences with better two-dimensional projections. SIAM Journal on Scientific Computing.</li>
+ * 	<li>Burley, B. (2020) Practical Hash-based Owen Scrambling. Journal of Computer Graphics Techniques.</li>
+ * </ul>
  *
  * @author Christian Fries
- * @version 1.0
+ * @version 2.0
  */
-public class SobolSequence implements RandomNumberGenerator {
+public class SobolSequence implements IndexedRandomNumberGenerator {
 
 	private static final long serialVersionUID = -1904010803493075019L;
 
+	private static final String DIRECTION_NUMBERS_RESOURCE = "/assets/org/apache/commons/math3/random/new-joe-kuo-6.1000";
+
+	// Number of bits of the (unscrambled) sample values
+	private static final int BITS = 52;
+	private static final double SCALE = 1.0 / (1L << BITS);
+	private static final double SCALE_SCRAMBLED = 1.0 / (1L << 32);
+
 	private final int dimension;
 
-	private final SobolSequenceGenerator generator;
+	// direction[d][k] is the k-th direction number (k = 1,...,BITS) of dimension d
+	private final long[][] direction;
+
+	// The scrambling seeds of each dimension (null if the sequence is not scrambled)
+	private final int[] scramblingSeeds;
+
+	private final AtomicLong currentIndex = new AtomicLong();
 
 	/**
-	 * Constructs a Sobol sequence with given dimension.
+	 * Constructs a Sobol sequence with given dimension, using the direction numbers of Joe and Kuo for up to 1000 dimensions.
 	 *
 	 * @param dimension The dimension of the sequence.
 	 */
 	public SobolSequence(final int dimension) {
+		this(dimension, null, false, 0);
+	}
+
+	/**
+	 * Constructs a Sobol sequence with given dimension and a nested uniform (Owen) scrambling,
+	 * using the direction numbers of Joe and Kuo for up to 1000 dimensions.
+	 *
+	 * @param dimension The dimension of the sequence.
+	 * @param scramblingSeed The seed of the scrambling.
+	 */
+	public SobolSequence(final int dimension, final long scramblingSeed) {
+		this(dimension, null, true, scramblingSeed);
+	}
+
+	/**
+	 * Constructs a Sobol sequence with given dimension, using the direction numbers from a given stream
+	 * (in the format of the files of Joe and Kuo, e.g., <code>new-joe-kuo-6.21201</code>).
+	 *
+	 * @param dimension The dimension of the sequence.
+	 * @param directionNumbers The stream of the direction numbers (the stream is not closed).
+	 */
+	public SobolSequence(final int dimension, final InputStream directionNumbers) {
+		this(dimension, directionNumbers, false, 0);
+	}
+
+	/**
+	 * Constructs a Sobol sequence with given dimension and a nested uniform (Owen) scrambling, using the direction numbers from a given stream
+	 * (in the format of the files of Joe and Kuo, e.g., <code>new-joe-kuo-6.21201</code>).
+	 *
+	 * @param dimension The dimension of the sequence.
+	 * @param directionNumbers The stream of the direction numbers (the stream is not closed).
+	 * @param scramblingSeed The seed of the scrambling.
+	 */
+	public SobolSequence(final int dimension, final InputStream directionNumbers, final long scramblingSeed) {
+		this(dimension, directionNumbers, true, scramblingSeed);
+	}
+
+	private SobolSequence(final int dimension, final InputStream directionNumbers, final boolean isScrambled, final long scramblingSeed) {
+		if(dimension < 1) {
+			throw new IllegalArgumentException("The dimension has to be positive.");
+		}
 		this.dimension = dimension;
-		generator = new SobolSequenceGenerator(dimension);
+
+		direction = new long[dimension][BITS+1];
+		for(int k = 1; k <= BITS; k++) {
+			direction[0][k] = 1L << (BITS - k);
+		}
+
+		// Use the direction numbers shipped with commons-math if no stream is given
+		int numberOfDimensionsRead;
+		try {
+			if(directionNumbers != null) {
+				numberOfDimensionsRead = readDirectionNumbers(directionNumbers);
+			}
+			else {
+				try(InputStream directionNumbersResource = org.apache.commons.math3.random.SobolSequenceGenerator.class.getResourceAsStream(DIRECTION_NUMBERS_RESOURCE)) {
+					if(directionNumbersResource == null) {
+						throw new IOException("Resource " + DIRECTION_NUMBERS_RESOURCE + " not found.");
+					}
+					numberOfDimensionsRead = readDirectionNumbers(directionNumbersResource);
+				}
+			}
+		}
+		catch(final IOException | RuntimeException e) {
+			throw new RuntimeException("Reading of the Sobol direction numbers failed. See cause of this exception for details.", e);
+		}
+		if(numberOfDimensionsRead < dimension) {
+			throw new IllegalArgumentException("The direction numbers support at most " + numberOfDimensionsRead + " dimensions. Requested: " + dimension + ".");
+		}
+
+		if(isScrambled) {
+			scramblingSeeds = new int[dimension];
+			for(int d = 0; d < dimension; d++) {
+				scramblingSeeds[d] = (int)(mix(scramblingSeed + (d+1) * 0x9E3779B97F4A7C15L) >>> 32);
+			}
+		}
+		else {
+			scramblingSeeds = null;
+		}
 	}
 
 	@Override
 	public double[] getNext() {
-		synchronized (generator) {
-			return generator.nextVector();
+		return getSample(currentIndex.getAndIncrement());
+	}
+
+	@Override
+	public double[] getSample(final long index) {
+		final double[] sample = new double[dimension];
+		getSamples(index, 1, sample, 0);
+		return sample;
+	}
+
+	@Override
+	public void getSamples(final long fromIndex, final int numberOfSamples, final double[] values, final int offset) {
+		if(fromIndex < 0 || fromIndex + numberOfSamples > (1L << BITS)) {
+			throw new IllegalArgumentException("Index out of range [0, 2^" + BITS + ").");
+		}
+		if(numberOfSamples <= 0) {
+			return;
+		}
+
+		// The sample with index fromIndex from the Gray code of the index
+		final long[] x = new long[dimension];
+		final long grayCode = fromIndex ^ (fromIndex >>> 1);
+		for(int k = 0; k < BITS && (grayCode >>> k) != 0; k++) {
+			if(((grayCode >>> k) & 1) == 1) {
+				for(int d = 0; d < dimension; d++) {
+					x[d] ^= direction[d][k+1];
+				}
+			}
+		}
+		setValues(x, values, offset);
+
+		// Consecutive samples differ by a single direction number (Gray code order)
+		for(int i = 1; i < numberOfSamples; i++) {
+			final int k = Long.numberOfTrailingZeros(fromIndex + i) + 1;
+			for(int d = 0; d < dimension; d++) {
+				x[d] ^= direction[d][k];
+			}
+			setValues(x, values, offset + i * dimension);
 		}
 	}
 
@@ -47,4 +195,93 @@ public class SobolSequence implements RandomNumberGenerator {
 	public int getDimension() {
 		return dimension;
 	}
+
+	/**
+	 * @return True, if the sequence is scrambled.
+	 */
+	public boolean isScrambled() {
+		return scramblingSeeds != null;
+	}
+
+	private void setValues(final long[] x, final double[] values, final int offset) {
+		if(scramblingSeeds == null) {
+			for(int d = 0; d < dimension; d++) {
+				values[offset + d] = x[d] * SCALE;
+			}
+		}
+		else {
+			for(int d = 0; d < dimension; d++) {
+				final int scrambled = nestedUniformScramble((int)(x[d] >>> (BITS - 32)), scramblingSeeds[d]);
+				values[offset + d] = ((scrambled & 0xffffffffL) + 0.5) * SCALE_SCRAMBLED;
+			}
+		}
+	}
+
+	/**
+	 * Reads the direction numbers (format of Joe and Kuo: a header line, then lines d s a m_1 ... m_s)
+	 * for the dimensions 2, ..., dimension.
+	 *
+	 * @param directionNumbers The stream of the direction numbers.
+	 * @return The number of dimensions supported by the lines read.
+	 * @throws IOException Thrown if the stream cannot be read.
+	 */
+	private int readDirectionNumbers(final InputStream directionNumbers) throws IOException {
+		final BufferedReader reader = new BufferedReader(new InputStreamReader(directionNumbers, StandardCharsets.US_ASCII));
+
+		// Skip header
+		reader.readLine();
+
+		int numberOfDimensions = 1;
+		String line;
+		while(numberOfDimensions < dimension && (line = reader.readLine()) != null) {
+			final String[] tokens = line.trim().split("\\s+");
+			if(tokens.length < 3) {
+				continue;
+			}
+			final int d = Integer.parseInt(tokens[0]);
+			final int s = Integer.parseInt(tokens[1]);
+			final int a = Integer.parseInt(tokens[2]);
+
+			final long[] v = direction[d-1];
+			for(int k = 1; k <= s; k++) {
+				v[k] = Long.parseLong(tokens[2+k]) << (BITS - k);
+			}
+			for(int k = s+1; k <= BITS; k++) {
+				v[k] = v[k-s] ^ (v[k-s] >> s);
+				for(int j = 1; j <= s-1; j++) {
+					v[k] ^= ((a >> (s-1-j)) & 1) * v[k-j];
+				}
+			}
+			numberOfDimensions = d;
+		}
+		return numberOfDimensions;
+	}
+
+	/**
+	 * Nested uniform scrambling of the bits of x: the output bit k depends on the input bit k and the
+	 * bits of higher significance (via a hash of the bit reversed value).
+	 */
+	private static int nestedUniformScramble(int x, final int seed) {
+		x = Integer.reverse(x);
+		x ^= x * 0x3d20adea;
+		x += seed;
+		x *= (seed >>> 16) | 1;
+		x ^= x * 0x05526c56;
+		x ^= x * 0x53a22864;
+		return Integer.reverse(x);
+	}
+
+	/**
+	 * Bit mixing function of SplitMix64, used to derive the scrambling seeds of the dimensions.
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	@Override
+	public String toString() {
+		return "SobolSequence [dimension=" + dimension + ", isScrambled=" + isScrambled() + "]";
+	}
 }
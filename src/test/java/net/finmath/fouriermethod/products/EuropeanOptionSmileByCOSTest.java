@@ -0,0 +1,80 @@
+
+package net.finmath.fouriermethod.products;
+
+import java.util.function.Function;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.fouriermethod.models.BlackScholesModel;
+import net.finmath.fouriermethod.models.CharacteristicFunctionModel;
+import net.finmath.fouriermethod.models.HestonModel;
+import net.finmath.fouriermethod.products.smile.EuropeanOptionSmileByCOS;
+import net.finmath.functions.AnalyticFormulas;
+import net.finmath.integration.AdaptiveGaussKronrodRealIntegrator;
+
+/**
+ * This class tests the COS method and the adaptive integration of the Fourier transform products
+ * against the Black-Scholes closed-form solution and against each other for the Heston model.
+ */
+public class EuropeanOptionSmileByCOSTest {
+
+	private static final double initialValue	= 100.0;
+	private static final double riskFreeRate	= 0.05;
+	private static final double volatility		= 0.25;
+
+	private static final double[] strikes = { 50, 60, 70, 80, 90, 100, 110, 120, 130, 140, 150 };
+
+	@Test
+	public void testBlackScholes() throws CalculationException {
+		final CharacteristicFunctionModel model = new BlackScholesModel(initialValue, riskFreeRate, volatility);
+
+		for(final double maturity : new double[] { 0.1, 1.0, 5.0 }) {
+			final Function<Double, Double> valuePerStrike = new EuropeanOptionSmileByCOS(maturity, strikes).getValue(0.0, model).get("valuePerStrike");
+
+			for(final double strike : strikes) {
+				final double valueAnalytic	= AnalyticFormulas.blackScholesOptionValue(initialValue, riskFreeRate, volatility, maturity, strike);
+				final double value			= valuePerStrike.apply(strike);
+				Assert.assertEquals("Value", valueAnalytic, value, 1E-10);
+			}
+		}
+	}
+
+	@Test
+	public void testHeston() throws CalculationException {
+		final CharacteristicFunctionModel model = new HestonModel(initialValue, riskFreeRate, 0.2, 0.04, 1.5, 0.6, -0.7);
+
+		for(final double maturity : new double[] { 0.1, 1.0, 5.0 }) {
+			final long startMillis	= System.currentTimeMillis();
+			final Function<Double, Double> valuePerStrike = new EuropeanOptionSmileByCOS(null, maturity, strikes, 512, 10.0).getValue(0.0, model).get("valuePerStrike");
+			final double[] values = new double[strikes.length];
+			for(int i = 0; i < strikes.length; i++) {
+				values[i] = valuePerStrike.apply(strikes[i]);
+			}
+			final long endMillis	= System.currentTimeMillis();
+
+			System.out.println("COS prices for maturity " + maturity + " computed in " + ((endMillis-startMillis)/1000.0) + " seconds");
+
+			for(int i = 0; i < strikes.length; i++) {
+				// Reference value by adaptive integration over a wide domain
+				final double valueReference = new EuropeanOption(null, maturity, strikes[i], new AdaptiveGaussKronrodRealIntegrator(-2000.0, 2000.0, 1E-12, 1E-12, 64, 1000000)).getValue(model);
+				Assert.assertEquals("Value", valueReference, values[i], 1E-7);
+			}
+		}
+	}
+
+	@Test
+	public void testAdaptiveIntegration() throws CalculationException {
+		final CharacteristicFunctionModel model = new HestonModel(initialValue, riskFreeRate, 0.2, 0.04, 1.5, 0.6, -0.7);
+		final double maturity = 1.0;
+
+		for(final double strike : strikes) {
+			// The default integration uses a Simpson rule with 20000 points on [-100, 100]
+			final double valueSimpson = new EuropeanOption(maturity, strike).getValue(model);
+			final double valueAdaptive = new EuropeanOption(null, maturity, strike, new AdaptiveGaussKronrodRealIntegrator(-100.0, 100.0, 1E-10, 1E-10)).getValue(model);
+
+			Assert.assertEquals("Value", valueSimpson, valueAdaptive, 1E-10);
+		}
+	}
+}
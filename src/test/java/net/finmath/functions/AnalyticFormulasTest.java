@@ -281,6 +281,141 @@ public class AnalyticFormulasTest {
 		}
 	}
 
+	@Test
+	public void testBlackScholesOptionImpliedVolatilityBatch() {
+		final double forward = 0.03;
+		final double payoffUnit = 0.95;
+		final double[] maturities = { 0.1, 1.0, 5.0, 30.0 };
+		final double[] strikes = { 0.005, 0.02, 0.03, 0.04, 0.10 };
+		final double[] volatilities = { 0.05, 0.20, 0.50, 1.50 };
+
+		final int numberOfQuotes = maturities.length * strikes.length * volatilities.length;
+		final double[] forwards = new double[numberOfQuotes];
+		final double[] optionMaturities = new double[numberOfQuotes];
+		final double[] optionStrikes = new double[numberOfQuotes];
+		final double[] payoffUnits = new double[numberOfQuotes];
+		final double[] optionValues = new double[numberOfQuotes];
+		final double[] volatilitiesExpected = new double[numberOfQuotes];
+		int quoteIndex = 0;
+		for(final double maturity : maturities) {
+			for(final double strike : strikes) {
+				for(final double volatility : volatilities) {
+					forwards[quoteIndex] = forward;
+					optionMaturities[quoteIndex] = maturity;
+					optionStrikes[quoteIndex] = strike;
+					payoffUnits[quoteIndex] = payoffUnit;
+					optionValues[quoteIndex] = AnalyticFormulas.blackScholesGeneralizedOptionValue(forward, volatility, maturity, strike, payoffUnit);
+					volatilitiesExpected[quoteIndex] = volatility;
+					quoteIndex++;
+				}
+			}
+		}
+
+		final double[] impliedVolatilities = AnalyticFormulas.blackScholesOptionImpliedVolatility(forwards, optionMaturities, optionStrikes, payoffUnits, optionValues);
+
+		for(int i = 0; i < numberOfQuotes; i++) {
+			// The accuracy is limited by the rounding of the option value (relevant for tiny vegas)
+			final double dPlus = (Math.log(forward / optionStrikes[i]) + 0.5 * volatilitiesExpected[i] * volatilitiesExpected[i] * optionMaturities[i]) / (volatilitiesExpected[i] * Math.sqrt(optionMaturities[i]));
+			final double vega = forward * Math.sqrt(optionMaturities[i]) * NormalDistribution.density(dPlus) * payoffUnit;
+			final double tolerance = 1E-12 + 4.0 * Math.ulp(optionValues[i]) / vega;
+			Assert.assertEquals("Implied volatility of quote " + i, volatilitiesExpected[i], impliedVolatilities[i], tolerance);
+		}
+	}
+
+	@Test
+	public void testBlackScholesDisplacedOptionImpliedVolatilityBatch() {
+		final double displacement = 0.02;
+		final double[] forwards = { -0.005, 0.0, 0.01 };
+		final double[] optionMaturities = { 2.0, 5.0, 10.0 };
+		final double[] optionStrikes = { 0.0, -0.01, 0.02 };
+		final double[] payoffUnits = { 4.5, 4.0, 8.0 };
+		final double[] volatilities = { 0.25, 0.40, 0.15 };
+
+		final double[] optionValues = new double[forwards.length];
+		for(int i = 0; i < forwards.length; i++) {
+			optionValues[i] = AnalyticFormulas.blackScholesGeneralizedOptionValue(forwards[i] + displacement, volatilities[i], optionMaturities[i], optionStrikes[i] + displacement, payoffUnits[i]);
+		}
+
+		final double[] impliedVolatilities = AnalyticFormulas.blackScholesDisplacedOptionImpliedVolatility(forwards, displacement, optionMaturities, optionStrikes, payoffUnits, optionValues);
+
+		Assert.assertArrayEquals(volatilities, impliedVolatilities, 1E-12);
+	}
+
+	@Test
+	public void testBachelierOptionImpliedVolatilityBatch() {
+		final double forward = 0.01;
+		final double payoffUnit = 4.0;
+		final double[] maturities = { 0.1, 1.0, 10.0 };
+		final double[] strikes = { -0.02, 0.0, 0.01, 0.015, 0.05 };
+		final double[] volatilities = { 0.0010, 0.0060, 0.0200 };
+
+		final int numberOfQuotes = maturities.length * strikes.length * volatilities.length;
+		final double[] forwards = new double[numberOfQuotes];
+		final double[] optionMaturities = new double[numberOfQuotes];
+		final double[] optionStrikes = new double[numberOfQuotes];
+		final double[] payoffUnits = new double[numberOfQuotes];
+		final double[] optionValues = new double[numberOfQuotes];
+		final double[] volatilitiesExpected = new double[numberOfQuotes];
+		int quoteIndex = 0;
+		for(final double maturity : maturities) {
+			for(final double strike : strikes) {
+				for(final double volatility : volatilities) {
+					forwards[quoteIndex] = forward;
+					optionMaturities[quoteIndex] = maturity;
+					optionStrikes[quoteIndex] = strike;
+					payoffUnits[quoteIndex] = payoffUnit;
+					optionValues[quoteIndex] = AnalyticFormulas.bachelierOptionValue(forward, volatility, maturity, strike, payoffUnit);
+					volatilitiesExpected[quoteIndex] = volatility;
+					quoteIndex++;
+				}
+			}
+		}
+
+		final double[] impliedVolatilities = AnalyticFormulas.bachelierOptionImpliedVolatility(forwards, optionMaturities, optionStrikes, payoffUnits, optionValues);
+
+		for(int i = 0; i < numberOfQuotes; i++) {
+			// The accuracy is limited by the rounding of the option value (relevant for tiny vegas)
+			final double vega = Math.sqrt(optionMaturities[i]) * NormalDistribution.density((forward - optionStrikes[i]) / (volatilitiesExpected[i] * Math.sqrt(optionMaturities[i]))) * payoffUnit;
+			final double tolerance = 1E-14 + 4.0 * Math.ulp(optionValues[i]) / vega;
+			Assert.assertEquals("Implied volatility of quote " + i, volatilitiesExpected[i], impliedVolatilities[i], tolerance);
+		}
+	}
+
+	@Test
+	public void testOptionImpliedVolatilityBatchInvalidQuotes() {
+		final double[] forwards = { 0.03, 0.03 };
+		final double[] optionStrikes = { 0.03, 0.04 };
+		final double[] optionValues = { 0.005, Double.NaN };
+
+		// A NaN option value results in a NaN volatility (only for this quote)
+		final double[] impliedVolatilities = AnalyticFormulas.blackScholesOptionImpliedVolatility(forwards, new double[] { 1.0, 1.0 }, optionStrikes, new double[] { 0.95, 0.95 }, optionValues);
+		Assert.assertTrue("Implied volatility", impliedVolatilities[0] > 0);
+		Assert.assertTrue("Implied volatility of NaN value", Double.isNaN(impliedVolatilities[1]));
+		final double[] impliedNormalVolatilities = AnalyticFormulas.bachelierOptionImpliedVolatility(forwards, new double[] { 1.0, 1.0 }, optionStrikes, new double[] { 0.95, 0.95 }, optionValues);
+		Assert.assertTrue("Implied normal volatility", impliedNormalVolatilities[0] > 0);
+		Assert.assertTrue("Implied normal volatility of NaN value", Double.isNaN(impliedNormalVolatilities[1]));
+
+		// Non-positive maturities and payoff units are rejected
+		final double[][] invalidMaturities = { { 1.0, 0.0 }, { 1.0, -1.0 }, { 1.0, 1.0 }, { 1.0, 1.0 } };
+		final double[][] invalidPayoffUnits = { { 0.95, 0.95 }, { 0.95, 0.95 }, { 0.95, 0.0 }, { -0.95, 0.95 } };
+		for(int i = 0; i < invalidMaturities.length; i++) {
+			try {
+				AnalyticFormulas.blackScholesOptionImpliedVolatility(forwards, invalidMaturities[i], optionStrikes, invalidPayoffUnits[i], optionValues);
+				Assert.fail("Expected IllegalArgumentException for invalid quote " + i);
+			}
+			catch(final IllegalArgumentException e) {
+				// expected
+			}
+			try {
+				AnalyticFormulas.bachelierOptionImpliedVolatility(forwards, invalidMaturities[i], optionStrikes, invalidPayoffUnits[i], optionValues);
+				Assert.fail("Expected IllegalArgumentException for invalid quote " + i);
+			}
+			catch(final IllegalArgumentException e) {
+				// expected
+			}
+		}
+	}
+
 	@Test
 	public void testBlackScholesPutCallParityATM() {
 		final double initialStockValue = 100.0;
@@ -35,6 +35,24 @@ public class NormalDistributionTest {
 		}
 	}
 
+	@Test
+	public void testCumulativeDistributionCody() {
+		for(double x=-37.0; x<= 8.0; x += 0.01) {
+			final double cdf = NormalDistribution.cumulativeDistribution(x);
+			final double cdfCody = NormalDistribution.cumulativeDistributionCody(x);
+
+			// Relative accuracy (also in the left tail, where commons-math is slightly less accurate)
+			Assert.assertEquals("Cumulative distribution at " + x, 1.0, cdfCody / cdf, 1E-12);
+		}
+
+		// High precision reference values
+		final double[] arguments = { -10.0, -5.0, -1.0, 3.0 };
+		final double[] values = { 7.61985302416052606597E-24, 2.86651571879193911674E-7, 0.158655253931457051415, 0.998650101968369896532 };
+		for(int i = 0; i < arguments.length; i++) {
+			Assert.assertEquals("Cumulative distribution at " + arguments[i], 1.0, NormalDistribution.cumulativeDistributionCody(arguments[i]) / values[i], 1E-15);
+		}
+	}
+
 	@Test
 	public void testInverseCumulativeDistribution() {
 
@@ -0,0 +1,62 @@
+
+package net.finmath.integration;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleUnaryOperator;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit test for the AdaptiveGaussKronrodRealIntegrator.
+ */
+public class AdaptiveGaussKronrodRealIntegratorTest {
+
+	@Test
+	public void testCos() {
+		final AbstractRealIntegral integral = new AdaptiveGaussKronrodRealIntegrator(1.0, 5.0, 1E-14, 1E-14);
+
+		final double value = integral.integrate(x -> Math.cos(x));
+		final double valueAnalytic = Math.sin(integral.getUpperBound()) - Math.sin(integral.getLowerBound());
+
+		final double error = value-valueAnalytic;
+
+		System.out.println("Result: " + value + ". \tError: " + error);
+
+		Assert.assertEquals("Integreation error.", 0.0, error, 1E-14);
+	}
+
+	@Test
+	public void testCubic() {
+		final AbstractRealIntegral integral = new AdaptiveGaussKronrodRealIntegrator(1.0, 5.0, 1E-14, 1E-14, 1, 15);
+
+		final double value = integral.integrate(x -> 2 * x * x * x - x);
+		final double valueAnalytic = (Math.pow(5.0, 4) - 1.0) / 2.0 - (25.0 - 1.0) / 2.0;
+
+		final double error = value-valueAnalytic;
+
+		System.out.println("Result: " + value + ". \tError: " + error);
+
+		Assert.assertEquals("Integreation error.", 0.0, error, 1E-12);
+	}
+
+	@Test
+	public void testPeakedIntegrand() {
+		final AbstractRealIntegral integral = new AdaptiveGaussKronrodRealIntegrator(-100.0, 100.0, 1E-12, 1E-12);
+
+		// A narrow Gaussian, where a uniform grid wastes most evaluations
+		final double width = 0.01;
+		final AtomicInteger numberOfEvaluations = new AtomicInteger();
+		final DoubleUnaryOperator integrand = x -> {
+			numberOfEvaluations.incrementAndGet();
+			return Math.exp(-0.5 * x * x / width / width) / Math.sqrt(2 * Math.PI) / width;
+		};
+
+		final double value = integral.integrate(integrand);
+
+		System.out.println("Result: " + value + ". \tError: " + (value-1.0) + ". \tEvaluations: " + numberOfEvaluations.get());
+
+		Assert.assertEquals("Integreation error.", 1.0, value, 1E-11);
+		Assert.assertTrue("Number of evaluations.", numberOfEvaluations.get() < 2000);
+	}
+}
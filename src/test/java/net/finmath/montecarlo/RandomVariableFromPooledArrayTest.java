@@ -0,0 +1,156 @@
+package net.finmath.montecarlo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.finmath.stochastic.RandomVariable;
+
+/**
+ * Test of {@link RandomVariableFromPooledArrayFactory}.
+ */
+public class RandomVariableFromPooledArrayTest {
+
+	private static final int numberOfPaths = 10000;
+
+	@Test
+	public void testArraysAreReused() {
+		final RandomVariableFromPooledArrayFactory factory = new RandomVariableFromPooledArrayFactory();
+
+		final double[] values = getRandomValues(numberOfPaths, 3141);
+		final RandomVariable x = factory.createRandomVariable(0.0, values);
+		final RandomVariable xReference = new RandomVariableFromDoubleArray(0.0, values);
+
+		final double expected = xReference.sub(0.1).mult(2.0).exp().floor(1.0).getAverage();
+
+		for(int iteration=0; iteration<10; iteration++) {
+			try(RandomVariableFromPooledArrayFactory.Scope scope = factory.openScope()) {
+				final double value = x.sub(0.1).mult(2.0).exp().floor(1.0).getAverage();
+				Assert.assertEquals("Value", expected, value, 1E-12);
+			}
+			// The arrays of the intermediate results are returned to the pool when the scope is closed
+			Assert.assertEquals("Number of pooled realizations", 4*numberOfPaths, factory.getNumberOfPooledRealizations());
+		}
+
+		// The first iteration allocates 4 arrays, all subsequent iterations re-use them
+		Assert.assertEquals("Number of arrays allocated", 4, factory.getNumberOfArraysAllocated());
+		Assert.assertEquals("Number of arrays reused", 9*4, factory.getNumberOfArraysReused());
+	}
+
+	@Test
+	public void testKeepAndUseAfterClose() {
+		final RandomVariableFromPooledArrayFactory factory = new RandomVariableFromPooledArrayFactory();
+
+		final double[] values = getRandomValues(numberOfPaths, 3141);
+		final RandomVariable x = factory.createRandomVariable(0.0, values);
+		final double expectedSquare = x.squared().getAverage();
+
+		final RandomVariable kept;
+		final RandomVariable escaped;
+		try(RandomVariableFromPooledArrayFactory.Scope scope = factory.openScope()) {
+			final RandomVariable square = x.squared();
+			kept = scope.keep(square.add(1.0));
+			escaped = square;
+			Assert.assertEquals("Value within scope", expectedSquare, escaped.getAverage(), 0.0);
+		}
+
+		Assert.assertNull("Kept random variable is detached from the scope", ((RandomVariableFromPooledArray)kept).getScope());
+		Assert.assertEquals("Number of pooled realizations", numberOfPaths, factory.getNumberOfPooledRealizations());
+
+		// The array of the kept random variable is never re-used
+		for(int iteration=0; iteration<3; iteration++) {
+			try(RandomVariableFromPooledArrayFactory.Scope scope = factory.openScope()) {
+				x.add(1.0).mult(3.0).getAverage();
+			}
+		}
+		Assert.assertEquals("Kept value", expectedSquare + 1.0, kept.getAverage(), 1E-12);
+		Assert.assertEquals("Kept value via operation", 2.0*(expectedSquare + 1.0), kept.mult(2.0).getAverage(), 1E-12);
+		Assert.assertEquals("Kept value as argument", expectedSquare + 2.0, x.mult(0.0).add(kept).add(1.0).getAverage(), 1E-12);
+
+		// Random variables of a closed scope must not be used
+		assertReleased(() -> escaped.getAverage());
+		assertReleased(() -> escaped.get(0));
+		assertReleased(() -> escaped.getRealizations());
+		assertReleased(() -> escaped.mult(2.0));
+		assertReleased(() -> x.add(escaped));
+		assertReleased(() -> kept.addProduct(x, escaped));
+	}
+
+	@Test
+	public void testScopesAreThreadConfined() throws Exception {
+		final RandomVariableFromPooledArrayFactory factory = new RandomVariableFromPooledArrayFactory();
+
+		final double[] values = getRandomValues(numberOfPaths, 3141);
+		final RandomVariable x = factory.createRandomVariable(0.0, values);
+		final double expected = new RandomVariableFromDoubleArray(0.0, values).squared().add(1.0).getAverage();
+
+		// An operation on a thread without an open scope is not registered with the scope of another thread
+		try(RandomVariableFromPooledArrayFactory.Scope scope = factory.openScope()) {
+			final RandomVariable[] result = new RandomVariable[1];
+			final Thread thread = new Thread(() -> result[0] = x.squared());
+			thread.start();
+			thread.join();
+			Assert.assertNull("Scope of other thread", ((RandomVariableFromPooledArray)result[0]).getScope());
+			Assert.assertSame("Scope of this thread", scope, ((RandomVariableFromPooledArray)x.squared()).getScope());
+		}
+
+		// Parallel valuations in separate scopes
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			final List<Future<Double>> results = new ArrayList<>();
+			for(int task=0; task<64; task++) {
+				results.add(executor.submit(() -> {
+					try(RandomVariableFromPooledArrayFactory.Scope scope = factory.openScope()) {
+						return x.squared().add(1.0).getAverage();
+					}
+				}));
+			}
+			for(final Future<Double> result : results) {
+				Assert.assertEquals("Value", expected, result.get(), 1E-12);
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testPoolIsBounded() {
+		final RandomVariableFromPooledArrayFactory factory = new RandomVariableFromPooledArrayFactory(2*numberOfPaths);
+
+		final RandomVariable x = factory.createRandomVariable(0.0, getRandomValues(numberOfPaths, 3141));
+		try(RandomVariableFromPooledArrayFactory.Scope scope = factory.openScope()) {
+			x.add(1.0).add(1.0).add(1.0).add(1.0).getAverage();
+		}
+
+		Assert.assertEquals("Number of pooled realizations", 2*numberOfPaths, factory.getNumberOfPooledRealizations());
+
+		factory.clearPool();
+		Assert.assertEquals("Number of pooled realizations", 0, factory.getNumberOfPooledRealizations());
+	}
+
+	private static void assertReleased(final Runnable operation) {
+		try {
+			operation.run();
+			Assert.fail("Expected IllegalStateException for a random variable of a closed scope.");
+		}
+		catch(final IllegalStateException e) {
+			// expected
+		}
+	}
+
+	private static double[] getRandomValues(final int size, final int seed) {
+		final MersenneTwister mersenneTwister = new MersenneTwister(seed);
+		final double[] values = new double[size];
+		for(int i=0; i<size; i++) {
+			values[i] = mersenneTwister.nextDouble();
+		}
+		return values;
+	}
+}
@@ -0,0 +1,125 @@
+package net.finmath.montecarlo;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.finmath.montecarlo.automaticdifferentiation.RandomVariableDifferentiable;
+import net.finmath.montecarlo.automaticdifferentiation.backward.RandomVariableDifferentiableAAD;
+import net.finmath.stochastic.RandomVariable;
+
+/**
+ * Test of {@link RandomVariableFusedEvaluation} against {@link RandomVariableFromDoubleArray}.
+ */
+public class RandomVariableFusedEvaluationTest {
+
+	private static final int numberOfPaths = 100003;
+
+	@Test
+	public void testPayoffChain() {
+		final double[] liborValues = getRandomValues(numberOfPaths, 3141, 0.05);
+		final double[] numeraireValues = getRandomValues(numberOfPaths, 2718, 1.0);
+
+		final RandomVariable libor = new RandomVariableFusedEvaluation(1.0, liborValues);
+		final RandomVariable numeraire = new RandomVariableFusedEvaluation(2.0, numeraireValues);
+		final RandomVariable liborReference = new RandomVariableFromDoubleArray(1.0, liborValues);
+		final RandomVariable numeraireReference = new RandomVariableFromDoubleArray(2.0, numeraireValues);
+
+		final RandomVariable payoff = libor.sub(0.04).mult(0.5).mult(1E6).div(numeraire).floor(0.0);
+		final RandomVariable payoffReference = liborReference.sub(0.04).mult(0.5).mult(1E6).div(numeraireReference).floor(0.0);
+
+		// Reductions without caching
+		Assert.assertEquals("Average", payoffReference.getAverage(), payoff.getAverage(), 1E-12 * Math.abs(payoffReference.getAverage()));
+		Assert.assertEquals("Variance", payoffReference.getVariance(), payoff.getVariance(), 1E-12 * payoffReference.getVariance());
+		Assert.assertEquals("Filtration time", 2.0, payoff.getFiltrationTime(), 0.0);
+
+		assertEqualsRandomVariable(payoffReference, payoff);
+	}
+
+	@Test
+	public void testSharedSubexpressionsAndMixedArguments() {
+		final double[] values1 = getRandomValues(numberOfPaths, 3141, 0.0);
+		final double[] values2 = getRandomValues(numberOfPaths, 2718, 2.0);
+
+		final RandomVariable x = new RandomVariableFusedEvaluation(0.0, values1);
+		final RandomVariable y = new RandomVariableFromDoubleArray(0.0, values2);
+		final RandomVariable xReference = new RandomVariableFromDoubleArray(0.0, values1);
+
+		final RandomVariable shared = x.mult(y).exp();
+		final RandomVariable sharedReference = xReference.mult(y).exp();
+
+		final RandomVariable value = shared.addProduct(shared, x).discount(y, 0.5).addRatio(shared, y).cap(shared.sqrt()).choose(shared, y.squared());
+		final RandomVariable valueReference = sharedReference.addProduct(sharedReference, xReference).discount(y, 0.5).addRatio(sharedReference, y).cap(sharedReference.sqrt()).choose(sharedReference, y.squared());
+
+		assertEqualsRandomVariable(valueReference, value);
+		assertEqualsRandomVariable(xReference.sub(y).vid(2.0), y.bus(x).vid(2.0));
+	}
+
+	@Test
+	public void testDeepChain() {
+		final double[] values = getRandomValues(numberOfPaths, 3141, 0.0);
+
+		RandomVariable value = new RandomVariableFusedEvaluation(0.0, values);
+		RandomVariable valueReference = new RandomVariableFromDoubleArray(0.0, values);
+		for(int i=0; i<5*RandomVariableFusedEvaluation.MAX_DEPTH; i++) {
+			value = value.mult(0.99).add(0.01);
+			valueReference = valueReference.mult(0.99).add(0.01);
+		}
+
+		assertEqualsRandomVariable(valueReference, value);
+	}
+
+	@Test
+	public void testLongChainStaysLazyBetweenThresholds() {
+		final double[] values = getRandomValues(numberOfPaths, 3141, 0.0);
+
+		RandomVariable value = new RandomVariableFusedEvaluation(0.0, values);
+		RandomVariable valueReference = new RandomVariableFromDoubleArray(0.0, values);
+		final int numberOfOperations = 3*RandomVariableFusedEvaluation.MAX_DEPTH+10;
+		for(int i=1; i<=numberOfOperations; i++) {
+			value = value.mult(0.99);
+			valueReference = valueReference.mult(0.99);
+
+			// An evaluated node is a leaf: the chain is evaluated every MAX_DEPTH+1 operations and lazy in between
+			final boolean isEvaluationExpected = i % (RandomVariableFusedEvaluation.MAX_DEPTH+1) == 0;
+			Assert.assertEquals("Evaluated after operation " + i, isEvaluationExpected, ((RandomVariableFusedEvaluation)value).isEvaluated());
+		}
+
+		assertEqualsRandomVariable(valueReference, value);
+	}
+
+	@Test
+	public void testDeterministic() {
+		final RandomVariable value = new RandomVariableFusedEvaluation(1.0, 2.0).mult(3.0).add(new RandomVariableFusedEvaluation(0.5, 1.0)).exp();
+
+		Assert.assertTrue(value.isDeterministic());
+		Assert.assertEquals(Math.exp(7.0), value.doubleValue(), 1E-12);
+		Assert.assertEquals(1.0, value.getFiltrationTime(), 0.0);
+	}
+
+	@Test
+	public void testTypePriorityOfDifferentiableArgument() {
+		final RandomVariable x = new RandomVariableFusedEvaluation(0.0, getRandomValues(1000, 3141, 0.0));
+		final RandomVariable y = new RandomVariableDifferentiableAAD(new RandomVariableFromDoubleArray(0.0, getRandomValues(1000, 2718, 0.0)));
+
+		Assert.assertTrue(x.mult(y) instanceof RandomVariableDifferentiable);
+		Assert.assertTrue(x.addProduct(y, x) instanceof RandomVariableDifferentiable);
+	}
+
+	private static double[] getRandomValues(final int size, final int seed, final double shift) {
+		final MersenneTwister mersenneTwister = new MersenneTwister(seed);
+		final double[] values = new double[size];
+		for(int i=0; i<size; i++) {
+			values[i] = shift + mersenneTwister.nextDouble() - 0.5;
+		}
+		return values;
+	}
+
+	private static void assertEqualsRandomVariable(final RandomVariable expected, final RandomVariable actual) {
+		Assert.assertEquals("Filtration time", expected.getFiltrationTime(), actual.getFiltrationTime(), 0.0);
+		Assert.assertEquals("Size", expected.size(), actual.size());
+		for(int i=0; i<expected.size(); i++) {
+			Assert.assertEquals("Realization " + i, expected.get(i), actual.get(i), 0.0);
+		}
+	}
+}
@@ -37,6 +37,9 @@ public class RandomVariableTest {
 			{ new RandomVariableFromArrayFactory(true /* isUseDoublePrecisionFloatingPointImplementation */) },
 			{ new RandomVariableFromArrayFactory(false /* isUseDoublePrecisionFloatingPointImplementation */) },
 			{ new RandomVariableLazyEvaluationFactory() },
+			{ new RandomVariableVectorizedFactory() },
+			{ new RandomVariableFusedEvaluationFactory() },
+			{ new RandomVariableFromPooledArrayFactory() },
 			{ new RandomVariableDifferentiableAADFactory() },
 			{ new RandomVariableDifferentiableADFactory() },
 		});
@@ -170,6 +173,81 @@ public class RandomVariableTest {
 		Assert.assertEquals(2.33, q99, 1E-2);
 	}
 
+	@Test
+	public void testGetQuantiles() {
+
+		final int numberOfSamplePoints = 1001;
+
+		// Samples with many ties
+		final MersenneTwister mersenneTwister = new MersenneTwister(3141);
+		final double[] samples = new double[numberOfSamplePoints];
+		for(int i = 0; i< numberOfSamplePoints; i++) {
+			samples[i] = Math.round(mersenneTwister.nextDouble() * 40.0) / 4.0;
+		}
+
+		final double[] samplesSorted = samples.clone();
+		Arrays.sort(samplesSorted);
+
+		final RandomVariable randomVariable = randomVariableFactory.createRandomVariable(0.0, samples);
+
+		final double[] quantiles = { 0.0, 0.01, 0.05, 0.1, 0.25, 0.5, 0.75, 0.9, 0.95, 0.99, 1.0 };
+		final double[] quantileValues = randomVariable.getQuantiles(quantiles);
+		for(int i = 0; i < quantiles.length; i++) {
+			final int index = Math.min(Math.max((int)Math.round((numberOfSamplePoints+1) * quantiles[i] - 1), 0), numberOfSamplePoints-1);
+			Assert.assertEquals("Quantile " + quantiles[i], samplesSorted[index], randomVariable.getQuantile(quantiles[i]), 0.0);
+			Assert.assertEquals("Quantiles " + quantiles[i], samplesSorted[index], quantileValues[i], 0.0);
+		}
+	}
+
+	@Test
+	public void testGetQuantileWithProbabilities() {
+
+		final int numberOfSamplePoints = 10000;
+
+		final MersenneTwister mersenneTwister = new MersenneTwister(3141);
+		final double[] samples = new double[numberOfSamplePoints];
+		final double[] weights = new double[numberOfSamplePoints];
+		double totalWeight = 0.0;
+		for(int i = 0; i< numberOfSamplePoints; i++) {
+			samples[i] = Math.round(mersenneTwister.nextDouble() * 1000.0) / 8.0;
+			weights[i] = mersenneTwister.nextDouble();
+			totalWeight += weights[i];
+		}
+
+		// Reference: sort the samples by value and accumulate the weights
+		final Integer[] indices = new Integer[numberOfSamplePoints];
+		for(int i = 0; i < numberOfSamplePoints; i++) {
+			indices[i] = i;
+		}
+		Arrays.sort(indices, (i, j) -> Double.compare(samples[i], samples[j]));
+
+		final RandomVariable randomVariable = randomVariableFactory.createRandomVariable(0.0, samples);
+		final RandomVariable probabilities = new RandomVariableFromDoubleArray(0.0, weights).div(totalWeight);
+
+		for(final double quantile : new double[] { 0.0, 0.01, 0.05, 0.1, 0.5, 0.9, 0.95, 0.99, 1.0 }) {
+			double expected = samples[indices[numberOfSamplePoints-1]];
+			double cumulativeWeight = 0.0;
+			for(int k = 0; k < numberOfSamplePoints; k++) {
+				cumulativeWeight += weights[indices[k]];
+				if(cumulativeWeight >= quantile * totalWeight) {
+					expected = samples[indices[k]];
+					break;
+				}
+			}
+
+			Assert.assertEquals("Quantile " + quantile, expected, randomVariable.getQuantile(quantile, probabilities), 0.0);
+		}
+
+		// Equi-distribution: deterministic probabilities use the same (weighted) definition as equal stochastic weights
+		final double[] equalWeights = new double[numberOfSamplePoints];
+		Arrays.fill(equalWeights, 1.0);
+		for(final double quantile : new double[] { 0.0, 0.01, 0.05, 0.1, 0.5, 0.9, 0.95, 0.99, 1.0 }) {
+			Assert.assertEquals("Quantile " + quantile,
+					randomVariable.getQuantile(quantile, new RandomVariableFromDoubleArray(0.0, equalWeights)),
+					randomVariable.getQuantile(quantile, new RandomVariableFromDoubleArray(1.0 / numberOfSamplePoints)), 0.0);
+		}
+	}
+
 	@Test
 	public void testAdd() {
 
@@ -0,0 +1,101 @@
+package net.finmath.montecarlo;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.finmath.stochastic.RandomVariable;
+import net.finmath.stochastic.Scalar;
+
+/**
+ * Test of {@link RandomVariableVectorized} against {@link RandomVariableFromDoubleArray}.
+ */
+public class RandomVariableVectorizedTest {
+
+	private static final int numberOfPaths = 100003;		// not a multiple of the unrolling
+
+	@Test
+	public void testOperationsAgreeWithRandomVariableFromDoubleArray() {
+		final double[] values1 = getRandomValues(numberOfPaths, 3141);
+		final double[] values2 = getRandomValues(numberOfPaths, 2718);
+		final double[] values3 = getRandomValues(numberOfPaths, 1414);
+
+		final RandomVariable x = new RandomVariableVectorized(0.5, values1);
+		final RandomVariable y = new RandomVariableVectorized(1.0, values2);
+		final RandomVariable z = new RandomVariableVectorized(0.0, values3);
+
+		final RandomVariable xReference = new RandomVariableFromDoubleArray(0.5, values1);
+		final RandomVariable yReference = new RandomVariableFromDoubleArray(1.0, values2);
+		final RandomVariable zReference = new RandomVariableFromDoubleArray(0.0, values3);
+
+		assertEqualsRandomVariable(xReference.add(yReference), x.add(y));
+		assertEqualsRandomVariable(xReference.sub(yReference), x.sub(y));
+		assertEqualsRandomVariable(xReference.mult(yReference), x.mult(y));
+		assertEqualsRandomVariable(xReference.div(yReference), x.div(y));
+		assertEqualsRandomVariable(xReference.cap(yReference), x.cap(y));
+		assertEqualsRandomVariable(xReference.floor(yReference), x.floor(y));
+		assertEqualsRandomVariable(xReference.addProduct(yReference, zReference), x.addProduct(y, z));
+		assertEqualsRandomVariable(xReference.addProduct(yReference, 0.3), x.addProduct(y, 0.3));
+		assertEqualsRandomVariable(xReference.accrue(yReference, 0.5), x.accrue(y, 0.5));
+		assertEqualsRandomVariable(xReference.discount(yReference, 0.5), x.discount(y, 0.5));
+		assertEqualsRandomVariable(xReference.exp(), x.exp());
+		assertEqualsRandomVariable(xReference.squared().log(), x.squared().log());
+		assertEqualsRandomVariable(xReference.cap(0.2).floor(-0.1).mult(2.0).add(1.0).sub(0.5).div(3.0), x.cap(0.2).floor(-0.1).mult(2.0).add(1.0).sub(0.5).div(3.0));
+
+		// Mixed arguments (scalar fallback)
+		assertEqualsRandomVariable(xReference.add(yReference), x.add(yReference));
+		assertEqualsRandomVariable(xReference.addProduct(yReference, zReference), x.addProduct(yReference, z));
+		assertEqualsRandomVariable(xReference.discount(yReference, 0.5), x.discount(yReference, 0.5));
+
+		// Deterministic arguments
+		final RandomVariable constant = new RandomVariableVectorized(2.0, 0.25);
+		final RandomVariable constantReference = new RandomVariableFromDoubleArray(2.0, 0.25);
+		assertEqualsRandomVariable(xReference.add(new Scalar(0.25)), x.add(new Scalar(0.25)));
+		assertEqualsRandomVariable(constantReference.mult(yReference), constant.mult(y));
+		assertEqualsRandomVariable(constantReference.sub(yReference), constant.sub(y));
+		assertEqualsRandomVariable(xReference.addProduct(yReference, 0.25), x.addProduct(y, new RandomVariableVectorized(0.0, 0.25)));
+
+		Assert.assertTrue("Result type", x.add(y).mult(z).exp() instanceof RandomVariableVectorized);
+		Assert.assertEquals("Filtration time", 2.0, constant.mult(y).getFiltrationTime(), 0.0);
+		Assert.assertEquals("Filtration time", 2.0, x.accrue(constant, 0.5).getFiltrationTime(), 0.0);
+		Assert.assertEquals("Filtration time", 2.0, x.discount(constant, 0.5).getFiltrationTime(), 0.0);
+		Assert.assertArrayEquals("Accrue", xReference.accrue(constantReference, 0.5).getRealizations(), x.accrue(constant, 0.5).getRealizations(), 0.0);
+		Assert.assertArrayEquals("Discount", xReference.discount(constantReference, 0.5).getRealizations(), x.discount(constant, 0.5).getRealizations(), 0.0);
+	}
+
+	@Test
+	public void testReductions() {
+		final double[] values = getRandomValues(numberOfPaths, 3141);
+		for(int i=0; i<values.length; i++) {
+			values[i] += 1E6;
+		}
+
+		final RandomVariable x = new RandomVariableVectorized(0.0, values);
+		final RandomVariable xReference = new RandomVariableFromDoubleArray(0.0, values);
+
+		Assert.assertEquals("Average", xReference.getAverage(), x.getAverage(), 1E-15 * Math.abs(xReference.getAverage()));
+		Assert.assertEquals("Variance", xReference.getVariance(), x.getVariance(), 1E-12 * xReference.getVariance());
+
+		for(int size=0; size<8; size++) {
+			final double[] small = getRandomValues(size, size);
+			Assert.assertEquals("Average of size " + size, new RandomVariableFromDoubleArray(0.0, small).getAverage(), new RandomVariableVectorized(0.0, small).getAverage(), 1E-15);
+		}
+	}
+
+	private static double[] getRandomValues(final int size, final int seed) {
+		final MersenneTwister mersenneTwister = new MersenneTwister(seed);
+		final double[] values = new double[size];
+		for(int i=0; i<size; i++) {
+			values[i] = mersenneTwister.nextDouble() - 0.5;
+		}
+		return values;
+	}
+
+	private static void assertEqualsRandomVariable(final RandomVariable expected, final RandomVariable actual) {
+		Assert.assertEquals("Filtration time", expected.getFiltrationTime(), actual.getFiltrationTime(), 0.0);
+		Assert.assertEquals("Size", expected.size(), actual.size());
+		for(int i=0; i<expected.size(); i++) {
+			Assert.assertEquals("Realization " + i, expected.get(i), actual.get(i), 0.0);
+		}
+	}
+}
@@ -0,0 +1,214 @@
+
+package net.finmath.montecarlo.automaticdifferentiation.backward;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.BrownianMotionFromMersenneRandomNumbers;
+import net.finmath.montecarlo.automaticdifferentiation.AbstractRandomVariableDifferentiableFactory;
+import net.finmath.montecarlo.automaticdifferentiation.RandomVariableDifferentiable;
+import net.finmath.montecarlo.assetderivativevaluation.MonteCarloAssetModel;
+import net.finmath.montecarlo.assetderivativevaluation.models.BlackScholesModel;
+import net.finmath.montecarlo.assetderivativevaluation.products.BermudanOption;
+import net.finmath.montecarlo.process.EulerSchemeFromProcessModel;
+import net.finmath.stochastic.RandomVariable;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * Unit test for {@link RandomVariableDifferentiableAADTape}, comparing the gradients to {@link RandomVariableDifferentiableAAD}.
+ */
+public class RandomVariableDifferentiableAADTapeTest {
+
+	@Test
+	public void testGradientOfFunctionAgainstOperatorTree() {
+		final RandomVariableDifferentiableAADFactory factoryOperatorTree = new RandomVariableDifferentiableAADFactory();
+		final RandomVariableDifferentiableAADTapeFactory factoryTape = new RandomVariableDifferentiableAADTapeFactory();
+
+		final double[][] gradientOperatorTree = getGradientOfFunction(factoryOperatorTree);
+		final double[][] gradientTape = getGradientOfFunction(factoryTape);
+
+		for(int i=0; i<gradientOperatorTree.length; i++) {
+			Assert.assertArrayEquals("Gradient w.r.t. argument " + i, gradientOperatorTree[i], gradientTape[i], 1E-12);
+		}
+	}
+
+	@Test
+	public void testGradientOfBermudanOptionAgainstOperatorTree() throws CalculationException {
+		final RandomVariableDifferentiableAADFactory factoryOperatorTree = new RandomVariableDifferentiableAADFactory();
+		final RandomVariableDifferentiableAADTapeFactory factoryTape = new RandomVariableDifferentiableAADTapeFactory();
+
+		final double[] sensitivitiesOperatorTree = getSensitivitiesOfBermudanOption(factoryOperatorTree);
+		final double[] sensitivitiesTape = getSensitivitiesOfBermudanOption(factoryTape);
+
+		System.out.println("Bermudan option value, delta, rho, vega:");
+		System.out.println("operator tree...: " + java.util.Arrays.toString(sensitivitiesOperatorTree));
+		System.out.println("tape............: " + java.util.Arrays.toString(sensitivitiesTape));
+
+		Assert.assertArrayEquals(sensitivitiesOperatorTree, sensitivitiesTape, 1E-10);
+	}
+
+	@Test
+	public void testGradientWithRespectToGivenIndependents() {
+		final RandomVariableDifferentiableAADTapeFactory factory = new RandomVariableDifferentiableAADTapeFactory();
+
+		final RandomVariableDifferentiable x = factory.createRandomVariable(2.0);
+		final RandomVariableDifferentiable y = factory.createRandomVariable(3.0);
+		final RandomVariableDifferentiable z = (RandomVariableDifferentiable)x.mult(y);
+		final RandomVariableDifferentiable result = (RandomVariableDifferentiable)z.squared().add(x);
+
+		final Map<Long, RandomVariable> gradient = result.getGradient();
+		Assert.assertEquals("Number of leaf nodes", 2, gradient.size());
+		Assert.assertEquals(2 * 6.0 * 3.0 + 1.0, gradient.get(x.getID()).doubleValue(), 1E-15);
+		Assert.assertEquals(2 * 6.0 * 2.0, gradient.get(y.getID()).doubleValue(), 1E-15);
+
+		// Derivative with respect to an intermediate result
+		final Map<Long, RandomVariable> gradientWithRespectToZ = result.getGradient(Collections.singleton(z.getID()));
+		Assert.assertEquals(1, gradientWithRespectToZ.size());
+		Assert.assertEquals(2 * 6.0, gradientWithRespectToZ.get(z.getID()).doubleValue(), 1E-15);
+	}
+
+	@Test
+	public void testTapeReset() {
+		final RandomVariableDifferentiableAADTapeFactory factory = new RandomVariableDifferentiableAADTapeFactory();
+
+		final RandomVariableDifferentiable x = factory.createRandomVariable(2.0);
+		final RandomVariableDifferentiable y = (RandomVariableDifferentiable)x.exp();
+		Assert.assertEquals(2, factory.getTapeSize());
+
+		factory.resetTape();
+		Assert.assertEquals(0, factory.getTapeSize());
+
+		final RandomVariableDifferentiable z = factory.createRandomVariable(1.0);
+		Assert.assertNotEquals(x.getID(), z.getID());
+
+		// Gradients of the previous tape remain valid
+		Assert.assertEquals(Math.exp(2.0), y.getGradient().get(x.getID()).doubleValue(), 1E-15);
+
+		try {
+			y.add(z);
+			Assert.fail("Operation on different tapes should fail.");
+		}
+		catch(final IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testTapeScope() {
+		final RandomVariableDifferentiableAADTapeFactory factory = new RandomVariableDifferentiableAADTapeFactory();
+
+		final RandomVariableDifferentiable x = factory.createRandomVariable(2.0);
+		Assert.assertEquals(1, factory.getTapeSize());
+
+		RandomVariableDifferentiable resultOfClosedScope = null;
+		for(int valuation = 0; valuation < 3; valuation++) {
+			try(RandomVariableDifferentiableAADTapeFactory.Scope scope = factory.openScope()) {
+				final RandomVariableDifferentiable y = (RandomVariableDifferentiable)x.exp().mult(x);
+				Assert.assertEquals(3, factory.getTapeSize());
+
+				final Map<Long, RandomVariable> gradient = y.getGradient();
+				Assert.assertEquals(Math.exp(2.0) * 3.0, gradient.get(x.getID()).doubleValue(), 1E-12);
+
+				resultOfClosedScope = y;
+			}
+			// The tape does not grow with the number of valuations
+			Assert.assertEquals(1, factory.getTapeSize());
+		}
+
+		// Random variables of a closed scope must not be used
+		try {
+			resultOfClosedScope.getGradient();
+			Assert.fail("Gradient of a random variable recorded in a closed scope should fail.");
+		}
+		catch(final IllegalStateException e) {
+			// expected
+		}
+		try {
+			resultOfClosedScope.add(x);
+			Assert.fail("Operation on a random variable recorded in a closed scope should fail.");
+		}
+		catch(final IllegalStateException e) {
+			// expected
+		}
+
+		// Random variables recorded before the scope remain valid
+		final RandomVariableDifferentiable z = (RandomVariableDifferentiable)x.squared();
+		Assert.assertEquals(4.0, z.getGradient().get(x.getID()).doubleValue(), 1E-15);
+	}
+
+	@Test
+	public void testGradientOfUnreachableIndependents() {
+		final RandomVariableDifferentiableAADTapeFactory factory = new RandomVariableDifferentiableAADTapeFactory();
+
+		final RandomVariableDifferentiable x = factory.createRandomVariable(2.0);
+		final RandomVariableDifferentiable y = factory.createRandomVariable(3.0);
+		final RandomVariableDifferentiable z = (RandomVariableDifferentiable)y.exp();
+
+		// The sweep for z only covers the entries reachable from z
+		final Map<Long, RandomVariable> gradient = z.getGradient();
+		Assert.assertEquals(1, gradient.size());
+		Assert.assertEquals(Math.exp(3.0), gradient.get(y.getID()).doubleValue(), 1E-12);
+
+		Assert.assertTrue("Unreachable independent", z.getGradient(Collections.singleton(x.getID())).isEmpty());
+	}
+
+	private static double[][] getGradientOfFunction(final AbstractRandomVariableDifferentiableFactory factory) {
+		final int numberOfPaths = 1000;
+		final Random random = new Random(3141);
+		final RandomVariableDifferentiable[] x = new RandomVariableDifferentiable[3];
+		for(int i=0; i<x.length; i++) {
+			final double[] values = new double[numberOfPaths];
+			for(int k=0; k<numberOfPaths; k++) {
+				values[k] = 0.5 + random.nextDouble();
+			}
+			x[i] = factory.createRandomVariable(0.0, values);
+		}
+
+		RandomVariable y = x[0].mult(x[1]).add(x[2].sqrt()).div(x[1].exp());
+		y = y.addProduct(x[0].log(), x[2]).addRatio(x[1], x[2].squared()).subRatio(x[0].sin(), x[1].cos().add(2.0));
+		y = y.accrue(x[1], 0.5).discount(x[2], 0.25).sub(x[0].pow(3.0)).bus(x[1].invert());
+		y = y.cap(x[0].mult(10.0)).floor(x[2].mult(-5.0)).add(x[0].sub(1.0).abs().mult(x[1]));
+		y = y.mult(x[0].sub(1.0).choose(x[1], x[2])).add(y.average().mult(x[2])).vid(x[0].add(100.0));
+
+		final Map<Long, RandomVariable> gradient = ((RandomVariableDifferentiable)y).getGradient();
+
+		final double[][] result = new double[x.length][];
+		for(int i=0; i<x.length; i++) {
+			result[i] = gradient.get(x[i].getID()).getRealizations();
+		}
+		return result;
+	}
+
+	private static double[] getSensitivitiesOfBermudanOption(final AbstractRandomVariableDifferentiableFactory factory) throws CalculationException {
+		final RandomVariableDifferentiable initialValue	= factory.createRandomVariable(1.0);
+		final RandomVariableDifferentiable riskFreeRate	= factory.createRandomVariable(0.05);
+		final RandomVariableDifferentiable volatility	= factory.createRandomVariable(0.30);
+
+		final BlackScholesModel model = new BlackScholesModel(initialValue, riskFreeRate, volatility, factory);
+
+		final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, 20, 0.25);
+		final MonteCarloAssetModel monteCarloBlackScholesModel = new MonteCarloAssetModel(model,
+				new EulerSchemeFromProcessModel(model, new BrownianMotionFromMersenneRandomNumbers(timeDiscretization, 1, 10000, 3141)));
+
+		final double[] exerciseDates = new double[] { 1.0, 2.0, 3.0, 4.0, 5.0 };
+		final double[] notionals = new double[] { 1.0, 1.0, 1.0, 1.0, 1.0 };
+		final double[] strikes = new double[] { 1.05, 1.10, 1.15, 1.20, 1.25 };
+		final BermudanOption option = new BermudanOption(exerciseDates, notionals, strikes);
+
+		final RandomVariable value = option.getValue(0.0, monteCarloBlackScholesModel);
+		final Map<Long, RandomVariable> gradient = ((RandomVariableDifferentiable)value).getGradient();
+
+		return new double[] {
+				value.getAverage(),
+				gradient.get(initialValue.getID()).getAverage(),
+				gradient.get(riskFreeRate.getID()).getAverage(),
+				gradient.get(volatility.getID()).getAverage()
+		};
+	}
+}
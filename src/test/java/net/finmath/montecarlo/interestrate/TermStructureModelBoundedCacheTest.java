@@ -0,0 +1,163 @@
+package net.finmath.montecarlo.interestrate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.marketdata.model.AnalyticModel;
+import net.finmath.marketdata.model.AnalyticModelFromCurvesAndVols;
+import net.finmath.marketdata.model.curves.Curve;
+import net.finmath.marketdata.model.curves.DiscountCurve;
+import net.finmath.marketdata.model.curves.DiscountCurveInterpolation;
+import net.finmath.marketdata.model.curves.ForwardCurve;
+import net.finmath.marketdata.model.curves.ForwardCurveInterpolation;
+import net.finmath.montecarlo.BrownianMotionFromMersenneRandomNumbers;
+import net.finmath.montecarlo.interestrate.models.HullWhiteModel;
+import net.finmath.montecarlo.interestrate.models.LIBORMarketModelFromCovarianceModel;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORCovarianceModelExponentialForm5Param;
+import net.finmath.montecarlo.interestrate.models.covariance.ShortRateVolatilityModelAsGiven;
+import net.finmath.montecarlo.interestrate.products.Bond;
+import net.finmath.montecarlo.process.EulerSchemeFromProcessModel;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+import net.finmath.util.BoundedCache;
+
+/**
+ * Tests the bounded caches of {@link LIBORMarketModelFromCovarianceModel} and {@link HullWhiteModel}:
+ * values have to agree with those of the model using unbounded caches.
+ */
+public class TermStructureModelBoundedCacheTest {
+
+	private static final int numberOfPaths = 1000;
+
+	private final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, 20, 0.5);
+	private final TimeDiscretization liborPeriodDiscretization = new TimeDiscretizationFromArray(0.0, 20, 0.5);
+
+	private final ForwardCurve forwardCurve = ForwardCurveInterpolation.createForwardCurveFromForwards(
+			"forwardCurve", new double[] {0.5 , 1.0 , 2.0 , 5.0 , 10.0}, new double[] {0.02, 0.025, 0.03, 0.035, 0.04}, 0.5);
+	private final DiscountCurve discountCurve = DiscountCurveInterpolation.createDiscountCurveFromZeroRates(
+			"discountCurve", new double[] {0.5 , 1.0 , 2.0 , 5.0 , 10.0}, new double[] {0.015, 0.02, 0.025, 0.03, 0.035});
+	private final AnalyticModel analyticModel = new AnalyticModelFromCurvesAndVols(new Curve[] { forwardCurve, discountCurve });
+
+	@Test
+	public void testLIBORMarketModel() throws CalculationException {
+		for(final String measure : new String[] { "SPOT", "TERMINAL" }) {
+			final Map<String, Object> properties = new HashMap<>();
+			properties.put("measure", measure);
+			final LIBORModelMonteCarloSimulationModel simulation = getLIBORMarketModel(properties);
+
+			// Room for three numeraires and a few discount factors
+			final Map<String, Object> propertiesWithBoundedCache = new HashMap<>(properties);
+			propertiesWithBoundedCache.put("cacheMaximumSizeInBytes", 3L * Double.BYTES * numberOfPaths);
+			final LIBORModelMonteCarloSimulationModel simulationWithBoundedCache = getLIBORMarketModel(propertiesWithBoundedCache);
+
+			assertBondValuesEqual(simulation, simulationWithBoundedCache);
+
+			final Map<String, BoundedCache.Statistics> cacheStatistics = ((LIBORMarketModelFromCovarianceModel)simulationWithBoundedCache.getModel()).getCacheStatistics();
+			System.out.println(measure + ": " + cacheStatistics);
+			Assert.assertTrue("Evictions", cacheStatistics.get("numeraires").getNumberOfEvictions() > 0);
+			Assert.assertTrue("Bounded size", cacheStatistics.get("numeraires").getSizeInBytes() <= 3L * Double.BYTES * numberOfPaths);
+		}
+	}
+
+	@Test
+	public void testLIBORMarketModelSharedByProcesses() throws Exception {
+		final Map<String, Object> properties = new HashMap<>();
+		properties.put("measure", "SPOT");
+		final int[] seeds = new int[] { 3141, 2718 };
+
+		// Reference values from separate models
+		final double[] maturities = new double[] { 1.0, 2.5, 5.0, 7.5, 9.5 };
+		final double[][] expected = new double[seeds.length][maturities.length];
+		for(int seedIndex=0; seedIndex<seeds.length; seedIndex++) {
+			final LIBORModelMonteCarloSimulationModel simulation = getLIBORMarketModel(properties, seeds[seedIndex]);
+			for(int maturityIndex=0; maturityIndex<maturities.length; maturityIndex++) {
+				expected[seedIndex][maturityIndex] = new Bond(maturities[maturityIndex]).getValue(simulation);
+			}
+		}
+
+		// One model shared by two processes, valued concurrently (the caches switch between the processes)
+		final LIBORModelMonteCarloSimulationModel simulation = getLIBORMarketModel(properties, seeds[0]);
+		final LIBORMarketModel model = (LIBORMarketModel)simulation.getModel();
+		final LIBORModelMonteCarloSimulationModel[] simulations = new LIBORModelMonteCarloSimulationModel[] {
+				simulation,
+				new LIBORMonteCarloSimulationFromLIBORModel(model, new EulerSchemeFromProcessModel(model, new BrownianMotionFromMersenneRandomNumbers(timeDiscretization, 3, numberOfPaths, seeds[1])))
+		};
+
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			final List<Future<Double>> values = new ArrayList<>();
+			for(int task=0; task<40; task++) {
+				final int seedIndex = task % seeds.length;
+				final int maturityIndex = (task / seeds.length) % maturities.length;
+				values.add(executor.submit(() -> new Bond(maturities[maturityIndex]).getValue(simulations[seedIndex])));
+			}
+			for(int task=0; task<values.size(); task++) {
+				final int seedIndex = task % seeds.length;
+				final int maturityIndex = (task / seeds.length) % maturities.length;
+				Assert.assertEquals("Bond " + maturities[maturityIndex] + " seed " + seeds[seedIndex], expected[seedIndex][maturityIndex], values.get(task).get(), 1E-15);
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testHullWhiteModel() throws CalculationException {
+		final LIBORModelMonteCarloSimulationModel simulation = getHullWhiteModel(new HashMap<>());
+
+		// Room for two (deterministic) discount factors
+		final Map<String, Object> propertiesWithBoundedCache = new HashMap<>();
+		propertiesWithBoundedCache.put("cacheMaximumSizeInBytes", 2L * Double.BYTES);
+		propertiesWithBoundedCache.put("cacheEvictionPolicy", BoundedCache.EvictionPolicy.LEAST_FREQUENTLY_USED.name());
+		final LIBORModelMonteCarloSimulationModel simulationWithBoundedCache = getHullWhiteModel(propertiesWithBoundedCache);
+
+		assertBondValuesEqual(simulation, simulationWithBoundedCache);
+
+		final Map<String, BoundedCache.Statistics> cacheStatistics = ((HullWhiteModel)simulationWithBoundedCache.getModel()).getCacheStatistics();
+		System.out.println("Hull-White: " + cacheStatistics);
+		Assert.assertTrue("Evictions", cacheStatistics.get("numeraireDiscountFactors").getNumberOfEvictions() > 0);
+	}
+
+	private void assertBondValuesEqual(final LIBORModelMonteCarloSimulationModel simulation, final LIBORModelMonteCarloSimulationModel simulationWithBoundedCache) throws CalculationException {
+		// Request the maturities in an order which forces evictions and re-calculations
+		for(final double maturity : new double[] { 9.0, 1.0, 7.5, 2.5, 5.0, 0.5, 9.5, 3.0, 1.0, 9.0 }) {
+			final Bond bond = new Bond(maturity);
+			final double value = bond.getValue(simulation);
+			final double valueWithBoundedCache = bond.getValue(simulationWithBoundedCache);
+			Assert.assertEquals("Bond " + maturity, value, valueWithBoundedCache, 1E-15);
+		}
+	}
+
+	private LIBORModelMonteCarloSimulationModel getLIBORMarketModel(final Map<String, Object> properties) throws CalculationException {
+		return getLIBORMarketModel(properties, 3141);
+	}
+
+	private LIBORModelMonteCarloSimulationModel getLIBORMarketModel(final Map<String, Object> properties, final int seed) throws CalculationException {
+		final LIBORCovarianceModelExponentialForm5Param covarianceModel = new LIBORCovarianceModelExponentialForm5Param(timeDiscretization, liborPeriodDiscretization, 3, new double[] { 0.20, 0.50, 0.10, 0.05, 0.10 });
+
+		final LIBORMarketModelFromCovarianceModel model = LIBORMarketModelFromCovarianceModel.of(liborPeriodDiscretization, analyticModel, forwardCurve, discountCurve,
+				new net.finmath.montecarlo.RandomVariableFromArrayFactory(), covarianceModel, null, properties);
+
+		final EulerSchemeFromProcessModel process = new EulerSchemeFromProcessModel(model, new BrownianMotionFromMersenneRandomNumbers(timeDiscretization, 3, numberOfPaths, seed));
+		return new LIBORMonteCarloSimulationFromLIBORModel(model, process);
+	}
+
+	private LIBORModelMonteCarloSimulationModel getHullWhiteModel(final Map<String, Object> properties) throws CalculationException {
+		final ShortRateVolatilityModelAsGiven volatilityModel = new ShortRateVolatilityModelAsGiven(new TimeDiscretizationFromArray(0.0), new double[] { 0.01 }, new double[] { 0.1 });
+
+		final HullWhiteModel model = new HullWhiteModel(liborPeriodDiscretization, analyticModel, forwardCurve, discountCurve, volatilityModel, properties);
+
+		final EulerSchemeFromProcessModel process = new EulerSchemeFromProcessModel(model, new BrownianMotionFromMersenneRandomNumbers(timeDiscretization, 2, numberOfPaths, 3141));
+		return new LIBORMonteCarloSimulationFromLIBORModel(model, process);
+	}
+}
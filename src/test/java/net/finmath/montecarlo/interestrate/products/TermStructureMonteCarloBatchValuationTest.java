@@ -0,0 +1,107 @@
+package net.finmath.montecarlo.interestrate.products;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.interestrate.LIBORModelMonteCarloSimulationModel;
+import net.finmath.montecarlo.interestrate.TermStructureMonteCarloSimulationModel;
+import net.finmath.montecarlo.interestrate.products.components.NotionalFromConstant;
+import net.finmath.montecarlo.interestrate.products.indices.LIBORIndex;
+import net.finmath.stochastic.RandomVariable;
+import net.finmath.time.Schedule;
+import net.finmath.time.ScheduleGenerator;
+import net.finmath.time.businessdaycalendar.BusinessdayCalendarExcludingTARGETHolidays;
+
+/**
+ * Tests the batch valuation of products over a shared simulation against the valuation of the individual products.
+ */
+public class TermStructureMonteCarloBatchValuationTest {
+
+	@Test
+	public void testValuesAgainstIndividualValuation() throws CalculationException {
+		final LIBORModelMonteCarloSimulationModel model = SwapLegTest.createMultiCurveLIBORMarketModel(2000, 5, 0.2);
+
+		final List<TermStructureMonteCarloProduct> products = createProducts();
+		final TermStructureMonteCarloBatchValuation batchValuation = new TermStructureMonteCarloBatchValuation(products);
+
+		final RandomVariable[] values = batchValuation.getValues(0.0, model);
+
+		Assert.assertEquals(products.size(), values.length);
+		for(int productIndex = 0; productIndex < products.size(); productIndex++) {
+			final RandomVariable value = products.get(productIndex).getValue(0.0, model);
+			Assert.assertArrayEquals("Value of product " + productIndex, value.getRealizations(), values[productIndex].getRealizations(), 1E-15);
+		}
+
+		System.out.println(batchValuation);
+
+		// The requests of the valuation have been recorded
+		Assert.assertTrue(batchValuation.getForwardRateRequests().size() > 0);
+		Assert.assertTrue(batchValuation.getNumeraireRequests().size() > 0);
+	}
+
+	@Test
+	public void testValuesWithRecordedRequests() throws CalculationException {
+		final LIBORModelMonteCarloSimulationModel model = SwapLegTest.createMultiCurveLIBORMarketModel(2000, 5, 0.2);
+
+		final List<TermStructureMonteCarloProduct> products = createProducts();
+		final TermStructureMonteCarloBatchValuation batchValuation = new TermStructureMonteCarloBatchValuation(products);
+
+		// The first valuation records the requests
+		batchValuation.getValues(0.0, model);
+		final int numberOfForwardRateRequests = batchValuation.getForwardRateRequests().size();
+		final int numberOfNumeraireRequests = batchValuation.getNumeraireRequests().size();
+
+		// The second valuation (with a different seed) evaluates the recorded requests up front
+		@SuppressWarnings("deprecation")
+		final TermStructureMonteCarloSimulationModel modelWithModifiedSeed = (TermStructureMonteCarloSimulationModel)model.getCloneWithModifiedSeed(7);
+		final double[] weights = new double[] { 1.0, -1.0, 1.0, 0.5, 2.0 };
+		final RandomVariable value = batchValuation.getValue(0.0, modelWithModifiedSeed, weights);
+
+		double valueExpected = 0.0;
+		for(int productIndex = 0; productIndex < products.size(); productIndex++) {
+			valueExpected += weights[productIndex] * products.get(productIndex).getValue(0.0, modelWithModifiedSeed).getAverage();
+		}
+
+		Assert.assertEquals("Weighted value", valueExpected, value.getAverage(), 1E-12);
+		Assert.assertEquals(numberOfForwardRateRequests, batchValuation.getForwardRateRequests().size());
+		Assert.assertEquals(numberOfNumeraireRequests, batchValuation.getNumeraireRequests().size());
+	}
+
+	@Test
+	public void testValueOfWeightedPortfolio() throws CalculationException {
+		final LIBORModelMonteCarloSimulationModel model = SwapLegTest.createMultiCurveLIBORMarketModel(2000, 5, 0.2);
+
+		final List<TermStructureMonteCarloProduct> products = createProducts();
+		final double[] weights = new double[] { 1.0, -1.0, 1.0, 0.5, 2.0 };
+		final Portfolio portfolio = new Portfolio(products.toArray(new AbstractLIBORMonteCarloProduct[0]), weights);
+
+		final TermStructureMonteCarloBatchValuation batchValuation = new TermStructureMonteCarloBatchValuation(portfolio);
+
+		Assert.assertArrayEquals("Weights", weights, batchValuation.getWeights(), 0.0);
+
+		final RandomVariable valueExpected = portfolio.getValue(0.0, model);
+		final RandomVariable value = batchValuation.getValue(0.0, model);
+
+		Assert.assertArrayEquals("Value of portfolio", valueExpected.getRealizations(), value.getRealizations(), 1E-12);
+	}
+
+	private static List<TermStructureMonteCarloProduct> createProducts() {
+		final LocalDate referenceDate = LocalDate.of(2014, Month.AUGUST, 12);
+		final Schedule schedule = ScheduleGenerator.createScheduleFromConventions(referenceDate, 2, "0D", "10Y", "semiannual", "30/360", "first", "following", new BusinessdayCalendarExcludingTARGETHolidays(), -2, 0);
+		final Schedule scheduleShort = ScheduleGenerator.createScheduleFromConventions(referenceDate, 2, "0D", "5Y", "semiannual", "30/360", "first", "following", new BusinessdayCalendarExcludingTARGETHolidays(), -2, 0);
+
+		final List<TermStructureMonteCarloProduct> products = new ArrayList<>();
+		products.add(new SwapLeg(schedule, new NotionalFromConstant(1.0), new LIBORIndex(0.0, 0.5), 0.0, false));
+		products.add(new SwapLeg(schedule, new NotionalFromConstant(1.0), null, 0.05, false));
+		products.add(new SwapLeg(scheduleShort, new NotionalFromConstant(1.0), new LIBORIndex(0.0, 0.5), 0.01, true));
+		products.add(new Caplet(5.0, 0.5, 0.05));
+		products.add(new Bond(5.0));
+		return products;
+	}
+}
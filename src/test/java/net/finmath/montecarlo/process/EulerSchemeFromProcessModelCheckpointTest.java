@@ -0,0 +1,120 @@
+package net.finmath.montecarlo.process;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.BrownianMotionFromMersenneRandomNumbers;
+import net.finmath.montecarlo.assetderivativevaluation.MonteCarloAssetModel;
+import net.finmath.montecarlo.assetderivativevaluation.models.BlackScholesModel;
+import net.finmath.montecarlo.assetderivativevaluation.products.AbstractAssetMonteCarloProduct;
+import net.finmath.montecarlo.assetderivativevaluation.products.AsianOption;
+import net.finmath.montecarlo.assetderivativevaluation.products.BermudanOption;
+import net.finmath.montecarlo.automaticdifferentiation.RandomVariableDifferentiable;
+import net.finmath.montecarlo.automaticdifferentiation.backward.RandomVariableDifferentiableAADFactory;
+import net.finmath.montecarlo.process.EulerSchemeFromProcessModel.ParallelizationStrategy;
+import net.finmath.montecarlo.process.EulerSchemeFromProcessModel.Scheme;
+import net.finmath.stochastic.RandomVariable;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * Tests the checkpointing of {@link EulerSchemeFromProcessModel} for backward automatic differentiation:
+ * the gradient calculated segment-by-segment has to agree with the gradient of the full operator tree.
+ */
+@RunWith(Parameterized.class)
+public class EulerSchemeFromProcessModelCheckpointTest {
+
+	@Parameters(name="{0}")
+	public static Collection<Object[]> generateData()
+	{
+		return Arrays.asList(new Object[][] {
+			{ Scheme.EULER_FUNCTIONAL },
+			{ Scheme.EULER },
+			{ Scheme.PREDICTOR_CORRECTOR_FUNCTIONAL },
+		});
+	}
+
+	private static final double[] exerciseDates = new double[] { 1.0, 2.0, 3.0, 4.0, 5.0 };
+
+	private final Scheme scheme;
+
+	public EulerSchemeFromProcessModelCheckpointTest(final Scheme scheme) {
+		this.scheme = scheme;
+	}
+
+	@Test
+	public void testBermudanOptionWithCheckpoints() throws CalculationException {
+		final double[] sensitivities = getSensitivitiesOfBermudanOption(null, 0);
+		final double[] sensitivitiesWithCheckpoints = getSensitivitiesOfBermudanOption(null, 7);
+
+		System.out.println(scheme + " - Bermudan option value, delta, rho, vega, size of gradient:");
+		System.out.println("without checkpoints...: " + Arrays.toString(sensitivities));
+		System.out.println("with checkpoints......: " + Arrays.toString(sensitivitiesWithCheckpoints));
+
+		Assert.assertArrayEquals(sensitivities, sensitivitiesWithCheckpoints, 1E-10);
+	}
+
+	@Test
+	public void testBermudanOptionWithCheckpointsAndRetainedStates() throws CalculationException {
+		final TimeDiscretization timesOfRetainedStates = new TimeDiscretizationFromArray(exerciseDates);
+
+		final double[] sensitivities = getSensitivitiesOfBermudanOption(null, 0);
+		final double[] sensitivitiesWithCheckpoints = getSensitivitiesOfBermudanOption(timesOfRetainedStates, 3);
+
+		Assert.assertArrayEquals(sensitivities, sensitivitiesWithCheckpoints, 1E-10);
+	}
+
+	@Test
+	public void testAsianOptionWithCheckpointOnEachTimeStep() throws CalculationException {
+		final double[] sensitivities = getSensitivitiesOfAsianOption(0);
+		final double[] sensitivitiesWithCheckpoints = getSensitivitiesOfAsianOption(Integer.MAX_VALUE);
+
+		Assert.assertArrayEquals(sensitivities, sensitivitiesWithCheckpoints, 1E-10);
+	}
+
+	private double[] getSensitivitiesOfBermudanOption(final TimeDiscretization timesOfRetainedStates, final int numberOfCheckpoints) throws CalculationException {
+		final double[] notionals = new double[] { 1.0, 1.0, 1.0, 1.0, 1.0 };
+		final double[] strikes = new double[] { 1.05, 1.10, 1.15, 1.20, 1.25 };
+
+		return getSensitivities(new BermudanOption(exerciseDates, notionals, strikes), timesOfRetainedStates, numberOfCheckpoints);
+	}
+
+	private double[] getSensitivitiesOfAsianOption(final int numberOfCheckpoints) throws CalculationException {
+		return getSensitivities(new AsianOption(5.0, 1.1, new TimeDiscretizationFromArray(exerciseDates)), null, numberOfCheckpoints);
+	}
+
+	private double[] getSensitivities(final AbstractAssetMonteCarloProduct product, final TimeDiscretization timesOfRetainedStates, final int numberOfCheckpoints) throws CalculationException {
+		final RandomVariableDifferentiableAADFactory factory = new RandomVariableDifferentiableAADFactory();
+
+		final RandomVariableDifferentiable initialValue	= factory.createRandomVariable(1.0);
+		final RandomVariableDifferentiable riskFreeRate	= factory.createRandomVariable(0.05);
+		final RandomVariableDifferentiable volatility	= factory.createRandomVariable(0.30);
+
+		final BlackScholesModel model = new BlackScholesModel(initialValue, riskFreeRate, volatility, factory);
+
+		final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, 40, 0.125);
+		final EulerSchemeFromProcessModel process = new EulerSchemeFromProcessModel(model, new BrownianMotionFromMersenneRandomNumbers(timeDiscretization, 1, 10000, 3141),
+				scheme, ParallelizationStrategy.COMPONENTS, timesOfRetainedStates, numberOfCheckpoints);
+		final MonteCarloAssetModel monteCarloBlackScholesModel = new MonteCarloAssetModel(model, process);
+
+		final RandomVariable value = product.getValue(0.0, monteCarloBlackScholesModel);
+		final Map<Long, RandomVariable> gradient = process.getGradient((RandomVariableDifferentiable)value);
+
+		return new double[] {
+				value.getAverage(),
+				gradient.get(initialValue.getID()).getAverage(),
+				gradient.get(riskFreeRate.getID()).getAverage(),
+				gradient.get(volatility.getID()).getAverage(),
+				// The independent copies of the states at the checkpoints do not appear in the gradient
+				gradient.size()
+		};
+	}
+}
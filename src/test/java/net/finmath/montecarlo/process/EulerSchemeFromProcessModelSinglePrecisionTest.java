@@ -0,0 +1,102 @@
+package net.finmath.montecarlo.process;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.BrownianMotion;
+import net.finmath.montecarlo.BrownianMotionFromMersenneRandomNumbers;
+import net.finmath.montecarlo.BrownianMotionFromPhiloxRandomNumbers;
+import net.finmath.montecarlo.RandomVariableFactory;
+import net.finmath.montecarlo.RandomVariableFloatFactory;
+import net.finmath.montecarlo.RandomVariableFromArrayFactory;
+import net.finmath.montecarlo.RandomVariableFromFloatArray;
+import net.finmath.montecarlo.assetderivativevaluation.MonteCarloAssetModel;
+import net.finmath.montecarlo.assetderivativevaluation.models.BlackScholesModel;
+import net.finmath.montecarlo.assetderivativevaluation.products.AsianOption;
+import net.finmath.montecarlo.assetderivativevaluation.products.EuropeanOption;
+import net.finmath.montecarlo.process.EulerSchemeFromProcessModel.ParallelizationStrategy;
+import net.finmath.stochastic.RandomVariable;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * Tests a simulation using single precision (float) random variables for the Brownian increments, the process states and the products:
+ * the simulation has to stay in single precision and the values have to agree with the double precision simulation within a small tolerance.
+ */
+@RunWith(Parameterized.class)
+public class EulerSchemeFromProcessModelSinglePrecisionTest {
+
+	@Parameters(name="{0}-{1}")
+	public static Collection<Object[]> generateData()
+	{
+		return Arrays.asList(new Object[][] {
+			{ ParallelizationStrategy.COMPONENTS, "Mersenne" },
+			{ ParallelizationStrategy.PATHS, "Mersenne" },
+			{ ParallelizationStrategy.PATHS, "Philox" },
+		});
+	}
+
+	private static final int numberOfPaths = 100000;
+	private static final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, 40, 0.125);
+
+	private final ParallelizationStrategy parallelizationStrategy;
+	private final String randomNumberGenerator;
+
+	public EulerSchemeFromProcessModelSinglePrecisionTest(final ParallelizationStrategy parallelizationStrategy, final String randomNumberGenerator) {
+		this.parallelizationStrategy = parallelizationStrategy;
+		this.randomNumberGenerator = randomNumberGenerator;
+	}
+
+	@Test
+	public void testSinglePrecisionAgainstDoublePrecision() throws CalculationException {
+		final MonteCarloAssetModel modelDouble = getMonteCarloBlackScholesModel(new RandomVariableFromArrayFactory());
+		final MonteCarloAssetModel modelFloat = getMonteCarloBlackScholesModel(new RandomVariableFloatFactory());
+
+		// The simulation remains in single precision
+		Assert.assertTrue("Brownian increment", modelFloat.getProcess().getStochasticDriver().getIncrement(3, 0) instanceof RandomVariableFromFloatArray);
+		Assert.assertTrue("Process", modelFloat.getAssetValue(timeDiscretization.getNumberOfTimeSteps(), 0) instanceof RandomVariableFromFloatArray);
+
+		final RandomVariable assetDouble = modelDouble.getAssetValue(5.0, 0);
+		final RandomVariable assetFloat = modelFloat.getAssetValue(5.0, 0);
+
+		final double[] valuesDouble = new double[] {
+				assetDouble.getAverage(),
+				assetDouble.getStandardDeviation(),
+				new EuropeanOption(5.0, 1.1).getValue(modelDouble),
+				new AsianOption(5.0, 1.1, new TimeDiscretizationFromArray(1.0, 2.0, 3.0, 4.0, 5.0)).getValue(modelDouble)
+		};
+		final double[] valuesFloat = new double[] {
+				assetFloat.getAverage(),
+				assetFloat.getStandardDeviation(),
+				new EuropeanOption(5.0, 1.1).getValue(modelFloat),
+				new AsianOption(5.0, 1.1, new TimeDiscretizationFromArray(1.0, 2.0, 3.0, 4.0, 5.0)).getValue(modelFloat)
+		};
+
+		double maxRelativeError = 0.0;
+		for(int i=0; i<valuesDouble.length; i++) {
+			maxRelativeError = Math.max(maxRelativeError, Math.abs(valuesFloat[i] - valuesDouble[i]) / Math.abs(valuesDouble[i]));
+		}
+		System.out.println(parallelizationStrategy + "/" + randomNumberGenerator + " double: " + Arrays.toString(valuesDouble));
+		System.out.println(parallelizationStrategy + "/" + randomNumberGenerator + " float.: " + Arrays.toString(valuesFloat) + " (max. relative error " + maxRelativeError + ")");
+
+		Assert.assertEquals("Max. relative error", 0.0, maxRelativeError, 1E-5);
+	}
+
+	private MonteCarloAssetModel getMonteCarloBlackScholesModel(final RandomVariableFactory randomVariableFactory) {
+		final BlackScholesModel model = new BlackScholesModel(1.0, 0.05, 0.30, randomVariableFactory);
+
+		final BrownianMotion brownianMotion = randomNumberGenerator.equals("Philox") ?
+				new BrownianMotionFromPhiloxRandomNumbers(timeDiscretization, 1, numberOfPaths, 3141, randomVariableFactory)
+				: new BrownianMotionFromMersenneRandomNumbers(timeDiscretization, 1, numberOfPaths, 3141, randomVariableFactory);
+
+		final EulerSchemeFromProcessModel process = new EulerSchemeFromProcessModel(model, brownianMotion, EulerSchemeFromProcessModel.Scheme.EULER_FUNCTIONAL, parallelizationStrategy);
+		return new MonteCarloAssetModel(model, process);
+	}
+}
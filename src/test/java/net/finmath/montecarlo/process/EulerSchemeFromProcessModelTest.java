@@ -0,0 +1,218 @@
+package net.finmath.montecarlo.process;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.marketdata.model.AnalyticModel;
+import net.finmath.marketdata.model.AnalyticModelFromCurvesAndVols;
+import net.finmath.marketdata.model.curves.Curve;
+import net.finmath.marketdata.model.curves.ForwardCurve;
+import net.finmath.marketdata.model.curves.ForwardCurveInterpolation;
+import net.finmath.montecarlo.BrownianMotion;
+import net.finmath.montecarlo.BrownianMotionFromMersenneRandomNumbers;
+import net.finmath.montecarlo.BrownianMotionFromPhiloxRandomNumbers;
+import net.finmath.montecarlo.BrownianMotionStreamingFromMersenneRandomNumbers;
+import net.finmath.montecarlo.RandomVariableFromArrayFactory;
+import net.finmath.montecarlo.assetderivativevaluation.models.BlackScholesModel;
+import net.finmath.montecarlo.assetderivativevaluation.models.MultiAssetBlackScholesModel;
+import net.finmath.montecarlo.automaticdifferentiation.RandomVariableDifferentiable;
+import net.finmath.montecarlo.automaticdifferentiation.backward.RandomVariableDifferentiableAADFactory;
+import net.finmath.montecarlo.interestrate.models.LIBORMarketModelFromCovarianceModel;
+import net.finmath.montecarlo.interestrate.models.covariance.LIBORCovarianceModelExponentialForm5Param;
+import net.finmath.montecarlo.model.ProcessModel;
+import net.finmath.montecarlo.process.EulerSchemeFromProcessModel.ParallelizationStrategy;
+import net.finmath.montecarlo.process.EulerSchemeFromProcessModel.Scheme;
+import net.finmath.stochastic.RandomVariable;
+import net.finmath.stochastic.Scalar;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * Tests the parallelization strategies of {@link EulerSchemeFromProcessModel}.
+ */
+@RunWith(Parameterized.class)
+public class EulerSchemeFromProcessModelTest {
+
+	@Parameters(name="{0}")
+	public static Collection<Object[]> generateData()
+	{
+		return Arrays.asList(new Object[][] {
+			{ Scheme.EULER },
+			{ Scheme.EULER_FUNCTIONAL },
+			{ Scheme.PREDICTOR_CORRECTOR },
+			{ Scheme.PREDICTOR_CORRECTOR_FUNCTIONAL },
+		});
+	}
+
+	private final int		numberOfPaths		= 10007;
+	private final int		numberOfTimeSteps	= 20;
+	private final double	deltaT				= 0.25;
+	private final int		seed				= 3141;
+
+	private final Scheme scheme;
+
+	public EulerSchemeFromProcessModelTest(final Scheme scheme) {
+		super();
+		this.scheme = scheme;
+	}
+
+	@Test
+	public void testPathChunksOneFactor() throws CalculationException {
+		final ProcessModel model = new BlackScholesModel(100.0, 0.02, 0.30);
+
+		assertProcessesAgree(model, 1);
+	}
+
+	@Test
+	public void testPathChunksMultiFactor() throws CalculationException {
+		final double[] initialValues = new double[] { 100.0, 50.0, 10.0 };
+		final double[] volatilities = new double[] { 0.3, 0.2, 0.4 };
+		final double[][] correlations = new double[][] {
+			{ 1.0, 0.5, 0.2 },
+			{ 0.5, 1.0, 0.3 },
+			{ 0.2, 0.3, 1.0 }
+		};
+		final ProcessModel model = new MultiAssetBlackScholesModel(initialValues, 0.02, volatilities, correlations);
+
+		assertProcessesAgree(model, 3);
+	}
+
+	@Test
+	public void testPathChunksCounterBasedBrownianMotion() throws CalculationException {
+		final ProcessModel model = new BlackScholesModel(100.0, 0.02, 0.30);
+
+		final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, numberOfTimeSteps, deltaT);
+		final BrownianMotion brownianMotion = new BrownianMotionFromPhiloxRandomNumbers(timeDiscretization, 1, numberOfPaths, seed);
+
+		assertProcessesAgree(model, brownianMotion);
+	}
+
+	@Test
+	public void testPathChunksDifferentiableParameters() throws CalculationException {
+		// Only the drift and the factor loadings depend on a differentiable parameter, the initial state is not differentiable
+		final RandomVariableDifferentiable volatility = new RandomVariableDifferentiableAADFactory().createRandomVariable(0.30);
+		final ProcessModel model = new BlackScholesModel(new Scalar(100.0), new Scalar(0.02), volatility, new RandomVariableFromArrayFactory());
+
+		final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, numberOfTimeSteps, deltaT);
+		final BrownianMotion brownianMotion = new BrownianMotionFromMersenneRandomNumbers(timeDiscretization, 1, numberOfPaths, seed);
+
+		final MonteCarloProcess processComponents = new EulerSchemeFromProcessModel(model, brownianMotion, scheme, ParallelizationStrategy.COMPONENTS);
+		final MonteCarloProcess processPaths = new EulerSchemeFromProcessModel(model, brownianMotion, scheme, ParallelizationStrategy.PATHS);
+
+		// The path chunking falls back to the components, such that the dependency on the volatility is retained
+		final RandomVariable valueComponents = processComponents.getProcessValue(numberOfTimeSteps, 0).average();
+		final RandomVariable valuePaths = processPaths.getProcessValue(numberOfTimeSteps, 0).average();
+		Assert.assertTrue("Differentiable", valuePaths instanceof RandomVariableDifferentiable);
+
+		final RandomVariable derivativeComponents = ((RandomVariableDifferentiable)valueComponents).getGradient().get(volatility.getID());
+		final RandomVariable derivativePaths = ((RandomVariableDifferentiable)valuePaths).getGradient().get(volatility.getID());
+		Assert.assertNotNull("Derivative with respect to the volatility", derivativePaths);
+		Assert.assertEquals("Derivative with respect to the volatility", derivativeComponents.getAverage(), derivativePaths.getAverage(), 1E-12 * Math.abs(derivativeComponents.getAverage()));
+	}
+
+	@Test
+	public void testRetainedStates() throws CalculationException {
+		final ProcessModel model = new BlackScholesModel(100.0, 0.02, 0.30);
+
+		final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, numberOfTimeSteps, deltaT);
+		final BrownianMotion brownianMotion = new BrownianMotionStreamingFromMersenneRandomNumbers(timeDiscretization, 1, numberOfPaths, seed);
+
+		// Retain 1.0 (on the grid) and 2.6 (between 2.5 and 2.75)
+		final TimeDiscretization timesOfRetainedStates = new TimeDiscretizationFromArray(1.0, 2.6);
+
+		for(final ParallelizationStrategy parallelizationStrategy : ParallelizationStrategy.values()) {
+			final MonteCarloProcess processFull = new EulerSchemeFromProcessModel(model, brownianMotion, scheme, parallelizationStrategy);
+			final MonteCarloProcess processRetained = new EulerSchemeFromProcessModel(model, brownianMotion, scheme, parallelizationStrategy, timesOfRetainedStates);
+
+			for(int timeIndex = 0; timeIndex <= numberOfTimeSteps; timeIndex++) {
+				final double time = timeDiscretization.getTime(timeIndex);
+				final boolean isRetained = timeIndex == 0 || time == 1.0 || time == 2.5 || time == 2.75;
+				if(isRetained) {
+					final RandomVariable valueFull = processFull.getProcessValue(timeIndex, 0);
+					final RandomVariable valueRetained = processRetained.getProcessValue(timeIndex, 0);
+					Assert.assertEquals("Maximum deviation", 0.0, valueFull.sub(valueRetained).abs().getMax(), 1E-12 * valueFull.abs().getMax());
+				}
+				else {
+					try {
+						processRetained.getProcessValue(timeIndex, 0);
+						Assert.fail("Expected exception for state which has not been retained at time index " + timeIndex);
+					}
+					catch(final IllegalArgumentException e) {
+						// Expected
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testRetainedStatesRequiredByModel() throws CalculationException {
+		final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, 40, 0.125);
+		final TimeDiscretization liborPeriodDiscretization = new TimeDiscretizationFromArray(0.0, 10, 0.5);
+
+		final ForwardCurve forwardCurve = ForwardCurveInterpolation.createForwardCurveFromForwards(
+				"forwardCurve", new double[] {0.5 , 1.0 , 2.0 , 5.0}, new double[] {0.02, 0.025, 0.03, 0.035}, 0.5);
+		final AnalyticModel analyticModel = new AnalyticModelFromCurvesAndVols(new Curve[] { forwardCurve });
+		final LIBORCovarianceModelExponentialForm5Param covarianceModel = new LIBORCovarianceModelExponentialForm5Param(timeDiscretization, liborPeriodDiscretization, 2, new double[] { 0.20, 0.50, 0.10, 0.05, 0.10 });
+
+		final BrownianMotion brownianMotion = new BrownianMotionStreamingFromMersenneRandomNumbers(timeDiscretization, 2, numberOfPaths, seed);
+
+		// The numeraire at 3.125 reads the states at the tenor times before 3.125, which are not among the retained times
+		final TimeDiscretization timesOfRetainedStates = new TimeDiscretizationFromArray(3.125);
+
+		for(final String measure : new String[] { "SPOT", "TERMINAL" }) {
+			final Map<String, Object> properties = new HashMap<>();
+			properties.put("measure", measure);
+			final LIBORMarketModelFromCovarianceModel model = LIBORMarketModelFromCovarianceModel.of(liborPeriodDiscretization, analyticModel, forwardCurve, null,
+					new RandomVariableFromArrayFactory(), covarianceModel, null, properties);
+
+			final MonteCarloProcess processFull = new EulerSchemeFromProcessModel(model, brownianMotion, scheme, ParallelizationStrategy.COMPONENTS);
+			final MonteCarloProcess processRetained = new EulerSchemeFromProcessModel(model, brownianMotion, scheme, ParallelizationStrategy.COMPONENTS, timesOfRetainedStates);
+
+			final RandomVariable numeraireFull = model.getNumeraire(processFull, 3.125);
+			final RandomVariable numeraireRetained = model.getNumeraire(processRetained, 3.125);
+			Assert.assertEquals("Numeraire (" + measure + ")", 0.0, numeraireFull.sub(numeraireRetained).abs().getMax(), 1E-12 * numeraireFull.abs().getMax());
+
+			// States after the last retained time are not retained
+			try {
+				processRetained.getProcessValue(timeDiscretization.getTimeIndex(4.0), 0);
+				Assert.fail("Expected exception for state which has not been retained");
+			}
+			catch(final IllegalArgumentException e) {
+				// Expected
+			}
+		}
+	}
+
+	private void assertProcessesAgree(final ProcessModel model, final int numberOfFactors) throws CalculationException {
+		final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, numberOfTimeSteps, deltaT);
+		final BrownianMotion brownianMotion = new BrownianMotionFromMersenneRandomNumbers(timeDiscretization, numberOfFactors, numberOfPaths, seed);
+
+		assertProcessesAgree(model, brownianMotion);
+	}
+
+	private void assertProcessesAgree(final ProcessModel model, final BrownianMotion brownianMotion) throws CalculationException {
+		final MonteCarloProcess processComponents = new EulerSchemeFromProcessModel(model, brownianMotion, scheme, ParallelizationStrategy.COMPONENTS);
+		final MonteCarloProcess processPaths = new EulerSchemeFromProcessModel(model, brownianMotion, scheme, ParallelizationStrategy.PATHS);
+
+		for(int timeIndex = 0; timeIndex <= numberOfTimeSteps; timeIndex++) {
+			for(int componentIndex = 0; componentIndex < model.getNumberOfComponents(); componentIndex++) {
+				final RandomVariable valueComponents = processComponents.getProcessValue(timeIndex, componentIndex);
+				final RandomVariable valuePaths = processPaths.getProcessValue(timeIndex, componentIndex);
+
+				Assert.assertEquals("Number of paths", valueComponents.size(), valuePaths.size());
+				Assert.assertEquals("Maximum deviation", 0.0, valueComponents.sub(valuePaths).abs().getMax(), 1E-12 * valueComponents.abs().getMax());
+			}
+			Assert.assertEquals("Monte-Carlo weights", processComponents.getMonteCarloWeights(timeIndex).getAverage(), processPaths.getMonteCarloWeights(timeIndex).getAverage(), 0.0);
+		}
+	}
+}
@@ -6,6 +6,8 @@
 
 package net.finmath.optimizer;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -29,6 +31,39 @@ public class OptimizerFactoryTest {
 		this.testOptimizerWithRosenbrockFunction(optimizerFactory);
 	}
 
+	@Test
+	public void testRosenbrockFunctionWithLevenbergMarquardUsingDerivatives() throws SolverException {
+
+		final AtomicInteger numberOfDerivativeCalculations = new AtomicInteger();
+		final Optimizer.ObjectiveFunction objectiveFunction = new Optimizer.ObjectiveFunctionWithDerivatives() {
+			@Override
+			public void setValues(final double[] parameters, final double[] values) {
+				values[0] = 10.0 * (parameters[1] - parameters[0]*parameters[0]);
+				values[1] = 1.0 - parameters[0];
+			}
+
+			@Override
+			public void setDerivatives(final double[] parameters, final double[][] derivatives) {
+				numberOfDerivativeCalculations.incrementAndGet();
+				derivatives[0][0] = -20.0 * parameters[0];
+				derivatives[0][1] = -1.0;
+				derivatives[1][0] = 10.0;
+				derivatives[1][1] = 0.0;
+			}
+		};
+
+		final OptimizerFactory optimizerFactory = new OptimizerFactoryLevenbergMarquardt(200 /* maxIterations */, 2 /* maxThreads */);
+		final Optimizer optimizer = optimizerFactory.getOptimizer(objectiveFunction, new double[] { 0.5, 0.5 } /* initialParameters */, new double[] { 0.0, 0.0 } /* targetValues */);
+
+		optimizer.run();
+
+		final double[] bestParameters = optimizer.getBestFitParameters();
+
+		Assert.assertTrue("Derivatives used", numberOfDerivativeCalculations.get() > 0);
+		Assert.assertEquals(1.0, bestParameters[0], 1E-10);
+		Assert.assertEquals(1.0, bestParameters[1], 1E-10);
+	}
+
 	public void testOptimizerWithRosenbrockFunction(final OptimizerFactory optimizerFactory) throws SolverException {
 		final Optimizer.ObjectiveFunction objectiveFunction = new Optimizer.ObjectiveFunction() {
 			@Override
@@ -0,0 +1,33 @@
+package net.finmath.randomnumbers;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the {@link HaltonSequence} and its direct (indexed) access.
+ */
+public class HaltonSequenceTest {
+
+	@Test
+	public void testBlocksAgainstSequence() {
+		final HaltonSequence haltonSequence = new HaltonSequence(new int[] { 2, 3, 5, 7 });
+		final int dimension = haltonSequence.getDimension();
+		final int numberOfSamples = 1000;
+
+		final double[] samples = new double[numberOfSamples * dimension];
+		for(int from = 0; from < numberOfSamples; from += 37) {
+			haltonSequence.getSamples(from, Math.min(37, numberOfSamples-from), samples, from * dimension);
+		}
+
+		for(int i = 0; i < numberOfSamples; i++) {
+			final double[] sample = haltonSequence.getNext();
+			for(int d = 0; d < dimension; d++) {
+				Assert.assertEquals(sample[d], samples[i * dimension + d], 0.0);
+			}
+		}
+
+		// First elements of the sequence
+		Assert.assertArrayEquals(new double[] { 0.5, 1.0/3.0, 0.2, 1.0/7.0 }, haltonSequence.getSample(0), 1E-15);
+		Assert.assertArrayEquals(new double[] { 0.25, 2.0/3.0, 0.4, 2.0/7.0 }, haltonSequence.getSample(1), 1E-15);
+	}
+}
@@ -0,0 +1,68 @@
+package net.finmath.randomnumbers;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the counter-based random number generator {@link Philox4x32}.
+ */
+public class Philox4x32Test {
+
+	/**
+	 * Known answer tests of the reference implementation (Random123).
+	 */
+	@Test
+	public void testKnownAnswers() {
+		final int[] bits = new int[4];
+
+		new Philox4x32(0L).getBits(0L, 0, 0, bits);
+		Assert.assertArrayEquals(new int[] { 0x6627e8d5, 0xe169c58d, 0xbc57ac4c, 0x9b00dbd8 }, bits);
+
+		new Philox4x32(-1L).getBits(-1L, -1, -1, bits);
+		Assert.assertArrayEquals(new int[] { 0x408f276d, 0x41c83b0e, 0xa20bc7c6, 0x6d5451fd }, bits);
+
+		new Philox4x32(0x299f31d0a4093822L).getBits(0x85a308d3243f6a88L, 0x13198a2e, 0x03707344, bits);
+		Assert.assertArrayEquals(new int[] { 0xd16cfe09, 0x94fdcceb, 0x5001e420, 0x24126ea1 }, bits);
+	}
+
+	@Test
+	public void testBlocksAreIndependentOfSplitting() {
+		final Philox4x32 generator = new Philox4x32(3141);
+
+		final int numberOfValues = 1001;
+		final double[] valuesInOneBlock = new double[numberOfValues];
+		generator.getUniforms(0, 7, 2, valuesInOneBlock, 0, numberOfValues);
+
+		// Generate the same values in blocks of odd size
+		final double[] valuesInBlocks = new double[numberOfValues];
+		for(int from = 0; from < numberOfValues; from += 37) {
+			generator.getUniforms(from, 7, 2, valuesInBlocks, from, Math.min(37, numberOfValues-from));
+		}
+		Assert.assertArrayEquals(valuesInOneBlock, valuesInBlocks, 0.0);
+
+		// Random access
+		for(int i = 0; i < numberOfValues; i++) {
+			Assert.assertEquals(valuesInOneBlock[i], generator.getUniform(i/2, 7, 2, i%2), 0.0);
+		}
+	}
+
+	@Test
+	public void testUniformDistribution() {
+		final Philox4x32 generator = new Philox4x32(3141);
+
+		final int numberOfValues = 1000000;
+		double sum = 0.0;
+		double sumOfSquares = 0.0;
+		for(int i = 0; i < numberOfValues; i++) {
+			final double value = generator.nextDouble();
+			Assert.assertTrue("Value in (0,1)", value > 0.0 && value < 1.0);
+			sum += value;
+			sumOfSquares += value * value;
+		}
+		final double mean = sum / numberOfValues;
+		final double variance = sumOfSquares / numberOfValues - mean * mean;
+
+		Assert.assertEquals("Mean", 0.5, mean, 3.0 * Math.sqrt(1.0/12.0 / numberOfValues));
+		Assert.assertEquals("Variance", 1.0/12.0, variance, 1E-3);
+	}
+}
@@ -0,0 +1,97 @@
+package net.finmath.randomnumbers;
+
+import org.apache.commons.math3.random.SobolSequenceGenerator;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the {@link SobolSequence} and its direct (indexed) access.
+ */
+public class SobolSequenceTest {
+
+	/**
+	 * Compares the sequence with the implementation of commons-math.
+	 */
+	@Test
+	public void testAgainstCommonsMath() {
+		final int dimension = 1000;
+		final SobolSequence sobolSequence = new SobolSequence(dimension);
+		final SobolSequenceGenerator generator = new SobolSequenceGenerator(dimension);
+
+		for(int i = 0; i < 2000; i++) {
+			Assert.assertArrayEquals("Sample " + i, generator.nextVector(), sobolSequence.getNext(), 0.0);
+		}
+
+		// Random access
+		for(final int index : new int[] { 0, 1, 7, 1023, 1024, 123457, 1 << 20 }) {
+			Assert.assertArrayEquals("Sample " + index, generator.skipTo(index), sobolSequence.getSample(index), 0.0);
+		}
+	}
+
+	@Test
+	public void testBlocksAreIndependentOfSplitting() {
+		for(final SobolSequence sobolSequence : new SobolSequence[] { new SobolSequence(17), new SobolSequence(17, 3141) }) {
+			final int dimension = sobolSequence.getDimension();
+			final long fromIndex = 12345;
+			final int numberOfSamples = 1001;
+
+			final double[] samplesInOneBlock = new double[numberOfSamples * dimension];
+			sobolSequence.getSamples(fromIndex, numberOfSamples, samplesInOneBlock, 0);
+
+			// Generate the same samples in blocks of odd size
+			final double[] samplesInBlocks = new double[numberOfSamples * dimension];
+			for(int from = 0; from < numberOfSamples; from += 37) {
+				sobolSequence.getSamples(fromIndex + from, Math.min(37, numberOfSamples-from), samplesInBlocks, from * dimension);
+			}
+			Assert.assertArrayEquals(samplesInOneBlock, samplesInBlocks, 0.0);
+
+			// Random access
+			for(int i = 0; i < numberOfSamples; i++) {
+				final double[] sample = sobolSequence.getSample(fromIndex + i);
+				for(int d = 0; d < dimension; d++) {
+					Assert.assertEquals(samplesInOneBlock[i * dimension + d], sample[d], 0.0);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testScrambledSequence() {
+		final int dimension = 10;
+		final int numberOfSamples = 1 << 14;
+
+		final SobolSequence sobolSequence = new SobolSequence(dimension, 3141);
+		Assert.assertArrayEquals("Reproducible", sobolSequence.getSample(4711), new SobolSequence(dimension, 3141).getSample(4711), 0.0);
+
+		/*
+		 * Integrate f(x) = prod_d (1 + (x_d - 0.5)) with exact integral 1.
+		 * Each one-dimensional projection of a scrambled (0,m,1)-net remains stratified: each of the 2^m intervals contains one point.
+		 */
+		final double[] samples = new double[numberOfSamples * dimension];
+		sobolSequence.getSamples(0, numberOfSamples, samples, 0);
+
+		double integral = 0.0;
+		for(int i = 0; i < numberOfSamples; i++) {
+			double value = 1.0;
+			for(int d = 0; d < dimension; d++) {
+				final double x = samples[i * dimension + d];
+				Assert.assertTrue("Value in (0,1)", x > 0.0 && x < 1.0);
+				value *= 1.0 + (x - 0.5);
+			}
+			integral += value;
+		}
+		integral /= numberOfSamples;
+
+		Assert.assertEquals("Integral", 1.0, integral, 1E-3);
+
+		for(int d = 0; d < dimension; d++) {
+			final boolean[] isIntervalOccupied = new boolean[numberOfSamples];
+			for(int i = 0; i < numberOfSamples; i++) {
+				isIntervalOccupied[(int)(samples[i * dimension + d] * numberOfSamples)] = true;
+			}
+			for(int k = 0; k < numberOfSamples; k++) {
+				Assert.assertTrue("Stratification of dimension " + d, isIntervalOccupied[k]);
+			}
+		}
+	}
+}
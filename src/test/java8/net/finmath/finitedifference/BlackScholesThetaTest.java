@@ -10,6 +10,7 @@ import net.finmath.finitedifference.models.FiniteDifference1DModel;
 import net.finmath.finitedifference.products.FDMEuropeanCallOption;
 import net.finmath.finitedifference.products.FDMEuropeanPutOption;
 import net.finmath.finitedifference.products.FiniteDifference1DProduct;
+import net.finmath.finitedifference.solvers.FDMThetaMethod;
 import net.finmath.functions.AnalyticFormulas;
 
 public class BlackScholesThetaTest {
@@ -87,5 +88,90 @@ public class BlackScholesThetaTest {
 		Assert.assertArrayEquals(putOptionValue, analyticalPutOptionValue, 1e-2);
 	}
 
+	@Test
+	public void testEuropeanCallOptionTridiagonalSolver() throws AssertionError {
+		final double riskFreeRate = 0.06;
+		final double volatility = 0.4;
+		final double optionMaturity = 1;
+		final double optionStrike = 50;
+
+		final int numTimesteps = 35;
+		final int numSpacesteps = 120;
+		final int numStandardDeviations = 5;
+		final double initialValue = 50;
+		final double theta = 0.5;
+
+		final FiniteDifference1DModel modelUsingLU = new FDMBlackScholesModel(
+				numTimesteps,
+				numSpacesteps,
+				numStandardDeviations,
+				optionStrike, // center of the grid.
+				theta,
+				initialValue,
+				riskFreeRate,
+				volatility,
+				FDMThetaMethod.LinearSystemSolver.LU_DECOMPOSITION);
+		final FiniteDifference1DModel modelUsingTridiagonal = new FDMBlackScholesModel(
+				numTimesteps,
+				numSpacesteps,
+				numStandardDeviations,
+				optionStrike, // center of the grid.
+				theta,
+				initialValue,
+				riskFreeRate,
+				volatility,
+				FDMThetaMethod.LinearSystemSolver.TRIDIAGONAL);
+		final FiniteDifference1DProduct callOption = new FDMEuropeanCallOption(optionMaturity, optionStrike);
+
+		final double[][] valueUsingLU = callOption.getValue(0.0, modelUsingLU);
+		final double[][] valueUsingTridiagonal = callOption.getValue(0.0, modelUsingTridiagonal);
+
+		final double[] initialStockPriceForCall = valueUsingTridiagonal[0];
+		final double[] callOptionValue = valueUsingTridiagonal[1];
+		final double[] analyticalCallOptionValue = new double[callOptionValue.length];
+		for (int i =0; i < analyticalCallOptionValue.length; i++) {
+			analyticalCallOptionValue[i] = AnalyticFormulas.blackScholesOptionValue(initialStockPriceForCall[i], riskFreeRate,
+					volatility, optionMaturity, optionStrike, true);
+		}
 
+		Assert.assertArrayEquals(valueUsingLU[0], valueUsingTridiagonal[0], 0.0);
+		Assert.assertArrayEquals(valueUsingLU[1], valueUsingTridiagonal[1], 1e-10);
+		Assert.assertArrayEquals(callOptionValue, analyticalCallOptionValue, 1e-2);
+	}
+
+	@Test
+	public void testEuropeanCallOptionTridiagonalSolverLargeGrid() throws AssertionError {
+		final double riskFreeRate = 0.06;
+		final double volatility = 0.4;
+		final double optionMaturity = 1;
+		final double optionStrike = 50;
+
+		final int numTimesteps = 200;
+		final int numSpacesteps = 20000;
+		final int numStandardDeviations = 5;
+		final double initialValue = 50;
+		final double theta = 0.5;
+
+		final FiniteDifference1DModel model = new FDMBlackScholesModel(
+				numTimesteps,
+				numSpacesteps,
+				numStandardDeviations,
+				optionStrike, // center of the grid.
+				theta,
+				initialValue,
+				riskFreeRate,
+				volatility,
+				FDMThetaMethod.LinearSystemSolver.TRIDIAGONAL);
+		final FiniteDifference1DProduct callOption = new FDMEuropeanCallOption(optionMaturity, optionStrike);
+
+		final double[][] valueCallFDM = callOption.getValue(0.0, model);
+		final double[] initialStockPriceForCall = valueCallFDM[0];
+		final double[] callOptionValue = valueCallFDM[1];
+		final double[] analyticalCallOptionValue = new double[callOptionValue.length];
+		for (int i =0; i < analyticalCallOptionValue.length; i++) {
+			analyticalCallOptionValue[i] = AnalyticFormulas.blackScholesOptionValue(initialStockPriceForCall[i], riskFreeRate,
+					volatility, optionMaturity, optionStrike, true);
+		}
+		Assert.assertArrayEquals(callOptionValue, analyticalCallOptionValue, 1e-2);
+	}
 }
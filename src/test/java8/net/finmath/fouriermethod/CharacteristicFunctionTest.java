@@ -0,0 +1,103 @@
+
+package net.finmath.fouriermethod;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.apache.commons.math3.complex.Complex;
+import org.apache.commons.math3.transform.DftNormalization;
+import org.apache.commons.math3.transform.FastFourierTransformer;
+import org.apache.commons.math3.transform.TransformType;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import net.finmath.fouriermethod.models.BatesModel;
+import net.finmath.fouriermethod.models.BlackScholesModel;
+import net.finmath.fouriermethod.models.CharacteristicFunctionModel;
+import net.finmath.fouriermethod.models.HestonModel;
+import net.finmath.fouriermethod.models.MertonModel;
+import net.finmath.fouriermethod.models.VarianceGammaModel;
+
+/**
+ * Tests the bulk evaluation of the characteristic functions on primitive arrays against the evaluation on {@link Complex}
+ * and the {@link FastFourierTransform} against the transform of commons-math.
+ */
+@RunWith(Parameterized.class)
+public class CharacteristicFunctionTest {
+
+	@Parameters(name="{0}")
+	public static Collection<Object[]> generateData()
+	{
+		return Arrays.asList(new Object[][] {
+			{ "Black-Scholes", new BlackScholesModel(100.0, 0.05, 0.25) },
+			{ "Heston", new HestonModel(100.0, 0.05, 0.25, 0.04, 1.5, 0.6, -0.7) },
+			{ "Merton", new MertonModel(100.0, 0.05, 0.25, 0.4, -0.1, 0.2) },
+			{ "Variance Gamma", new VarianceGammaModel(100.0, 0.04, 0.04, 0.25, -0.3, 0.05) },
+			{ "Bates (default bulk evaluation)", new BatesModel(100.0, 0.05, 0.25, 0.06, 1.5, 0.6, -0.7, 0.4, 0.0, -0.1, 0.2) },
+		});
+	}
+
+	private final CharacteristicFunctionModel model;
+
+	public CharacteristicFunctionTest(final String name, final CharacteristicFunctionModel model) {
+		super();
+		this.model = model;
+	}
+
+	@Test
+	public void testBulkEvaluation() throws Exception {
+		final int numberOfArguments = 4096;
+
+		for(final double maturity : new double[] { 0.1, 1.0, 10.0 }) {
+			final CharacteristicFunction characteristicFunction = model.apply(maturity);
+
+			// The arguments used by the Carr-Madan method (z-i) plus some arguments off the line of integration
+			final double[] arguments = new double[2*numberOfArguments];
+			for(int k = 0; k < numberOfArguments; k++) {
+				arguments[2*k]		= 0.1 * k - (k % 3 == 0 ? 10.0 : 0.0);
+				arguments[2*k+1]	= k % 2 == 0 ? -0.5 : -1.5 + 0.001 * k;
+			}
+
+			final double[] values = new double[2*numberOfArguments];
+			characteristicFunction.apply(arguments, values);
+
+			for(int k = 0; k < numberOfArguments; k++) {
+				final Complex expected = characteristicFunction.apply(new Complex(arguments[2*k], arguments[2*k+1]));
+				final double tolerance = 1E-12 * Math.max(expected.abs(), 1E-10);
+				Assert.assertEquals("Real part for argument " + k, expected.getReal(), values[2*k], tolerance);
+				Assert.assertEquals("Imaginary part for argument " + k, expected.getImaginary(), values[2*k+1], tolerance);
+			}
+		}
+	}
+
+	@Test
+	public void testFastFourierTransform() {
+		final int numberOfPoints = 4096;
+
+		final double[] data = new double[2*numberOfPoints];
+		final Complex[] reference = new Complex[numberOfPoints];
+		for(int k = 0; k < numberOfPoints; k++) {
+			data[2*k]		= Math.exp(-0.001 * k) * Math.cos(0.3 * k);
+			data[2*k+1]	= Math.sin(0.01 * k * k);
+			reference[k] = new Complex(data[2*k], data[2*k+1]);
+		}
+
+		final Complex[] transformed = new FastFourierTransformer(DftNormalization.STANDARD).transform(reference, TransformType.FORWARD);
+
+		final FastFourierTransform fastFourierTransform = new FastFourierTransform(numberOfPoints);
+		fastFourierTransform.transform(data);
+		for(int k = 0; k < numberOfPoints; k++) {
+			Assert.assertEquals("Real part", transformed[k].getReal(), data[2*k], 1E-10);
+			Assert.assertEquals("Imaginary part", transformed[k].getImaginary(), data[2*k+1], 1E-10);
+		}
+
+		fastFourierTransform.inverseTransform(data);
+		for(int k = 0; k < numberOfPoints; k++) {
+			Assert.assertEquals("Real part of inverse", reference[k].getReal(), data[2*k], 1E-12);
+			Assert.assertEquals("Imaginary part of inverse", reference[k].getImaginary(), data[2*k+1], 1E-12);
+		}
+	}
+}
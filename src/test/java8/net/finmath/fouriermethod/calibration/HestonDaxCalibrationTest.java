@@ -2,6 +2,12 @@ package net.finmath.fouriermethod.calibration;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -9,6 +15,8 @@ import org.junit.Test;
 import net.finmath.exception.CalculationException;
 import net.finmath.fouriermethod.calibration.CalibratedModel.OptimizationResult;
 import net.finmath.fouriermethod.calibration.models.CalibratableHestonModel;
+import net.finmath.fouriermethod.models.CharacteristicFunctionModel;
+import net.finmath.fouriermethod.products.smile.EuropeanOptionSmile;
 import net.finmath.fouriermethod.products.smile.EuropeanOptionSmileByCarrMadan;
 import net.finmath.marketdata.model.curves.CurveInterpolation.ExtrapolationMethod;
 import net.finmath.marketdata.model.curves.CurveInterpolation.InterpolationEntity;
@@ -19,6 +27,8 @@ import net.finmath.marketdata.model.volatilities.OptionSmileData;
 import net.finmath.marketdata.model.volatilities.OptionSurfaceData;
 import net.finmath.marketdata.model.volatilities.VolatilitySurface.QuotingConvention;
 import net.finmath.modelling.descriptor.HestonModelDescriptor;
+import net.finmath.optimizer.Optimizer;
+import net.finmath.optimizer.Optimizer.ObjectiveFunction;
 import net.finmath.optimizer.OptimizerFactory;
 import net.finmath.optimizer.OptimizerFactoryLevenbergMarquardt;
 import net.finmath.optimizer.SolverException;
@@ -53,18 +63,246 @@ public class HestonDaxCalibrationTest {
 	@Test
 	public void test() throws CalculationException, SolverException {
 
+		final CalibratedModel problem = getCalibrationProblem(false);
+
+		System.out.println("Calibration started");
+
+		final long startMillis	= System.currentTimeMillis();
+		final OptimizationResult result = problem.getCalibration();
+		final long endMillis		= System.currentTimeMillis();
+
+		final double calculationTime = ((endMillis-startMillis)/1000.0);
+
+		System.out.println("Calibration completed in: " +calculationTime + " seconds");
+
+		System.out.println("The solver required " + result.getIterations() + " iterations.");
+		System.out.println("RMSQE " +result.getRootMeanSquaredError());
+
+		final HestonModelDescriptor hestonDescriptor = (HestonModelDescriptor) result.getModel().getModelDescriptor();
+
+		System.out.println(hestonDescriptor.getVolatility());
+		System.out.println(hestonDescriptor.getTheta());
+		System.out.println(hestonDescriptor.getKappa());
+		System.out.println(hestonDescriptor.getXi());
+		System.out.println(hestonDescriptor.getRho());
+
+		final ArrayList<String> errorsOverview = result.getCalibrationOutput();
+
+		for(final String myString : errorsOverview) {
+			System.out.println(myString);
+		}
+
+		Assert.assertTrue(result.getRootMeanSquaredError() < 1.0);
+
+	}
+
+	@Test
+	public void testMultiStartWithParallelMaturities() throws CalculationException, SolverException {
+
+		final OptimizationResult resultSequential = getCalibrationProblem(false).getCalibration();
+		final OptimizationResult resultParallel = getCalibrationProblem(true).getCalibration();
+
+		// The evaluation of the maturities in parallel does not change the calibration
+		Assert.assertArrayEquals("Best fit parameters", resultSequential.getBestFitParameters(), resultParallel.getBestFitParameters(), 0.0);
+
+		final List<double[]> initialParametersOfStarts = Arrays.asList(
+				new double[] { 0.0423,0.0818,0.8455,0.4639,-0.7},
+				new double[] { 0.1,0.05,0.5,0.3,-0.5},
+				new double[] { 0.02,0.1,0.9,0.6,-0.3});
+
+		System.out.println("Multi-start calibration started");
+
+		final long startMillis	= System.currentTimeMillis();
+		final OptimizationResult result = getCalibrationProblem(true).getCalibration(initialParametersOfStarts);
+		final long endMillis		= System.currentTimeMillis();
+
+		System.out.println("Calibration completed in: " + ((endMillis-startMillis)/1000.0) + " seconds");
+		System.out.println("RMSQE " + result.getRootMeanSquaredError() + " (single start: " + resultSequential.getRootMeanSquaredError() + ")");
+
+		// The best fit of several starts includes the single start
+		Assert.assertTrue(result.getRootMeanSquaredError() <= resultSequential.getRootMeanSquaredError());
+		Assert.assertTrue(result.getRootMeanSquaredError() < 1.0);
+	}
+
+	@Test
+	public void testMultiStartIgnoresStartsWithoutFiniteError() throws CalculationException, SolverException {
+
+		final OptimizerFactory optimizerFactoryLevenbergMarquardt = new OptimizerFactoryLevenbergMarquardt(300 /* maxIterations */, 2 /* maxThreads */);
+
+		// An optimizer factory whose optimizer does not find a valid point for starts with a negative volatility
+		final OptimizerFactory optimizerFactory = new OptimizerFactory() {
+			@Override
+			public Optimizer getOptimizer(final ObjectiveFunction objectiveFunction, final double[] initialParameters, final double[] targetValues) {
+				return getOptimizer(objectiveFunction, initialParameters, null, null, null, targetValues);
+			}
+
+			@Override
+			public Optimizer getOptimizer(final ObjectiveFunction objectiveFunction, final double[] initialParameters, final double[] lowerBound, final double[] upperBound, final double[] targetValues) {
+				return getOptimizer(objectiveFunction, initialParameters, lowerBound, upperBound, null, targetValues);
+			}
+
+			@Override
+			public Optimizer getOptimizer(final ObjectiveFunction objectiveFunction, final double[] initialParameters, final double[] lowerBound, final double[] upperBound, final double[] parameterStep, final double[] targetValues) {
+				if(initialParameters[0] >= 0) {
+					return optimizerFactoryLevenbergMarquardt.getOptimizer(objectiveFunction, initialParameters, lowerBound, upperBound, parameterStep, targetValues);
+				}
+				return new Optimizer() {
+					@Override
+					public double[] getBestFitParameters() {
+						return initialParameters;
+					}
+
+					@Override
+					public double getRootMeanSquaredError() {
+						return Double.NaN;
+					}
+
+					@Override
+					public int getIterations() {
+						return 0;
+					}
+
+					@Override
+					public void run() {
+						// Nothing to do
+					}
+				};
+			}
+		};
+
+		final OptimizationResult resultSingleStart = getCalibrationProblem(false).getCalibration();
+
+		final List<double[]> initialParametersOfStarts = Arrays.asList(
+				new double[] { -1.0,0.0818,0.8455,0.4639,-0.7},
+				new double[] { 0.0423,0.0818,0.8455,0.4639,-0.7},
+				new double[] { -1.0,0.0818,0.8455,0.4639,-0.7});
+
+		final OptimizationResult result = getCalibrationProblem(false, optimizerFactory).getCalibration(initialParametersOfStarts);
+
+		// The start with a NaN error is not selected, even if it is the first one
+		Assert.assertEquals("RMSQE", resultSingleStart.getRootMeanSquaredError(), result.getRootMeanSquaredError(), 0.0);
+
+		try {
+			getCalibrationProblem(false, optimizerFactory).getCalibration(Arrays.asList(initialParametersOfStarts.get(0)));
+			Assert.fail("Calibration without finite error should fail.");
+		}
+		catch(final SolverException e) {
+			// Expected
+		}
+	}
+
+	@Test
+	public void testFailingStrikeDoesNotAffectOtherValues() throws SolverException {
+
+		final double failingStrike = 6000;
+
+		// An optimizer factory whose optimizer only records the values of the objective function at the initial parameters
+		final List<double[]> valuesOfObjectiveFunction = new ArrayList<>();
+		final OptimizerFactory optimizerFactory = new OptimizerFactory() {
+			@Override
+			public Optimizer getOptimizer(final ObjectiveFunction objectiveFunction, final double[] initialParameters, final double[] targetValues) {
+				return getOptimizer(objectiveFunction, initialParameters, null, null, null, targetValues);
+			}
+
+			@Override
+			public Optimizer getOptimizer(final ObjectiveFunction objectiveFunction, final double[] initialParameters, final double[] lowerBound, final double[] upperBound, final double[] targetValues) {
+				return getOptimizer(objectiveFunction, initialParameters, lowerBound, upperBound, null, targetValues);
+			}
+
+			@Override
+			public Optimizer getOptimizer(final ObjectiveFunction objectiveFunction, final double[] initialParameters, final double[] lowerBound, final double[] upperBound, final double[] parameterStep, final double[] targetValues) {
+				return new Optimizer() {
+					@Override
+					public double[] getBestFitParameters() {
+						return initialParameters;
+					}
+
+					@Override
+					public double getRootMeanSquaredError() {
+						return Double.NaN;
+					}
+
+					@Override
+					public int getIterations() {
+						return 0;
+					}
+
+					@Override
+					public void run() throws SolverException {
+						final double[] values = new double[targetValues.length];
+						objectiveFunction.setValues(initialParameters, values);
+						valuesOfObjectiveFunction.add(values);
+					}
+				};
+			}
+		};
+
+		getCalibrationProblem(false, optimizerFactory, pricer -> pricer).getCalibration();
+		getCalibrationProblem(false, optimizerFactory, pricer -> new EuropeanOptionSmileWithFailingStrike(pricer, failingStrike)).getCalibration();
+
+		final double[] values = valuesOfObjectiveFunction.get(0);
+		final double[] valuesWithFailingStrike = valuesOfObjectiveFunction.get(1);
+
+		// The market data is quoted in volatilities: only the values of the strike without implied volatility are NaN
+		final double[] strikes = getCalibrationProblemStrikes();
+		for(int i = 0; i < values.length; i++) {
+			final double strike = strikes[i % strikes.length];
+			Assert.assertTrue("Volatility", values[i] > 0.0 && values[i] < 1.0);
+			if(strike == failingStrike) {
+				Assert.assertTrue("Volatility of failing strike", Double.isNaN(valuesWithFailingStrike[i]));
+			}
+			else {
+				Assert.assertEquals("Volatility of strike " + strike, values[i], valuesWithFailingStrike[i], 0.0);
+			}
+		}
+	}
+
+	/**
+	 * A pricer returning a price without implied volatility for one strike.
+	 */
+	private static class EuropeanOptionSmileWithFailingStrike extends EuropeanOptionSmile {
+
+		private final EuropeanOptionSmile pricer;
+		private final double failingStrike;
+
+		EuropeanOptionSmileWithFailingStrike(final EuropeanOptionSmile pricer, final double failingStrike) {
+			super(pricer.getMaturity(), pricer.getStrikes());
+			this.pricer = pricer;
+			this.failingStrike = failingStrike;
+		}
+
+		@Override
+		public Map<String, Function<Double, Double>> getValue(final double evaluationTime, final CharacteristicFunctionModel model) throws CalculationException {
+			final Function<Double, Double> valuePerStrike = pricer.getValue(evaluationTime, model).get("valuePerStrike");
+
+			final Map<String, Function<Double, Double>> results = new HashMap<>();
+			results.put("valuePerStrike", strike -> strike == failingStrike ? Double.POSITIVE_INFINITY : valuePerStrike.apply(strike));
+			return results;
+		}
+
+		@Override
+		public EuropeanOptionSmile getCloneWithModifiedParameters(final double maturity, final double[] strikes) {
+			return new EuropeanOptionSmileWithFailingStrike(pricer.getCloneWithModifiedParameters(maturity, strikes), failingStrike);
+		}
+	}
+
+	private static CalibratedModel getCalibrationProblem(final boolean isMaturitiesInParallel) {
+		return getCalibrationProblem(isMaturitiesInParallel, new OptimizerFactoryLevenbergMarquardt(300 /* maxIterations */, 2 /* maxThreads */));
+	}
+
+	private static CalibratedModel getCalibrationProblem(final boolean isMaturitiesInParallel, final OptimizerFactory optimizerFactory) {
+		return getCalibrationProblem(isMaturitiesInParallel, optimizerFactory, pricer -> pricer);
+	}
+
+	private static double[] getCalibrationProblemStrikes() {
+		return new double[] {5500, 5600, 5700, 5800, 5900, 6000, 6100, 6200, 6300, 6400};
+	}
+
+	private static CalibratedModel getCalibrationProblem(final boolean isMaturitiesInParallel, final OptimizerFactory optimizerFactory, final UnaryOperator<EuropeanOptionSmile> pricerModifier) {
+
 		final LocalDate referenceDate = LocalDate.of(2010, 8, 1);
 
-		final double[] strike1 = {5500,
-				5600,
-				5700,
-				5800,
-				5900,
-				6000,
-				6100,
-				6200,
-				6300,
-				6400};
+		final double[] strike1 = getCalibrationProblemStrikes();
 
 
 		final double[] firstSmile = {0.277475758170766,
@@ -139,8 +377,6 @@ public class HestonDaxCalibrationTest {
 
 		final CalibratableHestonModel model = new CalibratableHestonModel(hestonModelDescriptor,volatilityInformation,thetaInformation,kappaInformation,xiInformation,rhoInformation,false);
 
-		final OptimizerFactory optimizerFactory = new OptimizerFactoryLevenbergMarquardt(300 /* maxIterations */, 2 /* maxThreads */);
-
 		final double[] initialParameters = new double[] { 0.0423,0.0818,0.8455,0.4639,-0.7} /* initialParameters */;
 		final double[] parameterStep = new double[] { 0.01,0.01,0.01,0.01,0.01} /* parameterStep */;
 
@@ -149,37 +385,7 @@ public class HestonDaxCalibrationTest {
 		 */
 		final EuropeanOptionSmileByCarrMadan pricer = new EuropeanOptionSmileByCarrMadan(maturity, strike1);
 
-		final CalibratedModel problem = new CalibratedModel(surface, model, optimizerFactory, pricer,initialParameters,parameterStep);
-
-		System.out.println("Calibration started");
-
-		final long startMillis	= System.currentTimeMillis();
-		final OptimizationResult result = problem.getCalibration();
-		final long endMillis		= System.currentTimeMillis();
-
-		final double calculationTime = ((endMillis-startMillis)/1000.0);
-
-		System.out.println("Calibration completed in: " +calculationTime + " seconds");
-
-		System.out.println("The solver required " + result.getIterations() + " iterations.");
-		System.out.println("RMSQE " +result.getRootMeanSquaredError());
-
-		final HestonModelDescriptor hestonDescriptor = (HestonModelDescriptor) result.getModel().getModelDescriptor();
-
-		System.out.println(hestonDescriptor.getVolatility());
-		System.out.println(hestonDescriptor.getTheta());
-		System.out.println(hestonDescriptor.getKappa());
-		System.out.println(hestonDescriptor.getXi());
-		System.out.println(hestonDescriptor.getRho());
-
-		final ArrayList<String> errorsOverview = result.getCalibrationOutput();
-
-		for(final String myString : errorsOverview) {
-			System.out.println(myString);
-		}
-
-		Assert.assertTrue(result.getRootMeanSquaredError() < 1.0);
-
+		return new CalibratedModel(surface, model, optimizerFactory, pricerModifier.apply(pricer),initialParameters,parameterStep, isMaturitiesInParallel);
 	}
 
 }
@@ -0,0 +1,119 @@
+package net.finmath.interpolation;
+
+import java.util.stream.IntStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.finmath.interpolation.RationalFunctionInterpolation.ExtrapolationMethod;
+import net.finmath.interpolation.RationalFunctionInterpolation.InterpolationMethod;
+
+/**
+ * Tests of {@link RationalFunctionInterpolation}.
+ */
+public class RationalFunctionInterpolationTest {
+
+	private static final double[] uniformPoints		= { 0.0, 0.5, 1.0, 1.5, 2.0, 2.5, 3.0 };
+	private static final double[] nonUniformPoints	= { 0.0, 0.25, 1.0, 2.0, 3.5, 5.0, 10.0 };
+	private static final double[] values			= { 5.0, 6.0, 4.0, 7.0, 5.0, 6.0, 5.5 };
+
+	@Test
+	public void testInterpolationPoints() {
+		for(final double[] points : new double[][] { uniformPoints, nonUniformPoints }) {
+			for(final InterpolationMethod interpolationMethod : InterpolationMethod.values()) {
+				final RationalFunctionInterpolation interpolation = new RationalFunctionInterpolation(points, values, interpolationMethod, ExtrapolationMethod.DEFAULT);
+				for(int i = 0; i < points.length; i++) {
+					Assert.assertEquals("Interpolation point " + interpolationMethod, values[i], interpolation.getValue(points[i]), 0.0);
+				}
+				Assert.assertArrayEquals("Interpolation points " + interpolationMethod, values, interpolation.getValues(points), 0.0);
+			}
+		}
+	}
+
+	@Test
+	public void testLinearInterpolationAndExtrapolation() {
+		for(final double[] points : new double[][] { uniformPoints, nonUniformPoints }) {
+			final RationalFunctionInterpolation interpolation = new RationalFunctionInterpolation(points, values, InterpolationMethod.LINEAR, ExtrapolationMethod.CONSTANT);
+			final double[] arguments = getArguments(points);
+			final double[] interpolatedValues = interpolation.getValues(arguments);
+			for(int i = 0; i < arguments.length; i++) {
+				final double x = arguments[i];
+
+				final double expected;
+				if(x <= points[0]) {
+					expected = values[0];
+				}
+				else if(x >= points[points.length-1]) {
+					expected = values[points.length-1];
+				}
+				else {
+					int intervalIndex = 0;
+					while(points[intervalIndex+1] <= x) {
+						intervalIndex++;
+					}
+					expected = values[intervalIndex] + (values[intervalIndex+1]-values[intervalIndex]) / (points[intervalIndex+1]-points[intervalIndex]) * (x-points[intervalIndex]);
+				}
+
+				Assert.assertEquals("Linear interpolation at " + x, expected, interpolation.getValue(x), 1E-14);
+				Assert.assertEquals("Bulk linear interpolation at " + x, expected, interpolatedValues[i], 1E-14);
+			}
+		}
+	}
+
+	@Test
+	public void testBulkAndParallelEvaluation() {
+		for(final double[] points : new double[][] { uniformPoints, nonUniformPoints }) {
+			for(final InterpolationMethod interpolationMethod : InterpolationMethod.values()) {
+				for(final ExtrapolationMethod extrapolationMethod : ExtrapolationMethod.values()) {
+					final RationalFunctionInterpolation interpolation = new RationalFunctionInterpolation(points, values, interpolationMethod, extrapolationMethod);
+
+					final double[] arguments = getArguments(points);
+
+					// Unsorted arguments
+					final double[] argumentsReversed = new double[arguments.length];
+					for(int i = 0; i < arguments.length; i++) {
+						argumentsReversed[i] = arguments[arguments.length-1-i];
+					}
+
+					final double[] interpolatedValues = interpolation.getValues(arguments);
+					final double[] interpolatedValuesReversed = interpolation.getValues(argumentsReversed);
+					final double[] interpolatedValuesParallel = IntStream.range(0, arguments.length).parallel().mapToDouble(i -> interpolation.getValue(arguments[i])).toArray();
+
+					for(int i = 0; i < arguments.length; i++) {
+						final double value = interpolation.getValue(arguments[i]);
+						Assert.assertEquals("Bulk evaluation", value, interpolatedValues[i], 0.0);
+						Assert.assertEquals("Bulk evaluation of unsorted arguments", value, interpolatedValuesReversed[arguments.length-1-i], 0.0);
+						Assert.assertEquals("Parallel evaluation", value, interpolatedValuesParallel[i], 0.0);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testInterpolationWithoutPointsFailsOnEvaluation() {
+		for(final InterpolationMethod interpolationMethod : InterpolationMethod.values()) {
+			// The construction succeeds, the evaluation fails
+			final RationalFunctionInterpolation interpolation = new RationalFunctionInterpolation(new double[0], new double[0], interpolationMethod, ExtrapolationMethod.DEFAULT);
+			try {
+				interpolation.getValue(1.0);
+				Assert.fail("Expected IllegalArgumentException for " + interpolationMethod);
+			}
+			catch(final IllegalArgumentException e) {
+				// expected
+			}
+		}
+	}
+
+	private static double[] getArguments(final double[] points) {
+		final int numberOfArguments = 1001;
+		final double lowerBound = points[0] - 1.0;
+		final double upperBound = points[points.length-1] + 1.0;
+
+		final double[] arguments = new double[numberOfArguments];
+		for(int i = 0; i < numberOfArguments; i++) {
+			arguments[i] = lowerBound + (upperBound - lowerBound) * i / (numberOfArguments-1);
+		}
+		return arguments;
+	}
+}
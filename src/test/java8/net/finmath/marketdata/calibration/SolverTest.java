@@ -0,0 +1,143 @@
+package net.finmath.marketdata.calibration;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.Vector;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.finmath.marketdata.model.AnalyticModel;
+import net.finmath.marketdata.model.AnalyticModelFromCurvesAndVols;
+import net.finmath.marketdata.model.curves.Curve;
+import net.finmath.marketdata.model.curves.CurveInterpolation.ExtrapolationMethod;
+import net.finmath.marketdata.model.curves.CurveInterpolation.InterpolationEntity;
+import net.finmath.marketdata.model.curves.CurveInterpolation.InterpolationMethod;
+import net.finmath.marketdata.model.curves.DiscountCurveInterpolation;
+import net.finmath.marketdata.products.AbstractAnalyticProduct;
+import net.finmath.marketdata.products.AnalyticProduct;
+import net.finmath.marketdata.products.Deposit;
+import net.finmath.optimizer.Optimizer;
+import net.finmath.optimizer.Optimizer.ObjectiveFunction;
+import net.finmath.optimizer.OptimizerFactory;
+import net.finmath.optimizer.OptimizerFactoryLevenbergMarquardt;
+import net.finmath.optimizer.SolverException;
+import net.finmath.time.RegularSchedule;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * Tests the (coloured) finite difference derivatives provided by the {@link Solver} against
+ * one finite difference per parameter.
+ */
+public class SolverTest {
+
+	private static final double[] times = new double[] { 0.0, 1.0, 2.0, 3.0, 4.0, 5.0 };
+	private static final double[] discountFactorsInitial = new double[] { 1.0, 0.97, 0.94, 0.91, 0.88, 0.85 };
+	private static final double[] discountFactorsTarget = new double[] { 1.0, 0.98, 0.96, 0.95, 0.92, 0.90 };
+
+	/*
+	 * A product depending on the discount factor at 3.0 only if it exceeds the strike, i.e., not at the initial curve.
+	 */
+	private static final double strike = 0.93;
+
+	@Test
+	public void testColouredDerivativesAgainstFiniteDifferences() throws SolverException {
+		final DiscountCurveInterpolation discountCurve = DiscountCurveInterpolation.createDiscountCurveFromDiscountFactors(
+				"discountCurve", times, discountFactorsInitial, InterpolationMethod.LINEAR, ExtrapolationMethod.CONSTANT, InterpolationEntity.LOG_OF_VALUE);
+		final AnalyticModel model = new AnalyticModelFromCurvesAndVols(new Curve[] { discountCurve });
+
+		final Vector<AnalyticProduct> calibrationProducts = new Vector<>();
+		for(int timeIndex=1; timeIndex<times.length; timeIndex++) {
+			final double maturity = times[timeIndex];
+			final double rate = (1.0/discountFactorsTarget[timeIndex] - 1.0) / maturity;
+			calibrationProducts.add(new Deposit(new RegularSchedule(new TimeDiscretizationFromArray(0.0, maturity)), rate, "discountCurve"));
+		}
+		calibrationProducts.add(new AbstractAnalyticProduct() {
+			@Override
+			public double getValue(final double evaluationTime, final AnalyticModel model) {
+				final double discountFactor = model.getDiscountCurve("discountCurve").getDiscountFactor(model, 3.0);
+				return Math.max(discountFactor - strike, 0.0) - (discountFactorsTarget[3] - strike);
+			}
+		});
+
+		final Set<ParameterObject> curvesToCalibrate = new HashSet<>();
+		curvesToCalibrate.add(discountCurve);
+		final ParameterAggregation<ParameterObject> parameterAggregation = new ParameterAggregation<>(curvesToCalibrate);
+
+		final OptimizerFactory optimizerFactoryLevenbergMarquardt = new OptimizerFactoryLevenbergMarquardt(1000, 0.0, 1);
+		final OptimizerFactory optimizerFactory = new OptimizerFactory() {
+			@Override
+			public Optimizer getOptimizer(final ObjectiveFunction objectiveFunction, final double[] initialParameters, final double[] targetValues) {
+				return getOptimizer(objectiveFunction, initialParameters, null, null, targetValues);
+			}
+
+			@Override
+			public Optimizer getOptimizer(final ObjectiveFunction objectiveFunction, final double[] initialParameters, final double[] lowerBound, final double[] upperBound, final double[] targetValues) {
+				final Optimizer.ObjectiveFunctionWithDerivatives objectiveFunctionWithDerivatives = (Optimizer.ObjectiveFunctionWithDerivatives)objectiveFunction;
+				try {
+					// The first calculation observes the sparsity pattern at the initial curve (the last product does not depend on any parameter here)
+					assertDerivativesEqual(objectiveFunctionWithDerivatives, initialParameters, model, parameterAggregation, calibrationProducts);
+
+					// The last product now depends on the third parameter, which is not part of the observed pattern
+					final double[] parametersShifted = initialParameters.clone();
+					parametersShifted[2] += 0.05;
+					assertDerivativesEqual(objectiveFunctionWithDerivatives, parametersShifted, model, parameterAggregation, calibrationProducts);
+
+					// Coloured derivatives with the extended pattern
+					parametersShifted[0] += 0.01;
+					assertDerivativesEqual(objectiveFunctionWithDerivatives, parametersShifted, model, parameterAggregation, calibrationProducts);
+				}
+				catch(final SolverException e) {
+					throw new RuntimeException(e);
+				}
+				return optimizerFactoryLevenbergMarquardt.getOptimizer(objectiveFunction, initialParameters, lowerBound, upperBound, targetValues);
+			}
+
+			@Override
+			public Optimizer getOptimizer(final ObjectiveFunction objectiveFunction, final double[] initialParameters, final double[] lowerBound, final double[] upperBound, final double[] parameterStep, final double[] targetValues) {
+				return getOptimizer(objectiveFunction, initialParameters, lowerBound, upperBound, targetValues);
+			}
+		};
+
+		final Solver solver = new Solver(model, calibrationProducts, null, null, 0.0, optimizerFactory);
+		final AnalyticModel calibratedModel = solver.getCalibratedModel(curvesToCalibrate);
+
+		for(int timeIndex=1; timeIndex<times.length; timeIndex++) {
+			Assert.assertEquals("Discount factor", discountFactorsTarget[timeIndex], calibratedModel.getDiscountCurve("discountCurve").getDiscountFactor(calibratedModel, times[timeIndex]), 1E-10);
+		}
+	}
+
+	private static void assertDerivativesEqual(final Optimizer.ObjectiveFunctionWithDerivatives objectiveFunction, final double[] parameters, final AnalyticModel model, final ParameterAggregation<ParameterObject> parameterAggregation, final Vector<AnalyticProduct> calibrationProducts) throws SolverException {
+		final double[][] derivatives = new double[parameters.length][calibrationProducts.size()];
+		objectiveFunction.setDerivatives(parameters, derivatives);
+
+		// One finite difference per parameter (same shift as the solver)
+		final double[] values = getValues(parameters, model, parameterAggregation, calibrationProducts);
+		for(int parameterIndex=0; parameterIndex<parameters.length; parameterIndex++) {
+			final double parameterFiniteDifference = (Math.abs(parameters[parameterIndex]) + 1) * 1E-8;
+			final double[] parametersShifted = parameters.clone();
+			parametersShifted[parameterIndex] += parameterFiniteDifference;
+			final double[] valuesShifted = getValues(parametersShifted, model, parameterAggregation, calibrationProducts);
+			for(int valueIndex=0; valueIndex<values.length; valueIndex++) {
+				final double derivative = (valuesShifted[valueIndex] - values[valueIndex]) / parameterFiniteDifference;
+				Assert.assertEquals("Derivative of value " + valueIndex + " with respect to parameter " + parameterIndex, derivative, derivatives[parameterIndex][valueIndex], 1E-10);
+			}
+		}
+	}
+
+	private static double[] getValues(final double[] parameters, final AnalyticModel model, final ParameterAggregation<ParameterObject> parameterAggregation, final Vector<AnalyticProduct> calibrationProducts) throws SolverException {
+		try {
+			final Map<ParameterObject, double[]> curvesParameterPairs = parameterAggregation.getObjectsToModifyForParameter(parameters);
+			final AnalyticModel modelClone = model.getCloneForParameter(curvesParameterPairs);
+			final double[] values = new double[calibrationProducts.size()];
+			for(int i=0; i<calibrationProducts.size(); i++) {
+				values[i] = calibrationProducts.get(i).getValue(0.0, modelClone);
+			}
+			return values;
+		}
+		catch(final CloneNotSupportedException e) {
+			throw new SolverException(e);
+		}
+	}
+}
@@ -0,0 +1,98 @@
+
+package net.finmath.marketdata.model.volatilities;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.time.LocalDate;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import net.finmath.marketdata.model.AnalyticModel;
+import net.finmath.marketdata.model.AnalyticModelFromCurvesAndVols;
+import net.finmath.marketdata.model.curves.Curve;
+import net.finmath.marketdata.model.curves.DiscountCurve;
+import net.finmath.marketdata.model.curves.ForwardCurve;
+import net.finmath.marketdata.model.curves.ForwardCurveFromDiscountCurve;
+import net.finmath.marketdata.model.volatilities.SwaptionDataLattice.QuotingConvention;
+import net.finmath.time.businessdaycalendar.BusinessdayCalendar;
+import net.finmath.time.businessdaycalendar.BusinessdayCalendarExcludingWeekends;
+
+/**
+ * Tests the conversion of a {@link SwaptionDataLattice} to implied volatilities.
+ */
+public class SwaptionDataLatticeTest {
+
+	private static String curveFilePath					= "./src/test/resources/curves";
+	private static String discountCurveFileName			= "EUR-EONIA.crv";
+	private static String forwardCurveFileName			= "EUR-OIS6M.crv";
+	private static String swaptionFilePath				= "./src/test/resources/swaptions";
+	private static String payerFileName					= "CashPayerSwaptionPrice.sdl";
+
+	private static LocalDate referenceDate	= LocalDate.of(2017, 8, 30);
+
+	private static AnalyticModel model;
+	private static SwaptionDataLattice payerSwaptions;
+
+	@BeforeClass
+	public static void setup() throws ClassNotFoundException, IOException {
+		DiscountCurve discountCurve;
+		DiscountCurve forwardDiscountCurve;
+		try (ObjectInputStream discountIn = new ObjectInputStream(new FileInputStream(new File(curveFilePath, discountCurveFileName)));
+				ObjectInputStream forwardIn = new ObjectInputStream(new FileInputStream(new File(curveFilePath, forwardCurveFileName)))) {
+			discountCurve = (DiscountCurve) discountIn.readObject();
+			forwardDiscountCurve = (DiscountCurve) forwardIn.readObject();
+		}
+		final ForwardCurve forwardCurveSingle = new ForwardCurveFromDiscountCurve("Forward-" + discountCurve.getName(), discountCurve.getName(), referenceDate, "6M");
+		final ForwardCurve forwardCurveMarket = new ForwardCurveFromDiscountCurve("Forward-" + forwardDiscountCurve.getName(), forwardDiscountCurve.getName(), discountCurve.getName(), referenceDate, "6M",
+				new BusinessdayCalendarExcludingWeekends(), BusinessdayCalendar.DateRollConvention.FOLLOWING, 1, 0);
+
+		model = new AnalyticModelFromCurvesAndVols(new Curve[] { discountCurve, forwardDiscountCurve, forwardCurveSingle, forwardCurveMarket });
+
+		try (ObjectInputStream inPayer = new ObjectInputStream(new FileInputStream(new File(swaptionFilePath, payerFileName)))) {
+			payerSwaptions = (SwaptionDataLattice) inPayer.readObject();
+		}
+	}
+
+	@Test
+	public void testConvertLatticeToImpliedVolatilities() {
+		assertConversionAgreesWithValue(payerSwaptions, QuotingConvention.PAYERVOLATILITYNORMAL, 0.0);
+		assertConversionAgreesWithValue(payerSwaptions, QuotingConvention.PAYERVOLATILITYLOGNORMAL, 0.0);
+		assertConversionAgreesWithValue(payerSwaptions, QuotingConvention.PAYERVOLATILITYLOGNORMAL, 0.03);
+	}
+
+	@Test
+	public void testConvertLatticeWithoutImpliedVolatility() {
+		// The second price exceeds forward times annuity, such that there is no log-normal implied volatility
+		final SwaptionDataLattice swaptions = new SwaptionDataLattice(referenceDate, QuotingConvention.PAYERPRICE,
+				payerSwaptions.getForwardCurveName(), payerSwaptions.getDiscountCurveName(), payerSwaptions.getFloatMetaSchedule(), payerSwaptions.getFixMetaSchedule(),
+				new int[] { 12, 12 }, new int[] { 60, 120 }, new int[] { 0, 0 }, new double[] { 0.01, 10.0 });
+
+		assertConversionAgreesWithValue(swaptions, QuotingConvention.PAYERVOLATILITYNORMAL, 0.0);
+		assertConversionAgreesWithValue(swaptions, QuotingConvention.PAYERVOLATILITYLOGNORMAL, 0.0);
+		assertConversionAgreesWithValue(swaptions, QuotingConvention.PAYERVOLATILITYLOGNORMAL, 0.03);
+	}
+
+	private static void assertConversionAgreesWithValue(final SwaptionDataLattice swaptions, final QuotingConvention convention, final double displacement) {
+		final SwaptionDataLattice converted = swaptions.convertLattice(convention, displacement, model);
+
+		for(final Map.Entry<Integer, int[][]> gridNodes : swaptions.getGridNodesPerMoneyness().entrySet()) {
+			final int moneyness = gridNodes.getKey();
+			for(final int maturity : gridNodes.getValue()[0]) {
+				for(final int tenor : gridNodes.getValue()[1]) {
+					if(!swaptions.containsEntryFor(maturity, tenor, moneyness)) {
+						continue;
+					}
+					final double expected = swaptions.getValue(maturity, tenor, moneyness, convention, displacement, model);
+					final double actual = converted.getValue(maturity, tenor, moneyness);
+
+					Assert.assertEquals(convention + " at " + maturity + "/" + tenor + "/" + moneyness, expected, actual, 1E-9);
+				}
+			}
+		}
+	}
+}
@@ -13,8 +13,13 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.text.DecimalFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.DoubleUnaryOperator;
 
 import org.junit.Assert;
@@ -26,6 +31,8 @@ import org.junit.runners.Parameterized.Parameters;
 import net.finmath.functions.JarqueBeraTest;
 import net.finmath.montecarlo.automaticdifferentiation.backward.RandomVariableDifferentiableAADFactory;
 import net.finmath.montecarlo.automaticdifferentiation.forward.RandomVariableDifferentiableADFactory;
+import net.finmath.randomnumbers.RandomNumberGenerator;
+import net.finmath.randomnumbers.SobolSequence;
 import net.finmath.stochastic.RandomVariable;
 import net.finmath.time.TimeDiscretization;
 import net.finmath.time.TimeDiscretizationFromArray;
@@ -135,6 +142,319 @@ public class BrownianMotionTest {
 		System.out.println();
 	}
 
+	@Test
+	public void testStreamingBrownianMotion() {
+		final int		numberOfPaths	= 100000;
+		final int		seed			= 31415;
+		final double	dt				= 0.25;
+
+		final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, 40, dt);
+
+		final BrownianMotion brownian = new BrownianMotionStreamingFromMersenneRandomNumbers(
+				timeDiscretization,
+				2,
+				numberOfPaths,
+				seed,
+				randomVariableFactory
+				);
+
+		final double[] firstIncrement = brownian.getBrownianIncrement(0, 1).getRealizations();
+
+		for(int timeIndex = 0; timeIndex < timeDiscretization.getNumberOfTimeSteps(); timeIndex++) {
+			for(int factor = 0; factor < 2; factor++) {
+				final RandomVariable brownianRealization = brownian.getBrownianIncrement(timeIndex, factor);
+
+				Assert.assertEquals("Mean", 0.0, brownianRealization.getAverage(), 4.0 * Math.sqrt(dt / numberOfPaths));
+				Assert.assertEquals("Variance", dt, brownianRealization.getVariance(), 4.0 * dt * Math.sqrt(2.0 / numberOfPaths));
+			}
+		}
+
+		// Increments are re-generated if requested again
+		Assert.assertArrayEquals("Re-generated increment", firstIncrement, brownian.getBrownianIncrement(0, 1).getRealizations(), 0.0);
+	}
+
+	@Test
+	public void testStreamingBrownianMotionConcurrentTimeIndices() throws Exception {
+		final int		numberOfPaths	= 10000;
+		final int		seed			= 31415;
+		final int		numberOfThreads	= 4;
+
+		final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, 40, 0.25);
+
+		// Reference values, generated sequentially
+		final BrownianMotion brownianReference = new BrownianMotionStreamingFromMersenneRandomNumbers(timeDiscretization, 2, numberOfPaths, seed, randomVariableFactory);
+		final double[][] expected = new double[timeDiscretization.getNumberOfTimeSteps()][];
+		for(int timeIndex = 0; timeIndex < timeDiscretization.getNumberOfTimeSteps(); timeIndex++) {
+			expected[timeIndex] = brownianReference.getBrownianIncrement(timeIndex, 1).getRealizations();
+		}
+
+		// Threads traversing the time steps with offsets (like path chunks running apart), sharing a window of 4 time indices
+		final BrownianMotion brownian = new BrownianMotionStreamingFromMersenneRandomNumbers(timeDiscretization, 2, numberOfPaths, seed, randomVariableFactory, 4);
+		final ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+		try {
+			final List<Future<Void>> results = new ArrayList<>();
+			for(int thread = 0; thread < numberOfThreads; thread++) {
+				final int offset = thread;
+				results.add(executor.submit(() -> {
+					for(int step = 0; step < timeDiscretization.getNumberOfTimeSteps(); step++) {
+						final int timeIndex = (step + offset) % timeDiscretization.getNumberOfTimeSteps();
+						Assert.assertArrayEquals("Increment at time index " + timeIndex, expected[timeIndex], brownian.getBrownianIncrement(timeIndex, 1).getRealizations(), 0.0);
+					}
+					return null;
+				}));
+			}
+			for(final Future<Void> result : results) {
+				result.get();
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+
+		// Time indices in the window are not re-generated
+		final BrownianMotion brownianWithWindow = new BrownianMotionStreamingFromMersenneRandomNumbers(timeDiscretization, 2, numberOfPaths, seed, randomVariableFactory, 4);
+		final RandomVariable incrementFirstRequest = brownianWithWindow.getBrownianIncrement(0, 0);
+		brownianWithWindow.getBrownianIncrement(1, 0);
+		brownianWithWindow.getBrownianIncrement(3, 0);
+		Assert.assertSame("Cached increment", incrementFirstRequest, brownianWithWindow.getBrownianIncrement(0, 0));
+	}
+
+	@Test
+	public void testCounterBasedBrownianMotion() {
+		final int		numberOfPaths	= 100000;
+		final int		seed			= 31415;
+		final double	dt				= 0.25;
+
+		final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, 40, dt);
+
+		final BrownianMotionFromPhiloxRandomNumbers brownian = new BrownianMotionFromPhiloxRandomNumbers(
+				timeDiscretization,
+				2,
+				numberOfPaths,
+				seed,
+				randomVariableFactory
+				);
+
+		final BrownianMotionFromPhiloxRandomNumbers brownianNotStored = new BrownianMotionFromPhiloxRandomNumbers(
+				timeDiscretization,
+				2,
+				numberOfPaths,
+				seed,
+				randomVariableFactory,
+				false
+				);
+
+		final JarqueBeraTest jb = new JarqueBeraTest();
+		int fail = 0;
+		for(int timeIndex = timeDiscretization.getNumberOfTimeSteps()-1; timeIndex >= 0; timeIndex--) {
+			for(int factor = 0; factor < 2; factor++) {
+				final RandomVariable brownianRealization = brownian.getBrownianIncrement(timeIndex, factor);
+
+				Assert.assertEquals("Mean", 0.0, brownianRealization.getAverage(), 4.0 * Math.sqrt(dt / numberOfPaths));
+				Assert.assertEquals("Variance", dt, brownianRealization.getVariance(), 4.0 * dt * Math.sqrt(2.0 / numberOfPaths));
+				if(jb.test(brownianRealization) > 4.6) {
+					fail++;
+				}
+
+				// Re-generated increments and blocks of increments agree with the stored ones
+				Assert.assertArrayEquals("Re-generated increment", brownianRealization.getRealizations(), brownianNotStored.getBrownianIncrement(timeIndex, factor).getRealizations(), 0.0);
+				final double[] block = brownian.getBrownianIncrementRealizations(timeIndex, factor, 5001, 7003);
+				for(int path = 5001; path < 7003; path++) {
+					Assert.assertEquals("Block of increments", brownianRealization.get(path), block[path-5001], 1E-7 * Math.abs(block[path-5001]));
+				}
+			}
+		}
+
+		Assert.assertTrue("Test on normal distribution.", 5.0 * fail < 2 * timeDiscretization.getNumberOfTimeSteps());
+	}
+
+	@Test
+	public void testBlocksOfPathsOfMersenneBrownianMotion() {
+		final int		numberOfPaths	= 5000;
+		final int		seed			= 31415;
+
+		final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, 10, 0.5);
+
+		final BrownianMotionFromMersenneRandomNumbers brownian = new BrownianMotionFromMersenneRandomNumbers(timeDiscretization, 2, numberOfPaths, seed, randomVariableFactory);
+
+		// Blocks starting before, at and after a stored state of the random number generator, and a block at the end
+		for(final int[] block : new int[][] { { 0, 700 }, { 700, 1024 }, { 1024, 1030 }, { 3001, 4111 }, { 4111, numberOfPaths } }) {
+			final RandomVariable[][] incrementsOfBlock = brownian.getBrownianIncrements(block[0], block[1]);
+			for(int timeIndex = 0; timeIndex < timeDiscretization.getNumberOfTimeSteps(); timeIndex++) {
+				for(int factor = 0; factor < 2; factor++) {
+					final RandomVariable brownianRealization = brownian.getBrownianIncrement(timeIndex, factor);
+					Assert.assertEquals("Size of block", block[1] - block[0], incrementsOfBlock[timeIndex][factor].size());
+					for(int path = block[0]; path < block[1]; path++) {
+						Assert.assertEquals("Block of increments", brownianRealization.get(path), incrementsOfBlock[timeIndex][factor].get(path - block[0]), 0.0);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testQuasiRandomBrownianMotion() {
+		final int		numberOfPaths	= 10000;
+		final int		numberOfFactors	= 2;
+		final double	dt				= 0.25;
+
+		final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, 40, dt);
+		final int dimension = numberOfFactors * timeDiscretization.getNumberOfTimeSteps();
+
+		// Paths generated in parallel from the indexed access to the sequence
+		final BrownianMotion brownian = new BrownianMotionFromRandomNumberGenerator(timeDiscretization, numberOfFactors, numberOfPaths,
+				new SobolSequence(dimension, 3141), randomVariableFactory);
+
+		// Paths generated sequentially from the same sequence
+		final RandomNumberGenerator sequentialGenerator = new RandomNumberGenerator() {
+			private static final long serialVersionUID = 1L;
+			private final SobolSequence sobolSequence = new SobolSequence(dimension, 3141);
+
+			@Override
+			public double[] getNext() {
+				return sobolSequence.getNext();
+			}
+
+			@Override
+			public int getDimension() {
+				return sobolSequence.getDimension();
+			}
+		};
+		final BrownianMotion brownianSequential = new BrownianMotionFromRandomNumberGenerator(timeDiscretization, numberOfFactors, numberOfPaths,
+				sequentialGenerator, randomVariableFactory);
+
+		for(int timeIndex = 0; timeIndex < timeDiscretization.getNumberOfTimeSteps(); timeIndex++) {
+			for(int factor = 0; factor < numberOfFactors; factor++) {
+				final RandomVariable brownianRealization = brownian.getBrownianIncrement(timeIndex, factor);
+
+				Assert.assertArrayEquals("Parallel generation", brownianSequential.getBrownianIncrement(timeIndex, factor).getRealizations(), brownianRealization.getRealizations(), 0.0);
+				Assert.assertEquals("Mean", 0.0, brownianRealization.getAverage(), 4.0 * Math.sqrt(dt / numberOfPaths));
+				Assert.assertEquals("Variance", dt, brownianRealization.getVariance(), 4.0 * dt * Math.sqrt(2.0 / numberOfPaths));
+			}
+		}
+	}
+
+	@Test
+	public void testQuasiRandomBrownianMotionUnscrambled() {
+		final int		numberOfPaths	= 5000;
+		final int		numberOfFactors	= 2;
+		final double	dt				= 0.25;
+
+		final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, 40, dt);
+		final int dimension = numberOfFactors * timeDiscretization.getNumberOfTimeSteps();
+
+		// The first vector of an unscrambled Sobol sequence is the origin, which has to be skipped
+		final BrownianMotion[] brownianMotions = new BrownianMotion[] {
+				new BrownianMotionFromRandomNumberGenerator(timeDiscretization, numberOfFactors, numberOfPaths, new SobolSequence(dimension), randomVariableFactory),
+				new BrownianMotionWithBrownianBridgeConstruction(timeDiscretization, numberOfFactors, numberOfPaths, new SobolSequence(dimension),
+						BrownianMotionWithBrownianBridgeConstruction.Construction.BROWNIAN_BRIDGE, BrownianMotionWithBrownianBridgeConstruction.DimensionOrdering.INTERLEAVED, randomVariableFactory)
+		};
+
+		for(final BrownianMotion brownian : brownianMotions) {
+			for(int timeIndex = 0; timeIndex < timeDiscretization.getNumberOfTimeSteps(); timeIndex++) {
+				for(int factor = 0; factor < numberOfFactors; factor++) {
+					final double[] realizations = brownian.getBrownianIncrement(timeIndex, factor).getRealizations();
+					for(int path = 0; path < numberOfPaths; path++) {
+						Assert.assertTrue("Finite increment on path " + path, Double.isFinite(realizations[path]));
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testQuasiRandomBrownianMotionSampleOffset() {
+		final int		numberOfPaths	= 3000;
+		final int		numberOfFactors	= 2;
+		final double	dt				= 0.25;
+
+		final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, 40, dt);
+		final SobolSequence sobolSequence = new SobolSequence(numberOfFactors * timeDiscretization.getNumberOfTimeSteps());
+
+		// Instances using the same generator (and offset) generate identical paths, the offset selects successive sample vectors
+		final BrownianMotion brownianMotionAllPaths = new BrownianMotionFromRandomNumberGenerator(timeDiscretization, numberOfFactors, 2*numberOfPaths, sobolSequence, randomVariableFactory);
+		final BrownianMotion brownianMotionFirstPaths = new BrownianMotionFromRandomNumberGenerator(timeDiscretization, numberOfFactors, numberOfPaths, sobolSequence, randomVariableFactory);
+		final BrownianMotion brownianMotionNextPaths = new BrownianMotionFromRandomNumberGenerator(timeDiscretization, numberOfFactors, numberOfPaths, sobolSequence, randomVariableFactory, numberOfPaths);
+
+		for(int timeIndex = 0; timeIndex < timeDiscretization.getNumberOfTimeSteps(); timeIndex++) {
+			for(int factor = 0; factor < numberOfFactors; factor++) {
+				final double[] allPaths = brownianMotionAllPaths.getBrownianIncrement(timeIndex, factor).getRealizations();
+				Assert.assertArrayEquals("First paths", Arrays.copyOfRange(allPaths, 0, numberOfPaths), brownianMotionFirstPaths.getBrownianIncrement(timeIndex, factor).getRealizations(), 0.0);
+				Assert.assertArrayEquals("Next paths", Arrays.copyOfRange(allPaths, numberOfPaths, 2*numberOfPaths), brownianMotionNextPaths.getBrownianIncrement(timeIndex, factor).getRealizations(), 0.0);
+			}
+		}
+		Assert.assertArrayEquals("Clone",
+				brownianMotionNextPaths.getBrownianIncrement(3, 1).getRealizations(),
+				brownianMotionNextPaths.getCloneWithModifiedSeed(0).getBrownianIncrement(3, 1).getRealizations(), 0.0);
+	}
+
+	@Test
+	public void testBrownianBridgeConstruction() {
+		final int		numberOfPaths	= 1 << 14;
+		final int		numberOfFactors	= 2;
+		final double	dt				= 0.25;
+
+		final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, 40, dt);
+		final int numberOfTimeSteps = timeDiscretization.getNumberOfTimeSteps();
+		final int dimension = numberOfFactors * numberOfTimeSteps;
+
+		/*
+		 * E[exp(A)] for the (scaled) average A = sigma/n sum_i W(t_i), where Var(A) = sigma^2/n^2 sum_{i,j} min(t_i,t_j).
+		 */
+		final double sigma = 0.3;
+		final double weight = sigma / numberOfTimeSteps;
+		double varianceOfIntegral = 0.0;
+		for(int i=1; i<=numberOfTimeSteps; i++) {
+			for(int j=1; j<=numberOfTimeSteps; j++) {
+				varianceOfIntegral += timeDiscretization.getTime(Math.min(i, j)) * weight * weight;
+			}
+		}
+		final double valueAnalytic = Math.exp(0.5 * varianceOfIntegral);
+
+		final BrownianMotion[] brownianMotions = new BrownianMotion[] {
+				new BrownianMotionWithBrownianBridgeConstruction(timeDiscretization, numberOfFactors, numberOfPaths, new SobolSequence(dimension, 3141),
+						BrownianMotionWithBrownianBridgeConstruction.Construction.BROWNIAN_BRIDGE, BrownianMotionWithBrownianBridgeConstruction.DimensionOrdering.INTERLEAVED, randomVariableFactory),
+				new BrownianMotionWithBrownianBridgeConstruction(timeDiscretization, numberOfFactors, numberOfPaths, new SobolSequence(dimension, 3141),
+						BrownianMotionWithBrownianBridgeConstruction.Construction.BROWNIAN_BRIDGE, BrownianMotionWithBrownianBridgeConstruction.DimensionOrdering.BY_FACTOR, randomVariableFactory),
+				new BrownianMotionWithBrownianBridgeConstruction(timeDiscretization, numberOfFactors, numberOfPaths, new SobolSequence(dimension, 3141),
+						BrownianMotionWithBrownianBridgeConstruction.Construction.PRINCIPAL_COMPONENTS, BrownianMotionWithBrownianBridgeConstruction.DimensionOrdering.INTERLEAVED, randomVariableFactory),
+				new BrownianMotionFromRandomNumberGenerator(timeDiscretization, numberOfFactors, numberOfPaths, new SobolSequence(dimension, 3141), randomVariableFactory)
+		};
+
+		final double[] errors = new double[brownianMotions.length];
+		for(int i=0; i<brownianMotions.length; i++) {
+			final BrownianMotion brownian = brownianMotions[i];
+			for(int timeIndex = 0; timeIndex < numberOfTimeSteps; timeIndex++) {
+				for(int factor = 0; factor < numberOfFactors; factor++) {
+					final RandomVariable brownianRealization = brownian.getBrownianIncrement(timeIndex, factor);
+
+					Assert.assertEquals("Mean", 0.0, brownianRealization.getAverage(), 4.0 * Math.sqrt(dt / numberOfPaths));
+					Assert.assertEquals("Variance", dt, brownianRealization.getVariance(), 4.0 * dt * Math.sqrt(2.0 / numberOfPaths));
+				}
+			}
+			Assert.assertEquals("Covariance of increments", 0.0, brownian.getBrownianIncrement(0, 0).covariance(brownian.getBrownianIncrement(numberOfTimeSteps-1, 0)).getAverage(), 4.0 * dt / Math.sqrt(numberOfPaths));
+			Assert.assertEquals("Covariance of factors", 0.0, brownian.getBrownianIncrement(3, 0).covariance(brownian.getBrownianIncrement(3, 1)).getAverage(), 4.0 * dt / Math.sqrt(numberOfPaths));
+
+			RandomVariable brownianMotionAtTime = brownian.getRandomVariableForConstant(0.0);
+			RandomVariable integral = brownian.getRandomVariableForConstant(0.0);
+			for(int timeIndex = 0; timeIndex < numberOfTimeSteps; timeIndex++) {
+				brownianMotionAtTime = brownianMotionAtTime.add(brownian.getBrownianIncrement(timeIndex, 1));
+				integral = integral.addProduct(brownianMotionAtTime, weight);
+			}
+			errors[i] = integral.exp().getAverage() - valueAnalytic;
+
+			System.out.println(brownian.getClass().getSimpleName() + "\t error of E[exp(average W)] = " + formatterSci4.format(errors[i]));
+		}
+
+		for(int i=0; i<brownianMotions.length; i++) {
+			Assert.assertEquals("E[exp(average W)]", 0.0, errors[i] / valueAnalytic, 1E-3);
+		}
+
+		// The bridge and the principal component constructions (using the first dimensions for the factor) reduce the effective dimension
+		Assert.assertTrue("Brownian bridge improves accuracy", Math.abs(errors[0]) < 0.5 * Math.abs(errors[3]));
+		Assert.assertTrue("Principal components improve accuracy", Math.abs(errors[2]) < 0.5 * Math.abs(errors[3]));
+	}
+
 	@Test
 	public void testScalarValuedBrownianMotionWithJarqueBeraTest() {
 		// The parameters
@@ -0,0 +1,122 @@
+
+package net.finmath.montecarlo.automaticdifferentiation.backward;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.BrownianMotionFromMersenneRandomNumbers;
+import net.finmath.montecarlo.assetderivativevaluation.MonteCarloAssetModel;
+import net.finmath.montecarlo.assetderivativevaluation.models.BlackScholesModel;
+import net.finmath.montecarlo.assetderivativevaluation.products.BermudanOption;
+import net.finmath.montecarlo.automaticdifferentiation.RandomVariableDifferentiable;
+import net.finmath.montecarlo.process.EulerSchemeFromProcessModel;
+import net.finmath.stochastic.RandomVariable;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * Unit test for the parallel reverse sweep of {@link RandomVariableDifferentiableAAD}, comparing the gradients to the sequential reverse sweep.
+ */
+public class RandomVariableDifferentiableAADParallelReverseSweepTest {
+
+	@Test
+	public void testGradientOfFunction() {
+		final double[][] gradientSequential = getGradientOfFunction(getFactory(false, "DISCRETE_DELTA"));
+		final double[][] gradientParallel = getGradientOfFunction(getFactory(true, "DISCRETE_DELTA"));
+
+		for(int i=0; i<gradientSequential.length; i++) {
+			Assert.assertArrayEquals("Gradient w.r.t. argument " + i, gradientSequential[i], gradientParallel[i], 1E-12);
+		}
+	}
+
+	@Test
+	public void testGradientOfFunctionWithPathwiseIndicator() {
+		final double[][] gradientSequential = getGradientOfFunction(getFactory(false, "ONE"));
+		final double[][] gradientParallel = getGradientOfFunction(getFactory(true, "ONE"));
+
+		for(int i=0; i<gradientSequential.length; i++) {
+			Assert.assertArrayEquals("Gradient w.r.t. argument " + i, gradientSequential[i], gradientParallel[i], 1E-12);
+		}
+	}
+
+	@Test
+	public void testGradientOfBermudanOption() throws CalculationException {
+		final double[] sensitivitiesSequential = getSensitivitiesOfBermudanOption(getFactory(false, "DISCRETE_DELTA"));
+		final double[] sensitivitiesParallel = getSensitivitiesOfBermudanOption(getFactory(true, "DISCRETE_DELTA"));
+
+		System.out.println("Bermudan option value, delta, rho, vega:");
+		System.out.println("sequential reverse sweep...: " + java.util.Arrays.toString(sensitivitiesSequential));
+		System.out.println("parallel reverse sweep.....: " + java.util.Arrays.toString(sensitivitiesParallel));
+
+		Assert.assertArrayEquals(sensitivitiesSequential, sensitivitiesParallel, 1E-12);
+	}
+
+	private static RandomVariableDifferentiableAADFactory getFactory(final boolean isParallelReverseSweep, final String diracDeltaApproximationMethod) {
+		final Map<String, Object> properties = new HashMap<>();
+		properties.put("isParallelReverseSweep", isParallelReverseSweep);
+		properties.put("diracDeltaApproximationMethod", diracDeltaApproximationMethod);
+		return new RandomVariableDifferentiableAADFactory(properties);
+	}
+
+	private static double[][] getGradientOfFunction(final RandomVariableDifferentiableAADFactory factory) {
+		final int numberOfPaths = 10000;
+		final Random random = new Random(3141);
+		final RandomVariableDifferentiable[] x = new RandomVariableDifferentiable[3];
+		for(int i=0; i<x.length; i++) {
+			final double[] values = new double[numberOfPaths];
+			for(int k=0; k<numberOfPaths; k++) {
+				values[k] = 0.5 + random.nextDouble();
+			}
+			x[i] = factory.createRandomVariable(0.0, values);
+		}
+		final RandomVariableDifferentiable scalar = factory.createRandomVariable(0.7);
+
+		RandomVariable y = x[0].mult(x[1]).add(x[2].sqrt()).div(x[1].exp()).mult(scalar);
+		y = y.addProduct(x[0].log(), x[2]).addRatio(x[1], x[2].squared()).subRatio(x[0].sin(), x[1].cos().add(2.0));
+		y = y.accrue(x[1], 0.5).discount(x[2], 0.25).sub(x[0].pow(3.0)).bus(x[1].invert());
+		y = y.cap(x[0].mult(10.0)).floor(x[2].mult(-5.0)).add(x[0].sub(1.0).abs().mult(x[1]));
+		y = y.mult(x[0].sub(1.0).choose(x[1], x[2])).add(y.average().mult(x[2])).vid(x[0].add(100.0));
+		y = y.add(x[1].variance().mult(scalar));
+
+		final Map<Long, RandomVariable> gradient = ((RandomVariableDifferentiable)y).getGradient();
+
+		final double[][] result = new double[x.length+1][];
+		for(int i=0; i<x.length; i++) {
+			result[i] = gradient.get(x[i].getID()).getRealizations();
+		}
+		result[x.length] = new double[] { gradient.get(scalar.getID()).getAverage() };
+		return result;
+	}
+
+	private static double[] getSensitivitiesOfBermudanOption(final RandomVariableDifferentiableAADFactory factory) throws CalculationException {
+		final RandomVariableDifferentiable initialValue	= factory.createRandomVariable(1.0);
+		final RandomVariableDifferentiable riskFreeRate	= factory.createRandomVariable(0.05);
+		final RandomVariableDifferentiable volatility	= factory.createRandomVariable(0.30);
+
+		final BlackScholesModel model = new BlackScholesModel(initialValue, riskFreeRate, volatility, factory);
+
+		final TimeDiscretization timeDiscretization = new TimeDiscretizationFromArray(0.0, 20, 0.25);
+		final MonteCarloAssetModel monteCarloBlackScholesModel = new MonteCarloAssetModel(model,
+				new EulerSchemeFromProcessModel(model, new BrownianMotionFromMersenneRandomNumbers(timeDiscretization, 1, 10000, 3141)));
+
+		final double[] exerciseDates = new double[] { 1.0, 2.0, 3.0, 4.0, 5.0 };
+		final double[] notionals = new double[] { 1.0, 1.0, 1.0, 1.0, 1.0 };
+		final double[] strikes = new double[] { 1.05, 1.10, 1.15, 1.20, 1.25 };
+		final BermudanOption option = new BermudanOption(exerciseDates, notionals, strikes);
+
+		final RandomVariable value = option.getValue(0.0, monteCarloBlackScholesModel);
+		final Map<Long, RandomVariable> gradient = ((RandomVariableDifferentiable)value).getGradient();
+
+		return new double[] {
+				value.getAverage(),
+				gradient.get(initialValue.getID()).getAverage(),
+				gradient.get(riskFreeRate.getID()).getAverage(),
+				gradient.get(volatility.getID()).getAverage()
+		};
+	}
+}
@@ -245,8 +245,6 @@ public class RandomVariableDifferentiableAADPerformanceTest {
 		private final double	optionMaturity = 50.0;
 		private final double	optionStrike = 1.10;
 
-		private AssetModelMonteCarloSimulationModel monteCarloBlackScholesModel;
-
 		private long peakMemory;
 
 		@Override
@@ -268,7 +266,7 @@ public class RandomVariableDifferentiableAADPerformanceTest {
 			final MonteCarloProcessFromProcessModel process = new EulerSchemeFromProcessModel(model, new BrownianMotionFromMersenneRandomNumbers(timeDiscretization, 1 /* numberOfFactors */, numberOfPaths, seed));
 
 			// Using the process (Euler scheme), create an MC simulation of a Black-Scholes model
-			monteCarloBlackScholesModel = new MonteCarloAssetModel(model, process);
+			final AssetModelMonteCarloSimulationModel monteCarloBlackScholesModel = new MonteCarloAssetModel(model, process);
 
 			/*
 			 * Value a call option (using the product implementation)
@@ -316,8 +314,6 @@ public class RandomVariableDifferentiableAADPerformanceTest {
 		private final double	optionMaturity = 50.0;
 		private final double	optionStrike = 1.05;
 
-		private AssetModelMonteCarloSimulationModel monteCarloBlackScholesModel;
-
 		private long peakMemory;
 
 		@Override
@@ -339,7 +335,7 @@ public class RandomVariableDifferentiableAADPerformanceTest {
 			final MonteCarloProcessFromProcessModel process = new EulerSchemeFromProcessModel(model, new BrownianMotionFromMersenneRandomNumbers(timeDiscretization, 1 /* numberOfFactors */, numberOfPaths, seed));
 
 			// Using the process (Euler scheme), create an MC simulation of a Black-Scholes model
-			monteCarloBlackScholesModel = new MonteCarloAssetModel(model, process);
+			final AssetModelMonteCarloSimulationModel monteCarloBlackScholesModel = new MonteCarloAssetModel(model, process);
 
 			/*
 			 * Value a call option (using the product implementation)
@@ -382,8 +378,6 @@ public class RandomVariableDifferentiableAADPerformanceTest {
 
 		private final int		seed				= 31415;
 
-		private AssetModelMonteCarloSimulationModel monteCarloBlackScholesModel;
-
 		private long peakMemory;
 
 		@Override
@@ -405,7 +399,7 @@ public class RandomVariableDifferentiableAADPerformanceTest {
 			final MonteCarloProcessFromProcessModel process = new EulerSchemeFromProcessModel(model, new BrownianMotionFromMersenneRandomNumbers(timeDiscretization, 1 /* numberOfFactors */, numberOfPaths, seed));
 
 			// Using the process (Euler scheme), create an MC simulation of a Black-Scholes model
-			monteCarloBlackScholesModel = new MonteCarloAssetModel(model, process);
+			final AssetModelMonteCarloSimulationModel monteCarloBlackScholesModel = new MonteCarloAssetModel(model, process);
 
 			/*
 			 * Value a call option (using the product implementation)
@@ -444,7 +438,8 @@ public class RandomVariableDifferentiableAADPerformanceTest {
 			new RandomVariableFromArrayFactory(),
 			//			new RandomVariableDifferentiableAADPathwiseFactory(),
 			//			new RandomVariableDifferentiableAADStochasticNonOptimizedFactory(),
-			new RandomVariableDifferentiableAADFactory()
+			new RandomVariableDifferentiableAADFactory(),
+			new RandomVariableDifferentiableAADTapeFactory()
 	};
 
 	private static int numberOfPaths = 10000;//10000;		/* In the paper we use 100000 */
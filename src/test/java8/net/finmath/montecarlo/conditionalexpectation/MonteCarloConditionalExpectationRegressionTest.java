@@ -0,0 +1,116 @@
+package net.finmath.montecarlo.conditionalexpectation;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.SingularValueDecomposition;
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.finmath.montecarlo.BrownianMotion;
+import net.finmath.montecarlo.BrownianMotionFromMersenneRandomNumbers;
+import net.finmath.stochastic.RandomVariable;
+import net.finmath.stochastic.Scalar;
+import net.finmath.time.TimeDiscretizationFromArray;
+
+/**
+ * Tests the regression of {@link MonteCarloConditionalExpectationRegression} against a direct calculation of the normal equations.
+ */
+public class MonteCarloConditionalExpectationRegressionTest {
+
+	private static final int numberOfPaths = 100000;
+
+	@Test
+	public void testRegressionParameters() {
+		final BrownianMotion brownianMotion = new BrownianMotionFromMersenneRandomNumbers(new TimeDiscretizationFromArray(0.0, 1.0), 2, numberOfPaths, 3141);
+		final RandomVariable x = brownianMotion.getBrownianIncrement(0, 0);
+		final RandomVariable[] basisFunctions = new RandomVariable[] { new Scalar(1.0), x, x.squared(), x.pow(3), x.pow(4) };
+		final RandomVariable dependent = x.exp().add(brownianMotion.getBrownianIncrement(0, 1));
+
+		final double[] linearRegressionParameters = new MonteCarloConditionalExpectationRegression(basisFunctions).getLinearRegressionParameters(dependent);
+		final double[] linearRegressionParametersExpected = getLinearRegressionParametersUsingSVD(basisFunctions, dependent);
+
+		Assert.assertArrayEquals(linearRegressionParametersExpected, linearRegressionParameters, 1E-10);
+	}
+
+	@Test
+	public void testBatchedRegression() {
+		final BrownianMotion brownianMotion = new BrownianMotionFromMersenneRandomNumbers(new TimeDiscretizationFromArray(0.0, 1.0), 1, numberOfPaths, 3141);
+		final RandomVariable x = brownianMotion.getBrownianIncrement(0, 0);
+		final RandomVariable[] basisFunctions = new RandomVariable[] { new Scalar(1.0), x, x.squared(), x.pow(3) };
+		final RandomVariable[] dependents = new RandomVariable[] { x.exp(), x.sin(), x.floor(0.0), new Scalar(2.0) };
+
+		final MonteCarloConditionalExpectationRegression regression = new MonteCarloConditionalExpectationRegression(basisFunctions);
+		final double[][] linearRegressionParameters = regression.getLinearRegressionParameters(dependents);
+		final RandomVariable[] conditionalExpectations = regression.getConditionalExpectation(dependents);
+
+		for(int k=0; k<dependents.length; k++) {
+			Assert.assertArrayEquals(regression.getLinearRegressionParameters(dependents[k]), linearRegressionParameters[k], 1E-15);
+			Assert.assertEquals(0.0, conditionalExpectations[k].sub(regression.getConditionalExpectation(dependents[k])).getStandardDeviation(), 1E-15);
+		}
+	}
+
+	@Test
+	public void testAveragesOfProducts() {
+		// The number of paths is not a multiple of the chunk size
+		final BrownianMotion brownianMotion = new BrownianMotionFromMersenneRandomNumbers(new TimeDiscretizationFromArray(0.0, 1.0), 2, 3 * numberOfPaths + 17, 3141);
+		final RandomVariable x = brownianMotion.getBrownianIncrement(0, 0).add(1E4);
+		final RandomVariable y = brownianMotion.getBrownianIncrement(0, 1).mult(1E-4).add(1.0);
+		final RandomVariable[] randomVariables = new RandomVariable[] { new Scalar(1.0), x, y };
+
+		final double[][] averagesOfProducts = MonteCarloConditionalExpectationRegression.getAveragesOfProducts(randomVariables, randomVariables, null);
+
+		// Compare with the (Kahan summed) averages of the random variables
+		for(int i=0; i<randomVariables.length; i++) {
+			for(int j=0; j<randomVariables.length; j++) {
+				final double expected = randomVariables[i].mult(randomVariables[j]).getAverage();
+				Assert.assertEquals("Average of product " + i + "," + j, expected, averagesOfProducts[i][j], 1E-15 * Math.abs(expected));
+			}
+		}
+	}
+
+	@Test
+	public void testSingularBasisFunctions() {
+		final BrownianMotion brownianMotion = new BrownianMotionFromMersenneRandomNumbers(new TimeDiscretizationFromArray(0.0, 1.0), 1, numberOfPaths, 3141);
+		final RandomVariable x = brownianMotion.getBrownianIncrement(0, 0);
+
+		// The basis functions are linearly dependent, the regression falls back to the SVD (solution with minimal norm)
+		final RandomVariable[] basisFunctions = new RandomVariable[] { new Scalar(1.0), x, x.mult(2.0), new Scalar(3.0) };
+		final RandomVariable dependent = x.mult(5.0).add(1.0);
+
+		final RandomVariable conditionalExpectation = new MonteCarloConditionalExpectationRegression(basisFunctions).getConditionalExpectation(dependent);
+
+		Assert.assertEquals(0.0, conditionalExpectation.sub(dependent).getStandardDeviation(), 1E-10);
+	}
+
+	@Test
+	public void testLocalizedRegressionParameters() {
+		final BrownianMotion brownianMotion = new BrownianMotionFromMersenneRandomNumbers(new TimeDiscretizationFromArray(0.0, 1.0), 1, numberOfPaths, 3141);
+		final RandomVariable x = brownianMotion.getBrownianIncrement(0, 0);
+		final RandomVariable[] basisFunctions = new RandomVariable[] { new Scalar(1.0), x, x.squared() };
+		final RandomVariable dependent = x.exp().mult(10.0);
+
+		final double standardDeviations = 1.0;
+		final RandomVariable localizerWeights = dependent.squared().sub(Math.pow(dependent.getStandardDeviation()*standardDeviations,2.0)).choose(new Scalar(0.0), new Scalar(1.0));
+		final RandomVariable[] basisFunctionsLocalized = new RandomVariable[basisFunctions.length];
+		for(int i=0; i<basisFunctions.length; i++) {
+			basisFunctionsLocalized[i] = basisFunctions[i].mult(localizerWeights);
+		}
+
+		final double[] linearRegressionParameters = new MonteCarloConditionalExpectationRegressionLocalizedOnDependents(basisFunctions, standardDeviations).getLinearRegressionParameters(dependent);
+		final double[] linearRegressionParametersExpected = getLinearRegressionParametersUsingSVD(basisFunctionsLocalized, dependent.mult(localizerWeights));
+
+		Assert.assertArrayEquals(linearRegressionParametersExpected, linearRegressionParameters, 1E-10);
+	}
+
+	private static double[] getLinearRegressionParametersUsingSVD(final RandomVariable[] basisFunctions, final RandomVariable dependent) {
+		final double[][] XTX = new double[basisFunctions.length][basisFunctions.length];
+		final double[] XTy = new double[basisFunctions.length];
+		for(int i=0; i<basisFunctions.length; i++) {
+			for(int j=0; j<basisFunctions.length; j++) {
+				XTX[i][j] = basisFunctions[i].mult(basisFunctions[j]).getAverage();
+			}
+			XTy[i] = dependent.mult(basisFunctions[i]).getAverage();
+		}
+		return new SingularValueDecomposition(new Array2DRowRealMatrix(XTX)).getSolver().solve(new ArrayRealVector(XTy)).toArray();
+	}
+}
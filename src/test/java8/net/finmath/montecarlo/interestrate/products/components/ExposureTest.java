@@ -169,6 +169,60 @@ public class ExposureTest {
 		}
 	}
 
+	@Test
+	public void testExposureProfile() throws CalculationException {
+		/*
+		 * Create a receiver swap (receive fix, pay float)
+		 */
+		final TimeDiscretizationFromArray tenor = new TimeDiscretizationFromArray(0.0, 40, 0.25);
+		final Schedule schedule = new RegularSchedule(tenor);
+
+		final Notional notional = new NotionalFromConstant(1.0);
+		final AbstractIndex index = new LIBORIndex("forwardCurve", 0.0, 0.25);
+		final double fixedCoupon = 0.025;
+
+		final SwapLeg swapLegRec = new SwapLeg(schedule, notional, index, 0.0 /* spread */, false /* isNotionalExchanged */);
+		final SwapLeg swapLegPay = new SwapLeg(schedule, notional, null, fixedCoupon /* spread */, false /* isNotionalExchanged */);
+		final AbstractLIBORMonteCarloProduct swap = new Swap(swapLegRec, swapLegPay);
+
+		final LIBORModelMonteCarloSimulationModel lmm = createLIBORMarketModel(Measure.SPOT, 5000, 5, 0.1);
+
+		final double[] evaluationTimes = new TimeDiscretizationFromArray(0.0, 24, 0.5).getAsDoubleArray();
+		final double[] quantiles = { 0.9, 0.99 };
+
+		final ExposureProfileEstimator.ExposureProfile profile = new ExposureProfileEstimator(swap, evaluationTimes, quantiles).getExposureProfile(lmm);
+
+		final double[] expectedExposure				= profile.getExpectedExposure();
+		final double[] expectedPositiveExposure		= profile.getExpectedPositiveExposure();
+		final double[] expectedNegativeExposure		= profile.getExpectedNegativeExposure();
+		final double[] potentialFutureExposure90	= profile.getPotentialFutureExposure(0);
+		final double[] potentialFutureExposure99	= profile.getPotentialFutureExposure(1);
+
+		// Compare with the sequential calculation by the exposure estimator
+		final TermStructureMonteCarloProduct swapExposureEstimator = new ExposureEstimator(swap);
+		for(int timeIndex = 0; timeIndex < evaluationTimes.length; timeIndex++) {
+			final double observationDate = evaluationTimes[timeIndex];
+			final RandomVariable valuesEstimatedExposure = swapExposureEstimator.getValue(observationDate, lmm);
+
+			System.out.println(observationDate + "\t" + formatter6.format(expectedExposure[timeIndex]) + " \t " + formatter6.format(expectedPositiveExposure[timeIndex]) + " \t " + formatter6.format(expectedNegativeExposure[timeIndex]) + " \t " + formatter6.format(potentialFutureExposure99[timeIndex]));
+
+			Assert.assertEquals("Expected exposure", valuesEstimatedExposure.getAverage(), expectedExposure[timeIndex], 1E-12);
+			Assert.assertEquals("Expected positive exposure", valuesEstimatedExposure.floor(0.0).getAverage(), expectedPositiveExposure[timeIndex], 1E-12);
+			Assert.assertEquals("Expected negative exposure", valuesEstimatedExposure.cap(0.0).getAverage(), expectedNegativeExposure[timeIndex], 1E-12);
+			Assert.assertEquals("Potential future exposure", valuesEstimatedExposure.floor(0.0).getQuantile(0.99), potentialFutureExposure99[timeIndex], 1E-12);
+
+			Assert.assertEquals("Expected exposure", expectedPositiveExposure[timeIndex] + expectedNegativeExposure[timeIndex], expectedExposure[timeIndex], 1E-12);
+			Assert.assertTrue("Potential future exposure", potentialFutureExposure99[timeIndex] >= potentialFutureExposure90[timeIndex]);
+		}
+
+		// A cache bounded to a few random variables (evicting and re-calculating values) does not change the profile
+		final long cacheMaximumSizeInBytes = 10L * Double.BYTES * lmm.getNumberOfPaths();
+		final ExposureProfileEstimator.ExposureProfile profileWithBoundedCache = new ExposureProfileEstimator(swap, evaluationTimes, quantiles, cacheMaximumSizeInBytes).getExposureProfile(lmm);
+
+		Assert.assertArrayEquals("Expected exposure", expectedExposure, profileWithBoundedCache.getExpectedExposure(), 1E-12);
+		Assert.assertArrayEquals("Potential future exposure", potentialFutureExposure99, profileWithBoundedCache.getPotentialFutureExposure(1), 1E-12);
+	}
+
 	public static LIBORModelMonteCarloSimulationModel createLIBORMarketModel(
 			final Measure measure, final int numberOfPaths, final int numberOfFactors, final double correlationDecayParam) throws CalculationException {
 
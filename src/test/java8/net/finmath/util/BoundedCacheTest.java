@@ -0,0 +1,85 @@
+package net.finmath.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.finmath.montecarlo.RandomVariableFromDoubleArray;
+import net.finmath.stochastic.RandomVariable;
+import net.finmath.util.BoundedCache.EvictionPolicy;
+
+/**
+ * Unit test for {@link BoundedCache}.
+ */
+public class BoundedCacheTest {
+
+	@Test
+	public void testLeastRecentlyUsed() {
+		final BoundedCache<Integer, String> cache = new BoundedCache<>(3, EvictionPolicy.LEAST_RECENTLY_USED, value -> 1);
+
+		cache.put(1, "one");
+		cache.put(2, "two");
+		cache.put(3, "three");
+		cache.get(1);
+		cache.put(4, "four");
+
+		Assert.assertEquals(3, cache.size());
+		Assert.assertEquals("one", cache.get(1));
+		Assert.assertNull("Least recently used entry evicted", cache.get(2));
+		Assert.assertEquals("three", cache.get(3));
+		Assert.assertEquals("four", cache.get(4));
+	}
+
+	@Test
+	public void testLeastFrequentlyUsed() {
+		final BoundedCache<Integer, String> cache = new BoundedCache<>(3, EvictionPolicy.LEAST_FREQUENTLY_USED, value -> 1);
+
+		cache.put(1, "one");
+		cache.put(2, "two");
+		cache.put(3, "three");
+		cache.get(1);
+		cache.get(1);
+		cache.get(2);
+		cache.get(3);
+		cache.get(3);
+		cache.put(4, "four");
+
+		Assert.assertNull("Least frequently used entry evicted", cache.get(2));
+		Assert.assertEquals("one", cache.get(1));
+		Assert.assertEquals("three", cache.get(3));
+		Assert.assertEquals("four", cache.get(4));
+	}
+
+	@Test
+	public void testSizeInBytesAndStatistics() {
+		final BoundedCache<Integer, RandomVariable> cache = BoundedCache.ofRandomVariables(1000 * Double.BYTES, EvictionPolicy.LEAST_RECENTLY_USED);
+
+		final RandomVariable stochastic = new RandomVariableFromDoubleArray(0.0, new double[600]);
+		final RandomVariable deterministic = new RandomVariableFromDoubleArray(1.0);
+		final RandomVariable tooLarge = new RandomVariableFromDoubleArray(0.0, new double[1001]);
+
+		cache.put(1, stochastic);
+		cache.put(2, deterministic);
+		Assert.assertEquals(601 * Double.BYTES, cache.getSizeInBytes());
+
+		cache.put(3, tooLarge);
+		Assert.assertNull("Value larger than the cache is not stored", cache.get(3));
+
+		cache.put(4, stochastic);
+		Assert.assertNull("Entry evicted", cache.get(1));
+		Assert.assertSame(deterministic, cache.get(2));
+		Assert.assertSame(stochastic, cache.get(4));
+		Assert.assertEquals(601 * Double.BYTES, cache.getSizeInBytes());
+
+		final BoundedCache.Statistics statistics = cache.getStatistics();
+		System.out.println(statistics);
+		Assert.assertEquals(2, statistics.getNumberOfHits());
+		Assert.assertEquals(2, statistics.getNumberOfMisses());
+		Assert.assertEquals(1, statistics.getNumberOfEvictions());
+		Assert.assertEquals(2, statistics.getNumberOfEntries());
+		Assert.assertEquals(0.5, statistics.getHitRatio(), 0.0);
+
+		cache.clear();
+		Assert.assertEquals(0, cache.size());
+		Assert.assertEquals(0, cache.getSizeInBytes());
+	}
+}